@@ -0,0 +1,117 @@
+package com.analyfy.analify.Controller;
+
+import com.analyfy.analify.DTO.Statistics.AnalyticsJobDTO;
+import com.analyfy.analify.DTO.Statistics.AnalyticsJobRequest;
+import com.analyfy.analify.Enum.AnalyticsJobStatus;
+import com.analyfy.analify.Enum.UserRole;
+import com.analyfy.analify.Service.AnalyticsJobService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Asynchronous analytics reports: submit a spec, follow the job, download the result.
+ */
+@RestController
+@RequestMapping("/api/analytics/jobs")
+@RequiredArgsConstructor
+@Slf4j
+public class AnalyticsJobController {
+
+    // A subscriber is dropped after this long without the job finishing; it can subscribe again
+    private static final long EVENTS_TIMEOUT_MS = 10 * 60_000L;
+
+    private final AnalyticsJobService analyticsJobService;
+
+    /**
+     * Queue a report; 202 with the job, 429 when the user has too many active jobs, 503 when the queue is full.
+     */
+    @PostMapping
+    public ResponseEntity<AnalyticsJobDTO> submitJob(
+            @RequestAttribute("userId") Long userId,
+            @RequestAttribute("role") UserRole role,
+            @RequestBody AnalyticsJobRequest request) {
+        AnalyticsJobDTO job = analyticsJobService.submit(userId, role, request);
+        if (job == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping
+    public ResponseEntity<List<AnalyticsJobDTO>> listJobs(@RequestAttribute("userId") Long userId) {
+        return ResponseEntity.ok(analyticsJobService.list(userId));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<AnalyticsJobDTO> getJob(@RequestAttribute("userId") Long userId, @PathVariable String jobId) {
+        return ResponseEntity.ok(analyticsJobService.status(jobId, userId));
+    }
+
+    /**
+     * The job's state as Server-Sent Events: a "status" event now and after every change (started,
+     * section computed, finished); the stream ends with the finished state.
+     */
+    @GetMapping(value = "/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(@RequestAttribute("userId") Long userId, @PathVariable String jobId) {
+        SseEmitter emitter = new SseEmitter(EVENTS_TIMEOUT_MS);
+        Runnable unsubscribe = analyticsJobService.subscribe(jobId, userId, job -> {
+            try {
+                emitter.send(SseEmitter.event().name("status").data(job, MediaType.APPLICATION_JSON));
+                if (AnalyticsJobStatus.valueOf(job.getStatus()).isFinished()) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                // Client went away: the job goes on, this listener is dropped
+                log.debug("Dropping job event for {}: {}", jobId, e.getMessage());
+                throw new UncheckedIOException(e);
+            }
+        });
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+        return emitter;
+    }
+
+    /**
+     * The report of a SUCCEEDED job; 202 with the job while it is queued or running, 409 when it failed or was cancelled.
+     */
+    @GetMapping("/{jobId}/result")
+    public ResponseEntity<Object> getJobResult(@RequestAttribute("userId") Long userId, @PathVariable String jobId) {
+        Object result = analyticsJobService.result(jobId, userId);
+        if (result != null) {
+            return ResponseEntity.ok(result);
+        }
+        AnalyticsJobDTO job = analyticsJobService.status(jobId, userId);
+        HttpStatus status = AnalyticsJobStatus.valueOf(job.getStatus()).isFinished() ? HttpStatus.CONFLICT : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(job);
+    }
+
+    /**
+     * Cancel a queued or running job, or discard a finished one and its result.
+     */
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<AnalyticsJobDTO> cancelJob(@RequestAttribute("userId") Long userId, @PathVariable String jobId) {
+        return ResponseEntity.ok(analyticsJobService.cancel(jobId, userId));
+    }
+
+    /**
+     * Queue length, running jobs and outcome counters (ADMIN_G only)
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getJobStats(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(analyticsJobService.stats());
+    }
+}
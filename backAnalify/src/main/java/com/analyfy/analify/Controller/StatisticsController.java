@@ -1,24 +1,67 @@
 package com.analyfy.analify.Controller;
 
 import com.analyfy.analify.DTO.Statistics.*;
+import com.analyfy.analify.Enum.AffinityMetric;
+import com.analyfy.analify.Enum.ComparisonPeriod;
+import com.analyfy.analify.Enum.ComparisonScope;
+import com.analyfy.analify.Enum.LeaderboardWindow;
+import com.analyfy.analify.Enum.TimeSeriesSampling;
 import com.analyfy.analify.Enum.UserRole;
 import com.analyfy.analify.Service.StatisticsService;
+import com.analyfy.analify.Service.DashboardWarmUpJob;
 import com.analyfy.analify.Service.EnhancedStatisticsService;
+import com.analyfy.analify.Service.Analytics.AdmissionControl;
+import com.analyfy.analify.Service.Analytics.BasketAffinityTracker;
+import com.analyfy.analify.Service.Analytics.DashboardCache;
+import com.analyfy.analify.Service.Analytics.DashboardExecutionEngine;
+import com.analyfy.analify.Service.Analytics.ForecastBatchJob;
+import com.analyfy.analify.Service.Analytics.BiddingStatsService;
+import com.analyfy.analify.Service.Analytics.HeavyHittersTracker;
+import com.analyfy.analify.Service.Analytics.QueryCounter;
+import com.analyfy.analify.Service.Analytics.QueryMemo;
+import com.analyfy.analify.Service.Analytics.SalesCube;
+import com.analyfy.analify.Service.Analytics.SalesRollupService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
 
 @RestController
 @RequestMapping("/api/analytics")
 @RequiredArgsConstructor
+@Slf4j
 public class StatisticsController {
 
+    // Longer than analytics.engine.timeout-seconds, so the engine reports a timeout before the connection drops
+    private static final long STREAM_TIMEOUT_MS = 60_000L;
+    // Number of SQL statements the request executed (0 when served from the dashboard cache)
+    private static final String QUERY_COUNT_HEADER = "X-Query-Count";
+    // Repository calls answered from the request's query memo instead of the database
+    private static final String QUERY_MEMO_HITS_HEADER = "X-Query-Memo-Hits";
+
     private final StatisticsService statisticsService;
     private final EnhancedStatisticsService enhancedStatisticsService;
+    private final SalesRollupService salesRollupService;
+    private final DashboardCache dashboardCache;
+    private final SalesCube salesCube;
+    private final DashboardExecutionEngine executionEngine;
+    private final ForecastBatchJob forecastBatchJob;
+    private final HeavyHittersTracker heavyHittersTracker;
+    private final BasketAffinityTracker basketAffinityTracker;
+    private final BiddingStatsService biddingStatsService;
+    private final DashboardWarmUpJob dashboardWarmUpJob;
+    private final AdmissionControl admissionControl;
 
     @GetMapping("/dashboard")
     public ResponseEntity<DashboardStatsDTO> getDashboard(
@@ -28,7 +71,10 @@ public class StatisticsController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long storeId,
             @RequestParam(required = false) Long investorId,
-            @RequestParam(required = false) Long productId) {
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) String compareTo,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String sampling) {
 
         StatisticsFilterDTO filter = StatisticsFilterDTO.builder()
                 .startDate(startDate)
@@ -36,6 +82,9 @@ public class StatisticsController {
                 .storeId(storeId)
                 .investorId(investorId)
                 .productId(productId)
+                .compareTo(ComparisonPeriod.fromParam(compareTo))
+                .maxPoints(maxPoints)
+                .sampling(TimeSeriesSampling.fromParam(sampling))
                 .build();
 
         return ResponseEntity.ok(statisticsService.getDashboard(userId, role, filter));
@@ -49,7 +98,12 @@ public class StatisticsController {
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) Long storeId,
             @RequestParam(required = false) Long investorId,
-            @RequestParam(required = false) Long productId) {
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Set<String> include,
+            @RequestParam(required = false) String compareTo,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String sampling,
+            @RequestParam(required = false) Boolean approximate) {
 
         StatisticsFilterDTO filter = StatisticsFilterDTO.builder()
                 .startDate(startDate)
@@ -57,9 +111,82 @@ public class StatisticsController {
                 .storeId(storeId)
                 .investorId(investorId)
                 .productId(productId)
+                .compareTo(ComparisonPeriod.fromParam(compareTo))
+                .maxPoints(maxPoints)
+                .sampling(TimeSeriesSampling.fromParam(sampling))
+                .approximate(approximate)
                 .build();
 
-        return ResponseEntity.ok(enhancedStatisticsService.getEnhancedDashboard(userId, role, filter));
+        LongAdder queries = new LongAdder();
+        QueryMemo memo = new QueryMemo();
+        EnhancedDashboardDTO dashboard = QueryCounter.counting(queries, () -> QueryMemo.using(memo,
+                () -> enhancedStatisticsService.getEnhancedDashboard(userId, role, filter, include)));
+        return ResponseEntity.ok()
+                .header(QUERY_COUNT_HEADER, String.valueOf(queries.sum()))
+                .header(QUERY_MEMO_HITS_HEADER, String.valueOf(memo.hits()))
+                .body(dashboard);
+    }
+
+    /**
+     * Same dashboard as /dashboard/enhanced, streamed as Server-Sent Events.
+     * One event per section (salesKpis, stockKpis, timeSeries, leaderboards, ...) in completion order,
+     * each carrying only that section's fields, then a final "complete" event with the number of queries executed and of memo hits.
+     */
+    @GetMapping(value = "/dashboard/enhanced/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEnhancedDashboard(
+            @RequestAttribute("userId") Long userId,
+            @RequestAttribute("role") UserRole role,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) Long investorId,
+            @RequestParam(required = false) Long productId,
+            @RequestParam(required = false) Set<String> include,
+            @RequestParam(required = false) String compareTo,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String sampling,
+            @RequestParam(required = false) Boolean approximate) {
+
+        StatisticsFilterDTO filter = StatisticsFilterDTO.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .storeId(storeId)
+                .investorId(investorId)
+                .productId(productId)
+                .compareTo(ComparisonPeriod.fromParam(compareTo))
+                .maxPoints(maxPoints)
+                .sampling(TimeSeriesSampling.fromParam(sampling))
+                .approximate(approximate)
+                .build();
+
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        executionEngine.submit(() -> {
+            try {
+                LongAdder queries = new LongAdder();
+                QueryMemo memo = new QueryMemo();
+                QueryCounter.counting(queries, () -> QueryMemo.using(memo, () -> {
+                    enhancedStatisticsService.streamEnhancedDashboard(userId, role, filter, include,
+                            (section, payload) -> sendEvent(emitter, section, payload));
+                    return null;
+                }));
+                sendEvent(emitter, "complete", Map.of("queryCount", queries.sum(), "memoHits", memo.hits()));
+                emitter.complete();
+            } catch (RuntimeException e) {
+                log.error("Streaming enhanced dashboard failed for user {}", userId, e);
+                sendEvent(emitter, "error", Map.of("message", String.valueOf(e.getMessage())));
+                emitter.complete();
+            }
+        });
+        return emitter;
+    }
+
+    private void sendEvent(SseEmitter emitter, String name, Object payload) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(payload, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            // Client went away: the dashboard still completes and lands in the cache
+            log.debug("Dropping dashboard event {}: {}", name, e.getMessage());
+        }
     }
 
     @GetMapping("/predictions")
@@ -92,4 +219,235 @@ public class StatisticsController {
         String query = requestBody.get("query");
         return ResponseEntity.ok(statisticsService.performDeepSearch(userId, role, query));
     }
-}
\ No newline at end of file
+
+    /**
+     * Rebuild the daily sales rollup from the full order history (ADMIN_G only)
+     */
+    @PostMapping("/rollup/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildSalesRollup(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Integer> rebuilt = salesRollupService.rebuild();
+        dashboardCache.clear();
+        return ResponseEntity.ok(rebuilt);
+    }
+
+    /**
+     * Rebuild the materialized section and bid statistics from the sections and bids (ADMIN_G only)
+     */
+    @PostMapping("/bidding-stats/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildBiddingStats(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Integer> rebuilt = biddingStatsService.rebuild();
+        dashboardCache.clear();
+        return ResponseEntity.ok(rebuilt);
+    }
+
+    /**
+     * Geo drill-down: the selected region / state / city (or the whole network) and its children, expanded
+     * depth levels down. Expand a child by requesting it with its id.
+     */
+    @GetMapping("/geo")
+    public ResponseEntity<GeoNodeDTO> getGeoDrillDown(
+            @RequestAttribute("userId") Long userId,
+            @RequestAttribute("role") UserRole role,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) Long investorId,
+            @RequestParam(required = false) Long regionId,
+            @RequestParam(required = false) Long stateId,
+            @RequestParam(required = false) Long cityId,
+            @RequestParam(required = false) Integer depth) {
+
+        StatisticsFilterDTO filter = StatisticsFilterDTO.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .storeId(storeId)
+                .investorId(investorId)
+                .build();
+
+        return ResponseEntity.ok(statisticsService.getGeoDrillDown(userId, role, filter, regionId, stateId, cityId, depth));
+    }
+
+    /**
+     * KPIs and revenue series of several stores or investors side by side (ADMIN_G only),
+     * e.g. /compare?scope=store&ids=1,2,3
+     */
+    @GetMapping("/compare")
+    public ResponseEntity<ScopeComparisonDTO> compareScopes(
+            @RequestAttribute("role") UserRole role,
+            @RequestParam(required = false) String scope,
+            @RequestParam List<Long> ids,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) Integer maxPoints) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        StatisticsFilterDTO filter = StatisticsFilterDTO.builder()
+                .startDate(startDate)
+                .endDate(endDate)
+                .maxPoints(maxPoints)
+                .build();
+
+        return ResponseEntity.ok(statisticsService.compareScopes(filter, ComparisonScope.fromParam(scope), ids));
+    }
+
+    /**
+     * Live top products, cities and investors of today, the last 7 or the last 30 days (ADMIN_G only)
+     */
+    @GetMapping("/leaderboards/live")
+    public ResponseEntity<LiveLeaderboardDTO> getLiveLeaderboards(
+            @RequestAttribute("role") UserRole role,
+            @RequestParam(required = false) String window,
+            @RequestParam(defaultValue = "10") int limit) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        LeaderboardWindow leaderboardWindow = LeaderboardWindow.fromParam(window);
+        if (!heavyHittersTracker.isServing()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(heavyHittersTracker.leaderboard(leaderboardWindow, Math.max(1, Math.min(limit, 100))));
+    }
+
+    /**
+     * Rebuild the live leaderboards from the order lines of the last 30 days (ADMIN_G only)
+     */
+    @PostMapping("/leaderboards/live/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildLiveLeaderboards(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(heavyHittersTracker.rebuild());
+    }
+
+    /**
+     * Products bought together: top pairs by support, confidence or lift, for every store or one store,
+     * optionally only pairs involving a product of the category (ADMIN_G only)
+     */
+    @GetMapping("/affinity")
+    public ResponseEntity<ProductAffinityDTO> getProductAffinity(
+            @RequestAttribute("role") UserRole role,
+            @RequestParam(required = false) Long storeId,
+            @RequestParam(required = false) Long categoryId,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "2") int minOrders,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        AffinityMetric metric = AffinityMetric.fromParam(sort);
+        if (!basketAffinityTracker.isServing()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(basketAffinityTracker.topPairs(storeId, categoryId, metric, minOrders,
+                Math.max(1, Math.min(limit, 100))));
+    }
+
+    /**
+     * Rebuild the product co-occurrence matrices from every order line (ADMIN_G only)
+     */
+    @PostMapping("/affinity/rebuild")
+    public ResponseEntity<Map<String, Object>> rebuildProductAffinity(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(basketAffinityTracker.rebuild());
+    }
+
+    /**
+     * Dashboard cache size and hit/miss counters (ADMIN_G only)
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<Map<String, Number>> getDashboardCacheStats(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(dashboardCache.stats());
+    }
+
+    /**
+     * Refresh the stored forecasts of every store, investor and top product now (ADMIN_G only)
+     */
+    @PostMapping("/forecast/batch")
+    public ResponseEntity<Map<String, Object>> runForecastBatch(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Object> stats = forecastBatchJob.run();
+        if (stats == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        dashboardCache.clear();
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Duration and scope counts of the last forecast batch (ADMIN_G only)
+     */
+    @GetMapping("/forecast/stats")
+    public ResponseEntity<Map<String, Object>> getForecastBatchStats(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(forecastBatchJob.stats());
+    }
+
+    /**
+     * Precompute the default dashboards of the platform, every store and every investor now (ADMIN_G only)
+     */
+    @PostMapping("/warmup")
+    public ResponseEntity<Map<String, Object>> runDashboardWarmUp(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        Map<String, Object> stats = dashboardWarmUpJob.run();
+        if (stats == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * Coverage and duration of the last dashboard warm-up (ADMIN_G only)
+     */
+    @GetMapping("/warmup/stats")
+    public ResponseEntity<Map<String, Object>> getDashboardWarmUpStats(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(dashboardWarmUpJob.stats());
+    }
+
+    /**
+     * Analytics admission: slots in use, orders in flight, and per lane the queue, measured cost and refusals (ADMIN_G only)
+     */
+    @GetMapping("/admission/stats")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        return ResponseEntity.ok(admissionControl.stats());
+    }
+
+    /**
+     * Reload the in-memory sales cube from the order lines (ADMIN_G only, when analytics.cube.enabled)
+     */
+    @PostMapping("/cube/reload")
+    public ResponseEntity<Map<String, Long>> reloadSalesCube(@RequestAttribute("role") UserRole role) {
+        if (role != UserRole.ADMIN_G) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!salesCube.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        Map<String, Long> loaded = salesCube.rebuild();
+        dashboardCache.clear();
+        return ResponseEntity.ok(loaded);
+    }
+}
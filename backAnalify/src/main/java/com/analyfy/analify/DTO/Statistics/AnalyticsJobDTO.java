@@ -0,0 +1,30 @@
+package com.analyfy.analify.DTO.Statistics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * State of an asynchronous analytics job. The result itself is downloaded from /jobs/{jobId}/result
+ * once the job has SUCCEEDED, until expiresAt.
+ */
+@Data
+@Builder
+public class AnalyticsJobDTO {
+    private String jobId;
+    private String type;
+    private String priority;
+    private String status; // QUEUED, RUNNING, SUCCEEDED, FAILED, CANCELLED
+
+    private LocalDateTime submittedAt;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private LocalDateTime expiresAt;
+
+    private Integer queuePosition; // Jobs starting before this one, while QUEUED
+    private List<String> completedSections; // enhanced_dashboard, in completion order
+    private Long queryCount;
+    private String error;
+}
@@ -0,0 +1,33 @@
+package com.analyfy.analify.DTO.Statistics;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Report spec of an asynchronous analytics job: its type and priority, then the same parameters as the
+ * matching synchronous endpoint (unused ones are ignored).
+ */
+@Data
+public class AnalyticsJobRequest {
+
+    private String type; // dashboard, enhanced_dashboard, predictions, comparison
+    private String priority; // high, normal, low
+
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private Long storeId;
+    private Long investorId;
+    private Long productId;
+    private Set<String> include; // enhanced_dashboard
+    private String compareTo;
+    private Integer maxPoints;
+    private String sampling;
+    private Boolean approximate;
+
+    private String metric; // predictions
+    private String scope; // comparison
+    private List<Long> ids; // comparison
+}
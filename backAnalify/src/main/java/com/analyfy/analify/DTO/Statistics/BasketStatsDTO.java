@@ -0,0 +1,25 @@
+package com.analyfy.analify.DTO.Statistics;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * Distribution of the orders of a scope: order value and units per order (with an investor filter, the
+ * investor's part of each order). Values are null without orders.
+ *
+ * Exact unless approximate is true: the percentiles then come from merged t-digests, and rankError estimates
+ * how far they are from the requested rank (a fraction of the orders, e.g. 0.005 = half a percent).
+ */
+@Data
+@Builder
+public class BasketStatsDTO {
+    private Long orders;
+    private Double medianOrderValue;
+    private Double p90OrderValue;
+    private Double medianBasketUnits;
+    private Double p90BasketUnits;
+
+    private Boolean approximate;
+    private String method; // exact, t-digest
+    private Double rankError;
+}
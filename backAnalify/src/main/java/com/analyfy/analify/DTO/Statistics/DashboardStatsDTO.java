@@ -33,4 +33,7 @@ public class DashboardStatsDTO {
     private List<RankingItem> topProducts;
     private List<RankingItem> topStores;
     private List<RankingItem> topInvestors;
+
+    // --- Period comparison (only with compareTo) ---
+    private PeriodComparisonDTO comparison;
 }
\ No newline at end of file
@@ -16,6 +16,7 @@ public class EnhancedDashboardDTO {
     private Long totalProductsSold;
     private Double averageOrderValue;
     private Long lowStockCount;
+    private BasketStatsDTO basketStats; // Median / p90 basket, exact or approximate
     
     // Section/Bidding (New)
     private Long totalSections;
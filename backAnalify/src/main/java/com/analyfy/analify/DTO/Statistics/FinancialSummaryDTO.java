@@ -27,6 +27,7 @@ public class FinancialSummaryDTO {
     private Double availableCash; // Estimated
     
     // Metrics
-    private Double revenueGrowthRate; // Month over month
+    private Double revenueGrowthRate; // Products + sections, vs comparison.compareTo
+    private PeriodComparisonDTO comparison;
     private String financialHealth; // EXCELLENT, GOOD, MODERATE, CONCERNING
 }
@@ -0,0 +1,25 @@
+package com.analyfy.analify.DTO.Statistics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One node of the geo drill-down (total, region, state, city or store) with its sales.
+ * children is null when the node was not expanded; expandable tells whether it has any.
+ */
+@Data
+@Builder
+public class GeoNodeDTO {
+    private String level; // total, region, state, city, store
+    private Long id;
+    private String name;
+
+    private Double revenue;
+    private Long orders;
+    private Long unitsSold;
+
+    private Boolean expandable;
+    private List<GeoNodeDTO> children;
+}
@@ -0,0 +1,28 @@
+package com.analyfy.analify.DTO.Statistics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Top products, cities and investors by revenue over a trailing window ending today, from the heavy hitters tracker.
+ *
+ * Exact unless exact is false: each revenue is then within errorBound of the true one, and an entry left out
+ * earned at most errorBound.
+ */
+@Data
+@Builder
+public class LiveLeaderboardDTO {
+    private String window; // today, 7d, 30d
+    private LocalDate startDate;
+    private LocalDate endDate;
+
+    private List<RankingItem> topProducts;
+    private List<RankingItem> topStores;
+    private List<RankingItem> topInvestors;
+
+    private Boolean exact;
+    private Double errorBound;
+}
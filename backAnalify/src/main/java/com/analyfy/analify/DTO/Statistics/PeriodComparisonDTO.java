@@ -0,0 +1,36 @@
+package com.analyfy.analify.DTO.Statistics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * Current period vs the comparison period of the same scope.
+ * Growth rates are percentages, null when the comparison period has nothing to compare with.
+ */
+@Data
+@Builder
+public class PeriodComparisonDTO {
+    private String compareTo; // previous_period, previous_year
+    private LocalDate currentStart;
+    private LocalDate currentEnd;
+    private LocalDate previousStart;
+    private LocalDate previousEnd;
+
+    // Product sales
+    private Double revenue;
+    private Double previousRevenue;
+    private Double revenueGrowthRate;
+    private Long orders;
+    private Long previousOrders;
+    private Double ordersGrowthRate;
+    private Long unitsSold;
+    private Long previousUnitsSold;
+    private Double unitsSoldGrowthRate;
+
+    // Won sections, by auction deadline
+    private Double sectionRevenue;
+    private Double previousSectionRevenue;
+    private Double sectionRevenueGrowthRate;
+}
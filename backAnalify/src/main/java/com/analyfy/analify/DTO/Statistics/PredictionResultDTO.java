@@ -10,6 +10,10 @@ public class PredictionResultDTO {
     private String metric;
     private List<TimeSeriesPoint> historicalData;
     private List<TimeSeriesPoint> forecastData;
+    // Prediction interval of each forecast day, at intervalLevel
+    private List<TimeSeriesPoint> forecastLower;
+    private List<TimeSeriesPoint> forecastUpper;
+    private Double intervalLevel;
     private String trendDescription;
     private Double confidenceScore;
 }
\ No newline at end of file
@@ -0,0 +1,38 @@
+package com.analyfy.analify.DTO.Statistics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Products bought together: the top product pairs of all orders, or of one store's, from the basket affinity tracker.
+ *
+ * Every share is relative to the baskets of the scope (one basket per order). A pair is oriented so that
+ * confidence (first -> second) is the stronger direction.
+ */
+@Data
+@Builder
+public class ProductAffinityDTO {
+    private Long storeId; // null: every store
+    private Long categoryId; // null: every category; otherwise pairs with at least one product of the category
+    private String sort; // support, confidence, lift
+    private Long baskets;
+
+    private List<Pair> pairs;
+
+    @Data
+    @Builder
+    public static class Pair {
+        private Long productId;
+        private String productName;
+        private Long otherProductId;
+        private String otherProductName;
+
+        private Long orders; // Baskets holding both products
+        private Double support;
+        private Double confidence; // Share of the baskets with the product that also hold the other one
+        private Double reverseConfidence; // Share of the baskets with the other product that also hold the product
+        private Double lift;
+    }
+}
@@ -5,6 +5,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
+
 @Data
 @Builder
 @AllArgsConstructor
@@ -13,4 +15,22 @@ public class RankingItem {
     private String name;
     private Double value;
     private String additionalInfo;
+
+    /**
+     * Map leaderboard rows (label, value[, additional info]), already ranked and limited by the query.
+     * Purely numeric labels are ids and are shown as "ID #n".
+     */
+    public static List<RankingItem> fromRows(List<Object[]> rows) {
+        return rows.stream().map(row -> {
+            String label = String.valueOf(row[0]);
+            if (label.matches("\\d+")) label = "ID #" + label;
+            Double value = row[1] instanceof Number ? ((Number) row[1]).doubleValue() : 0.0;
+            String extra = row.length > 2 && row[2] != null ? String.valueOf(row[2]) : null;
+            return RankingItem.builder()
+                .name(label)
+                .value(value)
+                .additionalInfo(extra)
+                .build();
+        }).toList();
+    }
 }
\ No newline at end of file
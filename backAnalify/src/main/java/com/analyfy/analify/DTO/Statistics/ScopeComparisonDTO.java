@@ -0,0 +1,36 @@
+package com.analyfy.analify.DTO.Statistics;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Core KPIs and revenue series of several stores or investors over the same range, in the requested id order.
+ * Every series has the same buckets (resolution), empty buckets included, so they can be drawn on one chart.
+ */
+@Data
+@Builder
+public class ScopeComparisonDTO {
+    private String scope; // store, investor
+    private LocalDate startDate;
+    private LocalDate endDate;
+    private String resolution; // day, week, month, quarter, year
+
+    private List<Entry> entries;
+
+    @Data
+    @Builder
+    public static class Entry {
+        private Long id;
+        private String name; // City of a store, user name of an investor
+
+        private Double revenue;
+        private Long orders;
+        private Long unitsSold;
+        private Double averageOrderValue;
+
+        private List<TimeSeriesPoint> revenueOverTime;
+    }
+}
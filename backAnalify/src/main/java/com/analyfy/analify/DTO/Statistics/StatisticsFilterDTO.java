@@ -1,6 +1,8 @@
 package com.analyfy.analify.DTO.Statistics;
 
 import lombok.Builder;
+import com.analyfy.analify.Enum.ComparisonPeriod;
+import com.analyfy.analify.Enum.TimeSeriesSampling;
 import lombok.Data;
 import java.time.LocalDate;
 
@@ -12,6 +14,10 @@ public class StatisticsFilterDTO {
     private Long storeId;
     private Long investorId;
     private Long productId;
+    private ComparisonPeriod compareTo;
+    private Integer maxPoints;
+    private TimeSeriesSampling sampling;
+    private Boolean approximate; // Basket percentiles from sketches, with their error bound
     private String region;
     private Double minRevenue;
     private Double maxRevenue;
@@ -6,10 +6,15 @@ import lombok.Data;
 @Data
 @Builder
 public class StockRecommendationDTO {
+    private Long storeId;
     private Long productId;
     private String productName;
     private Integer currentStock;
-    private Integer recommendedStock;
+    private Integer recommendedStock; // Order-up-to level
+    private Integer suggestedQuantity; // recommendedStock - currentStock
+    private Double dailyVelocity; // Units sold per day over the trailing window
+    private Double daysOfCover; // null without sales
+    private Integer reorderPoint; // Lead time demand + safety stock
     private String action; // RESTOCK, REDUCE, MAINTAIN
     private String priority; // HIGH, MEDIUM, LOW
     private Double estimatedCost;
@@ -7,6 +7,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -14,7 +15,14 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "bid")
+@Table(name = "bid",
+       indexes = {
+           // Leaderboards: bids grouped per section (competition) and per investor (count, amount)
+           @Index(name = "idx_bid_section", columnList = "section_id"),
+           @Index(name = "idx_bid_investor_amount", columnList = "investor_id, amount"),
+           // Bid time series: date range scans and the first bid of the platform
+           @Index(name = "idx_bid_time", columnList = "bid_time")
+       })
 @Getter @Setter
 public class Bid {
 
@@ -0,0 +1,60 @@
+package com.analyfy.analify.Entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Materialized section and bid statistics: one (count, value) pair per (investor, dimension, key).
+ * investor_id = 0 holds the whole platform; section dimensions are scoped by the winning investor
+ * and BID rows by the bidder, like the section / bid queries they replace.
+ */
+@Entity
+@Table(name = "bidding_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_bidding_stats",
+                                             columnNames = {"investor_id", "dimension", "dim_key"}))
+@Getter @Setter
+public class BiddingStat {
+
+    public static final long ALL_INVESTORS = 0L;
+
+    // Sections per status, category, face, rang and deadline month: count, sum of the current prices
+    public static final String STATUS = "STATUS";
+    public static final String CATEGORY = "CATEGORY";
+    public static final String FACE = "FACE";
+    public static final String RANG = "RANG";
+    public static final String MONTH = "MONTH";
+    // Sections priced above their base price: count, sum of (current - base)
+    public static final String INCREASE = "INCREASE";
+    // Sections with a winner: count, sum of the current prices
+    public static final String WON = "WON";
+    // Bids per status: count, sum of the amounts
+    public static final String BID = "BID";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "stat_id")
+    private Long statId;
+
+    @Column(name = "investor_id", nullable = false)
+    private Long investorId;
+
+    @Column(name = "dimension", nullable = false, length = 16)
+    private String dimension;
+
+    // Status, category / face / rang name or YYYY-MM, empty for INCREASE and WON
+    @Column(name = "dim_key", nullable = false)
+    private String key;
+
+    @Column(name = "item_count", nullable = false)
+    private Long itemCount;
+
+    @Column(name = "total_value", nullable = false)
+    private Double totalValue;
+}
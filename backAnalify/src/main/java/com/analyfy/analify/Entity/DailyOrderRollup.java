@@ -0,0 +1,45 @@
+package com.analyfy.analify.Entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Distinct order counts per (day, store, investor).
+ * Orders can't be summed across product rows, so they get their own rollup:
+ * investor_id = 0 holds every order of the store, other rows count the orders containing that investor's products.
+ */
+@Entity
+@Table(name = "daily_order_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uk_daily_order_rollup",
+                                             columnNames = {"sales_day", "store_id", "investor_id"}))
+@Getter @Setter
+public class DailyOrderRollup {
+
+    public static final long ALL_INVESTORS = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "sales_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "investor_id", nullable = false)
+    private Long investorId;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+}
@@ -0,0 +1,47 @@
+package com.analyfy.analify.Entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Basket distributions per (day, store, investor), kept next to daily_order_rollup for approximate percentiles:
+ * serialized t-digests of the order values and of the units per order.
+ * investor_id = DailyOrderRollup.ALL_INVESTORS holds whole orders, other rows the investor's part of each order.
+ */
+@Entity
+@Table(name = "daily_order_sketch",
+       uniqueConstraints = @UniqueConstraint(name = "uk_daily_order_sketch",
+                                             columnNames = {"sales_day", "store_id", "investor_id"}))
+@Getter @Setter
+public class DailyOrderSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "sketch_id")
+    private Long sketchId;
+
+    @Column(name = "sales_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "investor_id", nullable = false)
+    private Long investorId;
+
+    // Null until the first order of the row is recorded
+    @Column(name = "order_value_digest")
+    private byte[] orderValueDigest;
+
+    @Column(name = "basket_units_digest")
+    private byte[] basketUnitsDigest;
+}
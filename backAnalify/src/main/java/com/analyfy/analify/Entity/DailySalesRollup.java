@@ -0,0 +1,54 @@
+package com.analyfy.analify.Entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Pre-aggregated sales fact: one row per (day, store, product, investor).
+ * Maintained by SalesRollupService inside the order transactions.
+ */
+@Entity
+@Table(name = "daily_sales_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uk_daily_sales_rollup",
+                                             columnNames = {"sales_day", "store_id", "product_id", "investor_id"}),
+       indexes = @Index(name = "idx_daily_sales_rollup_day_store", columnList = "sales_day, store_id"))
+@Getter @Setter
+public class DailySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "sales_day", nullable = false)
+    private LocalDate day;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // 0 when the product has no investor
+    @Column(name = "investor_id", nullable = false)
+    private Long investorId;
+
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(name = "line_items", nullable = false)
+    private Long lineItems;
+}
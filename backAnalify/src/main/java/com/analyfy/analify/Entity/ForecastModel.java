@@ -0,0 +1,110 @@
+package com.analyfy.analify.Entity;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+import com.analyfy.analify.Enum.ForecastMetric;
+
+/**
+ * Fitted Holt-Winters state of one daily series (metric, store, investor, product), so a forecast
+ * only has to absorb the days since last_day instead of refitting the whole history, and the forecast
+ * last projected from it, read as is for the rest of the day.
+ * Null store / investor / product mean "all".
+ */
+@Entity
+@Table(name = "forecast_model",
+       uniqueConstraints = @UniqueConstraint(name = "uk_forecast_model_scope", columnNames = {"scope_key"}))
+@Getter @Setter
+public class ForecastModel {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "model_id")
+    private Long modelId;
+
+    // metric:store:investor:product, "*" for all
+    @Column(name = "scope_key", nullable = false, length = 100)
+    private String scopeKey;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "metric", nullable = false, length = 20)
+    private ForecastMetric metric;
+
+    @Column(name = "store_id")
+    private Long storeId;
+
+    @Column(name = "investor_id")
+    private Long investorId;
+
+    @Column(name = "product_id")
+    private Long productId;
+
+    // Smoothing parameters, chosen when the model is (re)fitted
+    @Column(name = "alpha", nullable = false)
+    private Double alpha;
+
+    @Column(name = "beta", nullable = false)
+    private Double beta;
+
+    @Column(name = "gamma", nullable = false)
+    private Double gamma;
+
+    @Column(name = "level", nullable = false)
+    private Double level;
+
+    @Column(name = "trend", nullable = false)
+    private Double trend;
+
+    // Additive weekly seasonal components, index 0 = Monday
+    @Column(name = "seasonal", nullable = false)
+    private double[] seasonal;
+
+    // One-step-ahead errors since the fit: count, sum of squares, sum of absolute values, sum of actuals
+    @Column(name = "error_count", nullable = false)
+    private Integer errorCount;
+
+    @Column(name = "squared_error_sum", nullable = false)
+    private Double squaredErrorSum;
+
+    @Column(name = "absolute_error_sum", nullable = false)
+    private Double absoluteErrorSum;
+
+    @Column(name = "actual_sum", nullable = false)
+    private Double actualSum;
+
+    // Last day absorbed by the state
+    @Column(name = "last_day", nullable = false)
+    private LocalDate lastDay;
+
+    // Last day of the history the parameters were fitted on
+    @Column(name = "fitted_through", nullable = false)
+    private LocalDate fittedThrough;
+
+    // Forecast projected from the state: one value per day from forecast_from, with its interval bounds
+    @Column(name = "forecast_from")
+    private LocalDate forecastFrom;
+
+    @Column(name = "forecast_values")
+    private double[] forecastValues;
+
+    @Column(name = "forecast_lower")
+    private double[] forecastLower;
+
+    @Column(name = "forecast_upper")
+    private double[] forecastUpper;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
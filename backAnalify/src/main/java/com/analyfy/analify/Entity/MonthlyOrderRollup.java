@@ -0,0 +1,48 @@
+package com.analyfy.analify.Entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Monthly tier of daily_order_rollup: order counts per (month, store, investor).
+ * active_days keeps which days of the month had orders (bit 0 = day 1), so the
+ * weekday / month histograms can still be computed without reading the daily rows.
+ */
+@Entity
+@Table(name = "monthly_order_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uk_monthly_order_rollup",
+                                             columnNames = {"sales_month", "store_id", "investor_id"}))
+@Getter @Setter
+public class MonthlyOrderRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    // First day of the month
+    @Column(name = "sales_month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    // DailyOrderRollup.ALL_INVESTORS for every order of the store
+    @Column(name = "investor_id", nullable = false)
+    private Long investorId;
+
+    @Column(name = "order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name = "active_days", nullable = false)
+    private Integer activeDays;
+}
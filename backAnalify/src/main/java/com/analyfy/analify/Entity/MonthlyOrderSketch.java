@@ -0,0 +1,46 @@
+package com.analyfy.analify.Entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Monthly tier of daily_order_sketch: the daily digests of each (month, store, investor) merged together.
+ */
+@Entity
+@Table(name = "monthly_order_sketch",
+       uniqueConstraints = @UniqueConstraint(name = "uk_monthly_order_sketch",
+                                             columnNames = {"sales_month", "store_id", "investor_id"}))
+@Getter @Setter
+public class MonthlyOrderSketch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "sketch_id")
+    private Long sketchId;
+
+    // First day of the month
+    @Column(name = "sales_month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    // DailyOrderRollup.ALL_INVESTORS for whole orders
+    @Column(name = "investor_id", nullable = false)
+    private Long investorId;
+
+    @Column(name = "order_value_digest")
+    private byte[] orderValueDigest;
+
+    @Column(name = "basket_units_digest")
+    private byte[] basketUnitsDigest;
+}
@@ -0,0 +1,55 @@
+package com.analyfy.analify.Entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Monthly tier of daily_sales_rollup: one row per (month, store, product, investor).
+ * Long ranges read whole months from here and only their edge days from the daily rollup.
+ */
+@Entity
+@Table(name = "monthly_sales_rollup",
+       uniqueConstraints = @UniqueConstraint(name = "uk_monthly_sales_rollup",
+                                             columnNames = {"sales_month", "store_id", "product_id", "investor_id"}),
+       indexes = @Index(name = "idx_monthly_sales_rollup_month_store", columnList = "sales_month, store_id"))
+@Getter @Setter
+public class MonthlySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    // First day of the month
+    @Column(name = "sales_month", nullable = false)
+    private LocalDate month;
+
+    @Column(name = "store_id", nullable = false)
+    private Long storeId;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // 0 when the product has no investor
+    @Column(name = "investor_id", nullable = false)
+    private Long investorId;
+
+    @Column(name = "revenue", nullable = false)
+    private Double revenue;
+
+    @Column(name = "units_sold", nullable = false)
+    private Long unitsSold;
+
+    @Column(name = "line_items", nullable = false)
+    private Long lineItems;
+}
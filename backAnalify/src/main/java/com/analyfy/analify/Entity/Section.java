@@ -8,6 +8,7 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
@@ -16,7 +17,12 @@ import lombok.Getter;
 import lombok.Setter;
 
 @Entity
-@Table(name = "section")
+@Table(name = "section",
+       indexes = {
+           // Leaderboards: highest value sections, overall and per winning investor
+           @Index(name = "idx_section_current_price", columnList = "current_price"),
+           @Index(name = "idx_section_winner_price", columnList = "winner_investor_id, current_price")
+       })
 @Getter @Setter
 public class Section {
 
@@ -0,0 +1,53 @@
+package com.analyfy.analify.Enum;
+
+import java.util.Locale;
+
+/**
+ * Group of analytics endpoints, or of background analytics work, sharing a concurrency limit and a measured cost
+ * in the admission control.
+ */
+public enum AdmissionLane {
+    // /api/analytics/dashboard/enhanced and its SSE stream
+    ENHANCED_DASHBOARD(false),
+    // /api/analytics/dashboard
+    DASHBOARD(false),
+    // /api/assistant/**
+    ASSISTANT(false),
+    // Every other /api/analytics endpoint, except the job and admission endpoints
+    ANALYTICS(false),
+    // One analytics job run by the AnalyticsJobService workers
+    JOB(true),
+    // One scope of the dashboard warm-up
+    WARM_UP(true),
+    // One scope of the nightly forecast batch
+    FORECAST_BATCH(true);
+
+    private final boolean background;
+
+    AdmissionLane(boolean background) {
+        this.background = background;
+    }
+
+    /**
+     * Background lanes are never served to a request: their work waits for capacity as long as it takes.
+     */
+    public boolean isBackground() {
+        return background;
+    }
+
+    public String toParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Lane of a request path (without the context path), null when the request is not admission-controlled.
+     */
+    public static AdmissionLane of(String path) {
+        if (path.startsWith("/api/assistant/") || path.equals("/api/assistant")) return ASSISTANT;
+        if (!path.startsWith("/api/analytics/")) return null;
+        if (path.startsWith("/api/analytics/jobs") || path.startsWith("/api/analytics/admission")) return null;
+        if (path.startsWith("/api/analytics/dashboard/enhanced")) return ENHANCED_DASHBOARD;
+        if (path.equals("/api/analytics/dashboard")) return DASHBOARD;
+        return ANALYTICS;
+    }
+}
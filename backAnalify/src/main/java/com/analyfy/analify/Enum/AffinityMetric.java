@@ -0,0 +1,32 @@
+package com.analyfy.analify.Enum;
+
+import com.analyfy.analify.Excexption.BusinessValidationException;
+
+import java.util.Locale;
+
+/**
+ * What ranks the product pairs of a basket analysis (sort=support|confidence|lift).
+ */
+public enum AffinityMetric {
+    // Share of the baskets holding both products
+    SUPPORT,
+    // Share of the baskets holding the first product that also hold the second (the stronger direction)
+    CONFIDENCE,
+    // How much more often the products are bought together than if they were bought independently
+    LIFT;
+
+    public String toParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a sort request parameter; null or blank means lift.
+     */
+    public static AffinityMetric fromParam(String value) {
+        if (value == null || value.isBlank()) return LIFT;
+        for (AffinityMetric metric : values()) {
+            if (metric.toParam().equalsIgnoreCase(value.trim())) return metric;
+        }
+        throw new BusinessValidationException("Unknown sort: " + value + ". Expected support, confidence or lift");
+    }
+}
@@ -0,0 +1,29 @@
+package com.analyfy.analify.Enum;
+
+import com.analyfy.analify.Excexption.BusinessValidationException;
+
+import java.util.Locale;
+
+/**
+ * Order in which queued analytics jobs are started (priority=high|normal|low); submission order within a priority.
+ */
+public enum AnalyticsJobPriority {
+    HIGH,
+    NORMAL,
+    LOW;
+
+    public String toParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a priority request parameter; null or blank means normal.
+     */
+    public static AnalyticsJobPriority fromParam(String value) {
+        if (value == null || value.isBlank()) return NORMAL;
+        for (AnalyticsJobPriority priority : values()) {
+            if (priority.toParam().equalsIgnoreCase(value.trim())) return priority;
+        }
+        throw new BusinessValidationException("Unknown priority: " + value + ". Expected high, normal or low");
+    }
+}
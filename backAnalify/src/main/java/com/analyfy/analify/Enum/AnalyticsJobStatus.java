@@ -0,0 +1,16 @@
+package com.analyfy.analify.Enum;
+
+/**
+ * Lifecycle of an asynchronous analytics job: QUEUED -> RUNNING -> SUCCEEDED | FAILED, or CANCELLED at any time before.
+ */
+public enum AnalyticsJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED,
+    CANCELLED;
+
+    public boolean isFinished() {
+        return this == SUCCEEDED || this == FAILED || this == CANCELLED;
+    }
+}
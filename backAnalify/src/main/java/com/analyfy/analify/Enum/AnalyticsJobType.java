@@ -0,0 +1,34 @@
+package com.analyfy.analify.Enum;
+
+import com.analyfy.analify.Excexption.BusinessValidationException;
+
+import java.util.Locale;
+
+/**
+ * Report computed by an asynchronous analytics job (type=dashboard|enhanced_dashboard|predictions|comparison).
+ */
+public enum AnalyticsJobType {
+    // StatisticsService.getDashboard
+    DASHBOARD,
+    // EnhancedStatisticsService.getEnhancedDashboard, progress reported per section
+    ENHANCED_DASHBOARD,
+    // StatisticsService.getPredictions (needs metric)
+    PREDICTIONS,
+    // StatisticsService.compareScopes (needs scope and ids, ADMIN_G only)
+    COMPARISON;
+
+    public String toParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static AnalyticsJobType fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            throw new BusinessValidationException("type is required: dashboard, enhanced_dashboard, predictions or comparison");
+        }
+        for (AnalyticsJobType type : values()) {
+            if (type.toParam().equalsIgnoreCase(value.trim())) return type;
+        }
+        throw new BusinessValidationException("Unknown type: " + value
+                + ". Expected dashboard, enhanced_dashboard, predictions or comparison");
+    }
+}
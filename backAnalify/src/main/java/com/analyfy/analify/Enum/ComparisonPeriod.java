@@ -0,0 +1,40 @@
+package com.analyfy.analify.Enum;
+
+import com.analyfy.analify.Excexption.BusinessValidationException;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Locale;
+
+/**
+ * Period a dashboard date range is compared with (compareTo=previous_period|previous_year).
+ */
+public enum ComparisonPeriod {
+    // Same number of days, ending the day before the range starts
+    PREVIOUS_PERIOD,
+    // Same dates, one year earlier
+    PREVIOUS_YEAR;
+
+    public LocalDate previousStart(LocalDate start, LocalDate end) {
+        return this == PREVIOUS_YEAR ? start.minusYears(1) : start.minusDays(ChronoUnit.DAYS.between(start, end) + 1);
+    }
+
+    public LocalDate previousEnd(LocalDate start, LocalDate end) {
+        return this == PREVIOUS_YEAR ? end.minusYears(1) : start.minusDays(1);
+    }
+
+    public String toParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a compareTo request parameter; null or blank means no comparison was asked for.
+     */
+    public static ComparisonPeriod fromParam(String value) {
+        if (value == null || value.isBlank()) return null;
+        for (ComparisonPeriod period : values()) {
+            if (period.toParam().equalsIgnoreCase(value.trim())) return period;
+        }
+        throw new BusinessValidationException("Unknown compareTo: " + value + ". Expected previous_period or previous_year");
+    }
+}
@@ -0,0 +1,28 @@
+package com.analyfy.analify.Enum;
+
+import com.analyfy.analify.Excexption.BusinessValidationException;
+
+import java.util.Locale;
+
+/**
+ * What the ids of a side-by-side comparison designate (scope=store|investor).
+ */
+public enum ComparisonScope {
+    STORE,
+    INVESTOR;
+
+    public String toParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a scope request parameter; null or blank means stores.
+     */
+    public static ComparisonScope fromParam(String value) {
+        if (value == null || value.isBlank()) return STORE;
+        for (ComparisonScope scope : values()) {
+            if (scope.toParam().equalsIgnoreCase(value.trim())) return scope;
+        }
+        throw new BusinessValidationException("Unknown scope: " + value + ". Expected store or investor");
+    }
+}
@@ -0,0 +1,31 @@
+package com.analyfy.analify.Enum;
+
+import com.analyfy.analify.Excexption.BusinessValidationException;
+
+import java.util.Locale;
+
+/**
+ * Daily series a forecast is computed for (metric=revenue|stock).
+ */
+public enum ForecastMetric {
+    // Revenue per day
+    REVENUE,
+    // Units sold per day (stock demand)
+    STOCK;
+
+    public String toParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a metric request parameter.
+     */
+    public static ForecastMetric fromParam(String value) {
+        if (value != null) {
+            for (ForecastMetric metric : values()) {
+                if (metric.toParam().equalsIgnoreCase(value.trim())) return metric;
+            }
+        }
+        throw new BusinessValidationException("Unknown metric: " + value + ". Expected revenue or stock");
+    }
+}
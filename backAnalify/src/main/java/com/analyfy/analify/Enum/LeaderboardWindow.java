@@ -0,0 +1,56 @@
+package com.analyfy.analify.Enum;
+
+import com.analyfy.analify.Excexption.BusinessValidationException;
+
+import java.time.LocalDate;
+
+/**
+ * Trailing windows of the live leaderboards (window=today|7d|30d), each ending today.
+ */
+public enum LeaderboardWindow {
+    TODAY("today", 1),
+    LAST_7_DAYS("7d", 7),
+    LAST_30_DAYS("30d", 30);
+
+    private final String param;
+    private final int days;
+
+    LeaderboardWindow(String param, int days) {
+        this.param = param;
+        this.days = days;
+    }
+
+    public int days() {
+        return days;
+    }
+
+    public LocalDate start(LocalDate today) {
+        return today.minusDays(days - 1);
+    }
+
+    public String toParam() {
+        return param;
+    }
+
+    /**
+     * The window that is exactly [start, end] as of today, or null.
+     */
+    public static LeaderboardWindow matching(LocalDate start, LocalDate end, LocalDate today) {
+        if (start == null || !today.equals(end)) return null;
+        for (LeaderboardWindow window : values()) {
+            if (window.start(today).equals(start)) return window;
+        }
+        return null;
+    }
+
+    /**
+     * Parse a window request parameter; null or blank means today.
+     */
+    public static LeaderboardWindow fromParam(String value) {
+        if (value == null || value.isBlank()) return TODAY;
+        for (LeaderboardWindow window : values()) {
+            if (window.param.equalsIgnoreCase(value.trim())) return window;
+        }
+        throw new BusinessValidationException("Unknown window: " + value + ". Expected today, 7d or 30d");
+    }
+}
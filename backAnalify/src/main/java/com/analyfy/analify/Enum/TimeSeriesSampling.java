@@ -0,0 +1,30 @@
+package com.analyfy.analify.Enum;
+
+import com.analyfy.analify.Excexption.BusinessValidationException;
+
+import java.util.Locale;
+
+/**
+ * How a dashboard time series is reduced to maxPoints (sampling=bucket|lttb).
+ */
+public enum TimeSeriesSampling {
+    // Totals per calendar bucket (day, week, month, quarter or year), summed by the database
+    BUCKET,
+    // Largest-Triangle-Three-Buckets over a finer series: keeps the peaks and the shape, values are not totals
+    LTTB;
+
+    public String toParam() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Parse a sampling request parameter; null or blank means the default (bucket).
+     */
+    public static TimeSeriesSampling fromParam(String value) {
+        if (value == null || value.isBlank()) return null;
+        for (TimeSeriesSampling sampling : values()) {
+            if (sampling.toParam().equalsIgnoreCase(value.trim())) return sampling;
+        }
+        throw new BusinessValidationException("Unknown sampling: " + value + ". Expected bucket or lttb");
+    }
+}
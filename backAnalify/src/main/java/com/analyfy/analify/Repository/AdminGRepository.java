@@ -1,7 +1,12 @@
 package com.analyfy.analify.Repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.analyfy.analify.Entity.AdminG;
 
-public interface AdminGRepository extends JpaRepository<AdminG, Long> {}
\ No newline at end of file
+public interface AdminGRepository extends JpaRepository<AdminG, Long> {
+
+    @Query("SELECT MIN(a.userId) FROM AdminG a")
+    Long findFirstAdminId();
+}
\ No newline at end of file
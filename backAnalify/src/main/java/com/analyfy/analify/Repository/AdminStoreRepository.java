@@ -3,10 +3,16 @@ package com.analyfy.analify.Repository;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import com.analyfy.analify.Entity.AdminStore;
 
 public interface AdminStoreRepository extends JpaRepository<AdminStore, Long> {
 
     List<AdminStore> findByStore_StoreId(Long storeId);
+
+    // One store admin per managed store (lowest user id), in store order: store id, admin user id
+    @Query("SELECT a.store.storeId, MIN(a.userId) FROM AdminStore a WHERE a.store IS NOT NULL " +
+           "GROUP BY a.store.storeId ORDER BY a.store.storeId")
+    List<Object[]> findOneAdminPerStore();
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.analyfy.analify.Repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -35,10 +36,21 @@ public interface BidRepository extends JpaRepository<Bid, Long> {
     // Compter les enchéreurs uniques sur une section
     @Query("SELECT COUNT(DISTINCT b.investor.userId) FROM Bid b WHERE b.section.sectionId = :sectionId")
     Integer countUniqueBiddersBySection(@Param("sectionId") Long sectionId);
+
+    // Les enchéreurs d'une section (dont les dashboards affichent ses statistiques)
+    @Query("SELECT DISTINCT b.investor.userId FROM Bid b WHERE b.section.sectionId = :sectionId")
+    List<Long> findBidderIdsBySection(@Param("sectionId") Long sectionId);
+
+    // Tous les enchéreurs
+    @Query("SELECT DISTINCT b.investor.userId FROM Bid b")
+    List<Long> findAllBidderIds();
     
     // Trouver les enchères gagnantes d'un investisseur
     List<Bid> findByInvestorUserIdAndStatus(Long investorId, String status);
     
+    // Compter les enchères d'un investisseur par statut (sans charger les entités)
+    Long countByInvestorUserIdAndStatus(Long investorId, String status);
+    
     // Vérifier si un investisseur a déjà enchéri sur une section
     boolean existsBySectionSectionIdAndInvestorUserId(Long sectionId, Long investorId);
     
@@ -61,28 +73,35 @@ public interface BidRepository extends JpaRepository<Bid, Long> {
     @Query("SELECT COUNT(b) FROM Bid b WHERE (:investorId IS NULL OR b.investor.userId = :investorId)")
     Long countTotalBids(@Param("investorId") Long investorId);
     
+    // =============== LEADERBOARDS ===============
+    // Rows (label, value, investor name): ranked and limited in the database, size given by the Pageable
+    
     // Most active investors (by bid count)
-    @Query("SELECT CONCAT('Investor #', CAST(i.userId AS string)), i.userName, COUNT(b) FROM Bid b " +
+    @Query("SELECT CONCAT('Investor #', CAST(i.userId AS string)), COUNT(b), i.userName FROM Bid b " +
            "JOIN b.investor i " +
            "GROUP BY i.userId, i.userName " +
-           "ORDER BY COUNT(b) DESC")
-    List<Object[]> findMostActiveInvestors();
+           "ORDER BY COUNT(b) DESC, i.userId")
+    List<Object[]> findMostActiveInvestors(Pageable pageable);
     
     // Top bidders by total amount
-    @Query("SELECT CONCAT('Investor #', CAST(i.userId AS string)), i.userName, COALESCE(SUM(b.amount), 0.0) FROM Bid b " +
+    @Query("SELECT CONCAT('Investor #', CAST(i.userId AS string)), COALESCE(SUM(b.amount), 0.0), i.userName FROM Bid b " +
            "JOIN b.investor i " +
            "GROUP BY i.userId, i.userName " +
-           "ORDER BY COALESCE(SUM(b.amount), 0.0) DESC")
-    List<Object[]> findTopBiddersByAmount();
-    
-    // Bids over time (time series)
-    @Query("SELECT CAST(b.bidTime AS date), COUNT(b) FROM Bid b " +
-           "WHERE b.bidTime BETWEEN :startDate AND :endDate AND (:investorId IS NULL OR b.investor.userId = :investorId) " +
-           "GROUP BY CAST(b.bidTime AS date) " +
-           "ORDER BY CAST(b.bidTime AS date)")
+           "ORDER BY COALESCE(SUM(b.amount), 0.0) DESC, i.userId")
+    List<Object[]> findTopBiddersByAmount(Pageable pageable);
+    
+    // Bids over time (time series), one row per date_trunc bucket (day, week, month, quarter, year)
+    @Query(value = "SELECT TO_CHAR(date_trunc(:bucket, b.bid_time), 'YYYY-MM-DD') AS bucket_start, COUNT(*) FROM bid b " +
+           "WHERE b.bid_time BETWEEN :startDate AND :endDate AND (CAST(:investorId AS BIGINT) IS NULL OR b.investor_id = :investorId) " +
+           "GROUP BY bucket_start " +
+           "ORDER BY bucket_start", nativeQuery = true)
     List<Object[]> findBidsOverTime(@Param("startDate") LocalDateTime startDate, 
                                      @Param("endDate") LocalDateTime endDate, 
-                                     @Param("investorId") Long investorId);
+                                     @Param("investorId") Long investorId,
+                                     @Param("bucket") String bucket);
+
+    @Query("SELECT MIN(b.bidTime) FROM Bid b")
+    LocalDateTime findFirstBidTime();
     
     // Win rate for an investor
     @Query("SELECT " +
@@ -0,0 +1,90 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.Entity.BiddingStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BiddingStatRepository extends JpaRepository<BiddingStat, Long> {
+
+    // =============== INCREMENTAL MAINTENANCE ===============
+
+    @Modifying
+    @Query(value = "INSERT INTO bidding_stats (investor_id, dimension, dim_key, item_count, total_value) " +
+                   "VALUES (:investorId, :dimension, :key, :count, :value) " +
+                   "ON CONFLICT (investor_id, dimension, dim_key) DO UPDATE SET " +
+                   "item_count = bidding_stats.item_count + EXCLUDED.item_count, " +
+                   "total_value = bidding_stats.total_value + EXCLUDED.total_value",
+           nativeQuery = true)
+    void upsert(@Param("investorId") Long investorId,
+                @Param("dimension") String dimension,
+                @Param("key") String key,
+                @Param("count") Long count,
+                @Param("value") Double value);
+
+    @Modifying
+    @Query("DELETE FROM BiddingStat s WHERE s.investorId IN :investorIds AND s.itemCount <= 0")
+    int deleteEmptyRows(@Param("investorIds") Collection<Long> investorIds);
+
+    @Modifying
+    @Query(value = "LOCK TABLE bidding_stats IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM bidding_stats", nativeQuery = true)
+    int deleteAllRows();
+
+    // Full backfill: every section counted for the platform (0) and for its winner, every bid for the platform and its bidder
+    @Modifying
+    @Query(value = "INSERT INTO bidding_stats (investor_id, dimension, dim_key, item_count, total_value) " +
+                   "WITH scoped AS (" +
+                   "  SELECT 0 AS scope_id, s.section_id, s.status, s.current_price, s.base_price, s.date_delai, " +
+                   "         s.winner_investor_id, s.face_id FROM section s " +
+                   "  UNION ALL " +
+                   "  SELECT s.winner_investor_id, s.section_id, s.status, s.current_price, s.base_price, s.date_delai, " +
+                   "         s.winner_investor_id, s.face_id FROM section s WHERE s.winner_investor_id IS NOT NULL) " +
+                   "SELECT sc.scope_id, 'STATUS', sc.status, COUNT(*), SUM(sc.current_price) FROM scoped sc " +
+                   "GROUP BY sc.scope_id, sc.status " +
+                   "UNION ALL " +
+                   "SELECT sc.scope_id, 'CATEGORY', COALESCE(c.category_name, ''), COUNT(*), SUM(sc.current_price) FROM scoped sc " +
+                   "JOIN face f ON f.face_id = sc.face_id JOIN rang r ON r.rang_id = f.rang_id " +
+                   "JOIN category c ON c.category_id = r.category_id " +
+                   "GROUP BY sc.scope_id, COALESCE(c.category_name, '') " +
+                   "UNION ALL " +
+                   "SELECT sc.scope_id, 'FACE', f.face_name, COUNT(*), SUM(sc.current_price) FROM scoped sc " +
+                   "JOIN face f ON f.face_id = sc.face_id " +
+                   "GROUP BY sc.scope_id, f.face_name " +
+                   "UNION ALL " +
+                   "SELECT sc.scope_id, 'RANG', r.rang_name, COUNT(*), SUM(sc.current_price) FROM scoped sc " +
+                   "JOIN face f ON f.face_id = sc.face_id JOIN rang r ON r.rang_id = f.rang_id " +
+                   "GROUP BY sc.scope_id, r.rang_name " +
+                   "UNION ALL " +
+                   "SELECT sc.scope_id, 'MONTH', TO_CHAR(sc.date_delai, 'YYYY-MM'), COUNT(*), SUM(sc.current_price) FROM scoped sc " +
+                   "WHERE sc.date_delai IS NOT NULL " +
+                   "GROUP BY sc.scope_id, TO_CHAR(sc.date_delai, 'YYYY-MM') " +
+                   "UNION ALL " +
+                   "SELECT sc.scope_id, 'INCREASE', '', COUNT(*), SUM(sc.current_price - sc.base_price) FROM scoped sc " +
+                   "WHERE sc.current_price > sc.base_price " +
+                   "GROUP BY sc.scope_id " +
+                   "UNION ALL " +
+                   "SELECT sc.scope_id, 'WON', '', COUNT(*), SUM(sc.current_price) FROM scoped sc " +
+                   "WHERE sc.winner_investor_id IS NOT NULL " +
+                   "GROUP BY sc.scope_id " +
+                   "UNION ALL " +
+                   "SELECT 0, 'BID', b.status, COUNT(*), SUM(b.amount) FROM bid b GROUP BY b.status " +
+                   "UNION ALL " +
+                   "SELECT b.investor_id, 'BID', b.status, COUNT(*), SUM(b.amount) FROM bid b GROUP BY b.investor_id, b.status",
+           nativeQuery = true)
+    int rebuildFromSections();
+
+    // =============== ANALYTICS READS ===============
+
+    // investorScope = 0 for the whole platform
+    List<BiddingStat> findByInvestorId(Long investorScope);
+}
@@ -33,4 +33,57 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
            "WHERE b.section.face.rang.category.categoryId = :categoryId " +
            "AND b.status = 'WINNER'")
     Integer countActiveBidsByCategory(@Param("categoryId") Long categoryId);
+    
+    // =============== STATISTICS QUERIES ===============
+    // Une ligne par catégorie, quel que soit le nombre de catégories
+    
+    // Hiérarchie Rang -> Face -> Section : category id, name, rangs, faces, sections, sections ouvertes,
+    // valeur des sections, revenu des sections gagnées, enchères
+    @Query(value = "SELECT c.category_id, c.category_name, " +
+                   "COUNT(DISTINCT r.rang_id), COUNT(DISTINCT f.face_id), COUNT(s.section_id), " +
+                   "COUNT(s.section_id) FILTER (WHERE s.status LIKE 'OPEN%'), " +
+                   "COALESCE(SUM(s.current_price), 0), " +
+                   "COALESCE(SUM(s.current_price) FILTER (WHERE s.winner_investor_id IS NOT NULL), 0), " +
+                   "COALESCE(SUM(sb.bids), 0) " +
+                   "FROM category c " +
+                   "LEFT JOIN rang r ON r.category_id = c.category_id " +
+                   "LEFT JOIN face f ON f.rang_id = r.rang_id " +
+                   "LEFT JOIN section s ON s.face_id = f.face_id " +
+                   "LEFT JOIN (SELECT section_id, COUNT(*) AS bids FROM bid GROUP BY section_id) sb ON sb.section_id = s.section_id " +
+                   "GROUP BY c.category_id, c.category_name",
+           nativeQuery = true)
+    List<Object[]> findSectionStatsByCategory();
+    
+    // Produits par catégorie (Subcategory -> Product -> Inventory) : category id, produits, valeur du stock,
+    // lignes d'inventaire sous le seuil. Avec un magasin, seuls les produits qu'il stocke sont comptés ;
+    // avec un investisseur, seuls ses produits.
+    @Query(value = "SELECT sub.category_id, " +
+                   "COUNT(DISTINCT p.product_id) FILTER (WHERE CAST(:storeId AS BIGINT) IS NULL OR i.id IS NOT NULL), " +
+                   "COALESCE(SUM(p.price * i.quantity), 0), " +
+                   "COUNT(i.id) FILTER (WHERE i.quantity < :threshold) " +
+                   "FROM product p " +
+                   "JOIN subcategory sub ON sub.subcategory_id = p.subcategory_id " +
+                   "LEFT JOIN inventory i ON i.product_id = p.product_id " +
+                   "AND (CAST(:storeId AS BIGINT) IS NULL OR i.store_id = :storeId) " +
+                   "WHERE (CAST(:investorId AS BIGINT) IS NULL OR p.id_inv = :investorId) " +
+                   "GROUP BY sub.category_id",
+           nativeQuery = true)
+    List<Object[]> findProductStatsByCategory(@Param("storeId") Long storeId,
+                                              @Param("investorId") Long investorId,
+                                              @Param("threshold") int threshold);
+    
+    // Meilleurs rangs et faces de chaque catégorie par valeur des sections : category id, 'RANG' | 'FACE', nom
+    @Query(value = "SELECT t.category_id, t.kind, t.name FROM (" +
+                   "  SELECT r.category_id, 'RANG' AS kind, r.rang_name AS name, " +
+                   "  ROW_NUMBER() OVER (PARTITION BY r.category_id ORDER BY SUM(s.current_price) DESC, r.rang_id) AS rn " +
+                   "  FROM rang r JOIN face f ON f.rang_id = r.rang_id JOIN section s ON s.face_id = f.face_id " +
+                   "  GROUP BY r.category_id, r.rang_id, r.rang_name " +
+                   "  UNION ALL " +
+                   "  SELECT r.category_id, 'FACE' AS kind, f.face_name AS name, " +
+                   "  ROW_NUMBER() OVER (PARTITION BY r.category_id ORDER BY SUM(s.current_price) DESC, f.face_id) AS rn " +
+                   "  FROM face f JOIN rang r ON r.rang_id = f.rang_id JOIN section s ON s.face_id = f.face_id " +
+                   "  GROUP BY r.category_id, f.face_id, f.face_name" +
+                   ") t WHERE t.rn <= :top ORDER BY t.category_id, t.kind, t.rn",
+           nativeQuery = true)
+    List<Object[]> findTopRangsAndFacesByCategory(@Param("top") int top);
 }
\ No newline at end of file
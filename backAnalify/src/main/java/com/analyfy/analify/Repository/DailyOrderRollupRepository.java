@@ -0,0 +1,76 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.Entity.DailyOrderRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyOrderRollupRepository extends JpaRepository<DailyOrderRollup, Long> {
+
+    // =============== INCREMENTAL MAINTENANCE ===============
+
+    @Modifying
+    @Query(value = "INSERT INTO daily_order_rollup (sales_day, store_id, investor_id, order_count) " +
+                   "VALUES (:day, :storeId, :investorId, :delta) " +
+                   "ON CONFLICT (sales_day, store_id, investor_id) DO UPDATE SET " +
+                   "order_count = daily_order_rollup.order_count + EXCLUDED.order_count",
+           nativeQuery = true)
+    void upsert(@Param("day") LocalDate day,
+                @Param("storeId") Long storeId,
+                @Param("investorId") Long investorId,
+                @Param("delta") Long delta);
+
+    @Modifying
+    @Query("DELETE FROM DailyOrderRollup r WHERE r.day = :day AND r.storeId = :storeId AND r.orderCount <= 0")
+    int deleteEmptyRows(@Param("day") LocalDate day, @Param("storeId") Long storeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_order_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    // Full backfill: one "all investors" row per day/store plus one row per investor present in the orders
+    @Modifying
+    @Query(value = "INSERT INTO daily_order_rollup (sales_day, store_id, investor_id, order_count) " +
+                   "SELECT o.order_date, c.store_id, 0, COUNT(*) " +
+                   "FROM \"orders\" o JOIN caissier c ON c.user_id = o.user_id " +
+                   "WHERE o.order_date IS NOT NULL AND c.store_id IS NOT NULL " +
+                   "AND EXISTS (SELECT 1 FROM order_items oi WHERE oi.order_id = o.order_id) " +
+                   "GROUP BY o.order_date, c.store_id " +
+                   "UNION ALL " +
+                   "SELECT o.order_date, c.store_id, p.id_inv, COUNT(DISTINCT o.order_id) " +
+                   "FROM \"orders\" o " +
+                   "JOIN caissier c ON c.user_id = o.user_id " +
+                   "JOIN order_items oi ON oi.order_id = o.order_id " +
+                   "JOIN product p ON p.product_id = oi.product_id " +
+                   "WHERE o.order_date IS NOT NULL AND c.store_id IS NOT NULL AND p.id_inv IS NOT NULL " +
+                   "GROUP BY o.order_date, c.store_id, p.id_inv",
+           nativeQuery = true)
+    int rebuildFromOrders();
+
+    // =============== ANALYTICS READS ===============
+
+    // investorScope = 0 for all investors
+    @Query("SELECT SUM(r.orderCount) FROM DailyOrderRollup r " +
+           "WHERE r.day BETWEEN :start AND :end " +
+           "AND (:storeId IS NULL OR r.storeId = :storeId) " +
+           "AND r.investorId = :investorScope")
+    Long sumOrders(@Param("start") LocalDate start,
+                   @Param("end") LocalDate end,
+                   @Param("storeId") Long storeId,
+                   @Param("investorScope") Long investorScope);
+
+    @Query("SELECT DISTINCT r.day FROM DailyOrderRollup r " +
+           "WHERE r.day BETWEEN :start AND :end " +
+           "AND (:storeId IS NULL OR r.storeId = :storeId) " +
+           "AND r.investorId = :investorScope AND r.orderCount > 0")
+    List<LocalDate> findOrderDays(@Param("start") LocalDate start,
+                                  @Param("end") LocalDate end,
+                                  @Param("storeId") Long storeId,
+                                  @Param("investorScope") Long investorScope);
+}
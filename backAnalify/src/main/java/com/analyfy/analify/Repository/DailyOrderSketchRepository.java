@@ -0,0 +1,92 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.Entity.DailyOrderSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyOrderSketchRepository extends JpaRepository<DailyOrderSketch, Long> {
+
+    // =============== MAINTENANCE ===============
+
+    // Rebuilds write plain rows, so the digests of a whole history never sit in the persistence context
+    @Modifying
+    @Query(value = "INSERT INTO daily_order_sketch (sales_day, store_id, investor_id, order_value_digest, basket_units_digest) " +
+                   "VALUES (:day, :storeId, :investorId, :orderValueDigest, :basketUnitsDigest)",
+           nativeQuery = true)
+    void insertRow(@Param("day") LocalDate day,
+                   @Param("storeId") Long storeId,
+                   @Param("investorId") Long investorId,
+                   @Param("orderValueDigest") byte[] orderValueDigest,
+                   @Param("basketUnitsDigest") byte[] basketUnitsDigest);
+
+    @Query("SELECT r FROM DailyOrderSketch r WHERE r.day >= :month AND r.day < :nextMonth AND r.storeId = :storeId")
+    List<DailyOrderSketch> findMonth(@Param("month") LocalDate month,
+                                     @Param("nextMonth") LocalDate nextMonth,
+                                     @Param("storeId") Long storeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_order_sketch WHERE sales_day = :day AND store_id = :storeId", nativeQuery = true)
+    int deleteDay(@Param("day") LocalDate day, @Param("storeId") Long storeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_order_sketch WHERE sales_day BETWEEN :start AND :end", nativeQuery = true)
+    int deleteDays(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    @Query("SELECT MAX(r.day) FROM DailyOrderSketch r")
+    LocalDate findLastSketchDay();
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_order_sketch", nativeQuery = true)
+    int deleteAllRows();
+
+    // Baskets of [start, end], in day order: day, store, investor (0 = whole order), order value, units.
+    // ROLLUP adds the whole order to the investors' parts of it; products without investor only count in the whole.
+    // excludedOrderId leaves out an order that is being deleted.
+    @Query(value = "SELECT o.order_date, c.store_id, " +
+                   "CASE WHEN GROUPING(p.id_inv) = 1 THEN 0 ELSE p.id_inv END, " +
+                   "SUM((oi.price - (oi.price * COALESCE(oi.discount, 0))) * oi.quantity), SUM(oi.quantity) " +
+                   "FROM \"orders\" o " +
+                   "JOIN order_items oi ON oi.order_id = o.order_id " +
+                   "JOIN product p ON p.product_id = oi.product_id " +
+                   "JOIN caissier c ON c.user_id = o.user_id " +
+                   "WHERE o.order_date BETWEEN :start AND :end AND c.store_id IS NOT NULL " +
+                   "AND (CAST(:storeId AS BIGINT) IS NULL OR c.store_id = :storeId) " +
+                   "AND (CAST(:excludedOrderId AS BIGINT) IS NULL OR o.order_id <> :excludedOrderId) " +
+                   "GROUP BY o.order_date, c.store_id, o.order_id, ROLLUP(p.id_inv) " +
+                   "HAVING GROUPING(p.id_inv) = 1 OR p.id_inv IS NOT NULL " +
+                   "ORDER BY o.order_date",
+           nativeQuery = true)
+    List<Object[]> findBaskets(@Param("start") LocalDate start,
+                               @Param("end") LocalDate end,
+                               @Param("storeId") Long storeId,
+                               @Param("excludedOrderId") Long excludedOrderId);
+
+    // =============== ANALYTICS READS ===============
+
+    // Digests of a RollupRangePlan (investorScope = 0 for all): order value digest, basket units digest
+    @Query(value = "SELECT order_value_digest, basket_units_digest FROM daily_order_sketch " +
+                   "WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end) " +
+                   "AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "AND investor_id = :investorScope AND order_value_digest IS NOT NULL " +
+                   "UNION ALL " +
+                   "SELECT order_value_digest, basket_units_digest FROM monthly_order_sketch " +
+                   "WHERE sales_month BETWEEN :monthsFrom AND :monthsTo " +
+                   "AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "AND investor_id = :investorScope AND order_value_digest IS NOT NULL",
+           nativeQuery = true)
+    List<Object[]> findDigests(@Param("start") LocalDate start,
+                               @Param("headEnd") LocalDate headEnd,
+                               @Param("monthsFrom") LocalDate monthsFrom,
+                               @Param("monthsTo") LocalDate monthsTo,
+                               @Param("tailStart") LocalDate tailStart,
+                               @Param("end") LocalDate end,
+                               @Param("storeId") Long storeId,
+                               @Param("investorScope") Long investorScope);
+}
@@ -0,0 +1,380 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.Entity.DailySalesRollup;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    // =============== INCREMENTAL MAINTENANCE ===============
+
+    // Add (or subtract, with negative deltas) one product's sales to its day/store row
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_day, store_id, product_id, investor_id, revenue, units_sold, line_items) " +
+                   "VALUES (:day, :storeId, :productId, :investorId, :revenue, :units, :lineItems) " +
+                   "ON CONFLICT (sales_day, store_id, product_id, investor_id) DO UPDATE SET " +
+                   "revenue = daily_sales_rollup.revenue + EXCLUDED.revenue, " +
+                   "units_sold = daily_sales_rollup.units_sold + EXCLUDED.units_sold, " +
+                   "line_items = daily_sales_rollup.line_items + EXCLUDED.line_items",
+           nativeQuery = true)
+    void upsert(@Param("day") LocalDate day,
+                @Param("storeId") Long storeId,
+                @Param("productId") Long productId,
+                @Param("investorId") Long investorId,
+                @Param("revenue") Double revenue,
+                @Param("units") Long units,
+                @Param("lineItems") Long lineItems);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesRollup r WHERE r.day = :day AND r.storeId = :storeId AND r.lineItems <= 0")
+    int deleteEmptyRows(@Param("day") LocalDate day, @Param("storeId") Long storeId);
+
+    // Serialize a rebuild with concurrent order writes
+    @Modifying
+    @Query(value = "LOCK TABLE daily_sales_rollup, daily_order_rollup, monthly_sales_rollup, monthly_order_rollup, " +
+                   "daily_order_sketch, monthly_order_sketch IN EXCLUSIVE MODE", nativeQuery = true)
+    void lockForRebuild();
+
+    @Modifying
+    @Query(value = "DELETE FROM daily_sales_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    // Full backfill from the order history
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sales_day, store_id, product_id, investor_id, revenue, units_sold, line_items) " +
+                   "SELECT o.order_date, c.store_id, oi.product_id, COALESCE(p.id_inv, 0), " +
+                   "SUM((oi.price - (oi.price * COALESCE(oi.discount, 0))) * oi.quantity), SUM(oi.quantity), COUNT(*) " +
+                   "FROM \"orders\" o " +
+                   "JOIN order_items oi ON oi.order_id = o.order_id " +
+                   "JOIN product p ON p.product_id = oi.product_id " +
+                   "JOIN caissier c ON c.user_id = o.user_id " +
+                   "WHERE o.order_date IS NOT NULL AND c.store_id IS NOT NULL " +
+                   "GROUP BY o.order_date, c.store_id, oi.product_id, COALESCE(p.id_inv, 0)",
+           nativeQuery = true)
+    int rebuildFromOrders();
+
+    // =============== ANALYTICS READS ===============
+
+    // Sales rows of a RollupRangePlan: edge days from the daily rollup, whole months from the monthly rollup
+    String PLANNED_SALES =
+            "(SELECT store_id, product_id, investor_id, revenue, units_sold FROM daily_sales_rollup " +
+            "WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end) " +
+            "AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+            "AND (CAST(:investorId AS BIGINT) IS NULL OR investor_id = :investorId) " +
+            "UNION ALL " +
+            "SELECT store_id, product_id, investor_id, revenue, units_sold FROM monthly_sales_rollup " +
+            "WHERE sales_month BETWEEN :monthsFrom AND :monthsTo " +
+            "AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+            "AND (CAST(:investorId AS BIGINT) IS NULL OR investor_id = :investorId)) ";
+
+    @Query(value = "SELECT SUM(t.revenue) FROM " + PLANNED_SALES + "t", nativeQuery = true)
+    Double sumRevenue(@Param("start") LocalDate start,
+                      @Param("headEnd") LocalDate headEnd,
+                      @Param("monthsFrom") LocalDate monthsFrom,
+                      @Param("monthsTo") LocalDate monthsTo,
+                      @Param("tailStart") LocalDate tailStart,
+                      @Param("end") LocalDate end,
+                      @Param("storeId") Long storeId,
+                      @Param("investorId") Long investorId);
+
+    // Revenue per date_trunc bucket of a RollupRangePlan. Month rows are labelled by their first day,
+    // so the plan may only use the monthly tier for buckets made of whole months (TimeBucket.spansMonths).
+    @Query(value = "SELECT TO_CHAR(date_trunc(:bucket, CAST(t.day AS TIMESTAMP)), 'YYYY-MM-DD') AS bucket_start, SUM(t.revenue) " +
+                   "FROM (SELECT sales_day AS day, revenue FROM daily_sales_rollup " +
+                   "      WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end) " +
+                   "      AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "      AND (CAST(:investorId AS BIGINT) IS NULL OR investor_id = :investorId) " +
+                   "      AND (CAST(:productId AS BIGINT) IS NULL OR product_id = :productId) " +
+                   "      UNION ALL " +
+                   "      SELECT sales_month, revenue FROM monthly_sales_rollup " +
+                   "      WHERE sales_month BETWEEN :monthsFrom AND :monthsTo " +
+                   "      AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "      AND (CAST(:investorId AS BIGINT) IS NULL OR investor_id = :investorId) " +
+                   "      AND (CAST(:productId AS BIGINT) IS NULL OR product_id = :productId)) t " +
+                   "GROUP BY bucket_start ORDER BY bucket_start ASC",
+           nativeQuery = true)
+    List<Object[]> findRevenueTimeSeries(@Param("start") LocalDate start,
+                                         @Param("headEnd") LocalDate headEnd,
+                                         @Param("monthsFrom") LocalDate monthsFrom,
+                                         @Param("monthsTo") LocalDate monthsTo,
+                                         @Param("tailStart") LocalDate tailStart,
+                                         @Param("end") LocalDate end,
+                                         @Param("storeId") Long storeId,
+                                         @Param("investorId") Long investorId,
+                                         @Param("productId") Long productId,
+                                         @Param("bucket") String bucket);
+
+    @Query("SELECT MIN(r.day) FROM DailySalesRollup r")
+    LocalDate findFirstSalesDay();
+
+    @Query("SELECT r.productId FROM DailySalesRollup r WHERE r.day BETWEEN :start AND :end " +
+           "GROUP BY r.productId ORDER BY SUM(r.revenue) DESC, r.productId")
+    List<Long> findTopProductIds(@Param("start") LocalDate start, @Param("end") LocalDate end, Pageable pageable);
+
+    @Query("SELECT CAST(r.day AS string), SUM(r.unitsSold) FROM DailySalesRollup r " +
+           "WHERE r.day BETWEEN :start AND :end " +
+           "AND (:storeId IS NULL OR r.storeId = :storeId) " +
+           "AND (:investorId IS NULL OR r.investorId = :investorId) " +
+           "AND (:productId IS NULL OR r.productId = :productId) " +
+           "GROUP BY r.day ORDER BY r.day ASC")
+    List<Object[]> findStockDemandTimeSeries(@Param("start") LocalDate start,
+                                             @Param("end") LocalDate end,
+                                             @Param("storeId") Long storeId,
+                                             @Param("investorId") Long investorId,
+                                             @Param("productId") Long productId);
+
+    // Geo drill-down of a RollupRangePlan, same columns as OrderRepository.findGeoRollup (investorScope = 0 for all).
+    // Order counts add up per store: an order belongs to a single store.
+    @Query(value = "WITH sales AS (SELECT t.store_id, SUM(t.revenue) AS revenue, SUM(t.units_sold) AS units " +
+                   "      FROM " + PLANNED_SALES + "t GROUP BY t.store_id), " +
+                   "order_counts AS (SELECT store_id, SUM(order_count) AS orders FROM " +
+                   "      (SELECT store_id, order_count FROM daily_order_rollup " +
+                   "       WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end) " +
+                   "       AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "       AND investor_id = :investorScope " +
+                   "       UNION ALL " +
+                   "       SELECT store_id, order_count FROM monthly_order_rollup " +
+                   "       WHERE sales_month BETWEEN :monthsFrom AND :monthsTo " +
+                   "       AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "       AND investor_id = :investorScope) o " +
+                   "      GROUP BY store_id), " +
+                   "per_store AS (SELECT sales.store_id, sales.revenue, COALESCE(order_counts.orders, 0) AS orders, sales.units " +
+                   "      FROM sales LEFT JOIN order_counts ON order_counts.store_id = sales.store_id) " +
+                   OrderRepository.GEO_ROLLUP,
+           nativeQuery = true)
+    List<Object[]> findGeoRollup(@Param("start") LocalDate start,
+                                 @Param("headEnd") LocalDate headEnd,
+                                 @Param("monthsFrom") LocalDate monthsFrom,
+                                 @Param("monthsTo") LocalDate monthsTo,
+                                 @Param("tailStart") LocalDate tailStart,
+                                 @Param("end") LocalDate end,
+                                 @Param("storeId") Long storeId,
+                                 @Param("investorId") Long investorId,
+                                 @Param("investorScope") Long investorScope,
+                                 @Param("regionId") Long regionId,
+                                 @Param("stateId") Long stateId,
+                                 @Param("cityId") Long cityId);
+
+    @Query(value = "SELECT cat.category_name, SUM(t.revenue) FROM " + PLANNED_SALES + "t " +
+                   "JOIN product p ON p.product_id = t.product_id " +
+                   "JOIN subcategory sub ON sub.subcategory_id = p.subcategory_id " +
+                   "JOIN category cat ON cat.category_id = sub.category_id " +
+                   "GROUP BY cat.category_name",
+           nativeQuery = true)
+    List<Object[]> findCategoryRevenueDistribution(@Param("start") LocalDate start,
+                                                   @Param("headEnd") LocalDate headEnd,
+                                                   @Param("monthsFrom") LocalDate monthsFrom,
+                                                   @Param("monthsTo") LocalDate monthsTo,
+                                                   @Param("tailStart") LocalDate tailStart,
+                                                   @Param("end") LocalDate end,
+                                                   @Param("storeId") Long storeId,
+                                                   @Param("investorId") Long investorId);
+
+    // Leaderboards of a RollupRangePlan, same columns as the ProductRepository ones
+    @Query(value = "SELECT p.product_name, SUM(t.revenue), cat.category_name FROM " + PLANNED_SALES + "t " +
+                   "JOIN product p ON p.product_id = t.product_id " +
+                   "JOIN subcategory sub ON sub.subcategory_id = p.subcategory_id " +
+                   "JOIN category cat ON cat.category_id = sub.category_id " +
+                   "GROUP BY p.product_id, p.product_name, cat.category_name ORDER BY 2 DESC, p.product_id",
+           nativeQuery = true)
+    List<Object[]> findTopSellingProducts(@Param("start") LocalDate start,
+                                          @Param("headEnd") LocalDate headEnd,
+                                          @Param("monthsFrom") LocalDate monthsFrom,
+                                          @Param("monthsTo") LocalDate monthsTo,
+                                          @Param("tailStart") LocalDate tailStart,
+                                          @Param("end") LocalDate end,
+                                          @Param("storeId") Long storeId,
+                                          @Param("investorId") Long investorId,
+                                          Pageable pageable);
+
+    @Query(value = "SELECT c.city_name, SUM(t.revenue) FROM " + PLANNED_SALES + "t " +
+                   "JOIN store s ON s.store_id = t.store_id JOIN city c ON c.city_id = s.city_id " +
+                   "GROUP BY c.city_id, c.city_name ORDER BY 2 DESC, c.city_id",
+           nativeQuery = true)
+    List<Object[]> findTopStores(@Param("start") LocalDate start,
+                                 @Param("headEnd") LocalDate headEnd,
+                                 @Param("monthsFrom") LocalDate monthsFrom,
+                                 @Param("monthsTo") LocalDate monthsTo,
+                                 @Param("tailStart") LocalDate tailStart,
+                                 @Param("end") LocalDate end,
+                                 @Param("storeId") Long storeId,
+                                 @Param("investorId") Long investorId,
+                                 Pageable pageable);
+
+    @Query(value = "SELECT u.user_name, SUM(t.revenue) FROM " + PLANNED_SALES + "t " +
+                   "JOIN investor i ON i.user_id = t.investor_id JOIN \"user\" u ON u.user_id = i.user_id " +
+                   "GROUP BY u.user_id, u.user_name ORDER BY 2 DESC, u.user_id",
+           nativeQuery = true)
+    List<Object[]> findTopInvestors(@Param("start") LocalDate start,
+                                    @Param("headEnd") LocalDate headEnd,
+                                    @Param("monthsFrom") LocalDate monthsFrom,
+                                    @Param("monthsTo") LocalDate monthsTo,
+                                    @Param("tailStart") LocalDate tailStart,
+                                    @Param("end") LocalDate end,
+                                    @Param("storeId") Long storeId,
+                                    @Param("investorId") Long investorId,
+                                    Pageable pageable);
+
+    // Sales KPIs of a RollupRangePlan, same columns as OrderRepository.findSalesKpis (investorScope = 0 for all).
+    // The order days of whole months come from the active_days bitmask of monthly_order_rollup.
+    @Query(value = "WITH sales AS (SELECT SUM(t.revenue) AS revenue, SUM(t.units_sold) AS units FROM " + PLANNED_SALES + "t), " +
+                   "order_days AS (SELECT sales_day, SUM(order_count) AS orders FROM daily_order_rollup " +
+                   "      WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end) " +
+                   "      AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "      AND investor_id = :investorScope " +
+                   "      GROUP BY sales_day), " +
+                   "order_months AS (SELECT sales_month, SUM(order_count) AS orders, BIT_OR(active_days) AS active_days " +
+                   "      FROM monthly_order_rollup " +
+                   "      WHERE sales_month BETWEEN :monthsFrom AND :monthsTo " +
+                   "      AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "      AND investor_id = :investorScope " +
+                   "      GROUP BY sales_month), " +
+                   "active AS (SELECT sales_day FROM order_days WHERE orders > 0 " +
+                   "      UNION ALL " +
+                   "      SELECT CAST(m.sales_month + d AS DATE) FROM order_months m CROSS JOIN generate_series(0, 30) d " +
+                   "      WHERE (m.active_days >> d) & 1 = 1) " +
+                   "SELECT 3, NULL, NULL, s.revenue, " +
+                   "COALESCE((SELECT SUM(orders) FROM order_days), 0) + COALESCE((SELECT SUM(orders) FROM order_months), 0), " +
+                   "s.units, NULL " +
+                   "FROM sales s " +
+                   "UNION ALL " +
+                   "SELECT GROUPING(x.dow, x.month), x.dow, x.month, NULL, NULL, NULL, COUNT(*) " +
+                   "FROM (SELECT CAST(EXTRACT(ISODOW FROM sales_day) AS INTEGER) AS dow, " +
+                   "      CAST(EXTRACT(MONTH FROM sales_day) AS INTEGER) AS month FROM active) x " +
+                   "GROUP BY GROUPING SETS ((x.dow), (x.month))",
+           nativeQuery = true)
+    List<Object[]> findSalesKpis(@Param("start") LocalDate start,
+                                 @Param("headEnd") LocalDate headEnd,
+                                 @Param("monthsFrom") LocalDate monthsFrom,
+                                 @Param("monthsTo") LocalDate monthsTo,
+                                 @Param("tailStart") LocalDate tailStart,
+                                 @Param("end") LocalDate end,
+                                 @Param("storeId") Long storeId,
+                                 @Param("investorId") Long investorId,
+                                 @Param("investorScope") Long investorScope);
+
+    // Current vs comparison period, each split by its own RollupRangePlan; same columns as OrderRepository.comparePeriodSales.
+    // A row can belong to both periods (previous_year of a range longer than a year).
+    @Query(value = "SELECT s.revenue, s.previous_revenue, o.orders, o.previous_orders, s.units, s.previous_units " +
+                   "FROM (SELECT SUM(revenue) FILTER (WHERE in_current) AS revenue, " +
+                   "      SUM(revenue) FILTER (WHERE in_previous) AS previous_revenue, " +
+                   "      SUM(units_sold) FILTER (WHERE in_current) AS units, " +
+                   "      SUM(units_sold) FILTER (WHERE in_previous) AS previous_units " +
+                   "      FROM (SELECT revenue, units_sold, " +
+                   "            sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end AS in_current, " +
+                   "            sales_day BETWEEN :previousStart AND :previousHeadEnd OR sales_day BETWEEN :previousTailStart AND :previousEnd AS in_previous " +
+                   "            FROM daily_sales_rollup " +
+                   "            WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end " +
+                   "                OR sales_day BETWEEN :previousStart AND :previousHeadEnd OR sales_day BETWEEN :previousTailStart AND :previousEnd) " +
+                   "            AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "            AND (CAST(:investorId AS BIGINT) IS NULL OR investor_id = :investorId) " +
+                   "            UNION ALL " +
+                   "            SELECT revenue, units_sold, " +
+                   "            sales_month BETWEEN :monthsFrom AND :monthsTo, " +
+                   "            sales_month BETWEEN :previousMonthsFrom AND :previousMonthsTo " +
+                   "            FROM monthly_sales_rollup " +
+                   "            WHERE (sales_month BETWEEN :monthsFrom AND :monthsTo OR sales_month BETWEEN :previousMonthsFrom AND :previousMonthsTo) " +
+                   "            AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "            AND (CAST(:investorId AS BIGINT) IS NULL OR investor_id = :investorId)) t) s " +
+                   "CROSS JOIN (SELECT SUM(order_count) FILTER (WHERE in_current) AS orders, " +
+                   "      SUM(order_count) FILTER (WHERE in_previous) AS previous_orders " +
+                   "      FROM (SELECT order_count, " +
+                   "            sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end AS in_current, " +
+                   "            sales_day BETWEEN :previousStart AND :previousHeadEnd OR sales_day BETWEEN :previousTailStart AND :previousEnd AS in_previous " +
+                   "            FROM daily_order_rollup " +
+                   "            WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end " +
+                   "                OR sales_day BETWEEN :previousStart AND :previousHeadEnd OR sales_day BETWEEN :previousTailStart AND :previousEnd) " +
+                   "            AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "            AND investor_id = :investorScope " +
+                   "            UNION ALL " +
+                   "            SELECT order_count, " +
+                   "            sales_month BETWEEN :monthsFrom AND :monthsTo, " +
+                   "            sales_month BETWEEN :previousMonthsFrom AND :previousMonthsTo " +
+                   "            FROM monthly_order_rollup " +
+                   "            WHERE (sales_month BETWEEN :monthsFrom AND :monthsTo OR sales_month BETWEEN :previousMonthsFrom AND :previousMonthsTo) " +
+                   "            AND (CAST(:storeId AS BIGINT) IS NULL OR store_id = :storeId) " +
+                   "            AND investor_id = :investorScope) t) o",
+           nativeQuery = true)
+    List<Object[]> comparePeriodSales(@Param("start") LocalDate start,
+                                      @Param("headEnd") LocalDate headEnd,
+                                      @Param("monthsFrom") LocalDate monthsFrom,
+                                      @Param("monthsTo") LocalDate monthsTo,
+                                      @Param("tailStart") LocalDate tailStart,
+                                      @Param("end") LocalDate end,
+                                      @Param("previousStart") LocalDate previousStart,
+                                      @Param("previousHeadEnd") LocalDate previousHeadEnd,
+                                      @Param("previousMonthsFrom") LocalDate previousMonthsFrom,
+                                      @Param("previousMonthsTo") LocalDate previousMonthsTo,
+                                      @Param("previousTailStart") LocalDate previousTailStart,
+                                      @Param("previousEnd") LocalDate previousEnd,
+                                      @Param("storeId") Long storeId,
+                                      @Param("investorId") Long investorId,
+                                      @Param("investorScope") Long investorScope);
+
+    // Sales rows of a RollupRangePlan for a side-by-side comparison, labelled by their investor (byInvestor) or store.
+    // Month rows are dated by their first day.
+    String PLANNED_SCOPE_SALES =
+            "(SELECT CASE WHEN :byInvestor THEN investor_id ELSE store_id END AS scope_id, sales_day AS day, revenue, units_sold " +
+            "FROM daily_sales_rollup " +
+            "WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end) " +
+            "AND CASE WHEN :byInvestor THEN investor_id ELSE store_id END IN (:ids) " +
+            "UNION ALL " +
+            "SELECT CASE WHEN :byInvestor THEN investor_id ELSE store_id END, sales_month, revenue, units_sold " +
+            "FROM monthly_sales_rollup " +
+            "WHERE sales_month BETWEEN :monthsFrom AND :monthsTo " +
+            "AND CASE WHEN :byInvestor THEN investor_id ELSE store_id END IN (:ids)) ";
+
+    // Sales of several stores or investors, same columns as OrderRepository.findScopeSales. A store counts the
+    // orders of its all-investors rows; an investor adds up its orders of every store (an order has a single store).
+    @Query(value = "WITH sales AS (SELECT t.scope_id, SUM(t.revenue) AS revenue, SUM(t.units_sold) AS units " +
+                   "      FROM " + PLANNED_SCOPE_SALES + "t GROUP BY t.scope_id), " +
+                   "order_counts AS (SELECT o.scope_id, SUM(o.order_count) AS orders FROM " +
+                   "      (SELECT CASE WHEN :byInvestor THEN investor_id ELSE store_id END AS scope_id, order_count " +
+                   "       FROM daily_order_rollup " +
+                   "       WHERE (sales_day BETWEEN :start AND :headEnd OR sales_day BETWEEN :tailStart AND :end) " +
+                   "       AND (:byInvestor OR investor_id = 0) " +
+                   "       AND CASE WHEN :byInvestor THEN investor_id ELSE store_id END IN (:ids) " +
+                   "       UNION ALL " +
+                   "       SELECT CASE WHEN :byInvestor THEN investor_id ELSE store_id END, order_count " +
+                   "       FROM monthly_order_rollup " +
+                   "       WHERE sales_month BETWEEN :monthsFrom AND :monthsTo " +
+                   "       AND (:byInvestor OR investor_id = 0) " +
+                   "       AND CASE WHEN :byInvestor THEN investor_id ELSE store_id END IN (:ids)) o " +
+                   "      GROUP BY o.scope_id) " +
+                   "SELECT sales.scope_id, sales.revenue, COALESCE(order_counts.orders, 0), sales.units " +
+                   "FROM sales LEFT JOIN order_counts ON order_counts.scope_id = sales.scope_id",
+           nativeQuery = true)
+    List<Object[]> findScopeSales(@Param("start") LocalDate start,
+                                  @Param("headEnd") LocalDate headEnd,
+                                  @Param("monthsFrom") LocalDate monthsFrom,
+                                  @Param("monthsTo") LocalDate monthsTo,
+                                  @Param("tailStart") LocalDate tailStart,
+                                  @Param("end") LocalDate end,
+                                  @Param("byInvestor") boolean byInvestor,
+                                  @Param("ids") Collection<Long> ids);
+
+    // Revenue per scope and date_trunc bucket of a RollupRangePlan (monthly tier only for TimeBucket.spansMonths),
+    // same columns as OrderRepository.findScopeRevenueTimeSeries
+    @Query(value = "SELECT t.scope_id, TO_CHAR(date_trunc(:bucket, CAST(t.day AS TIMESTAMP)), 'YYYY-MM-DD') AS bucket_start, " +
+                   "SUM(t.revenue) FROM " + PLANNED_SCOPE_SALES + "t " +
+                   "GROUP BY t.scope_id, bucket_start ORDER BY t.scope_id, bucket_start",
+           nativeQuery = true)
+    List<Object[]> findScopeRevenueTimeSeries(@Param("start") LocalDate start,
+                                              @Param("headEnd") LocalDate headEnd,
+                                              @Param("monthsFrom") LocalDate monthsFrom,
+                                              @Param("monthsTo") LocalDate monthsTo,
+                                              @Param("tailStart") LocalDate tailStart,
+                                              @Param("end") LocalDate end,
+                                              @Param("byInvestor") boolean byInvestor,
+                                              @Param("ids") Collection<Long> ids,
+                                              @Param("bucket") String bucket);
+}
@@ -0,0 +1,13 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.Entity.ForecastModel;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ForecastModelRepository extends JpaRepository<ForecastModel, Long> {
+
+    Optional<ForecastModel> findByScopeKey(String scopeKey);
+}
@@ -1,7 +1,20 @@
 package com.analyfy.analify.Repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.analyfy.analify.Entity.Investor;
 
-public interface InvestorRepository extends JpaRepository<Investor, Long> {}
\ No newline at end of file
+import java.util.Collection;
+import java.util.List;
+
+public interface InvestorRepository extends JpaRepository<Investor, Long> {
+
+    @Query("SELECT i.userId FROM Investor i ORDER BY i.userId")
+    List<Long> findAllInvestorIds();
+
+    // Labels of the compared investors: user id, user name
+    @Query("SELECT i.userId, i.userName FROM Investor i WHERE i.userId IN :ids")
+    List<Object[]> findLabels(@Param("ids") Collection<Long> ids);
+}
@@ -0,0 +1,59 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.Entity.MonthlyOrderRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface MonthlyOrderRollupRepository extends JpaRepository<MonthlyOrderRollup, Long> {
+
+    // =============== INCREMENTAL MAINTENANCE ===============
+
+    // Only used for new orders: the day bit is OR-ed in, removals rebuild the month instead
+    @Modifying
+    @Query(value = "INSERT INTO monthly_order_rollup (sales_month, store_id, investor_id, order_count, active_days) " +
+                   "VALUES (:month, :storeId, :investorId, :delta, :dayBit) " +
+                   "ON CONFLICT (sales_month, store_id, investor_id) DO UPDATE SET " +
+                   "order_count = monthly_order_rollup.order_count + EXCLUDED.order_count, " +
+                   "active_days = monthly_order_rollup.active_days | EXCLUDED.active_days",
+           nativeQuery = true)
+    void upsert(@Param("month") LocalDate month,
+                @Param("storeId") Long storeId,
+                @Param("investorId") Long investorId,
+                @Param("delta") Long delta,
+                @Param("dayBit") Integer dayBit);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_order_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_order_rollup (sales_month, store_id, investor_id, order_count, active_days) " +
+                   "SELECT CAST(date_trunc('month', sales_day) AS DATE), store_id, investor_id, SUM(order_count), " +
+                   "BIT_OR(CASE WHEN order_count > 0 THEN 1 << (CAST(EXTRACT(DAY FROM sales_day) AS INTEGER) - 1) ELSE 0 END) " +
+                   "FROM daily_order_rollup " +
+                   "GROUP BY CAST(date_trunc('month', sales_day) AS DATE), store_id, investor_id",
+           nativeQuery = true)
+    int rebuildFromDaily();
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_order_rollup WHERE sales_month = :month AND store_id = :storeId", nativeQuery = true)
+    int deleteMonth(@Param("month") LocalDate month, @Param("storeId") Long storeId);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_order_rollup (sales_month, store_id, investor_id, order_count, active_days) " +
+                   "SELECT :month, store_id, investor_id, SUM(order_count), " +
+                   "BIT_OR(CASE WHEN order_count > 0 THEN 1 << (CAST(EXTRACT(DAY FROM sales_day) AS INTEGER) - 1) ELSE 0 END) " +
+                   "FROM daily_order_rollup " +
+                   "WHERE sales_day >= :month AND sales_day < :nextMonth AND store_id = :storeId " +
+                   "GROUP BY store_id, investor_id",
+           nativeQuery = true)
+    int rebuildMonthFromDaily(@Param("month") LocalDate month,
+                              @Param("nextMonth") LocalDate nextMonth,
+                              @Param("storeId") Long storeId);
+}
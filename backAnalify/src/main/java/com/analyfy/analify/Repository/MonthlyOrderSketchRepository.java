@@ -0,0 +1,39 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.Entity.MonthlyOrderSketch;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface MonthlyOrderSketchRepository extends JpaRepository<MonthlyOrderSketch, Long> {
+
+    // =============== MAINTENANCE ===============
+
+    // Rebuilds write plain rows, so the digests of a whole history never sit in the persistence context
+    @Modifying
+    @Query(value = "INSERT INTO monthly_order_sketch (sales_month, store_id, investor_id, order_value_digest, basket_units_digest) " +
+                   "VALUES (:month, :storeId, :investorId, :orderValueDigest, :basketUnitsDigest)",
+           nativeQuery = true)
+    void insertRow(@Param("month") LocalDate month,
+                   @Param("storeId") Long storeId,
+                   @Param("investorId") Long investorId,
+                   @Param("orderValueDigest") byte[] orderValueDigest,
+                   @Param("basketUnitsDigest") byte[] basketUnitsDigest);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_order_sketch WHERE sales_month = :month AND store_id = :storeId", nativeQuery = true)
+    int deleteMonth(@Param("month") LocalDate month, @Param("storeId") Long storeId);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_order_sketch WHERE sales_month = :month", nativeQuery = true)
+    int deleteMonthRows(@Param("month") LocalDate month);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_order_sketch", nativeQuery = true)
+    int deleteAllRows();
+}
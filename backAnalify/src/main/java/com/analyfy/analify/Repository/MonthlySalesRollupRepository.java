@@ -0,0 +1,62 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.Entity.MonthlySalesRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+
+@Repository
+public interface MonthlySalesRollupRepository extends JpaRepository<MonthlySalesRollup, Long> {
+
+    // =============== INCREMENTAL MAINTENANCE ===============
+
+    // Same delta as DailySalesRollupRepository.upsert, on the month row
+    @Modifying
+    @Query(value = "INSERT INTO monthly_sales_rollup (sales_month, store_id, product_id, investor_id, revenue, units_sold, line_items) " +
+                   "VALUES (:month, :storeId, :productId, :investorId, :revenue, :units, :lineItems) " +
+                   "ON CONFLICT (sales_month, store_id, product_id, investor_id) DO UPDATE SET " +
+                   "revenue = monthly_sales_rollup.revenue + EXCLUDED.revenue, " +
+                   "units_sold = monthly_sales_rollup.units_sold + EXCLUDED.units_sold, " +
+                   "line_items = monthly_sales_rollup.line_items + EXCLUDED.line_items",
+           nativeQuery = true)
+    void upsert(@Param("month") LocalDate month,
+                @Param("storeId") Long storeId,
+                @Param("productId") Long productId,
+                @Param("investorId") Long investorId,
+                @Param("revenue") Double revenue,
+                @Param("units") Long units,
+                @Param("lineItems") Long lineItems);
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_sales_rollup", nativeQuery = true)
+    int deleteAllRows();
+
+    // Months are re-derived from the daily rollup, never from the orders
+    @Modifying
+    @Query(value = "INSERT INTO monthly_sales_rollup (sales_month, store_id, product_id, investor_id, revenue, units_sold, line_items) " +
+                   "SELECT CAST(date_trunc('month', sales_day) AS DATE), store_id, product_id, investor_id, " +
+                   "SUM(revenue), SUM(units_sold), SUM(line_items) " +
+                   "FROM daily_sales_rollup " +
+                   "GROUP BY CAST(date_trunc('month', sales_day) AS DATE), store_id, product_id, investor_id",
+           nativeQuery = true)
+    int rebuildFromDaily();
+
+    @Modifying
+    @Query(value = "DELETE FROM monthly_sales_rollup WHERE sales_month = :month AND store_id = :storeId", nativeQuery = true)
+    int deleteMonth(@Param("month") LocalDate month, @Param("storeId") Long storeId);
+
+    @Modifying
+    @Query(value = "INSERT INTO monthly_sales_rollup (sales_month, store_id, product_id, investor_id, revenue, units_sold, line_items) " +
+                   "SELECT :month, store_id, product_id, investor_id, SUM(revenue), SUM(units_sold), SUM(line_items) " +
+                   "FROM daily_sales_rollup " +
+                   "WHERE sales_day >= :month AND sales_day < :nextMonth AND store_id = :storeId " +
+                   "GROUP BY store_id, product_id, investor_id",
+           nativeQuery = true)
+    int rebuildMonthFromDaily(@Param("month") LocalDate month,
+                              @Param("nextMonth") LocalDate nextMonth,
+                              @Param("storeId") Long storeId);
+}
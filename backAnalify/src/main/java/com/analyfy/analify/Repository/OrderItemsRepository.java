@@ -1,10 +1,15 @@
 package com.analyfy.analify.Repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import com.analyfy.analify.Entity.OrderItems;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface OrderItemsRepository extends JpaRepository<OrderItems, Long> {
 
@@ -29,4 +34,41 @@ public interface OrderItemsRepository extends JpaRepository<OrderItems, Long> {
            "GROUP BY oi.product.productId, oi.product.productName")
     Object[] findProductRevenue(@Param("productId") Long productId);
 
-}
\ No newline at end of file
+    // =============== SALES CUBE LOADING ===============
+    // One row per order line: order id, order date, store id, product id, net revenue, quantity.
+    // Ordered by day then order, so the lines of an order are contiguous.
+
+    String ORDER_LINES =
+            "SELECT o.order_id, o.order_date, c.store_id, oi.product_id, " +
+            "(oi.price - (oi.price * COALESCE(oi.discount, 0))) * oi.quantity, oi.quantity " +
+            "FROM \"orders\" o " +
+            "JOIN order_items oi ON oi.order_id = o.order_id " +
+            "JOIN caissier c ON c.user_id = o.user_id ";
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query(value = ORDER_LINES +
+                   "WHERE o.order_date IS NOT NULL AND c.store_id IS NOT NULL " +
+                   "ORDER BY o.order_date, o.order_id",
+           nativeQuery = true)
+    Stream<Object[]> streamCubeLines();
+
+    // Same columns, for the orders of [start, end] (live leaderboards)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query(value = ORDER_LINES +
+                   "WHERE o.order_date BETWEEN :start AND :end AND c.store_id IS NOT NULL",
+           nativeQuery = true)
+    Stream<Object[]> streamLinesBetween(@Param("start") LocalDate start, @Param("end") LocalDate end);
+
+    // =============== BASKET AFFINITY LOADING ===============
+    // One row per order line: order id, order date, store id, product id; the lines of an order are contiguous.
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query(value = "SELECT o.order_id, o.order_date, c.store_id, oi.product_id " +
+                   "FROM \"orders\" o " +
+                   "JOIN order_items oi ON oi.order_id = o.order_id " +
+                   "JOIN caissier c ON c.user_id = o.user_id " +
+                   "WHERE c.store_id IS NOT NULL AND oi.product_id IS NOT NULL " +
+                   "ORDER BY o.order_id",
+           nativeQuery = true)
+    Stream<Object[]> streamBasketLines();
+}
@@ -7,25 +7,34 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
-       // 1. Revenue Time Series (Universal Filter)
-       @Query("SELECT CAST(o.orderDate AS string), " +
+       // 1. Revenue Time Series (Universal Filter), one row per date_trunc bucket (day, week, month, quarter, year)
+       @Query(value = "SELECT TO_CHAR(date_trunc(:bucket, CAST(o.order_date AS TIMESTAMP)), 'YYYY-MM-DD') AS bucket_start, " +
               "SUM( (oi.price - (oi.price * oi.discount)) * oi.quantity ) " +
-              "FROM Order o JOIN o.items oi JOIN oi.product p " +
-              "WHERE o.orderDate BETWEEN :start AND :end " +
-              "AND (:storeId IS NULL OR o.caissier.store.storeId = :storeId) " +
-              "AND (:investorId IS NULL OR p.id_inv.userId = :investorId) " + // 🆕 Added
-              "AND (:productId IS NULL OR p.productId = :productId) " +
-              "GROUP BY o.orderDate ORDER BY o.orderDate ASC")
+              "FROM \"orders\" o " +
+              "JOIN order_items oi ON oi.order_id = o.order_id " +
+              "JOIN product p ON p.product_id = oi.product_id " +
+              "JOIN caissier c ON c.user_id = o.user_id " +
+              "WHERE o.order_date BETWEEN :start AND :end " +
+              "AND (CAST(:storeId AS BIGINT) IS NULL OR c.store_id = :storeId) " +
+              "AND (CAST(:investorId AS BIGINT) IS NULL OR p.id_inv = :investorId) " +
+              "AND (CAST(:productId AS BIGINT) IS NULL OR p.product_id = :productId) " +
+              "GROUP BY bucket_start ORDER BY bucket_start ASC",
+              nativeQuery = true)
        List<Object[]> findRevenueTimeSeries(@Param("start") LocalDate start, 
                                           @Param("end") LocalDate end, 
                                           @Param("storeId") Long storeId,
                                           @Param("investorId") Long investorId,
-                                          @Param("productId") Long productId);
+                                          @Param("productId") Long productId,
+                                          @Param("bucket") String bucket);
+
+       @Query("SELECT MIN(o.orderDate) FROM Order o")
+       LocalDate findFirstOrderDate();
 
        // 2. Total Revenue
        @Query("SELECT SUM( (oi.price - (oi.price * oi.discount)) * oi.quantity ) " +
@@ -82,31 +91,156 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                           @Param("storeId") Long storeId,
                                           @Param("investorId") Long investorId);
 
-       // 7. Sales By Region
-       @Query("SELECT r.name, SUM((oi.price - (oi.price * oi.discount)) * oi.quantity) " +
-              "FROM Order o JOIN o.items oi JOIN oi.product p " +
-              "JOIN o.caissier u JOIN u.store s JOIN s.city c JOIN c.state st JOIN st.region r " +
-              "WHERE o.orderDate BETWEEN :start AND :end " +
-              "AND (:storeId IS NULL OR s.storeId = :storeId) " +
-              "AND (:investorId IS NULL OR p.id_inv.userId = :investorId) " +
-              "GROUP BY r.name")
-       List<Object[]> findSalesByRegion(@Param("start") LocalDate start, 
-                                          @Param("end") LocalDate end, 
-                                          @Param("storeId") Long storeId,
-                                          @Param("investorId") Long investorId);
+       // Geo drill-down: a per_store CTE (store_id, revenue, orders, units) rolled up store -> city -> state -> region
+       // in one GROUP BY ROLLUP. Columns: GROUPING bits (0 store, 1 city, 3 state, 7 region, 15 total),
+       // region id, region name, state id, state name, city id, city name, store id, revenue, orders, units.
+       // The optional region / state / city ids restrict the result to that node's subtree.
+       String GEO_ROLLUP =
+              "SELECT GROUPING(rg.region_id, st.state_id, ci.city_id, s.store_id), " +
+              "rg.region_id, rg.name, st.state_id, st.name, ci.city_id, ci.city_name, s.store_id, " +
+              "SUM(ps.revenue), SUM(ps.orders), SUM(ps.units) " +
+              "FROM per_store ps " +
+              "JOIN store s ON s.store_id = ps.store_id " +
+              "JOIN city ci ON ci.city_id = s.city_id " +
+              "JOIN state st ON st.state_id = ci.state_id " +
+              "JOIN region rg ON rg.region_id = st.region_id " +
+              "WHERE (CAST(:regionId AS BIGINT) IS NULL OR rg.region_id = :regionId) " +
+              "AND (CAST(:stateId AS BIGINT) IS NULL OR st.state_id = :stateId) " +
+              "AND (CAST(:cityId AS BIGINT) IS NULL OR ci.city_id = :cityId) " +
+              "GROUP BY ROLLUP((rg.region_id, rg.name), (st.state_id, st.name), (ci.city_id, ci.city_name), s.store_id)";
+
+       // 7. Sales by region / state / city / store (see GEO_ROLLUP)
+       @Query(value = "WITH per_store AS (SELECT c.store_id, " +
+              "      SUM((oi.price - (oi.price * oi.discount)) * oi.quantity) AS revenue, " +
+              "      COUNT(DISTINCT o.order_id) AS orders, SUM(oi.quantity) AS units " +
+              "      FROM \"orders\" o " +
+              "      JOIN order_items oi ON oi.order_id = o.order_id " +
+              "      JOIN product p ON p.product_id = oi.product_id " +
+              "      JOIN caissier c ON c.user_id = o.user_id " +
+              "      WHERE o.order_date BETWEEN :start AND :end " +
+              "      AND (CAST(:storeId AS BIGINT) IS NULL OR c.store_id = :storeId) " +
+              "      AND (CAST(:investorId AS BIGINT) IS NULL OR p.id_inv = :investorId) " +
+              "      GROUP BY c.store_id) " +
+              GEO_ROLLUP,
+              nativeQuery = true)
+       List<Object[]> findGeoRollup(@Param("start") LocalDate start,
+                                    @Param("end") LocalDate end,
+                                    @Param("storeId") Long storeId,
+                                    @Param("investorId") Long investorId,
+                                    @Param("regionId") Long regionId,
+                                    @Param("stateId") Long stateId,
+                                    @Param("cityId") Long cityId);
+
+       // 9. Sales KPIs in one pass: lines are folded per order, then per day, then into the grand total
+       // and the order days per weekday and per month (see SalesKpis for the columns)
+       @Query(value = "SELECT GROUPING(d.dow, d.month), d.dow, d.month, " +
+                      "SUM(d.revenue), SUM(d.orders), SUM(d.units), COUNT(*) " +
+                      "FROM (SELECT CAST(EXTRACT(ISODOW FROM x.order_date) AS INTEGER) AS dow, " +
+                      "      CAST(EXTRACT(MONTH FROM x.order_date) AS INTEGER) AS month, " +
+                      "      SUM(x.revenue) AS revenue, COUNT(*) AS orders, SUM(x.units) AS units " +
+                      "      FROM (SELECT o.order_id, o.order_date, " +
+                      "            SUM((oi.price - (oi.price * oi.discount)) * oi.quantity) AS revenue, SUM(oi.quantity) AS units " +
+                      "            FROM \"orders\" o " +
+                      "            JOIN order_items oi ON oi.order_id = o.order_id " +
+                      "            JOIN product p ON p.product_id = oi.product_id " +
+                      "            JOIN caissier c ON c.user_id = o.user_id " +
+                      "            WHERE o.order_date BETWEEN :start AND :end " +
+                      "            AND (CAST(:storeId AS BIGINT) IS NULL OR c.store_id = :storeId) " +
+                      "            AND (CAST(:investorId AS BIGINT) IS NULL OR p.id_inv = :investorId) " +
+                      "            GROUP BY o.order_id, o.order_date) x " +
+                      "      GROUP BY x.order_date) d " +
+                      "GROUP BY GROUPING SETS ((), (d.dow), (d.month))",
+              nativeQuery = true)
+       List<Object[]> findSalesKpis(@Param("start") LocalDate start,
+                                    @Param("end") LocalDate end,
+                                    @Param("storeId") Long storeId,
+                                    @Param("investorId") Long investorId);
+
+       // 10. Current vs comparison period in one pass over both date ranges (the ranges may overlap):
+       // revenue, previous revenue, orders, previous orders, units, previous units
+       @Query(value = "SELECT SUM(l.revenue) FILTER (WHERE l.in_current), SUM(l.revenue) FILTER (WHERE l.in_previous), " +
+                      "COUNT(DISTINCT l.order_id) FILTER (WHERE l.in_current), COUNT(DISTINCT l.order_id) FILTER (WHERE l.in_previous), " +
+                      "SUM(l.quantity) FILTER (WHERE l.in_current), SUM(l.quantity) FILTER (WHERE l.in_previous) " +
+                      "FROM (SELECT o.order_id, oi.quantity, " +
+                      "      (oi.price - (oi.price * oi.discount)) * oi.quantity AS revenue, " +
+                      "      o.order_date BETWEEN :start AND :end AS in_current, " +
+                      "      o.order_date BETWEEN :previousStart AND :previousEnd AS in_previous " +
+                      "      FROM \"orders\" o " +
+                      "      JOIN order_items oi ON oi.order_id = o.order_id " +
+                      "      JOIN product p ON p.product_id = oi.product_id " +
+                      "      JOIN caissier c ON c.user_id = o.user_id " +
+                      "      WHERE (o.order_date BETWEEN :start AND :end OR o.order_date BETWEEN :previousStart AND :previousEnd) " +
+                      "      AND (CAST(:storeId AS BIGINT) IS NULL OR c.store_id = :storeId) " +
+                      "      AND (CAST(:investorId AS BIGINT) IS NULL OR p.id_inv = :investorId)) l",
+              nativeQuery = true)
+       List<Object[]> comparePeriodSales(@Param("start") LocalDate start,
+                                         @Param("end") LocalDate end,
+                                         @Param("previousStart") LocalDate previousStart,
+                                         @Param("previousEnd") LocalDate previousEnd,
+                                         @Param("storeId") Long storeId,
+                                         @Param("investorId") Long investorId);
+
+       // 11. Exact basket percentiles (per order, the investor's part of it with an investor filter):
+       // orders, median value, p90 value, median units, p90 units
+       @Query(value = "SELECT COUNT(*), " +
+                      "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY b.value), PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY b.value), " +
+                      "PERCENTILE_CONT(0.5) WITHIN GROUP (ORDER BY b.units), PERCENTILE_CONT(0.9) WITHIN GROUP (ORDER BY b.units) " +
+                      "FROM (SELECT o.order_id, " +
+                      "      SUM((oi.price - (oi.price * COALESCE(oi.discount, 0))) * oi.quantity) AS value, SUM(oi.quantity) AS units " +
+                      "      FROM \"orders\" o " +
+                      "      JOIN order_items oi ON oi.order_id = o.order_id " +
+                      "      JOIN product p ON p.product_id = oi.product_id " +
+                      "      JOIN caissier c ON c.user_id = o.user_id " +
+                      "      WHERE o.order_date BETWEEN :start AND :end " +
+                      "      AND (CAST(:storeId AS BIGINT) IS NULL OR c.store_id = :storeId) " +
+                      "      AND (CAST(:investorId AS BIGINT) IS NULL OR p.id_inv = :investorId) " +
+                      "      GROUP BY o.order_id) b",
+              nativeQuery = true)
+       List<Object[]> findBasketPercentiles(@Param("start") LocalDate start,
+                                            @Param("end") LocalDate end,
+                                            @Param("storeId") Long storeId,
+                                            @Param("investorId") Long investorId);
+
+       // Scope of a line in a side-by-side comparison: its product's investor, else its store
+       String COMPARED_SCOPE = "CASE WHEN :byInvestor THEN p.id_inv ELSE c.store_id END";
+
+       // 12. Sales of several stores or investors in one pass: scope id, revenue, orders, units (scopes without sales are absent)
+       @Query(value = "SELECT " + COMPARED_SCOPE + " AS scope_id, " +
+                      "SUM((oi.price - (oi.price * oi.discount)) * oi.quantity), COUNT(DISTINCT o.order_id), SUM(oi.quantity) " +
+                      "FROM \"orders\" o " +
+                      "JOIN order_items oi ON oi.order_id = o.order_id " +
+                      "JOIN product p ON p.product_id = oi.product_id " +
+                      "JOIN caissier c ON c.user_id = o.user_id " +
+                      "WHERE o.order_date BETWEEN :start AND :end " +
+                      "AND " + COMPARED_SCOPE + " IN (:ids) " +
+                      "GROUP BY scope_id",
+              nativeQuery = true)
+       List<Object[]> findScopeSales(@Param("start") LocalDate start,
+                                     @Param("end") LocalDate end,
+                                     @Param("byInvestor") boolean byInvestor,
+                                     @Param("ids") Collection<Long> ids);
+
+       // 13. Revenue per scope and date_trunc bucket: scope id, bucket start, revenue
+       @Query(value = "SELECT " + COMPARED_SCOPE + " AS scope_id, " +
+                      "TO_CHAR(date_trunc(:bucket, CAST(o.order_date AS TIMESTAMP)), 'YYYY-MM-DD') AS bucket_start, " +
+                      "SUM((oi.price - (oi.price * oi.discount)) * oi.quantity) " +
+                      "FROM \"orders\" o " +
+                      "JOIN order_items oi ON oi.order_id = o.order_id " +
+                      "JOIN product p ON p.product_id = oi.product_id " +
+                      "JOIN caissier c ON c.user_id = o.user_id " +
+                      "WHERE o.order_date BETWEEN :start AND :end " +
+                      "AND " + COMPARED_SCOPE + " IN (:ids) " +
+                      "GROUP BY scope_id, bucket_start ORDER BY scope_id, bucket_start",
+              nativeQuery = true)
+       List<Object[]> findScopeRevenueTimeSeries(@Param("start") LocalDate start,
+                                                 @Param("end") LocalDate end,
+                                                 @Param("byInvestor") boolean byInvestor,
+                                                 @Param("ids") Collection<Long> ids,
+                                                 @Param("bucket") String bucket);
+
+       @Query("SELECT MAX(o.orderDate) FROM Order o")
+       LocalDate findLastOrderDate();
 
-       // 8. Sales by State
-       @Query("SELECT st.name, SUM((oi.price - (oi.price * oi.discount)) * oi.quantity) " +
-              "FROM Order o JOIN o.items oi JOIN oi.product p " +
-              "JOIN o.caissier u JOIN u.store s JOIN s.city c JOIN c.state st " +
-              "WHERE o.orderDate BETWEEN :start AND :end " +
-              "AND (:storeId IS NULL OR s.storeId = :storeId) " +
-              "AND (:investorId IS NULL OR p.id_inv.userId = :investorId) " +
-              "GROUP BY st.name")
-       List<Object[]> findSalesByState(@Param("start") LocalDate start, 
-                                          @Param("end") LocalDate end, 
-                                          @Param("storeId") Long storeId,
-                                          @Param("investorId") Long investorId);
        // Analytics: Find orders between dates
        List<Order> findByOrderDateBetween(LocalDate startDate, LocalDate endDate);
 
@@ -1,7 +1,9 @@
 package com.analyfy.analify.Repository;
 
+import java.time.LocalDate;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.Optional;
 import org.springframework.data.jpa.repository.Query;
@@ -55,6 +57,80 @@ public interface ProductItemsRepository extends JpaRepository<Inventory, Long> {
     @Query("SELECT COUNT(DISTINCT i.product.productId) FROM Inventory i WHERE i.store.storeId = :storeId")
     Long countDistinctProductsByStore(@Param("storeId") Long storeId);
 
+    // =============== REPLENISHMENT ===============
+    // Demand per (store, product) over [start, end]: units sold and sum of squared daily units, for the velocity
+    // and its day-to-day deviation (days without sales count as 0).
+
+    String ROLLUP_DEMAND =
+            "WITH demand AS (" +
+            "SELECT r.store_id, r.product_id, SUM(r.units_sold) AS units, " +
+            "SUM(CAST(r.units_sold AS DOUBLE PRECISION) * r.units_sold) AS squares " +
+            "FROM daily_sales_rollup r " +
+            "WHERE r.sales_day BETWEEN :start AND :end " +
+            "AND (CAST(:storeId AS BIGINT) IS NULL OR r.store_id = :storeId) " +
+            "GROUP BY r.store_id, r.product_id) ";
+
+    String ORDER_DEMAND =
+            "WITH daily AS (" +
+            "SELECT c.store_id, oi.product_id, o.order_date, SUM(oi.quantity) AS units " +
+            "FROM \"orders\" o " +
+            "JOIN order_items oi ON oi.order_id = o.order_id " +
+            "JOIN caissier c ON c.user_id = o.user_id " +
+            "WHERE o.order_date BETWEEN :start AND :end " +
+            "AND (CAST(:storeId AS BIGINT) IS NULL OR c.store_id = :storeId) " +
+            "GROUP BY c.store_id, oi.product_id, o.order_date), " +
+            "demand AS (" +
+            "SELECT store_id, product_id, SUM(units) AS units, SUM(CAST(units AS DOUBLE PRECISION) * units) AS squares " +
+            "FROM daily GROUP BY store_id, product_id) ";
+
+    // Inventory joined to the demand: store, product, name, price, stock, units/day, deviation, reorder point
+    // (lead time demand + safety stock), days of cover. Most urgent first.
+    String REPLENISHMENT =
+            ", stock AS (" +
+            "SELECT i.store_id, i.product_id, SUM(COALESCE(i.quantity, 0)) AS quantity, " +
+            "COALESCE(MAX(d.units), 0) / CAST(:windowDays AS DOUBLE PRECISION) AS velocity, " +
+            "SQRT(GREATEST(COALESCE(MAX(d.squares), 0) / CAST(:windowDays AS DOUBLE PRECISION) " +
+            "- POWER(COALESCE(MAX(d.units), 0) / CAST(:windowDays AS DOUBLE PRECISION), 2), 0)) AS deviation " +
+            "FROM inventory i " +
+            "JOIN product p ON p.product_id = i.product_id " +
+            "LEFT JOIN demand d ON d.store_id = i.store_id AND d.product_id = i.product_id " +
+            "WHERE (CAST(:storeId AS BIGINT) IS NULL OR i.store_id = :storeId) " +
+            "AND (CAST(:investorId AS BIGINT) IS NULL OR p.id_inv = :investorId) " +
+            "AND (CAST(:productId AS BIGINT) IS NULL OR i.product_id = :productId) " +
+            "GROUP BY i.store_id, i.product_id), " +
+            "planned AS (" +
+            "SELECT s.*, s.velocity * :leadTimeDays + :serviceZ * s.deviation * SQRT(CAST(:leadTimeDays AS DOUBLE PRECISION)) AS reorder_point " +
+            "FROM stock s) " +
+            "SELECT pl.store_id, pl.product_id, p.product_name, p.price, pl.quantity, pl.velocity, pl.deviation, pl.reorder_point, " +
+            "CASE WHEN pl.velocity > 0 THEN pl.quantity / pl.velocity END AS days_of_cover " +
+            "FROM planned pl JOIN product p ON p.product_id = pl.product_id " +
+            "WHERE (:belowReorderPoint = FALSE OR (pl.velocity > 0 AND pl.quantity <= pl.reorder_point)) " +
+            "ORDER BY days_of_cover ASC NULLS LAST, pl.velocity DESC, pl.store_id, pl.product_id";
+
+    @Query(value = ROLLUP_DEMAND + REPLENISHMENT, nativeQuery = true)
+    List<Object[]> findReplenishmentFromRollup(@Param("start") LocalDate start,
+                                               @Param("end") LocalDate end,
+                                               @Param("windowDays") int windowDays,
+                                               @Param("leadTimeDays") int leadTimeDays,
+                                               @Param("serviceZ") double serviceZ,
+                                               @Param("storeId") Long storeId,
+                                               @Param("investorId") Long investorId,
+                                               @Param("productId") Long productId,
+                                               @Param("belowReorderPoint") boolean belowReorderPoint,
+                                               Pageable pageable);
+
+    @Query(value = ORDER_DEMAND + REPLENISHMENT, nativeQuery = true)
+    List<Object[]> findReplenishmentFromOrders(@Param("start") LocalDate start,
+                                               @Param("end") LocalDate end,
+                                               @Param("windowDays") int windowDays,
+                                               @Param("leadTimeDays") int leadTimeDays,
+                                               @Param("serviceZ") double serviceZ,
+                                               @Param("storeId") Long storeId,
+                                               @Param("investorId") Long investorId,
+                                               @Param("productId") Long productId,
+                                               @Param("belowReorderPoint") boolean belowReorderPoint,
+                                               Pageable pageable);
+
 
 
     
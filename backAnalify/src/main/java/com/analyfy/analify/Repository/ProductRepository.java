@@ -95,6 +95,9 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     @Query("SELECT p.productName, SUM((oi.price - (oi.price * oi.discount)) * oi.quantity), c.categoryName FROM Order o JOIN o.items oi JOIN oi.product p JOIN p.subcategory sub JOIN sub.category c WHERE o.orderDate BETWEEN :start AND :end AND (:investorId IS NULL OR p.id_inv.userId = :investorId) AND (:storeId IS NULL OR o.caissier.store.storeId = :storeId) GROUP BY p.productId, p.productName, c.categoryName ORDER BY 2 DESC")
     List<Object[]> findTopSellingProducts(@Param("start") LocalDate start, @Param("end") LocalDate end, @Param("investorId") Long investorId, @Param("storeId") Long storeId, Pageable pageable);
 
+    @Query("SELECT p.productId FROM Order o JOIN o.items oi JOIN oi.product p WHERE o.orderDate BETWEEN :start AND :end GROUP BY p.productId ORDER BY SUM((oi.price - (oi.price * oi.discount)) * oi.quantity) DESC, p.productId")
+    List<Long> findTopProductIds(@Param("start") LocalDate start, @Param("end") LocalDate end, Pageable pageable);
+
     @Query("SELECT SUM(p.price * pi.quantity) FROM Inventory pi JOIN pi.product p JOIN pi.store s WHERE (:storeId IS NULL OR s.storeId = :storeId) AND (:investorId IS NULL OR p.id_inv.userId = :investorId)")
     Double calculateTotalStockValue(@Param("storeId") Long storeId, @Param("investorId") Long investorId);
 
@@ -112,4 +115,13 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     @Query("SELECT u.userName, SUM((oi.price - (oi.price * oi.discount)) * oi.quantity) FROM Order o JOIN o.items oi JOIN oi.product p JOIN p.id_inv u WHERE o.orderDate BETWEEN :start AND :end GROUP BY u.userId, u.userName ORDER BY 2 DESC")
     List<Object[]> findTopInvestors(@Param("start") LocalDate start, @Param("end") LocalDate end, Pageable pageable);
-}
\ No newline at end of file
+
+    // Sales cube product dimension: product id, product name, category name, investor id, investor name
+    @Query("SELECT p.productId, p.productName, c.categoryName, u.userId, u.userName FROM Product p " +
+           "LEFT JOIN p.subcategory sub LEFT JOIN sub.category c LEFT JOIN p.id_inv u")
+    List<Object[]> findCubeProductDimension();
+
+    // Basket affinity labels: product id, product name, category id
+    @Query("SELECT p.productId, p.productName, c.categoryId FROM Product p LEFT JOIN p.subcategory sub LEFT JOIN sub.category c")
+    List<Object[]> findAffinityProductDimension();
+}
@@ -1,5 +1,6 @@
 package com.analyfy.analify.Repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -30,6 +31,9 @@ public interface SectionRepository extends JpaRepository<Section, Long> {
     // Trouver les sections par investisseur gagnant
     List<Section> findByWinnerInvestorUserId(Long investorId);
     
+    // Compter les sections gagnées par un investisseur (sans charger les entités)
+    Long countByWinnerInvestorUserId(Long investorId);
+    
     // Trouver les sections par investisseur gagnant (entity)
     List<Section> findByWinnerInvestor(Investor investor);
     
@@ -93,19 +97,22 @@ public interface SectionRepository extends JpaRepository<Section, Long> {
            "GROUP BY r.rangName")
     List<Object[]> calculateValueByRang(@Param("investorId") Long investorId);
     
+    // =============== LEADERBOARDS ===============
+    // Rows (label, value): ranked and limited in the database, size given by the Pageable
+    
     // Most competitive sections (by bid count) - requires join with Bid
     @Query("SELECT s.sectionName, COUNT(b) FROM Section s " +
            "LEFT JOIN s.bids b " +
            "WHERE (:investorId IS NULL OR s.winnerInvestor.userId = :investorId) " +
            "GROUP BY s.sectionId, s.sectionName " +
-           "ORDER BY COUNT(b) DESC")
-    List<Object[]> findMostCompetitiveSections(@Param("investorId") Long investorId);
+           "ORDER BY COUNT(b) DESC, s.sectionId")
+    List<Object[]> findMostCompetitiveSections(@Param("investorId") Long investorId, Pageable pageable);
     
     // Highest value sections
     @Query("SELECT s.sectionName, s.currentPrice FROM Section s " +
            "WHERE (:investorId IS NULL OR s.winnerInvestor.userId = :investorId) " +
-           "ORDER BY s.currentPrice DESC")
-    List<Object[]> findHighestValueSections(@Param("investorId") Long investorId);
+           "ORDER BY s.currentPrice DESC, s.sectionId")
+    List<Object[]> findHighestValueSections(@Param("investorId") Long investorId, Pageable pageable);
     
     // Sections opened by month (for time series)
     @Query("SELECT FUNCTION('TO_CHAR', s.dateDelai, 'YYYY-MM'), COUNT(s) FROM Section s " +
@@ -124,6 +131,17 @@ public interface SectionRepository extends JpaRepository<Section, Long> {
            "WHERE s.status LIKE 'OPEN%' AND (:investorId IS NULL OR s.winnerInvestor.userId = :investorId)")
     Double calculateExpectedRevenue(@Param("investorId") Long investorId);
     
+    // Won section revenue of two periods (by auction deadline): current, previous
+    @Query("SELECT COALESCE(SUM(CASE WHEN s.dateDelai BETWEEN :start AND :end THEN s.currentPrice ELSE 0.0 END), 0.0), " +
+           "COALESCE(SUM(CASE WHEN s.dateDelai BETWEEN :previousStart AND :previousEnd THEN s.currentPrice ELSE 0.0 END), 0.0) " +
+           "FROM Section s " +
+           "WHERE s.winnerInvestor IS NOT NULL AND (:investorId IS NULL OR s.winnerInvestor.userId = :investorId)")
+    List<Object[]> compareWonSectionRevenue(@Param("start") LocalDate start,
+                                            @Param("end") LocalDate end,
+                                            @Param("previousStart") LocalDate previousStart,
+                                            @Param("previousEnd") LocalDate previousEnd,
+                                            @Param("investorId") Long investorId);
+    
     // Actual revenue (won sections)
     @Query("SELECT COALESCE(SUM(s.currentPrice), 0.0) FROM Section s " +
            "WHERE s.winnerInvestor IS NOT NULL AND (:investorId IS NULL OR s.winnerInvestor.userId = :investorId)")
@@ -1,12 +1,32 @@
 package com.analyfy.analify.Repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import com.analyfy.analify.Entity.Store;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface StoreRepository extends JpaRepository<Store, Long> {
     // Analytics: Count stores by city
     long countByCityCityId(Long cityId);
 
-   
-}
\ No newline at end of file
+    // Sales cube store dimension: store id, city id, city name, state name, region name
+    @Query("SELECT s.storeId, c.cityId, c.name, st.name, r.name FROM Store s " +
+           "LEFT JOIN s.city c LEFT JOIN c.state st LEFT JOIN st.region r")
+    List<Object[]> findCubeStoreDimension();
+
+    // Geo drill-down of the sales cube: store id, city id, city name, state id, state name, region id, region name
+    @Query("SELECT s.storeId, c.cityId, c.name, st.stateId, st.name, r.regionId, r.name FROM Store s " +
+           "JOIN s.city c JOIN c.state st JOIN st.region r")
+    List<Object[]> findGeoDimension();
+
+    @Query("SELECT s.storeId FROM Store s ORDER BY s.storeId")
+    List<Long> findAllStoreIds();
+
+    // Labels of the compared stores: store id, city name
+    @Query("SELECT s.storeId, c.name FROM Store s LEFT JOIN s.city c WHERE s.storeId IN :ids")
+    List<Object[]> findLabels(@Param("ids") Collection<Long> ids);
+}
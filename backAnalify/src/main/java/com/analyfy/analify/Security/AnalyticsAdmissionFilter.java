@@ -0,0 +1,131 @@
+package com.analyfy.analify.Security;
+
+import com.analyfy.analify.Enum.AdmissionLane;
+import com.analyfy.analify.Service.Analytics.AdmissionControl;
+import com.analyfy.analify.Service.Analytics.QueryCounter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Admits the analytics and assistant requests through the AdmissionControl, answering 503 with Retry-After when
+ * they cannot get capacity in time, and counts the order requests in flight so analytics leave them connections.
+ * Runs after the security filter chain, so unauthenticated requests never take a slot.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsAdmissionFilter extends OncePerRequestFilter {
+
+    private final AdmissionControl admissionControl;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    protected void doFilterInternal(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            FilterChain filterChain
+    ) throws ServletException, IOException {
+
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+
+        if (path.startsWith("/api/orders")) {
+            admissionControl.orderStarted();
+            try {
+                filterChain.doFilter(request, response);
+            } finally {
+                admissionControl.orderFinished();
+            }
+            return;
+        }
+
+        AdmissionLane lane = AdmissionLane.of(path);
+        if (lane == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        AdmissionControl.Ticket ticket;
+        try {
+            ticket = admissionControl.admit(lane);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            ticket = null;
+        }
+        if (ticket == null) {
+            reject(response, lane);
+            return;
+        }
+
+        LongAdder queries = new LongAdder();
+        QueryCounter.Binding binding = QueryCounter.bind(queries);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            binding.close();
+            if (request.isAsyncStarted()) {
+                // Streamed responses go on on other threads: hold the slots until they complete, duration only
+                AdmissionControl.Ticket admitted = ticket;
+                AtomicBoolean released = new AtomicBoolean();
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release();
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release();
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release();
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                        event.getAsyncContext().addListener(this);
+                    }
+
+                    private void release() {
+                        if (released.compareAndSet(false, true)) {
+                            admissionControl.release(admitted, -1);
+                        }
+                    }
+                });
+            } else {
+                admissionControl.release(ticket, queries.sum());
+            }
+        }
+    }
+
+    private void reject(HttpServletResponse response, AdmissionLane lane) throws IOException {
+        long retryAfter = admissionControl.retryAfterSeconds(lane);
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", HttpStatus.SERVICE_UNAVAILABLE.value());
+        body.put("error", "Analytics capacity exhausted, retry later");
+        body.put("lane", lane.toParam());
+        body.put("retryAfterSeconds", retryAfter);
+
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), body);
+    }
+}
@@ -0,0 +1,297 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Enum.AdmissionLane;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Admission control of the analytics endpoints, so a burst of dashboards cannot take every database connection
+ * away from the orders.
+ *
+ * Admitted analytics requests share analytics.admission.slots connection slots, less one per order request in
+ * flight (orders are never held back). A request is charged the slots its lane measurably uses: one per
+ * analytics.admission.queries-per-slot queries its lane ran on average recently (an exponential moving average;
+ * a dashboard runs up to analytics.engine.request-parallelism queries at once). Each lane also has its own limit
+ * of concurrent requests. A request that cannot be admitted waits up to analytics.admission.queue-timeout-ms,
+ * behind at most analytics.admission.max-queued others of its lane, and is refused otherwise.
+ *
+ * Background analytics (jobs, dashboard warm-up, forecast batch) share the same slots through their own lanes,
+ * one unit of work at a time. They wait as long as it takes and yield to the requests waiting for capacity.
+ */
+@Component
+public class AdmissionControl {
+
+    // Weight of the latest request in the moving averages
+    private static final double SMOOTHING = 0.2;
+
+    private final boolean enabled;
+    private final int slots;
+    private final double queriesPerSlot;
+    private final long queueTimeoutMillis;
+    private final int maxQueued;
+    private final Map<AdmissionLane, Lane> lanes = new EnumMap<>(AdmissionLane.class);
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private int usedSlots;
+    private int ordersInFlight;
+    private int requestsWaiting;
+
+    public AdmissionControl(
+            @Value("${analytics.admission.enabled:true}") boolean enabled,
+            @Value("${analytics.admission.slots:7}") int slots,
+            @Value("${analytics.admission.queries-per-slot:6}") double queriesPerSlot,
+            @Value("${analytics.admission.queue-timeout-ms:2000}") long queueTimeoutMillis,
+            @Value("${analytics.admission.max-queued:20}") int maxQueued,
+            @Value("${analytics.admission.max-concurrent.enhanced-dashboard:4}") int maxEnhancedDashboards,
+            @Value("${analytics.admission.max-concurrent.dashboard:8}") int maxDashboards,
+            @Value("${analytics.admission.max-concurrent.assistant:2}") int maxAssistant,
+            @Value("${analytics.admission.max-concurrent.analytics:8}") int maxAnalytics,
+            @Value("${analytics.admission.max-concurrent.job:2}") int maxJobs,
+            @Value("${analytics.admission.max-concurrent.warm-up:2}") int maxWarmUp,
+            @Value("${analytics.admission.max-concurrent.forecast-batch:2}") int maxForecastBatch) {
+        this.enabled = enabled;
+        this.slots = Math.max(1, slots);
+        this.queriesPerSlot = Math.max(1, queriesPerSlot);
+        this.queueTimeoutMillis = Math.max(0, queueTimeoutMillis);
+        this.maxQueued = Math.max(0, maxQueued);
+        lanes.put(AdmissionLane.ENHANCED_DASHBOARD, new Lane(maxEnhancedDashboards));
+        lanes.put(AdmissionLane.DASHBOARD, new Lane(maxDashboards));
+        lanes.put(AdmissionLane.ASSISTANT, new Lane(maxAssistant));
+        lanes.put(AdmissionLane.ANALYTICS, new Lane(maxAnalytics));
+        lanes.put(AdmissionLane.JOB, new Lane(maxJobs));
+        lanes.put(AdmissionLane.WARM_UP, new Lane(maxWarmUp));
+        lanes.put(AdmissionLane.FORECAST_BATCH, new Lane(maxForecastBatch));
+    }
+
+    /**
+     * Admit a request of the lane, waiting for capacity up to the queue timeout.
+     * Returns its ticket, to be released when the request is done, or null when it is refused.
+     */
+    public Ticket admit(AdmissionLane laneName) throws InterruptedException {
+        if (laneName.isBackground()) throw new IllegalArgumentException("Background lane " + laneName + " is admitted with await");
+        Lane lane = lanes.get(laneName);
+        if (!enabled) return new Ticket(laneName, 0, System.nanoTime());
+
+        lock.lock();
+        try {
+            int cost = Math.min(cost(lane), slots);
+            if (!fits(lane, cost)) {
+                if (lane.waiting >= maxQueued) {
+                    lane.rejected.increment();
+                    return null;
+                }
+                long remaining = TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis);
+                lane.waiting++;
+                requestsWaiting++;
+                try {
+                    while (!fits(lane, cost)) {
+                        if (remaining <= 0) {
+                            lane.timedOut.increment();
+                            return null;
+                        }
+                        remaining = released.awaitNanos(remaining);
+                    }
+                } finally {
+                    lane.waiting--;
+                    requestsWaiting--;
+                    // Background work held back for this request may go on
+                    released.signalAll();
+                }
+                lane.queued.increment();
+            }
+            return take(laneName, lane, cost);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admit one unit of background work of the lane, waiting as long as it takes: background work only starts
+     * when no request is waiting for capacity. Returns its ticket, to be released when the work is done.
+     */
+    public Ticket await(AdmissionLane laneName) throws InterruptedException {
+        if (!laneName.isBackground()) throw new IllegalArgumentException("Request lane " + laneName + " is admitted with admit");
+        Lane lane = lanes.get(laneName);
+        if (!enabled) return new Ticket(laneName, 0, System.nanoTime());
+
+        lock.lock();
+        try {
+            int cost = Math.min(cost(lane), slots);
+            if (requestsWaiting > 0 || !fits(lane, cost)) {
+                lane.waiting++;
+                try {
+                    while (requestsWaiting > 0 || !fits(lane, cost)) {
+                        released.await();
+                    }
+                } finally {
+                    lane.waiting--;
+                }
+                lane.queued.increment();
+            }
+            return take(laneName, lane, cost);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run one unit of background work of the lane once admitted (see await), charging the lane the queries it runs.
+     */
+    public <T> T inBackground(AdmissionLane laneName, Supplier<T> work) throws InterruptedException {
+        Ticket ticket = await(laneName);
+        LongAdder queries = new LongAdder();
+        try {
+            return QueryCounter.counting(queries, work);
+        } finally {
+            release(ticket, queries.sum());
+        }
+    }
+
+    /**
+     * Give back the slots of an admitted request and record what it cost: the number of queries it ran,
+     * or a negative number when they could not be counted (its work continued on other threads).
+     */
+    public void release(Ticket ticket, long queries) {
+        if (!enabled) return;
+        Lane lane = lanes.get(ticket.lane());
+        double millis = (System.nanoTime() - ticket.admittedAt()) / 1_000_000.0;
+        lock.lock();
+        try {
+            lane.active--;
+            usedSlots -= ticket.slots();
+            lane.averageMillis = lane.averageMillis < 0 ? millis : lane.averageMillis + SMOOTHING * (millis - lane.averageMillis);
+            if (queries >= 0) {
+                lane.averageQueries = lane.averageQueries < 0 ? queries : lane.averageQueries + SMOOTHING * (queries - lane.averageQueries);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * An order request started: analytics requests get one slot less until it finishes.
+     */
+    public void orderStarted() {
+        if (!enabled) return;
+        lock.lock();
+        try {
+            ordersInFlight++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void orderFinished() {
+        if (!enabled) return;
+        lock.lock();
+        try {
+            ordersInFlight--;
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seconds after which a refused request of the lane may be retried: the time for its queue to drain
+     * at the lane's measured request duration (at least 1).
+     */
+    public long retryAfterSeconds(AdmissionLane laneName) {
+        Lane lane = lanes.get(laneName);
+        lock.lock();
+        try {
+            double millis = Math.max(lane.averageMillis, 0) * (lane.waiting + 1) / lane.maxConcurrent;
+            return Math.max(1, (long) Math.ceil(millis / 1000));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Slots in use, orders in flight, and per lane: active and waiting requests, measured cost and counters (ADMIN_G).
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("enabled", enabled);
+            stats.put("slots", slots);
+            stats.put("usedSlots", usedSlots);
+            stats.put("availableSlots", Math.max(0, availableSlots() - usedSlots));
+            stats.put("ordersInFlight", ordersInFlight);
+            stats.put("requestsWaiting", requestsWaiting);
+            lanes.forEach((name, lane) -> {
+                Map<String, Object> laneStats = new LinkedHashMap<>();
+                laneStats.put("maxConcurrent", lane.maxConcurrent);
+                laneStats.put("active", lane.active);
+                laneStats.put("waiting", lane.waiting);
+                laneStats.put("slotsPerRequest", Math.min(cost(lane), slots));
+                laneStats.put("averageQueries", lane.averageQueries < 0 ? null : Math.round(lane.averageQueries * 10) / 10.0);
+                laneStats.put("averageMs", lane.averageMillis < 0 ? null : Math.round(lane.averageMillis));
+                laneStats.put("admitted", lane.admitted.sum());
+                laneStats.put("queued", lane.queued.sum());
+                laneStats.put("rejected", lane.rejected.sum());
+                laneStats.put("timedOut", lane.timedOut.sum());
+                stats.put(name.toParam(), laneStats);
+            });
+        } finally {
+            lock.unlock();
+        }
+        return stats;
+    }
+
+    // Callers hold the lock
+    private Ticket take(AdmissionLane laneName, Lane lane, int cost) {
+        lane.active++;
+        usedSlots += cost;
+        lane.admitted.increment();
+        return new Ticket(laneName, cost, System.nanoTime());
+    }
+
+    private boolean fits(Lane lane, int cost) {
+        return lane.active < lane.maxConcurrent && usedSlots + cost <= availableSlots();
+    }
+
+    private int availableSlots() {
+        return Math.max(1, slots - ordersInFlight);
+    }
+
+    private int cost(Lane lane) {
+        return lane.averageQueries < 0 ? 1 : Math.max(1, (int) Math.ceil(lane.averageQueries / queriesPerSlot));
+    }
+
+    /**
+     * An admitted request: its lane, the slots it holds and when it was admitted (System.nanoTime).
+     */
+    public record Ticket(AdmissionLane lane, int slots, long admittedAt) {
+    }
+
+    // Guarded by the lock, except the counters
+    private static final class Lane {
+        private final int maxConcurrent;
+        private int active;
+        private int waiting;
+        // Negative until the first request of the lane completes
+        private double averageQueries = -1;
+        private double averageMillis = -1;
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder queued = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+
+        private Lane(int maxConcurrent) {
+            this.maxConcurrent = Math.max(1, maxConcurrent);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Entity.Order;
+import com.analyfy.analify.Entity.OrderItems;
+import com.analyfy.analify.Entity.Product;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Published by the write services whenever data shown on the analytics dashboards changes.
+ *
+ * The scope tells listeners which dashboards are affected: the store the change happened in
+ * (null when it is not tied to a store) and the investors whose figures moved.
+ * Order events also carry the order id, its date and its lines, for listeners that maintain their own copy of the
+ * sales without reading the order back.
+ */
+public record AnalyticsDataChangedEvent(Source source, Long storeId, Set<Long> investorIds, Long orderId,
+                                        LocalDate orderDate, List<Line> lines) {
+
+    public enum Source {
+        ORDER_CREATED,
+        ORDER_DELETED,
+        STOCK,
+        BID
+    }
+
+    /**
+     * One order line: its product, quantity and net revenue (price less discount, times quantity).
+     */
+    public record Line(long productId, int quantity, double revenue) {
+
+        public static Line of(OrderItems item) {
+            double price = item.getPrice() != null ? item.getPrice() : 0.0;
+            double discount = item.getDiscount() != null ? item.getDiscount() : 0.0;
+            int quantity = item.getQuantity() != null ? item.getQuantity() : 0;
+            return new Line(item.getProduct().getProductId(), quantity, (price - (price * discount)) * quantity);
+        }
+    }
+
+    public static AnalyticsDataChangedEvent forOrderCreated(Order order) {
+        return forOrder(Source.ORDER_CREATED, order);
+    }
+
+    public static AnalyticsDataChangedEvent forOrderDeleted(Order order) {
+        return forOrder(Source.ORDER_DELETED, order);
+    }
+
+    /**
+     * An order was created or deleted: sales and stock of its store and of every investor owning one of its products.
+     */
+    private static AnalyticsDataChangedEvent forOrder(Source source, Order order) {
+        Set<Long> investorIds = new LinkedHashSet<>();
+        List<Line> lines = new ArrayList<>();
+        for (OrderItems item : order.getItems()) {
+            Product product = item.getProduct();
+            if (product == null) continue;
+            lines.add(Line.of(item));
+            if (product.getId_inv() != null) {
+                investorIds.add(product.getId_inv().getUserId());
+            }
+        }
+        return new AnalyticsDataChangedEvent(source, order.getCaissier().getStore().getStoreId(), investorIds,
+                order.getOrderId(), order.getOrderDate(), List.copyOf(lines));
+    }
+
+    /**
+     * The distinct products of the order's lines.
+     */
+    public Set<Long> productIds() {
+        Set<Long> productIds = new LinkedHashSet<>();
+        for (Line line : lines) {
+            productIds.add(line.productId());
+        }
+        return productIds;
+    }
+
+    /**
+     * Inventory of one product changed in one store.
+     */
+    public static AnalyticsDataChangedEvent forStock(Long storeId, Product product) {
+        Set<Long> investorIds = product.getId_inv() != null ? Set.of(product.getId_inv().getUserId()) : Set.of();
+        return new AnalyticsDataChangedEvent(Source.STOCK, storeId, investorIds, null, null, List.of());
+    }
+
+    /**
+     * Bidding on a section changed: the bidder and every investor whose bid status moved.
+     */
+    public static AnalyticsDataChangedEvent forBid(Set<Long> investorIds) {
+        return new AnalyticsDataChangedEvent(Source.BID, null, Set.copyOf(investorIds), null, null, List.of());
+    }
+}
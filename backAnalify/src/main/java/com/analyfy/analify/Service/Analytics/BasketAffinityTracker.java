@@ -0,0 +1,404 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.ProductAffinityDTO;
+import com.analyfy.analify.Enum.AffinityMetric;
+import com.analyfy.analify.Repository.OrderItemsRepository;
+import com.analyfy.analify.Repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Products bought together: a sparse product co-occurrence matrix over every order, for all stores and per store.
+ *
+ * Each order is a basket of distinct products. A matrix counts the baskets, the baskets holding each product and
+ * the baskets holding each pair of products, in primitive maps keyed by dense product codes (a pair packs its two
+ * codes in one long). Support, confidence and lift of a pair follow from these counts, so a request ranks the
+ * pairs in memory without reading the orders.
+ *
+ * The matrices are built from the order lines at startup. Committed orders are then added, and deleted orders
+ * subtracted, from the products their events carry, so the counts stay exact. A deletion committed while the
+ * matrices are rebuilt may or may not have been read, so it stops them serving and they are rebuilt again.
+ * Orders of more than
+ * analytics.basket-affinity.max-basket-items products count as baskets and for their products, but not for their
+ * pairs, whose number grows with the square of the basket size.
+ */
+@Component
+@Slf4j
+public class BasketAffinityTracker extends OrderEventTracker<List<Object[]>> {
+
+    private static final int NO_CODE = -1;
+
+    private final OrderItemsRepository orderItemsRepository;
+    private final ProductRepository productRepository;
+    private final int maxBasketItems;
+    private final int expectedProducts;
+
+    // One rebuild at a time: startup, endpoint, or in the background after an ambiguous deletion
+    private final Object rebuildLock = new Object();
+
+    // Everything below is guarded by "this"
+    private Products products;
+    private CoOccurrence all;
+    private Map<Long, CoOccurrence> byStore = new HashMap<>();
+    // While the events queued during a rebuild are applied
+    private boolean replaying;
+
+    public BasketAffinityTracker(OrderItemsRepository orderItemsRepository,
+                                 ProductRepository productRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${analytics.basket-affinity.enabled:true}") boolean enabled,
+                                 @Value("${analytics.basket-affinity.max-basket-items:50}") int maxBasketItems,
+                                 @Value("${analytics.basket-affinity.expected-products:20000}") int expectedProducts) {
+        super(transactionManager, enabled, "Basket affinity");
+        this.orderItemsRepository = orderItemsRepository;
+        this.productRepository = productRepository;
+        this.maxBasketItems = Math.max(2, maxBasketItems);
+        this.expectedProducts = Math.max(16, expectedProducts);
+        this.products = new Products(this.expectedProducts);
+        this.all = new CoOccurrence(this.expectedProducts);
+    }
+
+    /**
+     * Rebuild the matrices from every order line, and swap them in.
+     * Orders committed while reading are applied once the new matrices are in, unless the rebuild already read them.
+     */
+    @Override
+    public Map<String, Object> rebuild() {
+        synchronized (rebuildLock) {
+            long startedAt = System.currentTimeMillis();
+            LocalDate recentFrom = LocalDate.now().minusDays(1);
+            beginRebuild();
+
+            Products loaded = new Products(expectedProducts);
+            CoOccurrence loadedAll = new CoOccurrence(expectedProducts);
+            Map<Long, CoOccurrence> loadedByStore = new HashMap<>();
+            Set<Long> recentOrders = new HashSet<>();
+            try {
+                readTransaction.executeWithoutResult(status -> {
+                    loaded.refresh(productRepository.findAffinityProductDimension());
+                    BasketReader reader = new BasketReader(loaded, loadedAll, loadedByStore, maxBasketItems);
+                    try (Stream<Object[]> lines = orderItemsRepository.streamBasketLines()) {
+                        lines.forEach(line -> {
+                            reader.add(line);
+                            if (line[1] != null && !toLocalDate(line[1]).isBefore(recentFrom)) recentOrders.add(toLong(line[0]));
+                        });
+                    }
+                    reader.flush();
+                });
+            } catch (RuntimeException e) {
+                abortRebuild();
+                throw e;
+            }
+
+            synchronized (this) {
+                products = loaded;
+                all = loadedAll;
+                byStore = loadedByStore;
+                replaying = true;
+                try {
+                    finishRebuild(recentOrders);
+                } finally {
+                    replaying = false;
+                }
+
+                Map<String, Object> stats = stats();
+                stats.put("durationMs", System.currentTimeMillis() - startedAt);
+                log.info("Basket affinity rebuilt: {}", stats);
+                return stats;
+            }
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * The limit pairs ranked highest by sort among those bought together in at least minOrders baskets,
+     * over every store or one (storeId), optionally only pairs involving a product of the category.
+     */
+    public synchronized ProductAffinityDTO topPairs(Long storeId, Long categoryId, AffinityMetric sort, int minOrders, int limit) {
+        CoOccurrence matrix = storeId == null ? all : byStore.get(storeId);
+        List<ProductAffinityDTO.Pair> pairs = new ArrayList<>();
+        long baskets = matrix == null ? 0 : matrix.baskets;
+        if (matrix != null && baskets > 0) {
+            Comparator<Candidate> ranking = Comparator.comparingDouble(Candidate::score)
+                    .thenComparingInt(Candidate::orders)
+                    .thenComparing(Comparator.comparingLong(Candidate::key).reversed());
+            PriorityQueue<Candidate> top = new PriorityQueue<>(limit + 1, ranking);
+            int threshold = Math.max(1, minOrders);
+            matrix.pairBaskets.forEach((key, orders) -> {
+                if (orders < threshold) return;
+                int first = (int) (key >>> 32);
+                int second = (int) key;
+                if (categoryId != null && products.categories[first] != categoryId && products.categories[second] != categoryId) {
+                    return;
+                }
+                int firstBaskets = matrix.productBaskets.get(first);
+                int secondBaskets = matrix.productBaskets.get(second);
+                double score = switch (sort) {
+                    case SUPPORT -> orders;
+                    case CONFIDENCE -> (double) orders / Math.min(firstBaskets, secondBaskets);
+                    case LIFT -> (double) orders * baskets / ((double) firstBaskets * secondBaskets);
+                };
+                top.add(new Candidate(key, orders, score));
+                if (top.size() > limit) top.poll();
+            });
+            List<Candidate> ranked = new ArrayList<>(top);
+            ranked.sort(ranking.reversed());
+            for (Candidate candidate : ranked) {
+                pairs.add(pair(matrix, candidate));
+            }
+        }
+        return ProductAffinityDTO.builder()
+                .storeId(storeId)
+                .categoryId(categoryId)
+                .sort(sort.toParam())
+                .baskets(baskets)
+                .pairs(pairs)
+                .build();
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", isServing());
+        stats.put("products", products.size);
+        stats.put("stores", byStore.size());
+        stats.put("baskets", all.baskets);
+        stats.put("pairs", all.pairBaskets.size());
+        stats.put("basketsWithoutPairs", all.basketsWithoutPairs);
+        long slots = all.productBaskets.capacity() + all.pairBaskets.capacity();
+        for (CoOccurrence store : byStore.values()) {
+            slots += store.productBaskets.capacity() + store.pairBaskets.capacity();
+        }
+        stats.put("approxBytes", slots * (Long.BYTES + Integer.BYTES));
+        return stats;
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    @Override
+    protected List<Object[]> preload(AnalyticsDataChangedEvent event) {
+        // Products the matrices do not know yet: read their names and categories before holding the tracker
+        return knowsProductsOf(event) ? null : readTransaction.execute(status -> productRepository.findAffinityProductDimension());
+    }
+
+    @Override
+    protected void apply(AnalyticsDataChangedEvent event, List<Object[]> productRows) {
+        if (event.storeId() == null) return;
+        if (productRows != null) products.refresh(productRows);
+        if (event.source() == AnalyticsDataChangedEvent.Source.ORDER_CREATED) {
+            add(event, 1);
+        } else if (event.source() == AnalyticsDataChangedEvent.Source.ORDER_DELETED) {
+            if (replaying) {
+                // Committed during the rebuild: its basket may already be left out, subtracting it could go below 0
+                markStale();
+                scheduleRebuild();
+                return;
+            }
+            add(event, -1);
+        }
+    }
+
+    private synchronized boolean knowsProductsOf(AnalyticsDataChangedEvent event) {
+        return event.productIds().stream().allMatch(productId -> products.code(productId) != NO_CODE);
+    }
+
+    private void add(AnalyticsDataChangedEvent event, int sign) {
+        int[] basket = products.basket(event.productIds());
+        if (basket.length == 0) return;
+        all.add(basket, sign, maxBasketItems);
+        byStore.computeIfAbsent(event.storeId(), storeId -> new CoOccurrence(0)).add(basket, sign, maxBasketItems);
+    }
+
+    private ProductAffinityDTO.Pair pair(CoOccurrence matrix, Candidate candidate) {
+        int first = (int) (candidate.key() >>> 32);
+        int second = (int) candidate.key();
+        int firstBaskets = matrix.productBaskets.get(first);
+        int secondBaskets = matrix.productBaskets.get(second);
+        // Oriented from the rarer product, whose confidence is the higher one
+        if (secondBaskets < firstBaskets) {
+            int code = first;
+            first = second;
+            second = code;
+            int count = firstBaskets;
+            firstBaskets = secondBaskets;
+            secondBaskets = count;
+        }
+        double orders = candidate.orders();
+        return ProductAffinityDTO.Pair.builder()
+                .productId(products.ids[first])
+                .productName(products.names[first])
+                .otherProductId(products.ids[second])
+                .otherProductName(products.names[second])
+                .orders((long) candidate.orders())
+                .support(round(orders / matrix.baskets, 10_000))
+                .confidence(round(orders / firstBaskets, 10_000))
+                .reverseConfidence(round(orders / secondBaskets, 10_000))
+                .lift(round(orders * matrix.baskets / ((double) firstBaskets * secondBaskets), 100))
+                .build();
+    }
+
+    private static double round(double value, double scale) {
+        return Math.round(value * scale) / scale;
+    }
+
+    // ==================== STORAGE ====================
+
+    // A pair of product codes (first < second) packed as first << 32 | second, its baskets and its ranking score
+    private record Candidate(long key, int orders, double score) {
+    }
+
+    /**
+     * Dense codes of the products, with their names and categories (0: none).
+     */
+    private static final class Products {
+        private final LongIntHashMap codes;
+        private long[] ids;
+        private String[] names;
+        private long[] categories;
+        private int size;
+
+        private Products(int expectedProducts) {
+            codes = new LongIntHashMap(expectedProducts);
+            ids = new long[expectedProducts];
+            names = new String[expectedProducts];
+            categories = new long[expectedProducts];
+        }
+
+        private int code(long productId) {
+            // Codes are stored plus one, 0 being the count of an absent key
+            return codes.get(productId) - 1;
+        }
+
+        // Rows: product id, product name, category id
+        private void refresh(List<Object[]> rows) {
+            for (Object[] row : rows) {
+                int code = codeOf(toLong(row[0]));
+                names[code] = (String) row[1];
+                categories[code] = row[2] == null ? 0 : toLong(row[2]);
+            }
+        }
+
+        private int codeOf(long productId) {
+            int code = code(productId);
+            if (code != NO_CODE) return code;
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                names = Arrays.copyOf(names, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+            }
+            code = size++;
+            codes.addTo(productId, code + 1);
+            ids[code] = productId;
+            return code;
+        }
+
+        // The distinct codes of the products, ascending
+        private int[] basket(Collection<Long> productIds) {
+            int[] basket = new int[productIds.size()];
+            int count = 0;
+            for (Long productId : productIds) {
+                if (productId != null) basket[count++] = codeOf(productId);
+            }
+            return distinct(basket, count);
+        }
+
+        private static int[] distinct(int[] codes, int count) {
+            Arrays.sort(codes, 0, count);
+            int distinct = 0;
+            for (int i = 0; i < count; i++) {
+                if (distinct == 0 || codes[distinct - 1] != codes[i]) codes[distinct++] = codes[i];
+            }
+            return Arrays.copyOf(codes, distinct);
+        }
+    }
+
+    /**
+     * Basket counts of one scope: all of them, per product code, and per pair of product codes.
+     */
+    private static final class CoOccurrence {
+        private long baskets;
+        private long basketsWithoutPairs;
+        private final LongIntHashMap productBaskets;
+        private final LongIntHashMap pairBaskets;
+
+        private CoOccurrence(int expectedProducts) {
+            productBaskets = new LongIntHashMap(expectedProducts);
+            pairBaskets = new LongIntHashMap(expectedProducts);
+        }
+
+        // Add (sign 1) or subtract (sign -1) a basket of distinct ascending codes
+        private void add(int[] basket, int sign, int maxBasketItems) {
+            baskets += sign;
+            for (int code : basket) {
+                productBaskets.addTo(code, sign);
+            }
+            if (basket.length > maxBasketItems) {
+                basketsWithoutPairs += sign;
+                return;
+            }
+            for (int i = 0; i < basket.length; i++) {
+                long first = (long) basket[i] << 32;
+                for (int j = i + 1; j < basket.length; j++) {
+                    pairBaskets.addTo(first | basket[j], sign);
+                }
+            }
+        }
+    }
+
+    // Groups the contiguous lines of each order into a basket while rebuilding
+    private static final class BasketReader {
+        private final Products products;
+        private final CoOccurrence all;
+        private final Map<Long, CoOccurrence> byStore;
+        private final int maxBasketItems;
+        private long orderId = Long.MIN_VALUE;
+        private long storeId;
+        private int[] codes = new int[16];
+        private int count;
+
+        private BasketReader(Products products, CoOccurrence all, Map<Long, CoOccurrence> byStore, int maxBasketItems) {
+            this.products = products;
+            this.all = all;
+            this.byStore = byStore;
+            this.maxBasketItems = maxBasketItems;
+        }
+
+        // Line columns: order id, order date, store id, product id
+        private void add(Object[] line) {
+            long lineOrderId = toLong(line[0]);
+            if (lineOrderId != orderId) {
+                flush();
+                orderId = lineOrderId;
+                storeId = toLong(line[2]);
+            }
+            if (count == codes.length) codes = Arrays.copyOf(codes, count * 2);
+            codes[count++] = products.codeOf(toLong(line[3]));
+        }
+
+        private void flush() {
+            if (count == 0) return;
+            int[] basket = Products.distinct(codes, count);
+            all.add(basket, 1, maxBasketItems);
+            byStore.computeIfAbsent(storeId, id -> new CoOccurrence(0)).add(basket, 1, maxBasketItems);
+            count = 0;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Entity.BiddingStat;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The bidding_stats rows of one scope (the platform or one investor), read once and answering
+ * every section / bid figure of the dashboards.
+ */
+public final class BiddingStats {
+
+    private final Map<String, Map<String, Cell>> dimensions = new HashMap<>();
+
+    BiddingStats(List<BiddingStat> rows) {
+        for (BiddingStat row : rows) {
+            dimensions.computeIfAbsent(row.getDimension(), dimension -> new HashMap<>())
+                    .put(row.getKey(), new Cell(row.getItemCount(), row.getTotalValue()));
+        }
+    }
+
+    public long totalSections() {
+        return count(BiddingStat.STATUS);
+    }
+
+    public long sectionsWithStatus(String status) {
+        return cell(BiddingStat.STATUS, status).count();
+    }
+
+    public Map<String, Long> sectionsByStatus() {
+        return counts(BiddingStat.STATUS, new HashMap<>());
+    }
+
+    public double totalSectionValue() {
+        return value(BiddingStat.STATUS);
+    }
+
+    public double averageSectionPrice() {
+        long sections = totalSections();
+        return sections > 0 ? totalSectionValue() / sections : 0.0;
+    }
+
+    // Sections still open to bids (OPEN, OPEN-BIDDEN BY n)
+    public double expectedRevenue() {
+        return dimension(BiddingStat.STATUS).entrySet().stream()
+                .filter(entry -> entry.getKey().startsWith("OPEN"))
+                .mapToDouble(entry -> entry.getValue().value())
+                .sum();
+    }
+
+    public double averagePriceIncrease() {
+        Cell increase = cell(BiddingStat.INCREASE, "");
+        return increase.count() > 0 ? increase.value() / increase.count() : 0.0;
+    }
+
+    public long wonSections() {
+        return cell(BiddingStat.WON, "").count();
+    }
+
+    public double actualRevenue() {
+        return cell(BiddingStat.WON, "").value();
+    }
+
+    public long totalBids() {
+        return count(BiddingStat.BID);
+    }
+
+    public long bidsWithStatus(String status) {
+        return cell(BiddingStat.BID, status).count();
+    }
+
+    public double totalBidsValue() {
+        return value(BiddingStat.BID);
+    }
+
+    // Share of the bids that won, in percent; null without bids
+    public Double winRate() {
+        long bids = totalBids();
+        return bids > 0 ? cell(BiddingStat.BID, "WINNER").count() * 100.0 / bids : null;
+    }
+
+    public Map<String, Double> valueByCategory() {
+        return values(BiddingStat.CATEGORY);
+    }
+
+    public Map<String, Long> sectionsByCategory() {
+        return counts(BiddingStat.CATEGORY, new HashMap<>());
+    }
+
+    public Map<String, Double> valueByFace() {
+        return values(BiddingStat.FACE);
+    }
+
+    public Map<String, Double> valueByRang() {
+        return values(BiddingStat.RANG);
+    }
+
+    // Sections per deadline month (YYYY-MM), in month order
+    public Map<String, Long> sectionsByDeadlineMonth() {
+        return counts(BiddingStat.MONTH, new TreeMap<>());
+    }
+
+    private Map<String, Cell> dimension(String dimension) {
+        return dimensions.getOrDefault(dimension, Collections.emptyMap());
+    }
+
+    private Cell cell(String dimension, String key) {
+        return dimension(dimension).getOrDefault(key, Cell.EMPTY);
+    }
+
+    private long count(String dimension) {
+        return dimension(dimension).values().stream().mapToLong(Cell::count).sum();
+    }
+
+    private double value(String dimension) {
+        return dimension(dimension).values().stream().mapToDouble(Cell::value).sum();
+    }
+
+    private Map<String, Long> counts(String dimension, Map<String, Long> target) {
+        dimension(dimension).forEach((key, cell) -> target.put(key, cell.count()));
+        return target;
+    }
+
+    private Map<String, Double> values(String dimension) {
+        Map<String, Double> target = new HashMap<>();
+        dimension(dimension).forEach((key, cell) -> target.put(key, cell.value()));
+        return target;
+    }
+
+    private record Cell(long count, double value) {
+        static final Cell EMPTY = new Cell(0, 0.0);
+    }
+}
@@ -0,0 +1,235 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Entity.Bid;
+import com.analyfy.analify.Entity.BiddingStat;
+import com.analyfy.analify.Entity.Section;
+import com.analyfy.analify.Repository.BiddingStatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Maintains bidding_stats, the section and bid statistics of the platform and of each investor, so the
+ * bidding figures of the dashboards are read from a handful of rows instead of aggregating sections and bids.
+ *
+ * BiddingService captures the state of the sections and bids it is about to change, then hands the old and new
+ * states over inside its own transaction: only the difference is applied, so the statistics commit or roll back
+ * with the bidding. A full rebuild from the sections and bids runs at startup.
+ */
+@Service
+@Slf4j
+public class BiddingStatsService {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final BiddingStatRepository biddingStatRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean rebuildOnStartup;
+
+    // Reads are only served from the statistics once they have been (re)built
+    private volatile boolean ready;
+
+    public BiddingStatsService(
+            BiddingStatRepository biddingStatRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${analytics.bidding-stats.enabled:true}") boolean enabled,
+            @Value("${analytics.bidding-stats.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.biddingStatRepository = biddingStatRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.ready = enabled && !rebuildOnStartup;
+    }
+
+    /**
+     * True when section / bid statistics should be read from bidding_stats instead of the sections and bids.
+     */
+    public boolean isServing() {
+        return enabled && ready;
+    }
+
+    /**
+     * Statistics of one investor, or of the whole platform when investorId is null.
+     */
+    public BiddingStats stats(Long investorId) {
+        Long scope = investorId != null ? investorId : BiddingStat.ALL_INVESTORS;
+        return QueryMemo.memoize("biddingStats.scope",
+                () -> new BiddingStats(biddingStatRepository.findByInvestorId(scope)), scope);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled || !rebuildOnStartup) return;
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Keep serving from the sections and bids rather than failing the startup
+            log.error("Bidding statistics rebuild failed, statistics will query sections and bids directly", e);
+        }
+    }
+
+    /**
+     * Recompute every row from the sections and bids. Returns the number of rows written.
+     */
+    public Map<String, Integer> rebuild() {
+        long startedAt = System.currentTimeMillis();
+        Integer rows = transactionTemplate.execute(status -> {
+            biddingStatRepository.lockForRebuild();
+            biddingStatRepository.deleteAllRows();
+            return biddingStatRepository.rebuildFromSections();
+        });
+        ready = enabled;
+        log.info("Bidding statistics rebuilt in {} ms: {} rows", System.currentTimeMillis() - startedAt, rows);
+        return Map.of("rows", rows != null ? rows : 0);
+    }
+
+    // ==================== INCREMENTAL MAINTENANCE ====================
+
+    /**
+     * What a section contributes to the statistics, taken before changing it. Null when disabled.
+     */
+    public SectionState capture(Section section) {
+        if (!enabled) return null;
+        String face = null;
+        String rang = null;
+        String category = null;
+        if (section.getFace() != null) {
+            face = section.getFace().getFaceName();
+            if (section.getFace().getRang() != null) {
+                rang = section.getFace().getRang().getRangName();
+                if (section.getFace().getRang().getCategory() != null) {
+                    String name = section.getFace().getRang().getCategory().getCategoryName();
+                    category = name != null ? name : "";
+                }
+            }
+        }
+        return new SectionState(
+                section.getWinnerInvestor() != null ? section.getWinnerInvestor().getUserId() : null,
+                section.getStatus(),
+                section.getCurrentPrice() != null ? section.getCurrentPrice() : 0.0,
+                section.getBasePrice() != null ? section.getBasePrice() : 0.0,
+                category, face, rang,
+                section.getDateDelai() != null ? section.getDateDelai().format(MONTH) : null);
+    }
+
+    /**
+     * What a bid contributes to the statistics, taken before changing or deleting it. Null when disabled.
+     */
+    public BidState capture(Bid bid) {
+        if (!enabled) return null;
+        return new BidState(bid.getInvestor().getUserId(), bid.getStatus(), bid.getAmount() != null ? bid.getAmount() : 0.0);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sectionChanged(SectionState before, Section after) {
+        sectionsChanged(Collections.singletonList(before), List.of(after));
+    }
+
+    /**
+     * Apply the change of sections from their captured states to their current ones, in one pass.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sectionsChanged(List<SectionState> before, List<Section> after) {
+        if (!enabled) return;
+        Delta delta = new Delta();
+        before.forEach(state -> delta.section(state, -1));
+        after.forEach(section -> delta.section(capture(section), 1));
+        delta.apply();
+    }
+
+    /**
+     * Apply the change of a bid: before is null for a new bid, after is null for a deleted one.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void bidChanged(BidState before, Bid after) {
+        if (!enabled) return;
+        Delta delta = new Delta();
+        delta.bid(before, -1);
+        delta.bid(after != null ? capture(after) : null, 1);
+        delta.apply();
+    }
+
+    // Contributions of section and bid states, summed per row before touching the table
+    private class Delta {
+
+        private final Map<RowKey, double[]> rows = new TreeMap<>();
+
+        void section(SectionState state, int sign) {
+            if (state == null) return;
+            sectionRows(BiddingStat.ALL_INVESTORS, state, sign);
+            if (state.winnerId() != null) sectionRows(state.winnerId(), state, sign);
+        }
+
+        void bid(BidState state, int sign) {
+            if (state == null) return;
+            add(BiddingStat.ALL_INVESTORS, BiddingStat.BID, state.status(), sign, state.amount());
+            add(state.investorId(), BiddingStat.BID, state.status(), sign, state.amount());
+        }
+
+        private void sectionRows(Long scope, SectionState state, int sign) {
+            add(scope, BiddingStat.STATUS, state.status(), sign, state.currentPrice());
+            add(scope, BiddingStat.CATEGORY, state.category(), sign, state.currentPrice());
+            add(scope, BiddingStat.FACE, state.face(), sign, state.currentPrice());
+            add(scope, BiddingStat.RANG, state.rang(), sign, state.currentPrice());
+            add(scope, BiddingStat.MONTH, state.month(), sign, state.currentPrice());
+            if (state.currentPrice() > state.basePrice()) {
+                add(scope, BiddingStat.INCREASE, "", sign, state.currentPrice() - state.basePrice());
+            }
+            if (state.winnerId() != null) {
+                add(scope, BiddingStat.WON, "", sign, state.currentPrice());
+            }
+        }
+
+        private void add(Long scope, String dimension, String key, int sign, double value) {
+            if (key == null) return;
+            double[] row = rows.computeIfAbsent(new RowKey(scope, dimension, key), k -> new double[2]);
+            row[0] += sign;
+            row[1] += sign * value;
+        }
+
+        // In key order, so concurrent bids lock rows alike; rows left without items are dropped
+        void apply() {
+            Set<Long> shrunk = new TreeSet<>();
+            rows.forEach((key, row) -> {
+                if (row[0] == 0 && row[1] == 0) return;
+                biddingStatRepository.upsert(key.scope(), key.dimension(), key.key(), (long) row[0], row[1]);
+                if (row[0] < 0) shrunk.add(key.scope());
+            });
+            if (!shrunk.isEmpty()) biddingStatRepository.deleteEmptyRows(shrunk);
+        }
+    }
+
+    private record RowKey(Long scope, String dimension, String key) implements Comparable<RowKey> {
+        private static final Comparator<RowKey> ORDER = Comparator.comparing(RowKey::scope)
+                .thenComparing(RowKey::dimension)
+                .thenComparing(RowKey::key);
+
+        @Override
+        public int compareTo(RowKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+
+    public record SectionState(Long winnerId, String status, double currentPrice, double basePrice,
+                               String category, String face, String rang, String month) {
+    }
+
+    public record BidState(Long investorId, String status, double amount) {
+    }
+}
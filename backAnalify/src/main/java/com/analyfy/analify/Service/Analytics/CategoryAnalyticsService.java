@@ -0,0 +1,138 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.CategoryAnalyticsDTO;
+import com.analyfy.analify.Enum.ComparisonPeriod;
+import com.analyfy.analify.Repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-category analytics: section hierarchy (rangs, faces, sections, bids), products and stock,
+ * product and section revenue, product revenue growth against the comparison period.
+ *
+ * Everything comes from five grouped queries (three category queries and the category revenue of both periods),
+ * so the cost does not depend on the number of categories.
+ */
+@Service
+@RequiredArgsConstructor
+public class CategoryAnalyticsService {
+
+    // Same threshold as the dashboard low stock KPI
+    private static final int LOW_STOCK_THRESHOLD = 10;
+    private static final int TOP_RANGS_AND_FACES = 2;
+
+    private final CategoryRepository categoryRepository;
+    private final SalesMetricsReader salesMetricsReader;
+
+    /**
+     * Analytics of every category, by combined revenue (products + sections) descending.
+     * storeId / investorId restrict products, stock and product revenue to one store / one investor's products;
+     * the section side always covers every section.
+     */
+    public List<CategoryAnalyticsDTO> analyze(LocalDate start, LocalDate end, ComparisonPeriod compareTo,
+                                              Long storeId, Long investorId) {
+        long days = ChronoUnit.DAYS.between(start, end) + 1;
+        LocalDate previousStart = compareTo.previousStart(start, end);
+        LocalDate previousEnd = compareTo.previousEnd(start, end);
+
+        Map<String, Double> revenue = revenueByCategory(start, end, storeId, investorId);
+        Map<String, Double> previousRevenue = revenueByCategory(previousStart, previousEnd, storeId, investorId);
+
+        Map<Long, Object[]> products = new HashMap<>();
+        for (Object[] row : categoryRepository.findProductStatsByCategory(storeId, investorId, LOW_STOCK_THRESHOLD)) {
+            if (row[0] != null) products.put(((Number) row[0]).longValue(), row);
+        }
+
+        Map<Long, List<String>> topRangs = new HashMap<>();
+        Map<Long, List<String>> topFaces = new HashMap<>();
+        for (Object[] row : categoryRepository.findTopRangsAndFacesByCategory(TOP_RANGS_AND_FACES)) {
+            Map<Long, List<String>> target = "RANG".equals(row[1]) ? topRangs : topFaces;
+            target.computeIfAbsent(((Number) row[0]).longValue(), k -> new ArrayList<>()).add(String.valueOf(row[2]));
+        }
+
+        List<CategoryAnalyticsDTO> result = new ArrayList<>();
+        for (Object[] row : categoryRepository.findSectionStatsByCategory()) {
+            Long categoryId = ((Number) row[0]).longValue();
+            String categoryName = (String) row[1];
+            long sections = longValue(row[4]);
+            long bids = longValue(row[8]);
+            Object[] product = products.get(categoryId);
+
+            double productRevenue = revenue.getOrDefault(categoryName, 0.0);
+            double sectionRevenue = doubleValue(row[7]);
+            Double growthRate = PeriodComparisonService.growthRate(productRevenue, previousRevenue.getOrDefault(categoryName, 0.0));
+
+            result.add(CategoryAnalyticsDTO.builder()
+                    .categoryId(categoryId)
+                    .categoryName(categoryName)
+                    .totalRangs(longValue(row[2]))
+                    .totalFaces(longValue(row[3]))
+                    .totalSections(sections)
+                    .totalProducts(product != null ? longValue(product[1]) : 0L)
+                    .totalProductValue(product != null ? round(doubleValue(product[2])) : 0.0)
+                    .lowStockProducts(product != null ? longValue(product[3]) : 0L)
+                    .activeSections(longValue(row[5]))
+                    .totalSectionValue(round(doubleValue(row[6])))
+                    .totalBids(bids)
+                    .averageBidCompetition(sections > 0 ? round((double) bids / sections) : 0.0)
+                    .totalRevenue(round(productRevenue))
+                    .sectionRevenue(round(sectionRevenue))
+                    .combinedRevenue(round(productRevenue + sectionRevenue))
+                    .growthRate(growthRate)
+                    .performanceRating(performanceRating(growthRate))
+                    .topPerformingRangs(topRangs.getOrDefault(categoryId, List.of()))
+                    .topPerformingFaces(topFaces.getOrDefault(categoryId, List.of()))
+                    // Current daily run rate over the next 30 days
+                    .predictedNextMonthRevenue(round(productRevenue / days * 30))
+                    .trend(trend(growthRate))
+                    .build());
+        }
+
+        result.sort(Comparator.comparing(CategoryAnalyticsDTO::getCombinedRevenue).reversed()
+                .thenComparing(CategoryAnalyticsDTO::getCategoryId));
+        return result;
+    }
+
+    private Map<String, Double> revenueByCategory(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        Map<String, Double> revenue = new HashMap<>();
+        for (Object[] row : salesMetricsReader.findCategoryRevenueDistribution(start, end, storeId, investorId)) {
+            if (row[0] != null && row[1] != null) revenue.merge((String) row[0], ((Number) row[1]).doubleValue(), Double::sum);
+        }
+        return revenue;
+    }
+
+    private static String performanceRating(Double growthRate) {
+        if (growthRate == null) return "AVERAGE";
+        if (growthRate >= 20) return "EXCELLENT";
+        if (growthRate >= 5) return "GOOD";
+        if (growthRate >= -5) return "AVERAGE";
+        return "POOR";
+    }
+
+    private static String trend(Double growthRate) {
+        if (growthRate == null) return "STABLE";
+        if (growthRate > 5) return "GROWING";
+        if (growthRate < -5) return "DECLINING";
+        return "STABLE";
+    }
+
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double doubleValue(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
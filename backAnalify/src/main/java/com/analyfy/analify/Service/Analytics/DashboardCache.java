@@ -0,0 +1,296 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Enum.ComparisonPeriod;
+import com.analyfy.analify.Enum.TimeSeriesSampling;
+import com.analyfy.analify.Enum.UserRole;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Caches computed dashboards per role and resolved scope (store, investor, date range, product).
+ *
+ * Entries are bounded in number (least recently used goes first) and in age, and are dropped
+ * as soon as an {@link AnalyticsDataChangedEvent} touching their scope commits.
+ * Concurrent requests for the same key share a single computation; its result is not stored when a change
+ * touching its scope was staged while it ran (it may predate the change).
+ * Dashboards precomputed by the warm-up job are stored with the job's own, longer age limit.
+ */
+@Component
+@Slf4j
+public class DashboardCache {
+
+    public enum View {
+        BASIC,
+        ENHANCED
+    }
+
+    /**
+     * compareTo: period the growth rates compare with, null when the view has no comparison.
+     * maxPoints / sampling: shape of the time series.
+     * approximate: basket percentiles from the sketches instead of exact ones.
+     * fields: selected sections/fields of a partial dashboard (sorted), null for the full dashboard.
+     */
+    public record Key(View view, UserRole role, Long storeId, Long investorId,
+                      LocalDate startDate, LocalDate endDate, Long productId, ComparisonPeriod compareTo,
+                      int maxPoints, TimeSeriesSampling sampling, boolean approximate, Set<String> fields) {
+
+        public Key withAllFields() {
+            return new Key(view, role, storeId, investorId, startDate, endDate, productId, compareTo, maxPoints, sampling, approximate, null);
+        }
+
+        boolean isAffectedBy(AnalyticsDataChangedEvent event) {
+            // ADMIN_G views carry platform-wide sections that ignore the store/investor filter
+            // (enhanced sections, and the top stores / investors of the basic view)
+            if (role == UserRole.ADMIN_G) return true;
+
+            boolean investorMatches = investorId == null || event.investorIds().contains(investorId);
+            if (event.source() == AnalyticsDataChangedEvent.Source.BID) {
+                // Sections are not store-specific and only appear on the enhanced view and in period comparisons
+                return (view == View.ENHANCED || compareTo != null) && investorMatches;
+            }
+            return investorMatches && (storeId == null || storeId.equals(event.storeId()));
+        }
+    }
+
+    private record Entry(Object value, long expiresAt) {
+    }
+
+    // A data change and the generation it started; a null event stands for every scope (clear)
+    private record Change(long generation, AnalyticsDataChangedEvent event) {
+    }
+
+    // Changes kept to check the results computed across them; older computations are not stored
+    private static final int CHANGE_LOG_SIZE = 256;
+
+    // Warm-up run by the current thread, if any
+    private static final ThreadLocal<Warming> WARMING = new ThreadLocal<>();
+
+    private static final class Warming {
+        private final long ttlMillis;
+        private boolean computed;
+
+        private Warming(long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long ttlMillis;
+
+    // Access-ordered, guarded by "this"
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    // Bumped on every data change; a result computed across a change of its scope is returned but not stored
+    private final AtomicLong generation = new AtomicLong();
+    // The last changes, oldest first, guarded by "this"
+    private final Deque<Change> changes = new ArrayDeque<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder sharedLoads = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder sizeEvictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public DashboardCache(
+            @Value("${analytics.cache.enabled:true}") boolean enabled,
+            @Value("${analytics.cache.max-entries:500}") int maxEntries,
+            @Value("${analytics.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    /**
+     * Return the cached dashboard for this key, or compute it with the loader.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> loader) {
+        if (!enabled) return loader.get();
+
+        Object cached = lookup(key);
+        if (cached != null) {
+            hits.increment();
+            return (T) cached;
+        }
+
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, load);
+        if (running != null) {
+            sharedLoads.increment();
+            return (T) awaitShared(running);
+        }
+
+        misses.increment();
+        Warming warming = WARMING.get();
+        if (warming != null) warming.computed = true;
+        long startGeneration = generation.get();
+        try {
+            T value = loader.get();
+            store(key, value, startGeneration);
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, load);
+        }
+    }
+
+    /**
+     * Cached value for this key, without computing anything on a miss.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(Key key) {
+        if (!enabled) return null;
+        Object cached = lookup(key);
+        if (cached != null) hits.increment();
+        return (T) cached;
+    }
+
+    /**
+     * Run the task with every dashboard it stores on this thread kept for ttlMillis instead of the configured TTL
+     * (data changes still evict them). Returns false when everything it asked for was already cached.
+     */
+    public static boolean warming(long ttlMillis, Runnable task) {
+        Warming warming = new Warming(ttlMillis);
+        WARMING.set(warming);
+        try {
+            task.run();
+            return warming.computed;
+        } finally {
+            WARMING.remove();
+        }
+    }
+
+    /**
+     * Staged in the writing transaction: results being computed right now may predate the change.
+     */
+    @EventListener
+    public void onDataChangeStaged(AnalyticsDataChangedEvent event) {
+        recordChange(event);
+    }
+
+    /**
+     * Drop every entry whose scope the change touched, once it is visible to readers.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDataChangeCommitted(AnalyticsDataChangedEvent event) {
+        recordChange(event);
+        inFlight.keySet().removeIf(key -> key.isAffectedBy(event));
+
+        int removed = 0;
+        synchronized (this) {
+            Iterator<Key> it = entries.keySet().iterator();
+            while (it.hasNext()) {
+                if (it.next().isAffectedBy(event)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        invalidations.add(removed);
+        log.debug("Dashboard cache: {} change in store {} / investors {} evicted {} entries",
+                event.source(), event.storeId(), event.investorIds(), removed);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        recordChange(null);
+    }
+
+    public Map<String, Number> stats() {
+        long hitCount = hits.sum() + sharedLoads.sum();
+        long missCount = misses.sum();
+        long total = hitCount + missCount;
+
+        Map<String, Number> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("size", entries.size());
+        }
+        stats.put("maxEntries", maxEntries);
+        stats.put("hits", hits.sum());
+        stats.put("sharedLoads", sharedLoads.sum());
+        stats.put("misses", missCount);
+        stats.put("hitRatio", total > 0 ? (double) hitCount / total : 0.0);
+        stats.put("expirations", expirations.sum());
+        stats.put("sizeEvictions", sizeEvictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    private synchronized Object lookup(Key key) {
+        Entry entry = entries.get(key);
+        if (entry == null) return null;
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            expirations.increment();
+            return null;
+        }
+        return entry.value();
+    }
+
+    private synchronized void store(Key key, Object value, long startGeneration) {
+        if (value == null || changedSince(key, startGeneration)) return;
+
+        Warming warming = WARMING.get();
+        long ttl = warming != null ? warming.ttlMillis : ttlMillis;
+        entries.put(key, new Entry(value, System.currentTimeMillis() + ttl));
+        Iterator<Key> eldest = entries.keySet().iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+            sizeEvictions.increment();
+        }
+    }
+
+    private synchronized void recordChange(AnalyticsDataChangedEvent event) {
+        changes.addLast(new Change(generation.incrementAndGet(), event));
+        if (changes.size() > CHANGE_LOG_SIZE) changes.removeFirst();
+    }
+
+    // Whether a change after startGeneration touched the key's scope; callers hold the cache
+    private boolean changedSince(Key key, long startGeneration) {
+        if (generation.get() == startGeneration) return false;
+        // The log no longer reaches back to the start of the computation
+        if (changes.isEmpty() || changes.peekFirst().generation() > startGeneration + 1) return true;
+        Iterator<Change> newestFirst = changes.descendingIterator();
+        while (newestFirst.hasNext()) {
+            Change change = newestFirst.next();
+            if (change.generation() <= startGeneration) break;
+            if (change.event() == null || key.isAffectedBy(change.event())) return true;
+        }
+        return false;
+    }
+
+    private static Object awaitShared(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.analyfy.analify.Service.Analytics;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Runs the independent query groups of a dashboard concurrently.
+ *
+ * Every forked task runs on a virtual thread inside its own read-only transaction.
+ * Two caps apply: one per dashboard request, and one for the whole node so that a
+ * burst of dashboards never takes more connections than the pool can spare. A batch of
+ * dashboards (the warm-up) can add a third one, shared by all of its runs.
+ */
+@Component
+@Slf4j
+public class DashboardExecutionEngine {
+
+    // Permits of the batch the current thread's dashboards belong to, if any
+    private static final ThreadLocal<Semaphore> BATCH_PERMITS = new ThreadLocal<>();
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore nodePermits;
+    private final int nodeParallelism;
+    private final int requestParallelism;
+    private final long timeoutMillis;
+
+    public DashboardExecutionEngine(
+            PlatformTransactionManager transactionManager,
+            @Value("${analytics.engine.request-parallelism:6}") int requestParallelism,
+            @Value("${analytics.engine.node-parallelism:8}") int nodeParallelism,
+            @Value("${analytics.engine.timeout-seconds:30}") long timeoutSeconds) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.nodeParallelism = Math.max(1, nodeParallelism);
+        this.nodePermits = new Semaphore(this.nodeParallelism, true);
+        this.requestParallelism = Math.max(1, requestParallelism);
+        this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+    }
+
+    /**
+     * Start a new run. A run groups the tasks of one dashboard request and carries its parallelism cap.
+     */
+    public DashboardRun newRun() {
+        return new DashboardRun(new Semaphore(requestParallelism, true), System.currentTimeMillis() + timeoutMillis);
+    }
+
+    /**
+     * Run a whole dashboard request off the servlet thread (streaming endpoints). Its query groups still go through a run.
+     */
+    public void submit(Runnable task) {
+        executor.execute(task);
+    }
+
+    public int nodeParallelism() {
+        return nodeParallelism;
+    }
+
+    /**
+     * Run work whose dashboard runs also take one of batchPermits for each query group, so that together they never
+     * hold more node permits than the batch has.
+     */
+    public static <T> T batched(Semaphore batchPermits, Supplier<T> work) {
+        Semaphore previous = BATCH_PERMITS.get();
+        BATCH_PERMITS.set(batchPermits);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                BATCH_PERMITS.remove();
+            } else {
+                BATCH_PERMITS.set(previous);
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public final class DashboardRun {
+
+        private final Semaphore requestPermits;
+        private final Semaphore batchPermits = BATCH_PERMITS.get();
+        private final long deadline;
+        // Queries of every task are counted against the caller that started the run
+        private final List<LongAdder> queryCounters = QueryCounter.current();
+        // Repeated repository calls are shared across the tasks of the run (and with the caller's memo, if any)
+        private final QueryMemo queryMemo = QueryMemo.current() != null ? QueryMemo.current() : new QueryMemo();
+
+        private DashboardRun(Semaphore requestPermits, long deadline) {
+            this.requestPermits = requestPermits;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Declare a query group without running it. It is forked the first time its result is asked for.
+         */
+        public <T> Metric<T> lazy(Supplier<T> task) {
+            return new Metric<>(() -> fork(task));
+        }
+
+        /**
+         * Declare a query group that needs other metrics. Asking for it starts its dependencies first.
+         */
+        public <T> Metric<T> lazyAfter(Supplier<T> task, Metric<?>... dependencies) {
+            return new Metric<>(() -> forkAfter(task, Arrays.stream(dependencies)
+                    .map(Metric::future)
+                    .toArray(CompletableFuture[]::new)));
+        }
+
+        /**
+         * A metric that needs no query at all (e.g. a section the role cannot see).
+         */
+        public <T> Metric<T> constant(T value) {
+            return new Metric<>(() -> CompletableFuture.completedFuture(value));
+        }
+
+        /**
+         * Run a query group on its own virtual thread and read-only transaction.
+         */
+        public <T> CompletableFuture<T> fork(Supplier<T> task) {
+            return CompletableFuture.supplyAsync(() -> runBounded(task), executor);
+        }
+
+        /**
+         * Fork a task once all of its dependencies completed. No permit is held while waiting,
+         * so dependent groups can never starve the groups they wait on.
+         */
+        public <T> CompletableFuture<T> forkAfter(Supplier<T> task, CompletableFuture<?>... dependencies) {
+            return CompletableFuture.allOf(dependencies).thenCompose(ignored -> fork(task));
+        }
+
+        /**
+         * Wait for a forked task, bounded by the run deadline. Failures are rethrown unwrapped.
+         */
+        public <T> T join(CompletableFuture<T> future) {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            try {
+                return future.get(remaining, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                future.cancel(true);
+                throw new IllegalStateException("Dashboard query group timed out", e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for dashboard query group", e);
+            } catch (ExecutionException e) {
+                throw unwrap(e.getCause());
+            }
+        }
+
+        private <T> T runBounded(Supplier<T> task) {
+            boolean requestAcquired = false;
+            boolean batchAcquired = false;
+            boolean nodeAcquired = false;
+            try {
+                // Always request permit first, then batch permit, then node permit, so runs can never deadlock each other
+                requestAcquired = requestPermits.tryAcquire(remainingMillis(), TimeUnit.MILLISECONDS);
+                if (!requestAcquired) throw new IllegalStateException("Dashboard run exceeded its deadline while queued");
+                if (batchPermits != null) {
+                    batchAcquired = batchPermits.tryAcquire(remainingMillis(), TimeUnit.MILLISECONDS);
+                    if (!batchAcquired) throw new IllegalStateException("Dashboard batch capacity exhausted");
+                }
+                nodeAcquired = nodePermits.tryAcquire(remainingMillis(), TimeUnit.MILLISECONDS);
+                if (!nodeAcquired) throw new IllegalStateException("Dashboard node capacity exhausted");
+                return QueryCounter.countingAll(queryCounters, () -> QueryMemo.using(queryMemo,
+                        () -> readOnlyTransaction.execute(status -> task.get())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            } finally {
+                if (nodeAcquired) nodePermits.release();
+                if (batchAcquired) batchPermits.release();
+                if (requestAcquired) requestPermits.release();
+            }
+        }
+
+        private long remainingMillis() {
+            return Math.max(0, deadline - System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Node of the dashboard dependency graph: a query group started at most once, on demand.
+     */
+    public static final class Metric<T> {
+
+        private final Supplier<CompletableFuture<T>> starter;
+        private volatile CompletableFuture<T> future;
+
+        private Metric(Supplier<CompletableFuture<T>> starter) {
+            this.starter = starter;
+        }
+
+        public CompletableFuture<T> future() {
+            CompletableFuture<T> started = future;
+            if (started == null) {
+                synchronized (this) {
+                    started = future;
+                    if (started == null) {
+                        started = starter.get();
+                        future = started;
+                    }
+                }
+            }
+            return started;
+        }
+
+        /**
+         * A metric derived from this one without any query of its own (e.g. one column of a multi-KPI query).
+         */
+        public <R> Metric<R> map(Function<T, R> mapper) {
+            return new Metric<>(() -> future().thenApply(mapper));
+        }
+
+        /**
+         * Result of a metric whose future already completed (or blocking until it does).
+         */
+        public T join() {
+            return future().join();
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        if (cause instanceof RuntimeException runtime) return runtime;
+        log.error("Dashboard query group failed", cause);
+        return new IllegalStateException(cause);
+    }
+}
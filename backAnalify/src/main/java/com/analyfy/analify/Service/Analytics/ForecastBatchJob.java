@@ -0,0 +1,178 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Enum.AdmissionLane;
+import com.analyfy.analify.Enum.ForecastMetric;
+import com.analyfy.analify.Repository.InvestorRepository;
+import com.analyfy.analify.Repository.StoreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nightly refresh of the stored revenue and stock-demand forecasts of the platform, of every store, of every
+ * investor and of the top products, so that dashboards and /predictions read them instead of computing them.
+ *
+ * Scopes are split in chunks of analytics.forecast.batch-chunk-size, processed by at most
+ * analytics.forecast.batch-parallelism workers. A worker holds one daily series at a time and each scope is saved
+ * as soon as it is done, so memory does not grow with the number of scopes. Scopes that are already current
+ * (refreshed earlier today) only cost their lookup. Each scope is admitted on the forecast-batch lane of the
+ * AdmissionControl, so the batch shares the analytics connection slots with the live requests.
+ */
+@Component
+@Slf4j
+public class ForecastBatchJob {
+
+    // Trailing window that ranks the top products
+    private static final int TOP_PRODUCTS_DAYS = 90;
+
+    private final ForecastService forecastService;
+    private final SalesMetricsReader salesMetricsReader;
+    private final AdmissionControl admissionControl;
+    private final StoreRepository storeRepository;
+    private final InvestorRepository investorRepository;
+    private final boolean enabled;
+    private final int topProducts;
+    private final int parallelism;
+    private final int chunkSize;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder runs = new LongAdder();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public ForecastBatchJob(
+            ForecastService forecastService,
+            SalesMetricsReader salesMetricsReader,
+            AdmissionControl admissionControl,
+            StoreRepository storeRepository,
+            InvestorRepository investorRepository,
+            @Value("${analytics.forecast.batch-enabled:true}") boolean enabled,
+            @Value("${analytics.forecast.batch-top-products:100}") int topProducts,
+            @Value("${analytics.forecast.batch-parallelism:4}") int parallelism,
+            @Value("${analytics.forecast.batch-chunk-size:50}") int chunkSize) {
+        this.forecastService = forecastService;
+        this.salesMetricsReader = salesMetricsReader;
+        this.admissionControl = admissionControl;
+        this.storeRepository = storeRepository;
+        this.investorRepository = investorRepository;
+        this.enabled = enabled;
+        this.topProducts = topProducts;
+        this.parallelism = Math.max(1, parallelism);
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    // After midnight, once yesterday is complete
+    @Scheduled(cron = "${analytics.forecast.batch-cron:0 30 0 * * *}")
+    public void runNightly() {
+        if (!enabled) return;
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.error("Forecast batch failed", e);
+        }
+    }
+
+    /**
+     * Refresh every scope now. Returns the run statistics, or null when a run is already in progress.
+     */
+    public Map<String, Object> run() {
+        if (!running.compareAndSet(false, true)) return null;
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startedMillis = System.currentTimeMillis();
+        try {
+            LocalDate today = LocalDate.now();
+            List<Long> storeIds = storeRepository.findAllStoreIds();
+            List<Long> investorIds = investorRepository.findAllInvestorIds();
+            List<Long> productIds = salesMetricsReader.findTopProductIds(today.minusDays(TOP_PRODUCTS_DAYS), today, topProducts);
+
+            List<Scope> scopes = new ArrayList<>();
+            for (ForecastMetric metric : ForecastMetric.values()) {
+                scopes.add(new Scope(metric, null, null, null));
+                storeIds.forEach(id -> scopes.add(new Scope(metric, id, null, null)));
+                investorIds.forEach(id -> scopes.add(new Scope(metric, null, id, null)));
+                productIds.forEach(id -> scopes.add(new Scope(metric, null, null, id)));
+            }
+
+            LongAdder refreshed = new LongAdder();
+            LongAdder upToDate = new LongAdder();
+            LongAdder insufficientHistory = new LongAdder();
+            LongAdder failed = new LongAdder();
+            try (ExecutorService workers = Executors.newFixedThreadPool(parallelism)) {
+                List<Future<?>> chunks = new ArrayList<>();
+                for (int from = 0; from < scopes.size(); from += chunkSize) {
+                    List<Scope> chunk = scopes.subList(from, Math.min(from + chunkSize, scopes.size()));
+                    chunks.add(workers.submit(() -> {
+                        for (Scope scope : chunk) {
+                            try {
+                                switch (admissionControl.inBackground(AdmissionLane.FORECAST_BATCH, () ->
+                                        forecastService.refresh(scope.metric(), scope.storeId(), scope.investorId(), scope.productId()))) {
+                                    case REFRESHED -> refreshed.increment();
+                                    case UP_TO_DATE -> upToDate.increment();
+                                    case INSUFFICIENT_HISTORY -> insufficientHistory.increment();
+                                }
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                                return;
+                            } catch (RuntimeException e) {
+                                failed.increment();
+                                log.warn("Forecast refresh failed for {}", scope, e);
+                            }
+                        }
+                    }));
+                }
+                for (Future<?> chunk : chunks) {
+                    chunk.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Forecast batch interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Forecast batch failed", e.getCause());
+            }
+
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("startedAt", startedAt.toString());
+            stats.put("durationMs", System.currentTimeMillis() - startedMillis);
+            stats.put("stores", storeIds.size());
+            stats.put("investors", investorIds.size());
+            stats.put("products", productIds.size());
+            stats.put("scopes", scopes.size());
+            stats.put("refreshed", refreshed.sum());
+            stats.put("upToDate", upToDate.sum());
+            stats.put("insufficientHistory", insufficientHistory.sum());
+            stats.put("failed", failed.sum());
+            runs.increment();
+            lastRun = stats;
+            log.info("Forecast batch done in {} ms: {}", stats.get("durationMs"), stats);
+            return stats;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Statistics of the last completed run, plus whether one is running now.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(lastRun);
+        stats.put("running", running.get());
+        stats.put("runs", runs.sum());
+        return stats;
+    }
+
+    private record Scope(ForecastMetric metric, Long storeId, Long investorId, Long productId) {
+    }
+}
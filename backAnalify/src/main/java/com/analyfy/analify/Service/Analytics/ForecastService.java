@@ -0,0 +1,268 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.TimeSeriesPoint;
+import com.analyfy.analify.Entity.ForecastModel;
+import com.analyfy.analify.Enum.ForecastMetric;
+import com.analyfy.analify.Repository.ForecastModelRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Daily forecasts with 95% prediction intervals from a weekly Holt-Winters model per (metric, store, investor, product).
+ *
+ * The fitted state is kept in forecast_model. A forecast loads it, absorbs the complete days since it was saved
+ * (usually none or one) and projects the horizon, so repeated forecasts cost O(horizon) instead of a pass over the
+ * history. The parameters are fitted again on the whole history every analytics.forecast.refit-days days,
+ * which also picks up corrections to past days (deleted orders).
+ *
+ * The projected STORED_HORIZON days are saved with the state and read as they are for the rest of the day;
+ * ForecastBatchJob refreshes the main scopes every night so that dashboards only read them.
+ */
+@Service
+@Slf4j
+public class ForecastService {
+
+    public static final double INTERVAL_LEVEL = 0.95;
+    // Days projected and stored with each model, the longest horizon the dashboards ask for
+    public static final int STORED_HORIZON = 90;
+    private static final double INTERVAL_Z = 1.959964;
+
+    private final SalesMetricsReader salesMetricsReader;
+    private final ForecastModelRepository forecastModelRepository;
+    // Dashboards read in read-only transactions: the model state is saved in its own one
+    private final TransactionTemplate writeTransaction;
+    private final int refitDays;
+
+    public ForecastService(SalesMetricsReader salesMetricsReader,
+                           ForecastModelRepository forecastModelRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${analytics.forecast.refit-days:28}") int refitDays) {
+        this.salesMetricsReader = salesMetricsReader;
+        this.forecastModelRepository = forecastModelRepository;
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.writeTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.refitDays = refitDays;
+    }
+
+    /**
+     * Point forecast and interval bounds for each of the horizon days starting today.
+     * Empty when the scope has less than two weeks of history.
+     */
+    public Forecast forecast(ForecastMetric metric, Long storeId, Long investorId, Long productId, int horizon) {
+        return QueryMemo.memoize("forecast", () -> {
+            ForecastModel stored = forecastModelRepository.findByScopeKey(scopeKey(metric, storeId, investorId, productId))
+                    .orElse(null);
+            if (isCurrent(stored) && stored.getForecastValues().length >= horizon) {
+                return fromStored(stored, horizon);
+            }
+            return refresh(stored, metric, storeId, investorId, productId, Math.max(horizon, STORED_HORIZON)).head(horizon);
+        }, metric, storeId, investorId, productId, horizon);
+    }
+
+    /**
+     * Bring the stored model and forecast of a scope up to today, unless they already are.
+     */
+    public RefreshResult refresh(ForecastMetric metric, Long storeId, Long investorId, Long productId) {
+        ForecastModel stored = forecastModelRepository.findByScopeKey(scopeKey(metric, storeId, investorId, productId))
+                .orElse(null);
+        if (isCurrent(stored)) return RefreshResult.UP_TO_DATE;
+        return refresh(stored, metric, storeId, investorId, productId, STORED_HORIZON).values().isEmpty()
+                ? RefreshResult.INSUFFICIENT_HISTORY
+                : RefreshResult.REFRESHED;
+    }
+
+    private static boolean isCurrent(ForecastModel stored) {
+        return stored != null && stored.getForecastValues() != null && LocalDate.now().equals(stored.getForecastFrom());
+    }
+
+    private Forecast refresh(ForecastModel stored, ForecastMetric metric, Long storeId, Long investorId, Long productId,
+                             int horizon) {
+        // Today is not over yet: the model only absorbs complete days
+        LocalDate through = LocalDate.now().minusDays(1);
+        String scopeKey = scopeKey(metric, storeId, investorId, productId);
+
+        HoltWinters model;
+        LocalDate fittedThrough;
+        if (stored == null || stored.getLastDay().isAfter(through)
+                || stored.getFittedThrough().plusDays(refitDays).isBefore(through)) {
+            model = fit(metric, storeId, investorId, productId, through);
+            if (model == null) return Forecast.EMPTY;
+            fittedThrough = through;
+        } else {
+            model = toModel(stored);
+            fittedThrough = stored.getFittedThrough();
+            if (stored.getLastDay().isBefore(through)) {
+                LocalDate from = stored.getLastDay().plusDays(1);
+                double[] values = dailyValues(metric, storeId, investorId, productId, from, through);
+                for (int i = 0; i < values.length; i++) {
+                    model.update(from.plusDays(i), values[i]);
+                }
+            }
+        }
+        Forecast forecast = project(model, horizon);
+        save(stored, scopeKey, metric, storeId, investorId, productId, model, fittedThrough, forecast);
+        return forecast;
+    }
+
+    // Whole history of the scope, from its first day with activity
+    private HoltWinters fit(ForecastMetric metric, Long storeId, Long investorId, Long productId, LocalDate through) {
+        LocalDate firstSalesDay = salesMetricsReader.findFirstSalesDay();
+        if (firstSalesDay == null || firstSalesDay.isAfter(through)) return null;
+        double[] values = dailyValues(metric, storeId, investorId, productId, firstSalesDay, through);
+        int first = 0;
+        while (first < values.length && values[first] == 0) first++;
+        if (values.length - first < HoltWinters.MIN_HISTORY) return null;
+
+        double[] history = new double[values.length - first];
+        System.arraycopy(values, first, history, 0, history.length);
+        return HoltWinters.fit(firstSalesDay.plusDays(first), history);
+    }
+
+    // One value per day of [from, to], 0 for days without sales
+    private double[] dailyValues(ForecastMetric metric, Long storeId, Long investorId, Long productId,
+                                 LocalDate from, LocalDate to) {
+        List<Object[]> rows = (metric == ForecastMetric.REVENUE)
+                ? salesMetricsReader.findRevenueTimeSeries(from, to, storeId, investorId, productId, TimeBucket.DAY)
+                : salesMetricsReader.findStockDemandTimeSeries(from, to, storeId, investorId, productId);
+        double[] values = new double[(int) ChronoUnit.DAYS.between(from, to) + 1];
+        for (Object[] row : rows) {
+            int index = (int) ChronoUnit.DAYS.between(from, LocalDate.parse(String.valueOf(row[0])));
+            if (index >= 0 && index < values.length && row[1] instanceof Number number) {
+                values[index] += number.doubleValue();
+            }
+        }
+        return values;
+    }
+
+    private Forecast project(HoltWinters model, int horizon) {
+        double[] variances = model.forecastVariances(horizon);
+        List<TimeSeriesPoint> values = new ArrayList<>(horizon);
+        List<TimeSeriesPoint> lower = new ArrayList<>(horizon);
+        List<TimeSeriesPoint> upper = new ArrayList<>(horizon);
+        for (int h = 1; h <= horizon; h++) {
+            String date = model.lastDay.plusDays(h).toString();
+            double point = model.forecast(h);
+            double margin = INTERVAL_Z * Math.sqrt(variances[h - 1]);
+            // Sales cannot be negative
+            values.add(point(date, Math.max(0, point)));
+            lower.add(point(date, Math.max(0, point - margin)));
+            upper.add(point(date, Math.max(0, point + margin)));
+        }
+        return new Forecast(values, lower, upper, model.accuracy());
+    }
+
+    private void save(ForecastModel stored, String scopeKey, ForecastMetric metric, Long storeId, Long investorId,
+                      Long productId, HoltWinters model, LocalDate fittedThrough, Forecast forecast) {
+        ForecastModel entity = stored != null ? stored : new ForecastModel();
+        entity.setScopeKey(scopeKey);
+        entity.setMetric(metric);
+        entity.setStoreId(storeId);
+        entity.setInvestorId(investorId);
+        entity.setProductId(productId);
+        entity.setAlpha(model.alpha);
+        entity.setBeta(model.beta);
+        entity.setGamma(model.gamma);
+        entity.setLevel(model.level);
+        entity.setTrend(model.trend);
+        entity.setSeasonal(model.seasonal.clone());
+        entity.setErrorCount(model.errorCount);
+        entity.setSquaredErrorSum(model.squaredErrorSum);
+        entity.setAbsoluteErrorSum(model.absoluteErrorSum);
+        entity.setActualSum(model.actualSum);
+        entity.setLastDay(model.lastDay);
+        entity.setFittedThrough(fittedThrough);
+        entity.setForecastFrom(model.lastDay.plusDays(1));
+        entity.setForecastValues(values(forecast.values()));
+        entity.setForecastLower(values(forecast.lower()));
+        entity.setForecastUpper(values(forecast.upper()));
+        entity.setUpdatedAt(LocalDateTime.now());
+        try {
+            writeTransaction.executeWithoutResult(status -> forecastModelRepository.save(entity));
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request saved the same scope first, from the same days
+            log.debug("Forecast model {} already saved", scopeKey);
+        }
+    }
+
+    private static Forecast fromStored(ForecastModel stored, int horizon) {
+        List<TimeSeriesPoint> values = new ArrayList<>(horizon);
+        List<TimeSeriesPoint> lower = new ArrayList<>(horizon);
+        List<TimeSeriesPoint> upper = new ArrayList<>(horizon);
+        for (int i = 0; i < horizon; i++) {
+            String date = stored.getForecastFrom().plusDays(i).toString();
+            values.add(point(date, stored.getForecastValues()[i]));
+            lower.add(point(date, stored.getForecastLower()[i]));
+            upper.add(point(date, stored.getForecastUpper()[i]));
+        }
+        return new Forecast(values, lower, upper, toModel(stored).accuracy());
+    }
+
+    private static double[] values(List<TimeSeriesPoint> points) {
+        return points.stream().mapToDouble(TimeSeriesPoint::getValue).toArray();
+    }
+
+    private static HoltWinters toModel(ForecastModel stored) {
+        return new HoltWinters(stored.getAlpha(), stored.getBeta(), stored.getGamma(), stored.getLevel(), stored.getTrend(),
+                stored.getSeasonal().clone(), stored.getErrorCount(), stored.getSquaredErrorSum(),
+                stored.getAbsoluteErrorSum(), stored.getActualSum(), stored.getLastDay());
+    }
+
+    private static String scopeKey(ForecastMetric metric, Long storeId, Long investorId, Long productId) {
+        return metric.name() + ":" + scopePart(storeId) + ":" + scopePart(investorId) + ":" + scopePart(productId);
+    }
+
+    private static String scopePart(Long id) {
+        return id != null ? id.toString() : "*";
+    }
+
+    private static TimeSeriesPoint point(String date, double value) {
+        return TimeSeriesPoint.builder().date(date).value(Math.round(value * 100.0) / 100.0).build();
+    }
+
+    public enum RefreshResult { REFRESHED, UP_TO_DATE, INSUFFICIENT_HISTORY }
+
+    /**
+     * Daily forecast with its interval bounds (INTERVAL_LEVEL); accuracy is 1 - the weighted absolute percentage
+     * error of the model's one-step forecasts, 0 without a model.
+     */
+    public record Forecast(List<TimeSeriesPoint> values,
+                           List<TimeSeriesPoint> lower,
+                           List<TimeSeriesPoint> upper,
+                           double accuracy) {
+
+        static final Forecast EMPTY = new Forecast(List.of(), List.of(), List.of(), 0);
+
+        /**
+         * The first days of the forecast.
+         */
+        public Forecast head(int days) {
+            if (days >= values.size()) return this;
+            return new Forecast(values.subList(0, days), lower.subList(0, days), upper.subList(0, days), accuracy);
+        }
+
+        /**
+         * Sum of the point forecasts over the first days of the horizon.
+         */
+        public double total(int days) {
+            return values.stream().limit(days).mapToDouble(TimeSeriesPoint::getValue).sum();
+        }
+
+        /**
+         * Sum of the point forecasts over the last days of the horizon.
+         */
+        public double trailingTotal(int days) {
+            return values.stream().skip(Math.max(0, values.size() - days)).mapToDouble(TimeSeriesPoint::getValue).sum();
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.GeoNodeDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Rows of the geo drill-down, as returned by OrderRepository.findGeoRollup: GROUPING bits, region id, region name,
+ * state id, state name, city id, city name, store id, revenue, orders, units. One row per store, city, state and
+ * region with sales, plus the total, so every level of the hierarchy comes out of a single query.
+ */
+public final class GeoRollup {
+
+    public static final int STORE = 0;
+    public static final int CITY = 1;
+    public static final int STATE = 3;
+    public static final int REGION = 7;
+    public static final int TOTAL = 15;
+
+    private static final int[] LEVELS = {TOTAL, REGION, STATE, CITY, STORE};
+
+    private GeoRollup() {
+    }
+
+    /**
+     * Roll per-store sales up like GROUP BY ROLLUP does (for the sales cube).
+     *
+     * @param storeSales store id, revenue, orders, units
+     * @param geo        store id, city id, city name, state id, state name, region id, region name
+     */
+    static List<Object[]> rollUp(List<Object[]> storeSales, List<Object[]> geo, Long regionId, Long stateId, Long cityId) {
+        Map<Long, Object[]> geoByStore = new HashMap<>();
+        for (Object[] store : geo) geoByStore.put(((Number) store[0]).longValue(), store);
+
+        Map<List<Object>, Object[]> groups = new LinkedHashMap<>();
+        // Like SQL, the total row is there even without sales
+        Object[] total = {TOTAL, null, null, null, null, null, null, null, null, null, null};
+        groups.put(Arrays.asList(Arrays.copyOf(total, 8)), total);
+        for (Object[] sales : storeSales) {
+            Object[] store = geoByStore.get(((Number) sales[0]).longValue());
+            if (store == null) continue;
+            if ((regionId != null && !regionId.equals(toLong(store[5])))
+                    || (stateId != null && !stateId.equals(toLong(store[3])))
+                    || (cityId != null && !cityId.equals(toLong(store[1])))) {
+                continue;
+            }
+            Object[] storeRow = {STORE, store[5], store[6], store[3], store[4], store[1], store[2], store[0], null, null, null};
+            for (int level : new int[]{STORE, CITY, STATE, REGION, TOTAL}) {
+                Object[] key = storeRow.clone();
+                key[0] = level;
+                // Columns rolled up at this level are null, as in SQL
+                if (level >= CITY) key[7] = null;
+                if (level >= STATE) { key[5] = null; key[6] = null; }
+                if (level >= REGION) { key[3] = null; key[4] = null; }
+                if (level >= TOTAL) { key[1] = null; key[2] = null; }
+                Object[] row = groups.computeIfAbsent(Arrays.asList(Arrays.copyOf(key, 8)), k -> key);
+                row[8] = (row[8] != null ? (Double) row[8] : 0.0) + toDouble(sales[1]);
+                row[9] = (row[9] != null ? (Long) row[9] : 0L) + toLong(sales[2]);
+                row[10] = (row[10] != null ? (Long) row[10] : 0L) + toLong(sales[3]);
+            }
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Revenue per name at one level (REGION or STATE): name, revenue; names shared by several nodes are summed.
+     */
+    public static List<Object[]> revenueBy(List<Object[]> rows, int level) {
+        int nameColumn = level == REGION ? 2 : 4;
+        Map<String, Double> revenue = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            if (toLong(row[0]) != level) continue;
+            revenue.merge(String.valueOf(row[nameColumn]), toDouble(row[8]), Double::sum);
+        }
+        List<Object[]> named = new ArrayList<>(revenue.size());
+        revenue.forEach((name, value) -> named.add(new Object[]{name, value}));
+        return named;
+    }
+
+    /**
+     * The tree under the selected node (the deepest of cityId, stateId, regionId, else the total),
+     * expanded depth levels down; children are sorted by revenue.
+     */
+    public static GeoNodeDTO tree(List<Object[]> rows, Long regionId, Long stateId, Long cityId, int depth) {
+        int rootLevel = cityId != null ? CITY : stateId != null ? STATE : regionId != null ? REGION : TOTAL;
+        Object[] root = rows.stream().filter(row -> toLong(row[0]) == rootLevel).findFirst().orElse(null);
+        if (root == null) {
+            Long id = cityId != null ? cityId : stateId != null ? stateId : regionId;
+            return GeoNodeDTO.builder().level(levelName(rootLevel)).id(id).revenue(0.0).orders(0L).unitsSold(0L)
+                    .expandable(false).build();
+        }
+        return node(rows, root, rootLevel, depth);
+    }
+
+    private static GeoNodeDTO node(List<Object[]> rows, Object[] row, int level, int depth) {
+        int childLevel = childLevel(level);
+        List<Object[]> childRows = childLevel < 0 ? List.of() : rows.stream()
+                .filter(candidate -> toLong(candidate[0]) == childLevel && isChild(candidate, row, level))
+                .sorted(Comparator.comparingDouble((Object[] candidate) -> toDouble(candidate[8])).reversed())
+                .toList();
+
+        List<GeoNodeDTO> children = depth > 0 ? childRows.stream().map(child -> node(rows, child, childLevel, depth - 1)).toList() : null;
+        return GeoNodeDTO.builder()
+                .level(levelName(level))
+                .id(idOf(row, level))
+                .name(nameOf(row, level))
+                .revenue(Math.round(toDouble(row[8]) * 100.0) / 100.0)
+                .orders(row[9] != null ? toLong(row[9]) : 0L)
+                .unitsSold(row[10] != null ? toLong(row[10]) : 0L)
+                .expandable(!childRows.isEmpty())
+                .children(children)
+                .build();
+    }
+
+    private static boolean isChild(Object[] candidate, Object[] parent, int parentLevel) {
+        return switch (parentLevel) {
+            case REGION -> Objects.equals(candidate[1], parent[1]);
+            case STATE -> Objects.equals(candidate[3], parent[3]);
+            case CITY -> Objects.equals(candidate[5], parent[5]);
+            default -> true;
+        };
+    }
+
+    private static int childLevel(int level) {
+        for (int i = 0; i < LEVELS.length - 1; i++) {
+            if (LEVELS[i] == level) return LEVELS[i + 1];
+        }
+        return -1;
+    }
+
+    private static String levelName(int level) {
+        return switch (level) {
+            case REGION -> "region";
+            case STATE -> "state";
+            case CITY -> "city";
+            case STORE -> "store";
+            default -> "total";
+        };
+    }
+
+    private static Long idOf(Object[] row, int level) {
+        return switch (level) {
+            case REGION -> toLong(row[1]);
+            case STATE -> toLong(row[3]);
+            case CITY -> toLong(row[5]);
+            case STORE -> toLong(row[7]);
+            default -> null;
+        };
+    }
+
+    private static String nameOf(Object[] row, int level) {
+        return switch (level) {
+            case REGION -> (String) row[2];
+            case STATE -> (String) row[4];
+            case CITY -> (String) row[6];
+            case STORE -> "Store #" + toLong(row[7]);
+            default -> "All";
+        };
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+
+    private static double toDouble(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+}
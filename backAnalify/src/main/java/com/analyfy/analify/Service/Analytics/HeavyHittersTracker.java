@@ -0,0 +1,326 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.LiveLeaderboardDTO;
+import com.analyfy.analify.DTO.Statistics.RankingItem;
+import com.analyfy.analify.Enum.LeaderboardWindow;
+import com.analyfy.analify.Repository.OrderItemsRepository;
+import com.analyfy.analify.Repository.ProductRepository;
+import com.analyfy.analify.Repository.StoreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.DoubleFunction;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.stream.Stream;
+
+/**
+ * Live leaderboards (top products, cities and investors by revenue) over the trailing LeaderboardWindows.
+ *
+ * Each day of the last 30 keeps one weighted Space-Saving summary per dimension, bounded by
+ * analytics.heavy-hitters.capacity counters whatever the number of products. Committed orders are added
+ * to their day from the lines their events carry; a window merges its days and ranks the merged counters,
+ * without scanning the order lines. The summaries are built from the order lines at startup. A deleted order
+ * makes them stale: they are rebuilt in the background and swapped in when done, the leaderboards going to
+ * the database meanwhile.
+ *
+ * Counts are exact until a day holds more keys than the capacity; from then on a window reports
+ * errorBound(), the most any of its totals can be off.
+ */
+@Component
+@Slf4j
+public class HeavyHittersTracker extends OrderEventTracker<HeavyHittersTracker.Labels> {
+
+    private static final int DAYS = LeaderboardWindow.LAST_30_DAYS.days();
+
+    private final OrderItemsRepository orderItemsRepository;
+    private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
+    private final int capacity;
+
+    // One rebuild at a time: startup, endpoint, or in the background after a deletion
+    private final Object rebuildLock = new Object();
+
+    // Everything below is guarded by "this"
+    private TreeMap<LocalDate, DaySummary> days = new TreeMap<>();
+    private Labels labels = new Labels();
+
+    public HeavyHittersTracker(OrderItemsRepository orderItemsRepository,
+                               ProductRepository productRepository,
+                               StoreRepository storeRepository,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${analytics.heavy-hitters.enabled:true}") boolean enabled,
+                               @Value("${analytics.heavy-hitters.capacity:1000}") int capacity) {
+        super(transactionManager, enabled, "Heavy hitters");
+        this.orderItemsRepository = orderItemsRepository;
+        this.productRepository = productRepository;
+        this.storeRepository = storeRepository;
+        this.capacity = Math.max(10, capacity);
+    }
+
+    /**
+     * The window that is [start, end] when its totals are exact, so that reading it gives the same rows
+     * as the database; null otherwise.
+     */
+    public synchronized LeaderboardWindow exactWindow(LocalDate start, LocalDate end) {
+        LocalDate today = LocalDate.now();
+        LeaderboardWindow window = LeaderboardWindow.matching(start, end, today);
+        return isServing() && window != null && errorBound(window, today) == 0 ? window : null;
+    }
+
+    /**
+     * Rebuild the day summaries of the last 30 days from the order lines, and swap them in.
+     * Orders committed while reading are applied once the new summaries are in, unless the rebuild already read them.
+     */
+    @Override
+    public Map<String, Object> rebuild() {
+        synchronized (rebuildLock) {
+            long startedAt = System.currentTimeMillis();
+            LocalDate today = LocalDate.now();
+            LocalDate first = today.minusDays(DAYS - 1);
+            beginRebuild();
+
+            TreeMap<LocalDate, DaySummary> summaries = new TreeMap<>();
+            Set<Long> recentOrders = new HashSet<>();
+            Labels fresh;
+            try {
+                Map<LocalDate, DayTotals> totals = new HashMap<>();
+                fresh = readTransaction.execute(status -> {
+                    Labels loaded = loadLabels();
+                    try (Stream<Object[]> lines = orderItemsRepository.streamLinesBetween(first, today)) {
+                        lines.forEach(line -> {
+                            LocalDate day = toLocalDate(line[1]);
+                            totals.computeIfAbsent(day, d -> new DayTotals())
+                                    .add(toLong(line[2]), toLong(line[3]), ((Number) line[4]).doubleValue(), loaded);
+                            if (!day.isBefore(today.minusDays(1))) recentOrders.add(toLong(line[0]));
+                        });
+                    }
+                    return loaded;
+                });
+                totals.forEach((day, dayTotals) -> summaries.put(day, dayTotals.summarise(capacity)));
+            } catch (RuntimeException e) {
+                abortRebuild();
+                throw e;
+            }
+
+            synchronized (this) {
+                days = summaries;
+                labels = fresh;
+                finishRebuild(recentOrders);
+
+                Map<String, Object> stats = stats();
+                stats.put("durationMs", System.currentTimeMillis() - startedAt);
+                log.info("Heavy hitters rebuilt: {}", stats);
+                return stats;
+            }
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    /**
+     * The three leaderboards of a window, limit entries each.
+     */
+    public synchronized LiveLeaderboardDTO leaderboard(LeaderboardWindow window, int limit) {
+        LocalDate today = LocalDate.now();
+        double errorBound = errorBound(window, today);
+        return LiveLeaderboardDTO.builder()
+                .window(window.toParam())
+                .startDate(window.start(today))
+                .endDate(today)
+                .topProducts(RankingItem.fromRows(topProducts(window, limit)))
+                .topStores(RankingItem.fromRows(topStores(window, limit)))
+                .topInvestors(RankingItem.fromRows(topInvestors(window, limit)))
+                .exact(errorBound == 0)
+                .errorBound(Math.round(errorBound * 100.0) / 100.0)
+                .build();
+    }
+
+    /**
+     * Top products of the window: product name, revenue, category name (products without a category are left out).
+     */
+    public synchronized List<Object[]> topProducts(LeaderboardWindow window, int limit) {
+        Labels current = labels;
+        return top(window, DaySummary::products, limit, id -> current.productCategories.get(id) == null ? null
+                : (revenue -> new Object[]{current.productNames.get(id), revenue, current.productCategories.get(id)}));
+    }
+
+    /**
+     * Top cities of the window: city name, revenue.
+     */
+    public synchronized List<Object[]> topStores(LeaderboardWindow window, int limit) {
+        Labels current = labels;
+        return top(window, DaySummary::cities, limit, id -> revenue -> new Object[]{current.cityNames.get(id), revenue});
+    }
+
+    /**
+     * Top investors of the window: investor name, revenue.
+     */
+    public synchronized List<Object[]> topInvestors(LeaderboardWindow window, int limit) {
+        Labels current = labels;
+        return top(window, DaySummary::investors, limit, id -> revenue -> new Object[]{current.investorNames.get(id), revenue});
+    }
+
+    /**
+     * The most any revenue of the window's leaderboards can be off (0 when exact).
+     */
+    public synchronized double errorBound(LeaderboardWindow window) {
+        return errorBound(window, LocalDate.now());
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("ready", isServing());
+        stats.put("capacity", capacity);
+        stats.put("days", days.size());
+        stats.put("counters", days.values().stream()
+                .mapToLong(day -> day.products.counters().size() + day.cities.counters().size() + day.investors.counters().size())
+                .sum());
+        LocalDate today = LocalDate.now();
+        for (LeaderboardWindow window : LeaderboardWindow.values()) {
+            stats.put("errorBound." + window.toParam(), errorBound(window, today));
+        }
+        return stats;
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    @Override
+    protected Labels preload(AnalyticsDataChangedEvent event) {
+        // An order of a store or product the labels do not know yet: read them before holding the tracker
+        return knowsLabelsOf(event) ? null : readTransaction.execute(status -> loadLabels());
+    }
+
+    @Override
+    protected void apply(AnalyticsDataChangedEvent event, Labels reloaded) {
+        if (event.source() == AnalyticsDataChangedEvent.Source.ORDER_CREATED) {
+            if (reloaded != null) labels = reloaded;
+            add(event);
+        } else if (event.source() == AnalyticsDataChangedEvent.Source.ORDER_DELETED) {
+            // Space-Saving counters cannot be decremented safely: stale until rebuilt
+            markStale();
+            scheduleRebuild();
+        }
+    }
+
+    private void add(AnalyticsDataChangedEvent event) {
+        LocalDate today = LocalDate.now();
+        LocalDate first = today.minusDays(DAYS - 1);
+        days.headMap(first).clear();
+        LocalDate day = event.orderDate();
+        if (day.isBefore(first) || day.isAfter(today)) return;
+        DaySummary summary = days.computeIfAbsent(day, d -> new DaySummary(capacity));
+        for (AnalyticsDataChangedEvent.Line line : event.lines()) {
+            summary.add(event.storeId(), line.productId(), line.revenue(), labels);
+        }
+    }
+
+    private synchronized boolean knowsLabelsOf(AnalyticsDataChangedEvent event) {
+        return labels.storeCities.containsKey(event.storeId())
+                && event.lines().stream().allMatch(line -> labels.productNames.containsKey(line.productId()));
+    }
+
+    private Labels loadLabels() {
+        Labels loaded = new Labels();
+        for (Object[] store : storeRepository.findCubeStoreDimension()) {
+            if (store[1] == null) continue;
+            loaded.storeCities.put(toLong(store[0]), toLong(store[1]));
+            loaded.cityNames.put(toLong(store[1]), (String) store[2]);
+        }
+        for (Object[] product : productRepository.findCubeProductDimension()) {
+            long productId = toLong(product[0]);
+            loaded.productNames.put(productId, (String) product[1]);
+            if (product[2] != null) loaded.productCategories.put(productId, (String) product[2]);
+            if (product[3] != null) {
+                loaded.productInvestors.put(productId, toLong(product[3]));
+                loaded.investorNames.put(toLong(product[3]), (String) product[4]);
+            }
+        }
+        return loaded;
+    }
+
+    // rows: the row builder of a key, null to leave the key out
+    private List<Object[]> top(LeaderboardWindow window, Function<DaySummary, SpaceSaving> dimension,
+                               int limit, LongFunction<DoubleFunction<Object[]>> rows) {
+        Map<Long, Double> merged = new HashMap<>();
+        for (DaySummary day : days.tailMap(window.start(LocalDate.now()), true).values()) {
+            dimension.apply(day).counters().forEach((id, revenue) -> merged.merge(id, revenue, Double::sum));
+        }
+        List<Object[]> top = new ArrayList<>();
+        merged.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> {
+                    if (top.size() >= limit) return;
+                    DoubleFunction<Object[]> row = rows.apply(entry.getKey());
+                    if (row != null) top.add(row.apply(entry.getValue()));
+                });
+        return top;
+    }
+
+    private double errorBound(LeaderboardWindow window, LocalDate today) {
+        double bound = 0;
+        for (DaySummary day : days.tailMap(window.start(today), true).values()) {
+            bound += Math.max(day.products.floor(), Math.max(day.cities.floor(), day.investors.floor()));
+        }
+        return bound;
+    }
+
+    // ==================== STORAGE ====================
+
+    static final class Labels {
+        private final Map<Long, String> productNames = new HashMap<>();
+        private final Map<Long, String> productCategories = new HashMap<>();
+        private final Map<Long, Long> productInvestors = new HashMap<>();
+        private final Map<Long, String> investorNames = new HashMap<>();
+        private final Map<Long, Long> storeCities = new HashMap<>();
+        private final Map<Long, String> cityNames = new HashMap<>();
+    }
+
+    private record DaySummary(SpaceSaving products, SpaceSaving cities, SpaceSaving investors) {
+
+        private DaySummary(int capacity) {
+            this(new SpaceSaving(capacity), new SpaceSaving(capacity), new SpaceSaving(capacity));
+        }
+
+        private void add(long storeId, long productId, double revenue, Labels labels) {
+            products.add(productId, revenue);
+            Long cityId = labels.storeCities.get(storeId);
+            if (cityId != null) cities.add(cityId, revenue);
+            Long investorId = labels.productInvestors.get(productId);
+            if (investorId != null) investors.add(investorId, revenue);
+        }
+    }
+
+    // Exact per-day totals, only while rebuilding
+    private static final class DayTotals {
+        private final Map<Long, Double> products = new HashMap<>();
+        private final Map<Long, Double> cities = new HashMap<>();
+        private final Map<Long, Double> investors = new HashMap<>();
+
+        private void add(long storeId, long productId, double revenue, Labels labels) {
+            products.merge(productId, revenue, Double::sum);
+            Long cityId = labels.storeCities.get(storeId);
+            if (cityId != null) cities.merge(cityId, revenue, Double::sum);
+            Long investorId = labels.productInvestors.get(productId);
+            if (investorId != null) investors.merge(investorId, revenue, Double::sum);
+        }
+
+        private DaySummary summarise(int capacity) {
+            return new DaySummary(SpaceSaving.of(products, capacity), SpaceSaving.of(cities, capacity),
+                    SpaceSaving.of(investors, capacity));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.analyfy.analify.Service.Analytics;
+
+import java.time.LocalDate;
+
+/**
+ * Additive Holt-Winters (level, trend, weekly season) over a gap-free daily series.
+ *
+ * The seasonal components are indexed by day of week, so the state does not depend on where the series started
+ * and a day can be absorbed knowing only its date. The one-step-ahead errors are accumulated as the series is
+ * read and give the variance of the prediction intervals.
+ */
+public final class HoltWinters {
+
+    public static final int SEASON = 7;
+    // Days used to initialise the state before errors are counted
+    public static final int MIN_HISTORY = 2 * SEASON;
+
+    private static final double[] ALPHAS = {0.05, 0.1, 0.2, 0.3, 0.5, 0.7};
+    private static final double[] BETAS = {0.0, 0.01, 0.05, 0.1};
+    private static final double[] GAMMAS = {0.05, 0.1, 0.2, 0.4};
+
+    final double alpha;
+    final double beta;
+    final double gamma;
+    double level;
+    double trend;
+    final double[] seasonal;
+    int errorCount;
+    double squaredErrorSum;
+    double absoluteErrorSum;
+    double actualSum;
+    LocalDate lastDay;
+
+    HoltWinters(double alpha, double beta, double gamma, double level, double trend, double[] seasonal,
+                int errorCount, double squaredErrorSum, double absoluteErrorSum, double actualSum, LocalDate lastDay) {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.level = level;
+        this.trend = trend;
+        this.seasonal = seasonal;
+        this.errorCount = errorCount;
+        this.squaredErrorSum = squaredErrorSum;
+        this.absoluteErrorSum = absoluteErrorSum;
+        this.actualSum = actualSum;
+        this.lastDay = lastDay;
+    }
+
+    /**
+     * Fit on daily values starting at firstDay (at least MIN_HISTORY of them): the smoothing parameters are
+     * picked from a small grid by the lowest one-step-ahead squared error.
+     */
+    public static HoltWinters fit(LocalDate firstDay, double[] values) {
+        if (values.length < MIN_HISTORY) {
+            throw new IllegalArgumentException("Holt-Winters needs at least " + MIN_HISTORY + " days");
+        }
+        HoltWinters best = null;
+        for (double alpha : ALPHAS) {
+            for (double beta : BETAS) {
+                for (double gamma : GAMMAS) {
+                    HoltWinters model = initialise(alpha, beta, gamma, firstDay, values);
+                    for (int i = MIN_HISTORY; i < values.length; i++) {
+                        model.update(firstDay.plusDays(i), values[i]);
+                    }
+                    if (best == null || model.squaredErrorSum < best.squaredErrorSum) best = model;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Level = mean of the first week, trend = weekly change of the mean, season = average deviation per weekday
+    private static HoltWinters initialise(double alpha, double beta, double gamma, LocalDate firstDay, double[] values) {
+        double firstWeek = 0;
+        double secondWeek = 0;
+        for (int i = 0; i < SEASON; i++) {
+            firstWeek += values[i] / SEASON;
+            secondWeek += values[i + SEASON] / SEASON;
+        }
+        double[] seasonal = new double[SEASON];
+        for (int i = 0; i < MIN_HISTORY; i++) {
+            double weekMean = i < SEASON ? firstWeek : secondWeek;
+            seasonal[dayIndex(firstDay.plusDays(i))] += (values[i] - weekMean) / 2;
+        }
+        double trend = (secondWeek - firstWeek) / SEASON;
+        // Level at the last initialisation day
+        double level = secondWeek + trend * (SEASON - 1) / 2.0;
+        return new HoltWinters(alpha, beta, gamma, level, trend, seasonal, 0, 0, 0, 0,
+                firstDay.plusDays(MIN_HISTORY - 1));
+    }
+
+    /**
+     * Absorb the value of the day after lastDay.
+     */
+    public void update(LocalDate day, double value) {
+        int index = dayIndex(day);
+        double error = value - (level + trend + seasonal[index]);
+        errorCount++;
+        squaredErrorSum += error * error;
+        absoluteErrorSum += Math.abs(error);
+        actualSum += Math.abs(value);
+
+        double previousLevel = level;
+        level = alpha * (value - seasonal[index]) + (1 - alpha) * (level + trend);
+        trend = beta * (level - previousLevel) + (1 - beta) * trend;
+        seasonal[index] = gamma * (value - level) + (1 - gamma) * seasonal[index];
+        lastDay = day;
+    }
+
+    /**
+     * Point forecast h days after lastDay (h >= 1).
+     */
+    public double forecast(int h) {
+        return level + h * trend + seasonal[dayIndex(lastDay.plusDays(h))];
+    }
+
+    /**
+     * Variance of the h-step error for each h in 1..horizon, from the one-step error variance
+     * (Hyndman et al., additive Holt-Winters: sigma^2 * (1 + sum_{j<h} (alpha * (1 + j * beta) + gamma * [j % 7 == 0])^2)).
+     */
+    public double[] forecastVariances(int horizon) {
+        double sigma2 = errorCount > 0 ? squaredErrorSum / errorCount : 0;
+        double[] variances = new double[horizon];
+        double sum = 1;
+        for (int h = 1; h <= horizon; h++) {
+            variances[h - 1] = sigma2 * sum;
+            double c = alpha * (1 + h * beta) + (h % SEASON == 0 ? gamma : 0);
+            sum += c * c;
+        }
+        return variances;
+    }
+
+    /**
+     * 1 - weighted absolute percentage error of the one-step forecasts, in [0, 1].
+     */
+    public double accuracy() {
+        if (errorCount == 0 || actualSum == 0) return 0;
+        return Math.max(0, 1 - absoluteErrorSum / actualSum);
+    }
+
+    private static int dayIndex(LocalDate day) {
+        return day.getDayOfWeek().getValue() - 1;
+    }
+}
@@ -0,0 +1,130 @@
+package com.analyfy.analify.Service.Analytics;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from long keys to int counts, without boxing: two parallel arrays, linear probing,
+ * and backward-shift deletion so that removals leave no tombstones. A count that falls to 0 removes its key.
+ * 12 bytes per slot at a load factor of at most 0.75, against ~60 bytes per entry for a HashMap<Long, Integer>.
+ *
+ * Long.MIN_VALUE cannot be used as a key. Not thread-safe.
+ */
+final class LongIntHashMap {
+
+    private static final long FREE = Long.MIN_VALUE;
+    private static final double MAX_LOAD = 0.75;
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) Math.ceil(Math.max(expectedSize, 1) / MAX_LOAD)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * The count of the key, 0 when absent.
+     */
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) return values[slot];
+            if (current == FREE) return 0;
+        }
+    }
+
+    /**
+     * Add delta to the count of the key and return the new count; the key is removed when it reaches 0.
+     */
+    int addTo(long key, int delta) {
+        int slot = slot(key);
+        for (; ; slot = (slot + 1) & mask) {
+            long current = keys[slot];
+            if (current == key) break;
+            if (current == FREE) {
+                if (delta == 0) return 0;
+                keys[slot] = key;
+                values[slot] = delta;
+                if (++size > keys.length * MAX_LOAD) allocate(keys.length << 1);
+                return delta;
+            }
+        }
+        int count = values[slot] + delta;
+        if (count == 0) {
+            remove(slot);
+        } else {
+            values[slot] = count;
+        }
+        return count;
+    }
+
+    void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != FREE) consumer.accept(keys[slot], values[slot]);
+        }
+    }
+
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+
+    // Backward-shift deletion: move later entries of the probe run into the hole, so lookups never stop early
+    private void remove(int hole) {
+        size--;
+        int slot = hole;
+        while (true) {
+            slot = (slot + 1) & mask;
+            long key = keys[slot];
+            if (key == FREE) break;
+            int home = slot(key);
+            // The entry can fill the hole unless its home lies cyclically in (hole, slot]
+            boolean homeAfterHole = hole <= slot ? (hole < home && home <= slot) : (hole < home || home <= slot);
+            if (!homeAfterHole) {
+                keys[hole] = key;
+                values[hole] = values[slot];
+                hole = slot;
+            }
+        }
+        keys[hole] = FREE;
+        values[hole] = 0;
+    }
+
+    private void allocate(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+        if (oldKeys == null) return;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key == FREE) continue;
+            int slot = slot(key);
+            while (keys[slot] != FREE) slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+    }
+
+    // Home slot of the key; package-private for the probing tests
+    int slot(long key) {
+        // Murmur3 finalizer: pair keys pack two small codes, their low bits alone would cluster
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (int) h & mask;
+    }
+}
@@ -0,0 +1,204 @@
+package com.analyfy.analify.Service.Analytics;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Base of the in-memory analytics (SalesCube, HeavyHittersTracker, BasketAffinityTracker) built from the order
+ * lines at startup, then kept current from the committed order events.
+ *
+ * A subclass rebuilds its state between beginRebuild() and finishRebuild(): events committed meanwhile are queued
+ * and applied once the new state is in, except created orders the rebuild already read. Anything a created order
+ * needs from the database (unknown stores or products) is read by preload() before the tracker is held. An event
+ * that fails to apply stops the tracker serving until the next rebuild, rather than letting it drift; a subclass that
+ * cannot apply an event exactly does the same and schedules a rebuild in the background.
+ *
+ * P: what preload() reads for an event.
+ */
+@Slf4j
+abstract class OrderEventTracker<P> {
+
+    protected final TransactionTemplate readTransaction;
+    protected final boolean enabled;
+    private final String name;
+    // One background rebuild at a time; the thread is only started by the first scheduleRebuild()
+    private final ExecutorService rebuilder;
+
+    private volatile boolean ready;
+
+    // Guarded by "this"
+    private boolean rebuildScheduled;
+    private boolean rebuilding;
+    private final Queue<AnalyticsDataChangedEvent> pendingEvents = new ArrayDeque<>();
+    // Recent orders read by the last rebuild: their after-commit events may still be waiting for the tracker
+    private Set<Long> rebuiltOrders = Set.of();
+
+    protected OrderEventTracker(PlatformTransactionManager transactionManager, boolean enabled, String name) {
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        // Also used from after-commit listeners, where the writing transaction is finished but still bound
+        this.readTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.readTransaction.setReadOnly(true);
+        this.enabled = enabled;
+        this.name = name;
+        String threadName = name.toLowerCase(Locale.ROOT).replace(' ', '-') + "-rebuild";
+        this.rebuilder = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * True when queries should be answered from memory.
+     */
+    public boolean isServing() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        if (!enabled) return;
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("{} load failed, its queries stay on the database", name, e);
+        }
+    }
+
+    /**
+     * Rebuild the whole state from the order lines and swap it in; returns its statistics.
+     */
+    public abstract Map<String, ?> rebuild();
+
+    /**
+     * Keep the state current with committed orders.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onDataChanged(AnalyticsDataChangedEvent event) {
+        if (!enabled || event.orderId() == null) return;
+        P preloaded = preloadFor(event);
+        synchronized (this) {
+            if (rebuilding) {
+                pendingEvents.add(event);
+                return;
+            }
+            if (!ready) return;
+            applyOrStop(event, preloaded);
+        }
+    }
+
+    /**
+     * What the event needs from the database and the tracker does not hold yet, or null. May be called
+     * without holding the tracker.
+     */
+    protected abstract P preload(AnalyticsDataChangedEvent event);
+
+    /**
+     * Apply a committed order event; callers hold the tracker. Created orders read by the last rebuild never get here.
+     */
+    protected abstract void apply(AnalyticsDataChangedEvent event, P preloaded);
+
+    protected final synchronized void beginRebuild() {
+        rebuilding = true;
+    }
+
+    /**
+     * After a failed rebuild: the queued events are dropped, the previous state keeps serving if it was.
+     */
+    protected final synchronized void abortRebuild() {
+        rebuilding = false;
+        pendingEvents.clear();
+    }
+
+    /**
+     * Once the rebuilt state is swapped in: serve it, and apply the events queued meanwhile.
+     * recentOrders: the orders read by the rebuild whose events may still come.
+     */
+    protected final synchronized void finishRebuild(Set<Long> recentOrders) {
+        rebuiltOrders = recentOrders;
+        ready = true;
+        rebuilding = false;
+        while (!pendingEvents.isEmpty()) {
+            AnalyticsDataChangedEvent event = pendingEvents.poll();
+            applyOrStop(event, preloadFor(event));
+        }
+    }
+
+    /**
+     * Stop serving until the next rebuild.
+     */
+    protected final void markStale() {
+        ready = false;
+    }
+
+    /**
+     * Rebuild in the background, once for any number of calls made before it starts.
+     */
+    protected final synchronized void scheduleRebuild() {
+        if (rebuildScheduled) return;
+        rebuildScheduled = true;
+        rebuilder.execute(() -> {
+            synchronized (this) {
+                rebuildScheduled = false;
+            }
+            try {
+                rebuild();
+            } catch (RuntimeException e) {
+                log.error("{} rebuild failed, its queries stay on the database", name, e);
+            }
+        });
+    }
+
+    private P preloadFor(AnalyticsDataChangedEvent event) {
+        return event.source() == AnalyticsDataChangedEvent.Source.ORDER_CREATED ? preload(event) : null;
+    }
+
+    // Callers hold the tracker
+    private void applyOrStop(AnalyticsDataChangedEvent event, P preloaded) {
+        if (event.source() == AnalyticsDataChangedEvent.Source.ORDER_CREATED && rebuiltOrders.contains(event.orderId())) {
+            return; // already part of the last rebuild
+        }
+        try {
+            apply(event, preloaded);
+        } catch (RuntimeException e) {
+            // The state would silently drift: stop serving until the next rebuild
+            markStale();
+            log.error("{} could not apply {} for order {}, stopped serving until rebuilt",
+                    name, event.source(), event.orderId(), e);
+        }
+    }
+
+    static long toLong(Object value) {
+        return ((Number) value).longValue();
+    }
+
+    static LocalDate toLocalDate(Object value) {
+        return value instanceof Date date ? date.toLocalDate() : (LocalDate) value;
+    }
+}
@@ -0,0 +1,258 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.BasketStatsDTO;
+import com.analyfy.analify.Entity.DailyOrderSketch;
+import com.analyfy.analify.Entity.Order;
+import com.analyfy.analify.Repository.DailyOrderSketchRepository;
+import com.analyfy.analify.Repository.MonthlyOrderSketchRepository;
+import com.analyfy.analify.Repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maintains the basket sketches stored alongside the order rollups (daily_order_sketch / monthly_order_sketch):
+ * one t-digest of the order values and one of the units per order for each (day or month, store, investor),
+ * and answers approximate basket percentiles by merging the digests of a RollupRangePlan.
+ *
+ * Orders never touch the digests at checkout: the days are sketched once they are closed, by the nightly
+ * closeDays job (or a rebuild), and the days after the last closed one are ranked exactly from the orders.
+ * An order created or deleted on a closed day rebuilds that day (then its month), in the caller's transaction.
+ */
+@Service
+@Slf4j
+public class OrderSketchService {
+
+    private final DailyOrderSketchRepository dailySketchRepository;
+    private final MonthlyOrderSketchRepository monthlySketchRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final double compression;
+
+    // Last day whose digests are built; later days are read from the orders. Null until known.
+    private volatile LocalDate closedThrough;
+
+    public OrderSketchService(
+            DailyOrderSketchRepository dailySketchRepository,
+            MonthlyOrderSketchRepository monthlySketchRepository,
+            OrderRepository orderRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${analytics.sketch.enabled:true}") boolean enabled,
+            @Value("${analytics.sketch.compression:100}") double compression) {
+        this.dailySketchRepository = dailySketchRepository;
+        this.monthlySketchRepository = monthlySketchRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.compression = compression;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Approximate basket percentiles of [start, end] (investorScope = 0 for all investors): merged digests
+     * for the closed days, plus the exact baskets of the days not sketched yet.
+     */
+    public BasketStatsDTO basketStats(LocalDate start, LocalDate end, Long storeId, Long investorScope) {
+        TDigest values = new TDigest(compression);
+        TDigest units = new TDigest(compression);
+
+        LocalDate closed = closedThrough();
+        LocalDate sketchedEnd = closed == null || closed.isAfter(end) ? end : closed;
+        if (closed != null && !start.isAfter(sketchedEnd)) {
+            RollupRangePlan plan = RollupRangePlan.of(start, sketchedEnd);
+            for (Object[] row : dailySketchRepository.findDigests(plan.start(), plan.headEnd(), plan.monthsFrom(),
+                    plan.monthsTo(), plan.tailStart(), plan.end(), storeId, investorScope)) {
+                values.add(TDigest.fromBytes((byte[]) row[0]));
+                units.add(TDigest.fromBytes((byte[]) row[1]));
+            }
+        }
+
+        LocalDate openStart = closed == null ? start : later(start, closed.plusDays(1));
+        if (!openStart.isAfter(end)) {
+            for (Object[] row : dailySketchRepository.findBaskets(openStart, end, storeId, null)) {
+                if (((Number) row[2]).longValue() != investorScope) continue;
+                values.add(((Number) row[3]).doubleValue());
+                units.add(((Number) row[4]).doubleValue());
+            }
+        }
+
+        boolean empty = values.size() == 0;
+        return BasketStatsDTO.builder()
+                .orders(values.size())
+                .medianOrderValue(empty ? null : round(values.quantile(0.5)))
+                .p90OrderValue(empty ? null : round(values.quantile(0.9)))
+                .medianBasketUnits(empty ? null : round(units.quantile(0.5)))
+                .p90BasketUnits(empty ? null : round(units.quantile(0.9)))
+                .approximate(true)
+                .method("t-digest")
+                .rankError(Math.round(Math.max(values.estimatedRankError(), units.estimatedRankError()) * 10000.0) / 10000.0)
+                .build();
+    }
+
+    /**
+     * Sketch the days closed since the last run, once yesterday is complete.
+     */
+    @Scheduled(cron = "${analytics.sketch.close-cron:0 5 0 * * *}")
+    public void closeDaysNightly() {
+        if (!enabled) return;
+        try {
+            closeDays();
+        } catch (RuntimeException e) {
+            // The unsketched days keep being ranked exactly until the next run
+            log.error("Basket sketch day close failed", e);
+        }
+    }
+
+    /**
+     * Build the digests of every day after the last closed one up to yesterday, and of their months.
+     * Returns the number of daily rows written.
+     */
+    public int closeDays() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        Integer rows = transactionTemplate.execute(status -> {
+            LocalDate closed = closedThrough();
+            LocalDate from = closed != null ? closed.plusDays(1) : orderRepository.findFirstOrderDate();
+            return from == null ? 0 : sketchDays(from, yesterday);
+        });
+        closedThrough = yesterday;
+        return rows != null ? rows : 0;
+    }
+
+    void recordOrder(LocalDate day, Long storeId) {
+        if (isClosed(day)) {
+            rebuildDay(day, storeId, null);
+        }
+    }
+
+    /**
+     * The deleted order is still in the database, so it is excluded explicitly.
+     */
+    void removeOrder(Order order, LocalDate day, Long storeId) {
+        if (isClosed(day)) {
+            rebuildDay(day, storeId, order.getOrderId());
+        }
+    }
+
+    /**
+     * Recompute every digest from the order history up to yesterday. Returns the number of daily rows written.
+     */
+    int rebuild() {
+        dailySketchRepository.deleteAllRows();
+        monthlySketchRepository.deleteAllRows();
+        if (!enabled) return 0;
+
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        LocalDate first = orderRepository.findFirstOrderDate();
+        int rows = first == null ? 0 : sketchDays(first, yesterday);
+        closedThrough = yesterday;
+        return rows;
+    }
+
+    private boolean isClosed(LocalDate day) {
+        if (!enabled) return false;
+        LocalDate closed = closedThrough();
+        return closed != null && !day.isAfter(closed);
+    }
+
+    private LocalDate closedThrough() {
+        LocalDate closed = closedThrough;
+        if (closed == null) {
+            // No rebuild or close since startup: the digests written before are closed
+            closed = dailySketchRepository.findLastSketchDay();
+            if (closed != null) closedThrough = closed;
+        }
+        return closed;
+    }
+
+    /**
+     * Write the digests of [from, to] one month of orders at a time; each month row is rebuilt from the
+     * orders of its closed days.
+     */
+    private int sketchDays(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) return 0;
+        int rows = 0;
+        for (LocalDate month = from.withDayOfMonth(1); !month.isAfter(to); month = month.plusMonths(1)) {
+            LocalDate monthEnd = month.plusMonths(1).minusDays(1);
+            LocalDate daysFrom = later(from, month);
+            LocalDate daysTo = monthEnd.isAfter(to) ? to : monthEnd;
+
+            Map<SketchKey, TDigest[]> days = new HashMap<>();
+            Map<SketchKey, TDigest[]> months = new HashMap<>();
+            for (Object[] row : dailySketchRepository.findBaskets(month, daysTo, null, null)) {
+                LocalDate day = row[0] instanceof Date date ? date.toLocalDate() : (LocalDate) row[0];
+                Long storeId = ((Number) row[1]).longValue();
+                Long investorId = ((Number) row[2]).longValue();
+                if (!day.isBefore(daysFrom)) add(days, new SketchKey(day, storeId, investorId), row);
+                add(months, new SketchKey(month, storeId, investorId), row);
+            }
+
+            dailySketchRepository.deleteDays(daysFrom, daysTo);
+            monthlySketchRepository.deleteMonthRows(month);
+            days.forEach((key, pair) -> dailySketchRepository.insertRow(
+                    key.period(), key.storeId(), key.investorId(), pair[0].toBytes(), pair[1].toBytes()));
+            months.forEach((key, pair) -> monthlySketchRepository.insertRow(
+                    key.period(), key.storeId(), key.investorId(), pair[0].toBytes(), pair[1].toBytes()));
+            rows += days.size();
+        }
+        return rows;
+    }
+
+    /**
+     * Rebuild one store's day from its orders (leaving out excludedOrderId), then its month from the daily digests.
+     */
+    private void rebuildDay(LocalDate day, Long storeId, Long excludedOrderId) {
+        dailySketchRepository.deleteDay(day, storeId);
+        Map<SketchKey, TDigest[]> days = new HashMap<>();
+        for (Object[] row : dailySketchRepository.findBaskets(day, day, storeId, excludedOrderId)) {
+            add(days, new SketchKey(day, storeId, ((Number) row[2]).longValue()), row);
+        }
+        days.forEach((key, pair) -> dailySketchRepository.insertRow(
+                key.period(), key.storeId(), key.investorId(), pair[0].toBytes(), pair[1].toBytes()));
+
+        LocalDate month = day.withDayOfMonth(1);
+        monthlySketchRepository.deleteMonth(month, storeId);
+        Map<SketchKey, TDigest[]> months = new HashMap<>();
+        for (DailyOrderSketch daily : dailySketchRepository.findMonth(month, month.plusMonths(1), storeId)) {
+            if (daily.getOrderValueDigest() == null) continue;
+            TDigest[] digests = months.computeIfAbsent(new SketchKey(month, storeId, daily.getInvestorId()), key -> newDigests());
+            digests[0].add(TDigest.fromBytes(daily.getOrderValueDigest()));
+            digests[1].add(TDigest.fromBytes(daily.getBasketUnitsDigest()));
+        }
+        months.forEach((key, pair) -> monthlySketchRepository.insertRow(
+                key.period(), key.storeId(), key.investorId(), pair[0].toBytes(), pair[1].toBytes()));
+    }
+
+    private void add(Map<SketchKey, TDigest[]> digests, SketchKey key, Object[] basketRow) {
+        TDigest[] pair = digests.computeIfAbsent(key, k -> newDigests());
+        pair[0].add(((Number) basketRow[3]).doubleValue());
+        pair[1].add(((Number) basketRow[4]).doubleValue());
+    }
+
+    private TDigest[] newDigests() {
+        return new TDigest[] { new TDigest(compression), new TDigest(compression) };
+    }
+
+    private static LocalDate later(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    // period: the day, or the first day of the month
+    private record SketchKey(LocalDate period, Long storeId, Long investorId) {
+    }
+}
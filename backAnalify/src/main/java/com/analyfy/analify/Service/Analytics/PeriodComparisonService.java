@@ -0,0 +1,84 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.PeriodComparisonDTO;
+import com.analyfy.analify.Enum.ComparisonPeriod;
+import com.analyfy.analify.Repository.SectionRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Current period vs previous period (or same period last year) for a dashboard scope.
+ *
+ * Two queries whatever the range: product sales of both periods in one pass (cube, rollup or order lines)
+ * and won section revenue of both periods. Results are memoized per request.
+ */
+@Service
+@RequiredArgsConstructor
+public class PeriodComparisonService {
+
+    private final SalesMetricsReader salesMetricsReader;
+    private final SectionRepository sectionRepository;
+
+    public PeriodComparisonDTO compare(LocalDate start, LocalDate end, ComparisonPeriod compareTo, Long storeId, Long investorId) {
+        return QueryMemo.memoize("period.comparison", () -> load(start, end, compareTo, storeId, investorId),
+                start, end, compareTo, storeId, investorId);
+    }
+
+    private PeriodComparisonDTO load(LocalDate start, LocalDate end, ComparisonPeriod compareTo, Long storeId, Long investorId) {
+        LocalDate previousStart = compareTo.previousStart(start, end);
+        LocalDate previousEnd = compareTo.previousEnd(start, end);
+
+        Object[] sales = salesMetricsReader.comparePeriodSales(start, end, previousStart, previousEnd, storeId, investorId);
+        Object[] sections = sectionRepository.compareWonSectionRevenue(start, end, previousStart, previousEnd, investorId).get(0);
+
+        double revenue = doubleValue(sales[0]);
+        double previousRevenue = doubleValue(sales[1]);
+        long orders = longValue(sales[2]);
+        long previousOrders = longValue(sales[3]);
+        long units = longValue(sales[4]);
+        long previousUnits = longValue(sales[5]);
+        double sectionRevenue = doubleValue(sections[0]);
+        double previousSectionRevenue = doubleValue(sections[1]);
+
+        return PeriodComparisonDTO.builder()
+                .compareTo(compareTo.toParam())
+                .currentStart(start)
+                .currentEnd(end)
+                .previousStart(previousStart)
+                .previousEnd(previousEnd)
+                .revenue(round(revenue))
+                .previousRevenue(round(previousRevenue))
+                .revenueGrowthRate(growthRate(revenue, previousRevenue))
+                .orders(orders)
+                .previousOrders(previousOrders)
+                .ordersGrowthRate(growthRate(orders, previousOrders))
+                .unitsSold(units)
+                .previousUnitsSold(previousUnits)
+                .unitsSoldGrowthRate(growthRate(units, previousUnits))
+                .sectionRevenue(round(sectionRevenue))
+                .previousSectionRevenue(round(previousSectionRevenue))
+                .sectionRevenueGrowthRate(growthRate(sectionRevenue, previousSectionRevenue))
+                .build();
+    }
+
+    /**
+     * Growth in percent, null when there is nothing to compare with.
+     */
+    public static Double growthRate(double current, double previous) {
+        return previous > 0 ? round((current - previous) / previous * 100) : null;
+    }
+
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double doubleValue(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0.0;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,114 @@
+package com.analyfy.analify.Service.Analytics;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Counts the SQL statements Hibernate prepares on behalf of a caller.
+ *
+ * A counter is bound to the current thread with {@link #counting}; dashboard runs carry the bound counters over
+ * to the virtual threads they fork, so one counter sees every query of a dashboard request.
+ * Counters nest: a statement is counted by every counter bound to the thread, innermost and enclosing.
+ */
+@Component
+public class QueryCounter implements StatementInspector, HibernatePropertiesCustomizer {
+
+    private static final long serialVersionUID = 1L;
+
+    // Counters bound to the thread, outermost first; never empty while set
+    private static final ThreadLocal<List<LongAdder>> CURRENT = new ThreadLocal<>();
+
+    /**
+     * The counters bound to this thread, outermost first (empty when none), for work forked to other
+     * threads to carry over with {@link #countingAll}.
+     */
+    public static List<LongAdder> current() {
+        List<LongAdder> counters = CURRENT.get();
+        return counters != null ? counters : List.of();
+    }
+
+    /**
+     * Run the task with every statement it prepares on this thread counted in the counter,
+     * and in the counters already bound to the thread.
+     */
+    public static <T> T counting(LongAdder counter, Supplier<T> task) {
+        Binding binding = bind(counter);
+        try {
+            return task.get();
+        } finally {
+            binding.close();
+        }
+    }
+
+    /**
+     * Run the task with every statement it prepares on this thread counted in the counters (from {@link #current}),
+     * in place of those bound to the thread.
+     */
+    public static <T> T countingAll(List<LongAdder> counters, Supplier<T> task) {
+        List<LongAdder> previous = CURRENT.get();
+        set(counters);
+        try {
+            return task.get();
+        } finally {
+            set(previous);
+        }
+    }
+
+    /**
+     * Count the statements prepared on this thread in the counter, and in the counters already bound,
+     * until the binding is closed; for callers whose work cannot be wrapped in a Supplier (servlet filters).
+     */
+    public static Binding bind(LongAdder counter) {
+        List<LongAdder> previous = CURRENT.get();
+        if (counter != null && (previous == null || !previous.contains(counter))) {
+            List<LongAdder> counters = new ArrayList<>(previous != null ? previous : List.of());
+            counters.add(counter);
+            CURRENT.set(List.copyOf(counters));
+        }
+        return new Binding(previous);
+    }
+
+    public static final class Binding {
+        private final List<LongAdder> previous;
+
+        private Binding(List<LongAdder> previous) {
+            this.previous = previous;
+        }
+
+        public void close() {
+            set(previous);
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<LongAdder> counters = CURRENT.get();
+        if (counters != null) {
+            for (LongAdder counter : counters) {
+                counter.increment();
+            }
+        }
+        return sql;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+    }
+
+    private static void set(List<LongAdder> counters) {
+        if (counters == null || counters.isEmpty()) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(counters);
+        }
+    }
+}
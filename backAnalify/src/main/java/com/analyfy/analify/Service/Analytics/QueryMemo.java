@@ -0,0 +1,104 @@
+package com.analyfy.analify.Service.Analytics;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Request-scoped memo for analytics repository calls: the same query with the same arguments
+ * runs once per dashboard request, however many sections ask for it.
+ *
+ * A memo is bound to the current thread with {@link #using}; dashboard runs carry it over to the
+ * virtual threads they fork, like {@link QueryCounter}. Concurrent callers of the same query share one execution.
+ * Only memoize scalars and projections: entities would leak across the transactions of the forked tasks.
+ */
+public final class QueryMemo {
+
+    private static final ThreadLocal<QueryMemo> CURRENT = new ThreadLocal<>();
+
+    private record Key(String query, List<Object> args) {
+    }
+
+    private final ConcurrentHashMap<Key, CompletableFuture<Object>> results = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public static QueryMemo current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Run the task with this memo bound to the current thread.
+     */
+    public static <T> T using(QueryMemo memo, Supplier<T> task) {
+        QueryMemo previous = CURRENT.get();
+        CURRENT.set(memo);
+        try {
+            return task.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    /**
+     * Result of the query for these arguments, computed at most once per bound memo.
+     * Without a bound memo the loader simply runs.
+     */
+    public static <T> T memoize(String query, Supplier<T> loader, Object... args) {
+        QueryMemo memo = CURRENT.get();
+        return memo != null ? memo.get(query, loader, args) : loader.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(String query, Supplier<T> loader, Object... args) {
+        Key key = new Key(query, Arrays.asList(args));
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> existing = results.putIfAbsent(key, load);
+        if (existing != null) {
+            hits.increment();
+            try {
+                return (T) existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException runtime) throw runtime;
+                throw e;
+            }
+        }
+
+        misses.increment();
+        try {
+            T value = loader.get();
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            // Let a later caller retry instead of replaying the failure
+            results.remove(key, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public Map<String, Long> stats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        return stats;
+    }
+}
@@ -0,0 +1,140 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.StockRecommendationDTO;
+import com.analyfy.analify.Repository.ProductItemsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Stock recommendations per (store, product) from the demand of the trailing analytics.replenishment.window-days:
+ * - velocity: units sold per day, deviation: standard deviation of the daily units (days without sales count),
+ * - reorder point: velocity * lead time + safety stock (service-z * deviation * sqrt(lead time)),
+ * - order-up-to level: reorder point + velocity * review period; the suggested quantity fills the stock up to it,
+ * - days of cover: stock / velocity.
+ *
+ * Everything is computed by one aggregate query over the inventory and the sales (daily rollup, or order items when
+ * the rollup is not serving), for one store or all of them; only the returned rows reach the heap.
+ */
+@Service
+public class ReplenishmentService {
+
+    private static final int PREDICTED_DEMAND_DAYS = 30;
+
+    private final ProductItemsRepository productItemsRepository;
+    private final SalesRollupService salesRollupService;
+    private final int windowDays;
+    private final int leadTimeDays;
+    private final int reviewDays;
+    private final double serviceZ;
+    private final int overstockDays;
+
+    public ReplenishmentService(
+            ProductItemsRepository productItemsRepository,
+            SalesRollupService salesRollupService,
+            @Value("${analytics.replenishment.window-days:28}") int windowDays,
+            @Value("${analytics.replenishment.lead-time-days:7}") int leadTimeDays,
+            @Value("${analytics.replenishment.review-days:7}") int reviewDays,
+            @Value("${analytics.replenishment.service-z:1.65}") double serviceZ,
+            @Value("${analytics.replenishment.overstock-days:90}") int overstockDays) {
+        this.productItemsRepository = productItemsRepository;
+        this.salesRollupService = salesRollupService;
+        this.windowDays = Math.max(1, windowDays);
+        this.leadTimeDays = Math.max(0, leadTimeDays);
+        this.reviewDays = Math.max(0, reviewDays);
+        this.serviceZ = serviceZ;
+        this.overstockDays = overstockDays;
+    }
+
+    /**
+     * Stocked products at or below their reorder point, fewest days of cover first.
+     * Null storeId / investorId mean every store / investor.
+     */
+    public List<StockRecommendationDTO> recommend(Long storeId, Long investorId, int limit) {
+        return QueryMemo.memoize("replenishment.recommend",
+                () -> find(storeId, investorId, null, true, PageRequest.of(0, limit)).stream().map(this::toRecommendation).toList(),
+                storeId, investorId, limit);
+    }
+
+    /**
+     * Recommendation for one product of one store, null when the store does not stock it.
+     */
+    public StockRecommendationDTO recommendation(Long storeId, Long productId) {
+        return find(storeId, null, productId, false, PageRequest.of(0, 1)).stream()
+                .map(this::toRecommendation)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private List<Object[]> find(Long storeId, Long investorId, Long productId, boolean belowReorderPoint, Pageable pageable) {
+        // Complete days only
+        LocalDate end = LocalDate.now().minusDays(1);
+        LocalDate start = end.minusDays(windowDays - 1);
+        return salesRollupService.isServing()
+                ? productItemsRepository.findReplenishmentFromRollup(start, end, windowDays, leadTimeDays, serviceZ,
+                        storeId, investorId, productId, belowReorderPoint, pageable)
+                : productItemsRepository.findReplenishmentFromOrders(start, end, windowDays, leadTimeDays, serviceZ,
+                        storeId, investorId, productId, belowReorderPoint, pageable);
+    }
+
+    private StockRecommendationDTO toRecommendation(Object[] row) {
+        double price = row[3] != null ? ((Number) row[3]).doubleValue() : 0.0;
+        int stock = ((Number) row[4]).intValue();
+        double velocity = ((Number) row[5]).doubleValue();
+        double reorderPoint = ((Number) row[7]).doubleValue();
+        Double daysOfCover = row[8] != null ? round(((Number) row[8]).doubleValue()) : null;
+
+        int orderUpTo = (int) Math.ceil(reorderPoint + velocity * reviewDays);
+        int suggested = Math.max(0, orderUpTo - stock);
+        boolean belowReorderPoint = velocity > 0 && stock <= reorderPoint;
+
+        String action;
+        String priority;
+        String reason;
+        if (belowReorderPoint) {
+            action = "RESTOCK";
+            // Runs out before a new delivery can arrive
+            priority = daysOfCover != null && daysOfCover < leadTimeDays ? "HIGH" : "MEDIUM";
+            reason = String.format("%.1f units/day: %s days of cover, below the reorder point of %d",
+                    velocity, daysOfCover, (int) Math.ceil(reorderPoint));
+        } else if (velocity == 0) {
+            action = stock > 0 ? "REDUCE" : "MAINTAIN";
+            priority = "LOW";
+            reason = "No sales over the last " + windowDays + " days";
+        } else if (daysOfCover != null && daysOfCover > overstockDays) {
+            action = "REDUCE";
+            priority = "LOW";
+            reason = String.format("%.1f units/day: %s days of cover", velocity, daysOfCover);
+        } else {
+            action = "MAINTAIN";
+            priority = "LOW";
+            reason = String.format("%.1f units/day: %s days of cover, above the reorder point of %d",
+                    velocity, daysOfCover, (int) Math.ceil(reorderPoint));
+        }
+
+        return StockRecommendationDTO.builder()
+                .storeId(((Number) row[0]).longValue())
+                .productId(((Number) row[1]).longValue())
+                .productName((String) row[2])
+                .currentStock(stock)
+                .recommendedStock(orderUpTo)
+                .suggestedQuantity(suggested)
+                .dailyVelocity(round(velocity))
+                .daysOfCover(daysOfCover)
+                .reorderPoint((int) Math.ceil(reorderPoint))
+                .action(action)
+                .priority(priority)
+                .estimatedCost(round(price * suggested))
+                .reason(reason)
+                .predictedDemand((int) Math.round(velocity * PREDICTED_DEMAND_DAYS))
+                .build();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.analyfy.analify.Service.Analytics;
+
+import java.time.LocalDate;
+
+/**
+ * How a date range is read from the rollup tiers: every whole calendar month from the monthly rollup,
+ * the days before the first whole month (head) and after the last one (tail) from the daily rollup.
+ *
+ * The segments are [start, headEnd] and [tailStart, end] in days, [monthsFrom, monthsTo] in month starts.
+ * An unused segment has its lower bound after its upper bound, so BETWEEN matches nothing.
+ * An all-time range costs at most ~60 daily rows per store and product on top of the months.
+ */
+public record RollupRangePlan(LocalDate start,
+                              LocalDate headEnd,
+                              LocalDate monthsFrom,
+                              LocalDate monthsTo,
+                              LocalDate tailStart,
+                              LocalDate end) {
+
+    public static RollupRangePlan of(LocalDate start, LocalDate end) {
+        LocalDate firstMonth = start.getDayOfMonth() == 1 ? start : start.withDayOfMonth(1).plusMonths(1);
+        // First day of the month that is not fully covered at the end of the range
+        LocalDate afterLastMonth = end.plusDays(1).withDayOfMonth(1);
+
+        if (!firstMonth.isBefore(afterLastMonth)) {
+            return daysOnly(start, end);
+        }
+        return new RollupRangePlan(start, firstMonth.minusDays(1), firstMonth, afterLastMonth.minusMonths(1),
+                afterLastMonth, end);
+    }
+
+    /**
+     * Whole range from the daily tier, for results that need day (or week) granularity.
+     */
+    public static RollupRangePlan daysOnly(LocalDate start, LocalDate end) {
+        LocalDate afterEnd = end.plusDays(1);
+        return new RollupRangePlan(start, end, afterEnd, end, afterEnd, end);
+    }
+}
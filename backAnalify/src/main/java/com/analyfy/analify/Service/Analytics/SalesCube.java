@@ -0,0 +1,737 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Repository.OrderItemsRepository;
+import com.analyfy.analify.Repository.ProductRepository;
+import com.analyfy.analify.Repository.StoreRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * In-memory columnar copy of the order lines, for interactive slicing without SQL joins.
+ *
+ * Every order line is one position in a set of primitive column arrays (day, store, product, order,
+ * net revenue, quantity). Stores, products, investors, cities and category names are dictionary
+ * encoded to int codes, and their attributes live in small per-code arrays. Queries run as scans over
+ * the columns: rows are filtered in batches into a selection vector, then aggregated in a tight loop.
+ *
+ * Lines are loaded ordered by day, so a date range is located by binary search. The cube is loaded
+ * at startup and kept current from the lines the committed order events carry; it is off unless
+ * analytics.cube.enabled is set. Lines of deleted orders are only marked until they make up
+ * analytics.cube.compact-threshold of the lines, then the columns are compacted.
+ */
+@Service
+@Slf4j
+public class SalesCube extends OrderEventTracker<SalesCube.Dimensions> {
+
+    private static final int BATCH_SIZE = 4096;
+    private static final int NONE = -1;
+
+    private final OrderItemsRepository orderItemsRepository;
+    private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
+    private final double compactThreshold;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // Guarded by lock; replaced as a whole on reload
+    private CubeData data = new CubeData(16);
+
+    public SalesCube(OrderItemsRepository orderItemsRepository,
+                     ProductRepository productRepository,
+                     StoreRepository storeRepository,
+                     PlatformTransactionManager transactionManager,
+                     @Value("${analytics.cube.enabled:false}") boolean enabled,
+                     @Value("${analytics.cube.compact-threshold:0.1}") double compactThreshold) {
+        super(transactionManager, enabled, "Sales cube");
+        this.orderItemsRepository = orderItemsRepository;
+        this.productRepository = productRepository;
+        this.storeRepository = storeRepository;
+        this.compactThreshold = Math.min(1, Math.max(0, compactThreshold));
+    }
+
+    /**
+     * Load every order line into a fresh cube and swap it in.
+     */
+    @Override
+    public Map<String, Long> rebuild() {
+        long startedAt = System.currentTimeMillis();
+        beginRebuild();
+        CubeData loaded;
+        try {
+            loaded = readTransaction.execute(status -> {
+                CubeData fresh = new CubeData((int) Math.min(Integer.MAX_VALUE - 8, orderItemsRepository.count() + 1024));
+                loadDimensions(fresh);
+                try (Stream<Object[]> lines = orderItemsRepository.streamCubeLines()) {
+                    lines.forEach(line -> fresh.appendLoaded(line, this));
+                }
+                return fresh;
+            });
+        } catch (RuntimeException e) {
+            abortRebuild();
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            data = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        // Created orders already loaded are recognised by their order code
+        finishRebuild(Set.of());
+
+        Map<String, Long> stats = stats();
+        log.info("Sales cube loaded: {} lines, {} orders, ~{} MB in {} ms", stats.get("lines"), stats.get("orders"),
+                stats.get("approxBytes") / (1024 * 1024), System.currentTimeMillis() - startedAt);
+        return stats;
+    }
+
+    public Map<String, Long> stats() {
+        lock.readLock().lock();
+        try {
+            Map<String, Long> stats = new LinkedHashMap<>();
+            stats.put("lines", (long) data.rows);
+            stats.put("orders", (long) data.orderCodes.size());
+            stats.put("deletedLines", (long) data.deletedRows);
+            stats.put("stores", (long) data.stores.size());
+            stats.put("products", (long) data.products.size());
+            stats.put("approxBytes", data.approxBytes());
+            return stats;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== QUERIES ====================
+
+    public Double calculateTotalRevenue(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        return read(cube -> {
+            double[] revenue = cube.revenueCol;
+            double[] sum = new double[1];
+            int matched = cube.scan(start, end, storeId, investorId, null, (selection, count) -> {
+                double acc = 0;
+                for (int k = 0; k < count; k++) acc += revenue[selection[k]];
+                sum[0] += acc;
+            });
+            return matched > 0 ? sum[0] : null;
+        });
+    }
+
+    /**
+     * Revenue, units, distinct orders and the order-day histograms in a single scan.
+     */
+    public SalesKpis calculateSalesKpis(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        return read(cube -> {
+            int firstDay = (int) start.toEpochDay();
+            boolean[] orderDays = new boolean[(int) Math.max(0, end.toEpochDay() - firstDay + 1)];
+            int[] days = cube.dayCol;
+            int[] orders = cube.orderCol;
+            double[] revenue = cube.revenueCol;
+            int[] quantity = cube.quantityCol;
+
+            double[] revenueSum = new double[1];
+            long[] unitsSum = new long[1];
+            long[] distinctOrders = new long[1];
+            int[] lastOrder = {NONE};
+            int matched = cube.scan(start, end, storeId, investorId, null, (selection, count) -> {
+                double batchRevenue = 0;
+                long batchUnits = 0;
+                for (int k = 0; k < count; k++) {
+                    int row = selection[k];
+                    batchRevenue += revenue[row];
+                    batchUnits += quantity[row];
+                    orderDays[days[row] - firstDay] = true;
+                    // Lines of an order are contiguous: count order changes among the selected lines
+                    if (orders[row] != lastOrder[0]) {
+                        distinctOrders[0]++;
+                        lastOrder[0] = orders[row];
+                    }
+                }
+                revenueSum[0] += batchRevenue;
+                unitsSum[0] += batchUnits;
+            });
+
+            long[] daysPerWeekday = new long[7];
+            long[] daysPerMonth = new long[12];
+            for (int d = 0; d < orderDays.length; d++) {
+                if (!orderDays[d]) continue;
+                LocalDate day = LocalDate.ofEpochDay(firstDay + d);
+                daysPerWeekday[day.getDayOfWeek().ordinal()]++;
+                daysPerMonth[day.getMonthValue() - 1]++;
+            }
+            return new SalesKpis(matched > 0 ? revenueSum[0] : null, distinctOrders[0], matched > 0 ? (int) unitsSum[0] : null,
+                    SalesKpis.weekdayHistogram(daysPerWeekday), SalesKpis.monthHistogram(daysPerMonth));
+        });
+    }
+
+    public List<Object[]> findRevenueTimeSeries(LocalDate start, LocalDate end, Long storeId, Long investorId, Long productId) {
+        return read(cube -> {
+            DayAccumulator days = cube.accumulateByDay(start, end, storeId, investorId, productId, false);
+            List<Object[]> rows = new ArrayList<>();
+            days.forEachDay((day, value) -> rows.add(new Object[]{day.toString(), value}));
+            return rows;
+        });
+    }
+
+    public List<Object[]> findStockDemandTimeSeries(LocalDate start, LocalDate end, Long storeId, Long investorId, Long productId) {
+        return read(cube -> {
+            DayAccumulator days = cube.accumulateByDay(start, end, storeId, investorId, productId, true);
+            List<Object[]> rows = new ArrayList<>();
+            days.forEachDay((day, value) -> rows.add(new Object[]{day.toString(), (long) value}));
+            return rows;
+        });
+    }
+
+    /**
+     * Sales per store, for the geo drill-down: store id, revenue, distinct orders, units.
+     */
+    public List<Object[]> findStoreSales(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        return read(cube -> {
+            int storeCount = cube.stores.size();
+            double[] revenueByStore = new double[storeCount];
+            long[] ordersByStore = new long[storeCount];
+            long[] unitsByStore = new long[storeCount];
+            boolean[] hit = new boolean[storeCount];
+            int[] storesOfRow = cube.storeCol;
+            int[] orders = cube.orderCol;
+            double[] revenue = cube.revenueCol;
+            int[] quantity = cube.quantityCol;
+            int[] lastOrder = {NONE};
+            cube.scan(start, end, storeId, investorId, null, (selection, count) -> {
+                for (int k = 0; k < count; k++) {
+                    int row = selection[k];
+                    int store = storesOfRow[row];
+                    revenueByStore[store] += revenue[row];
+                    unitsByStore[store] += quantity[row];
+                    hit[store] = true;
+                    // Lines of an order are contiguous and share its store
+                    if (orders[row] != lastOrder[0]) {
+                        ordersByStore[store]++;
+                        lastOrder[0] = orders[row];
+                    }
+                }
+            });
+
+            List<Object[]> rows = new ArrayList<>();
+            for (int code = 0; code < storeCount; code++) {
+                if (hit[code]) rows.add(new Object[]{cube.stores.key(code), revenueByStore[code], ordersByStore[code], unitsByStore[code]});
+            }
+            return rows;
+        });
+    }
+
+    /**
+     * Cities by revenue: city name, revenue.
+     */
+    public List<Object[]> findTopStores(LocalDate start, LocalDate end, int limit) {
+        return read(cube -> cube.revenueByStore(start, end, null, null)
+                .rollUp(cube.storeCity, cube.cities.size())
+                .rows(limit, (code, revenue) -> new Object[]{cube.cityNames[code], revenue}));
+    }
+
+    public List<Object[]> findCategoryRevenueDistribution(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        return read(cube -> cube.revenueByProduct(start, end, storeId, investorId)
+                .rollUp(cube.productCategory, cube.categoryNames.size())
+                .rows(0, (code, revenue) -> new Object[]{cube.categoryNames.key(code), revenue}));
+    }
+
+    /**
+     * Investors by revenue: investor name, revenue.
+     */
+    public List<Object[]> findTopInvestors(LocalDate start, LocalDate end, int limit) {
+        return read(cube -> cube.revenueByProduct(start, end, null, null)
+                .rollUp(cube.productInvestor, cube.investors.size())
+                .rows(limit, (code, revenue) -> new Object[]{cube.investorNames[code], revenue}));
+    }
+
+    /**
+     * Best-selling products by revenue: product name, revenue, category name.
+     * Like the SQL version, products without a category are left out.
+     */
+    public List<Object[]> findTopSellingProducts(LocalDate start, LocalDate end, Long investorId, Long storeId, int limit) {
+        return read(cube -> {
+            Grouped byProduct = cube.revenueByProduct(start, end, storeId, investorId);
+            for (int code = 0; code < byProduct.hit.length; code++) {
+                if (cube.productCategory[code] == NONE) byProduct.hit[code] = false;
+            }
+            return byProduct.rows(limit, (code, revenue) -> new Object[]{
+                    cube.productNames[code], revenue, cube.categoryNames.key(cube.productCategory[code])});
+        });
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    @Override
+    protected Dimensions preload(AnalyticsDataChangedEvent event) {
+        // An order of a store or product the cube does not know yet: read the dimensions before holding the cube
+        return knowsDimensionsOf(event) ? null : readTransaction.execute(status -> readDimensions());
+    }
+
+    @Override
+    protected void apply(AnalyticsDataChangedEvent event, Dimensions dimensions) {
+        lock.writeLock().lock();
+        try {
+            if (event.source() == AnalyticsDataChangedEvent.Source.ORDER_CREATED) {
+                if (data.orderCodes.containsKey(event.orderId())) return; // already part of the last load
+                if (dimensions != null) data.setDimensions(dimensions.stores(), dimensions.products());
+                int day = (int) event.orderDate().toEpochDay();
+                for (AnalyticsDataChangedEvent.Line line : event.lines()) {
+                    data.append(event.orderId(), day, event.storeId(), line.productId(), line.revenue(), line.quantity());
+                }
+            } else if (event.source() == AnalyticsDataChangedEvent.Source.ORDER_DELETED) {
+                data.removeOrder(event.orderId());
+                if (data.deletedRows > 0 && data.deletedRows >= compactThreshold * data.rows) {
+                    data.compact();
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private boolean knowsDimensionsOf(AnalyticsDataChangedEvent event) {
+        return read(cube -> cube.stores.find(event.storeId()) != NONE
+                && event.lines().stream().allMatch(line -> cube.products.find(line.productId()) != NONE));
+    }
+
+    private Dimensions readDimensions() {
+        return new Dimensions(storeRepository.findCubeStoreDimension(), productRepository.findCubeProductDimension());
+    }
+
+    private void loadDimensions(CubeData cube) {
+        Dimensions dimensions = readDimensions();
+        cube.setDimensions(dimensions.stores(), dimensions.products());
+    }
+
+    private <T> T read(Function<CubeData, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(data);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ==================== STORAGE ====================
+
+    // Rows of the store and product dimension queries
+    record Dimensions(List<Object[]> stores, List<Object[]> products) {
+    }
+
+    @FunctionalInterface
+    interface BatchAggregator {
+        void accept(int[] selection, int count);
+    }
+
+    @FunctionalInterface
+    private interface RowMapper {
+        Object[] apply(int code, double revenue);
+    }
+
+    @FunctionalInterface
+    private interface DayVisitor {
+        void visit(LocalDate day, double value);
+    }
+
+    /**
+     * Dense int codes for dictionary-encoded keys. Codes are never reused, so fact columns stay valid.
+     */
+    private static final class Codes<K> {
+        private final Map<K, Integer> codes = new HashMap<>();
+        private final List<K> keys = new ArrayList<>();
+
+        int code(K key) {
+            Integer code = codes.get(key);
+            if (code == null) {
+                code = keys.size();
+                codes.put(key, code);
+                keys.add(key);
+            }
+            return code;
+        }
+
+        int find(K key) {
+            return key == null ? NONE : codes.getOrDefault(key, NONE);
+        }
+
+        K key(int code) {
+            return keys.get(code);
+        }
+
+        int size() {
+            return keys.size();
+        }
+    }
+
+    private static final class DayAccumulator {
+        final int firstDay;
+        final double[] values;
+        final boolean[] hit;
+
+        DayAccumulator(int firstDay, int days) {
+            this.firstDay = firstDay;
+            this.values = new double[Math.max(0, days)];
+            this.hit = new boolean[Math.max(0, days)];
+        }
+
+        void forEachDay(DayVisitor visitor) {
+            for (int d = 0; d < values.length; d++) {
+                if (hit[d]) visitor.visit(LocalDate.ofEpochDay(firstDay + d), values[d]);
+            }
+        }
+    }
+
+    /**
+     * Revenue per dense code (store, product, city, ...), with a flag for codes that had at least one line.
+     */
+    private static final class Grouped {
+        final double[] values;
+        final boolean[] hit;
+
+        Grouped(int size) {
+            this.values = new double[size];
+            this.hit = new boolean[size];
+        }
+
+        /**
+         * Re-group by an attribute of the code; codes without the attribute are dropped.
+         */
+        Grouped rollUp(int[] attributeOf, int attributeCount) {
+            Grouped rolled = new Grouped(attributeCount);
+            for (int code = 0; code < values.length; code++) {
+                int attribute = attributeOf[code];
+                if (hit[code] && attribute != NONE) {
+                    rolled.values[attribute] += values[code];
+                    rolled.hit[attribute] = true;
+                }
+            }
+            return rolled;
+        }
+
+        /**
+         * Result rows by descending revenue (limit 0 = all).
+         */
+        List<Object[]> rows(int limit, RowMapper row) {
+            List<Integer> codes = new ArrayList<>();
+            for (int code = 0; code < values.length; code++) {
+                if (hit[code]) codes.add(code);
+            }
+            codes.sort(Comparator.comparingDouble((Integer code) -> values[code]).reversed());
+            if (limit > 0 && codes.size() > limit) codes = codes.subList(0, limit);
+
+            List<Object[]> rows = new ArrayList<>(codes.size());
+            for (int code : codes) {
+                rows.add(row.apply(code, values[code]));
+            }
+            return rows;
+        }
+    }
+
+    static final class CubeData {
+
+        // Fact columns, one position per order line
+        int rows;
+        int[] dayCol;
+        int[] storeCol;
+        int[] productCol; // NONE marks a line of a deleted order
+        int deletedRows;
+        int[] orderCol;
+        double[] revenueCol;
+        int[] quantityCol;
+        int lastDay = Integer.MIN_VALUE;
+        boolean sortedByDay = true;
+
+        // Live orders: id -> code, and the first line of each code (codes are never reused)
+        final Map<Long, Integer> orderCodes = new HashMap<>();
+        int nextOrderCode;
+        int[] orderFirstRow = new int[1024];
+
+        // Dimensions
+        final Codes<Long> stores = new Codes<>();
+        final Codes<Long> products = new Codes<>();
+        final Codes<Long> investors = new Codes<>();
+        final Codes<Long> cities = new Codes<>();
+        final Codes<String> categoryNames = new Codes<>();
+        String[] cityNames = new String[0];
+        String[] investorNames = new String[0];
+        int[] storeCity = new int[0];
+        int[] productCategory = new int[0];
+        int[] productInvestor = new int[0];
+        String[] productNames = new String[0];
+
+        CubeData(int capacity) {
+            dayCol = new int[capacity];
+            storeCol = new int[capacity];
+            productCol = new int[capacity];
+            orderCol = new int[capacity];
+            revenueCol = new double[capacity];
+            quantityCol = new int[capacity];
+        }
+
+        long approxBytes() {
+            return (long) dayCol.length * (4 + 4 + 4 + 4 + 8 + 4) + (long) orderCodes.size() * 64;
+        }
+
+        /**
+         * Append one loaded line: order id, order date, store id, product id, net revenue, quantity.
+         * Reloads the dimensions of a store or product created since they were read.
+         */
+        void appendLoaded(Object[] line, SalesCube owner) {
+            long storeId = toLong(line[2]);
+            long productId = toLong(line[3]);
+            if (stores.find(storeId) == NONE || products.find(productId) == NONE) {
+                owner.loadDimensions(this);
+            }
+            append(toLong(line[0]), (int) toLocalDate(line[1]).toEpochDay(), storeId, productId,
+                    line[4] != null ? ((Number) line[4]).doubleValue() : 0.0,
+                    line[5] != null ? ((Number) line[5]).intValue() : 0);
+        }
+
+        /**
+         * Append one line. The lines of an order must be appended together: queries count distinct orders
+         * as changes of order code among the lines they scan.
+         */
+        void append(long orderId, int day, long storeId, long productId, double revenue, int quantity) {
+            int store = stores.find(storeId);
+            int product = products.find(productId);
+            if (store == NONE || product == NONE) {
+                throw new IllegalStateException("Unknown store " + storeId + " or product " + productId);
+            }
+
+            int row = rows;
+            ensureCapacity(row + 1);
+            if (day < lastDay) sortedByDay = false;
+            lastDay = Math.max(lastDay, day);
+
+            Integer orderCode = orderCodes.get(orderId);
+            if (orderCode == null) {
+                orderCode = nextOrderCode++;
+                orderCodes.put(orderId, orderCode);
+                if (orderCode >= orderFirstRow.length) {
+                    orderFirstRow = Arrays.copyOf(orderFirstRow, orderFirstRow.length * 2);
+                }
+                orderFirstRow[orderCode] = row;
+            }
+
+            dayCol[row] = day;
+            storeCol[row] = store;
+            productCol[row] = product;
+            orderCol[row] = orderCode;
+            revenueCol[row] = revenue;
+            quantityCol[row] = quantity;
+            rows++;
+        }
+
+        /**
+         * Mark the lines of an order as deleted; scans skip them until the next compaction.
+         */
+        void removeOrder(long orderId) {
+            Integer orderCode = orderCodes.remove(orderId);
+            if (orderCode == null) return;
+            for (int row = orderFirstRow[orderCode]; row < rows && orderCol[row] == orderCode; row++) {
+                productCol[row] = NONE;
+                deletedRows++;
+            }
+        }
+
+        /**
+         * Drop the lines of deleted orders, keeping the others in place order (so still sorted by day,
+         * and the lines of an order still contiguous).
+         */
+        void compact() {
+            int kept = 0;
+            int lastOrder = NONE;
+            for (int row = 0; row < rows; row++) {
+                if (productCol[row] == NONE) continue;
+                dayCol[kept] = dayCol[row];
+                storeCol[kept] = storeCol[row];
+                productCol[kept] = productCol[row];
+                orderCol[kept] = orderCol[row];
+                revenueCol[kept] = revenueCol[row];
+                quantityCol[kept] = quantityCol[row];
+                if (orderCol[kept] != lastOrder) {
+                    lastOrder = orderCol[kept];
+                    orderFirstRow[lastOrder] = kept;
+                }
+                kept++;
+            }
+            rows = kept;
+            deletedRows = 0;
+        }
+
+        void setDimensions(List<Object[]> storeRows, List<Object[]> productRows) {
+            for (Object[] r : storeRows) stores.code(toLong(r[0]));
+            for (Object[] r : productRows) products.code(toLong(r[0]));
+
+            int[] city = filled(stores.size());
+            Map<Integer, String> cityName = new HashMap<>();
+            for (Object[] r : storeRows) {
+                int code = stores.code(toLong(r[0]));
+                if (r[1] != null) {
+                    city[code] = cities.code(toLong(r[1]));
+                    cityName.put(city[code], (String) r[2]);
+                }
+            }
+
+            int[] category = filled(products.size());
+            int[] investor = filled(products.size());
+            String[] names = Arrays.copyOf(productNames, products.size());
+            Map<Integer, String> investorName = new HashMap<>();
+            for (Object[] r : productRows) {
+                int code = products.code(toLong(r[0]));
+                names[code] = (String) r[1];
+                if (r[2] != null) category[code] = categoryNames.code((String) r[2]);
+                if (r[3] != null) {
+                    investor[code] = investors.code(toLong(r[3]));
+                    investorName.put(investor[code], (String) r[4]);
+                }
+            }
+
+            String[] cityLabels = Arrays.copyOf(cityNames, cities.size());
+            cityName.forEach((code, name) -> cityLabels[code] = name);
+            String[] investorLabels = Arrays.copyOf(investorNames, investors.size());
+            investorName.forEach((code, name) -> investorLabels[code] = name);
+
+            storeCity = city;
+            productCategory = category;
+            productInvestor = investor;
+            productNames = names;
+            cityNames = cityLabels;
+            investorNames = investorLabels;
+        }
+
+        private static int[] filled(int size) {
+            int[] codes = new int[size];
+            Arrays.fill(codes, NONE);
+            return codes;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity <= dayCol.length) return;
+            int grown = Math.max(capacity, dayCol.length + (dayCol.length >> 1));
+            dayCol = Arrays.copyOf(dayCol, grown);
+            storeCol = Arrays.copyOf(storeCol, grown);
+            productCol = Arrays.copyOf(productCol, grown);
+            orderCol = Arrays.copyOf(orderCol, grown);
+            revenueCol = Arrays.copyOf(revenueCol, grown);
+            quantityCol = Arrays.copyOf(quantityCol, grown);
+        }
+
+        /**
+         * Filter the lines of the range into selection vectors and hand each batch to the aggregator.
+         * Returns the number of selected lines.
+         */
+        int scan(LocalDate start, LocalDate end, Long storeId, Long investorId, Long productId, BatchAggregator aggregator) {
+            int store = storeId != null ? stores.find(storeId) : NONE;
+            int investor = investorId != null ? investors.find(investorId) : NONE;
+            int product = productId != null ? products.find(productId) : NONE;
+            // A filter on an unknown key matches nothing
+            if ((storeId != null && store == NONE) || (investorId != null && investor == NONE)
+                    || (productId != null && product == NONE)) {
+                return 0;
+            }
+
+            int firstDay = (int) start.toEpochDay();
+            int lastDayOfRange = (int) end.toEpochDay();
+            int from = sortedByDay ? lowerBound(firstDay) : 0;
+            int to = sortedByDay ? lowerBound(lastDayOfRange + 1) : rows;
+
+            int[] days = dayCol;
+            int[] storesOfRow = storeCol;
+            int[] productsOfRow = productCol;
+            int[] investorOfProduct = productInvestor;
+            int[] selection = new int[BATCH_SIZE];
+            int selected = 0;
+
+            for (int batchStart = from; batchStart < to; batchStart += BATCH_SIZE) {
+                int batchEnd = Math.min(batchStart + BATCH_SIZE, to);
+                int count = 0;
+                for (int i = batchStart; i < batchEnd; i++) {
+                    int p = productsOfRow[i];
+                    int d = days[i];
+                    boolean keep = p != NONE
+                            && d >= firstDay && d <= lastDayOfRange
+                            && (store == NONE || storesOfRow[i] == store)
+                            && (product == NONE || p == product)
+                            && (investor == NONE || investorOfProduct[p] == investor);
+                    selection[count] = i;
+                    count += keep ? 1 : 0;
+                }
+                if (count > 0) {
+                    aggregator.accept(selection, count);
+                    selected += count;
+                }
+            }
+            return selected;
+        }
+
+        DayAccumulator accumulateByDay(LocalDate start, LocalDate end, Long storeId, Long investorId, Long productId,
+                                       boolean units) {
+            int firstDay = (int) start.toEpochDay();
+            DayAccumulator acc = new DayAccumulator(firstDay, (int) (end.toEpochDay() - firstDay + 1));
+            int[] days = dayCol;
+            double[] revenue = revenueCol;
+            int[] quantity = quantityCol;
+            scan(start, end, storeId, investorId, productId, (selection, count) -> {
+                for (int k = 0; k < count; k++) {
+                    int row = selection[k];
+                    int slot = days[row] - firstDay;
+                    acc.values[slot] += units ? quantity[row] : revenue[row];
+                    acc.hit[slot] = true;
+                }
+            });
+            return acc;
+        }
+
+        Grouped revenueByProduct(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+            return revenueBy(productCol, products.size(), start, end, storeId, investorId);
+        }
+
+        Grouped revenueByStore(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+            return revenueBy(storeCol, stores.size(), start, end, storeId, investorId);
+        }
+
+        private Grouped revenueBy(int[] keyCol, int keyCount, LocalDate start, LocalDate end, Long storeId, Long investorId) {
+            Grouped grouped = new Grouped(keyCount);
+            double[] values = grouped.values;
+            boolean[] hit = grouped.hit;
+            double[] revenue = revenueCol;
+            scan(start, end, storeId, investorId, null, (selection, count) -> {
+                for (int k = 0; k < count; k++) {
+                    int row = selection[k];
+                    values[keyCol[row]] += revenue[row];
+                    hit[keyCol[row]] = true;
+                }
+            });
+            return grouped;
+        }
+
+        /**
+         * First row of the day or of a later one (rows when there is none); rows must be sorted by day.
+         */
+        int lowerBound(int day) {
+            int low = 0;
+            int high = rows;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (dayCol[mid] < day) low = mid + 1;
+                else high = mid;
+            }
+            return low;
+        }
+    }
+}
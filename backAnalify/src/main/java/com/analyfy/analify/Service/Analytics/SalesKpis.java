@@ -0,0 +1,79 @@
+package com.analyfy.analify.Service.Analytics;
+
+import java.time.DayOfWeek;
+import java.time.Month;
+import java.time.format.TextStyle;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Header KPIs of a dashboard scope, fetched in a single pass over the sales.
+ *
+ * revenue and unitsSold are null when the scope has no sales, like the SUM queries they replace.
+ * The histograms count the days with at least one order, per weekday ("Monday".."Sunday") and per month ("Jan".."Dec").
+ */
+public record SalesKpis(Double revenue,
+                        Long orders,
+                        Integer unitsSold,
+                        Map<String, Long> ordersByDayOfWeek,
+                        Map<String, Long> ordersByMonth) {
+
+    // GROUPING(dow, month) of the grouping sets (), (dow), (month)
+    private static final int TOTAL_ROW = 3;
+    private static final int DAY_OF_WEEK_ROW = 1;
+    private static final int MONTH_ROW = 2;
+
+    public double averageOrderValue() {
+        return orders != null && orders > 0 && revenue != null ? revenue / orders : 0.0;
+    }
+
+    /**
+     * Read the result of a GROUPING SETS ((), (dow), (month)) query whose columns are:
+     * grouping(dow, month), ISO day of week (1 = Monday), month (1..12), revenue, orders, units, order days.
+     */
+    public static SalesKpis fromGroupingRows(List<Object[]> rows) {
+        Double revenue = null;
+        Long orders = 0L;
+        Integer units = null;
+        long[] daysPerWeekday = new long[7];
+        long[] daysPerMonth = new long[12];
+
+        for (Object[] row : rows) {
+            int grouping = ((Number) row[0]).intValue();
+            if (grouping == TOTAL_ROW) {
+                revenue = row[3] != null ? ((Number) row[3]).doubleValue() : null;
+                orders = row[4] != null ? ((Number) row[4]).longValue() : 0L;
+                units = row[5] != null ? ((Number) row[5]).intValue() : null;
+            } else if (grouping == DAY_OF_WEEK_ROW && row[1] != null) {
+                daysPerWeekday[((Number) row[1]).intValue() - 1] = ((Number) row[6]).longValue();
+            } else if (grouping == MONTH_ROW && row[2] != null) {
+                daysPerMonth[((Number) row[2]).intValue() - 1] = ((Number) row[6]).longValue();
+            }
+        }
+        return new SalesKpis(revenue, orders, units, weekdayHistogram(daysPerWeekday), monthHistogram(daysPerMonth));
+    }
+
+    /**
+     * daysPerWeekday[0] is Monday.
+     */
+    static Map<String, Long> weekdayHistogram(long[] daysPerWeekday) {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            stats.put(day.getDisplayName(TextStyle.FULL, Locale.ENGLISH), daysPerWeekday[day.ordinal()]);
+        }
+        return stats;
+    }
+
+    /**
+     * daysPerMonth[0] is January.
+     */
+    static Map<String, Long> monthHistogram(long[] daysPerMonth) {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        for (Month month : Month.values()) {
+            stats.put(month.getDisplayName(TextStyle.SHORT, Locale.ENGLISH), daysPerMonth[month.ordinal()]);
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,332 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.BasketStatsDTO;
+import com.analyfy.analify.Entity.DailyOrderRollup;
+import com.analyfy.analify.Enum.ComparisonScope;
+import com.analyfy.analify.Enum.LeaderboardWindow;
+import com.analyfy.analify.Repository.DailySalesRollupRepository;
+import com.analyfy.analify.Repository.OrderRepository;
+import com.analyfy.analify.Repository.ProductRepository;
+import com.analyfy.analify.Repository.StoreRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single entry point for the sales KPIs used by the statistics services.
+ *
+ * Queries go to the in-memory sales cube when it is enabled and loaded, then to the rollups
+ * when they are serving, and otherwise to the order line item joins. Totals and breakdowns read the
+ * rollups through a RollupRangePlan (whole months from the monthly tier, edge days from the daily one),
+ * so their cost grows with the number of months rather than days; time series stay on the daily rollup.
+ * Platform leaderboards of a trailing window ending today come first from the heavy hitters tracker, while it is exact.
+ */
+@Component
+@RequiredArgsConstructor
+public class SalesMetricsReader {
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
+    private final DailySalesRollupRepository salesRollupRepository;
+    private final SalesRollupService salesRollupService;
+    private final SalesCube salesCube;
+    private final OrderSketchService orderSketchService;
+    private final HeavyHittersTracker heavyHittersTracker;
+
+    public Double calculateTotalRevenue(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        if (salesCube.isServing()) {
+            return salesCube.calculateTotalRevenue(start, end, storeId, investorId);
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = RollupRangePlan.of(start, end);
+            return salesRollupRepository.sumRevenue(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                    plan.tailStart(), plan.end(), storeId, investorId);
+        }
+        return orderRepository.calculateTotalRevenue(start, end, storeId, investorId);
+    }
+
+    /**
+     * Revenue, orders, units and the weekday/month histograms of a scope, in one query.
+     */
+    public SalesKpis fetchSalesKpis(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        if (salesCube.isServing()) {
+            return salesCube.calculateSalesKpis(start, end, storeId, investorId);
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = RollupRangePlan.of(start, end);
+            return SalesKpis.fromGroupingRows(salesRollupRepository.findSalesKpis(plan.start(), plan.headEnd(),
+                    plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId, investorId, investorScope(investorId)));
+        }
+        return SalesKpis.fromGroupingRows(orderRepository.findSalesKpis(start, end, storeId, investorId));
+    }
+
+    /**
+     * Revenue, orders and units of the current and of the comparison period in one pass:
+     * revenue, previous revenue, orders, previous orders, units, previous units (sums are null without sales).
+     */
+    public Object[] comparePeriodSales(LocalDate start, LocalDate end, LocalDate previousStart, LocalDate previousEnd,
+                                       Long storeId, Long investorId) {
+        if (salesCube.isServing()) {
+            SalesKpis current = salesCube.calculateSalesKpis(start, end, storeId, investorId);
+            SalesKpis previous = salesCube.calculateSalesKpis(previousStart, previousEnd, storeId, investorId);
+            return new Object[]{current.revenue(), previous.revenue(), current.orders(), previous.orders(),
+                    current.unitsSold(), previous.unitsSold()};
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan current = RollupRangePlan.of(start, end);
+            RollupRangePlan previous = RollupRangePlan.of(previousStart, previousEnd);
+            return salesRollupRepository.comparePeriodSales(
+                    current.start(), current.headEnd(), current.monthsFrom(), current.monthsTo(), current.tailStart(), current.end(),
+                    previous.start(), previous.headEnd(), previous.monthsFrom(), previous.monthsTo(), previous.tailStart(), previous.end(),
+                    storeId, investorId, investorScope(investorId)).get(0);
+        }
+        return orderRepository.comparePeriodSales(start, end, previousStart, previousEnd, storeId, investorId).get(0);
+    }
+
+    /**
+     * Median and p90 order value and units per order. Exact percentiles rank every order of the range; with
+     * approximate, the per-day / per-month t-digests of the range are merged instead (when the rollups serve).
+     */
+    public BasketStatsDTO fetchBasketStats(LocalDate start, LocalDate end, Long storeId, Long investorId, boolean approximate) {
+        if (approximate && orderSketchService.isEnabled() && salesRollupService.isServing()) {
+            return orderSketchService.basketStats(start, end, storeId, investorScope(investorId));
+        }
+        Object[] row = orderRepository.findBasketPercentiles(start, end, storeId, investorId).get(0);
+        return BasketStatsDTO.builder()
+                .orders(((Number) row[0]).longValue())
+                .medianOrderValue(roundOrNull(row[1]))
+                .p90OrderValue(roundOrNull(row[2]))
+                .medianBasketUnits(roundOrNull(row[3]))
+                .p90BasketUnits(roundOrNull(row[4]))
+                .approximate(false)
+                .method("exact")
+                .rankError(0.0)
+                .build();
+    }
+
+    /**
+     * Revenue per time bucket, labelled by the first day of the bucket ("yyyy-MM-dd").
+     * Memoized per request: read by the revenue chart and, per day, by the predictions.
+     */
+    public List<Object[]> findRevenueTimeSeries(LocalDate start, LocalDate end, Long storeId, Long investorId, Long productId,
+                                                TimeBucket bucket) {
+        return QueryMemo.memoize("sales.revenueSeries",
+                () -> loadRevenueTimeSeries(start, end, storeId, investorId, productId, bucket),
+                start, end, storeId, investorId, productId, bucket);
+    }
+
+    private List<Object[]> loadRevenueTimeSeries(LocalDate start, LocalDate end, Long storeId, Long investorId, Long productId,
+                                                 TimeBucket bucket) {
+        if (salesCube.isServing()) {
+            return rebucket(salesCube.findRevenueTimeSeries(start, end, storeId, investorId, productId), bucket);
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = bucket.spansMonths() ? RollupRangePlan.of(start, end) : RollupRangePlan.daysOnly(start, end);
+            return salesRollupRepository.findRevenueTimeSeries(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                    plan.tailStart(), plan.end(), storeId, investorId, productId, bucket.unit());
+        }
+        return orderRepository.findRevenueTimeSeries(start, end, storeId, investorId, productId, bucket.unit());
+    }
+
+    /**
+     * Revenue, orders and units of each of several stores or investors, grouped by the database in one query:
+     * scope id, revenue, orders, units (scopes without sales are absent). The cube answers scope by scope, in memory.
+     */
+    public List<Object[]> findScopeSales(LocalDate start, LocalDate end, ComparisonScope scope, Collection<Long> ids) {
+        boolean byInvestor = scope == ComparisonScope.INVESTOR;
+        if (salesCube.isServing()) {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long id : ids) {
+                SalesKpis kpis = salesCube.calculateSalesKpis(start, end, byInvestor ? null : id, byInvestor ? id : null);
+                if (kpis.revenue() != null) rows.add(new Object[]{id, kpis.revenue(), kpis.orders(), kpis.unitsSold()});
+            }
+            return rows;
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = RollupRangePlan.of(start, end);
+            return salesRollupRepository.findScopeSales(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                    plan.tailStart(), plan.end(), byInvestor, ids);
+        }
+        return orderRepository.findScopeSales(start, end, byInvestor, ids);
+    }
+
+    /**
+     * Revenue per time bucket of each of several stores or investors, in one query:
+     * scope id, bucket start ("yyyy-MM-dd"), revenue, ordered by scope then bucket.
+     */
+    public List<Object[]> findScopeRevenueTimeSeries(LocalDate start, LocalDate end, ComparisonScope scope, Collection<Long> ids,
+                                                     TimeBucket bucket) {
+        boolean byInvestor = scope == ComparisonScope.INVESTOR;
+        if (salesCube.isServing()) {
+            List<Object[]> rows = new ArrayList<>();
+            for (Long id : ids) {
+                List<Object[]> days = salesCube.findRevenueTimeSeries(start, end, byInvestor ? null : id, byInvestor ? id : null, null);
+                rebucket(days, bucket).forEach(row -> rows.add(new Object[]{id, row[0], row[1]}));
+            }
+            return rows;
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = bucket.spansMonths() ? RollupRangePlan.of(start, end) : RollupRangePlan.daysOnly(start, end);
+            return salesRollupRepository.findScopeRevenueTimeSeries(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                    plan.tailStart(), plan.end(), byInvestor, ids, bucket.unit());
+        }
+        return orderRepository.findScopeRevenueTimeSeries(start, end, byInvestor, ids, bucket.unit());
+    }
+
+    /**
+     * Day of the first sale on the platform, null without sales.
+     */
+    public LocalDate findFirstSalesDay() {
+        return QueryMemo.memoize("sales.firstDay", () -> salesRollupService.isServing()
+                ? salesRollupRepository.findFirstSalesDay()
+                : orderRepository.findFirstOrderDate());
+    }
+
+    public List<Object[]> findStockDemandTimeSeries(LocalDate start, LocalDate end, Long storeId, Long investorId, Long productId) {
+        if (salesCube.isServing()) {
+            return salesCube.findStockDemandTimeSeries(start, end, storeId, investorId, productId);
+        }
+        if (salesRollupService.isServing()) {
+            return salesRollupRepository.findStockDemandTimeSeries(start, end, storeId, investorId, productId);
+        }
+        return orderRepository.findStockDemandTimeSeries(start, end, storeId, investorId, productId);
+    }
+
+    /**
+     * Sales per region, state, city and store in one rollup (see GeoRollup for the columns),
+     * optionally restricted to the subtree of a region, state or city.
+     */
+    public List<Object[]> findGeoRollup(LocalDate start, LocalDate end, Long storeId, Long investorId,
+                                        Long regionId, Long stateId, Long cityId) {
+        return QueryMemo.memoize("sales.geoRollup", () -> {
+            if (salesCube.isServing()) {
+                return GeoRollup.rollUp(salesCube.findStoreSales(start, end, storeId, investorId),
+                        storeRepository.findGeoDimension(), regionId, stateId, cityId);
+            }
+            if (salesRollupService.isServing()) {
+                RollupRangePlan plan = RollupRangePlan.of(start, end);
+                return salesRollupRepository.findGeoRollup(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                        plan.tailStart(), plan.end(), storeId, investorId, investorScope(investorId), regionId, stateId, cityId);
+            }
+            return orderRepository.findGeoRollup(start, end, storeId, investorId, regionId, stateId, cityId);
+        }, start, end, storeId, investorId, regionId, stateId, cityId);
+    }
+
+    /**
+     * Revenue per region name: name, revenue (derived from the geo rollup).
+     */
+    public List<Object[]> findSalesByRegion(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        return GeoRollup.revenueBy(findGeoRollup(start, end, storeId, investorId, null, null, null), GeoRollup.REGION);
+    }
+
+    /**
+     * Revenue per state name: name, revenue (derived from the geo rollup).
+     */
+    public List<Object[]> findSalesByState(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        return GeoRollup.revenueBy(findGeoRollup(start, end, storeId, investorId, null, null, null), GeoRollup.STATE);
+    }
+
+    public List<Object[]> findCategoryRevenueDistribution(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        return QueryMemo.memoize("sales.categoryRevenue",
+                () -> loadCategoryRevenueDistribution(start, end, storeId, investorId), start, end, storeId, investorId);
+    }
+
+    private List<Object[]> loadCategoryRevenueDistribution(LocalDate start, LocalDate end, Long storeId, Long investorId) {
+        if (salesCube.isServing()) {
+            return salesCube.findCategoryRevenueDistribution(start, end, storeId, investorId);
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = RollupRangePlan.of(start, end);
+            return salesRollupRepository.findCategoryRevenueDistribution(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                    plan.tailStart(), plan.end(), storeId, investorId);
+        }
+        return productRepository.findCategoryRevenueDistribution(start, end, storeId, investorId);
+    }
+
+    public List<Object[]> findTopSellingProducts(LocalDate start, LocalDate end, Long investorId, Long storeId, int limit) {
+        LeaderboardWindow window = investorId == null && storeId == null ? heavyHittersTracker.exactWindow(start, end) : null;
+        if (window != null) {
+            return heavyHittersTracker.topProducts(window, limit);
+        }
+        if (salesCube.isServing()) {
+            return salesCube.findTopSellingProducts(start, end, investorId, storeId, limit);
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = RollupRangePlan.of(start, end);
+            return salesRollupRepository.findTopSellingProducts(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                    plan.tailStart(), plan.end(), storeId, investorId, PageRequest.of(0, limit));
+        }
+        return productRepository.findTopSellingProducts(start, end, investorId, storeId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Ids of the products with the highest revenue, for batch jobs (not served by the cube).
+     */
+    public List<Long> findTopProductIds(LocalDate start, LocalDate end, int limit) {
+        if (salesRollupService.isServing()) {
+            return salesRollupRepository.findTopProductIds(start, end, PageRequest.of(0, limit));
+        }
+        return productRepository.findTopProductIds(start, end, PageRequest.of(0, limit));
+    }
+
+    public List<Object[]> findTopStores(LocalDate start, LocalDate end, int limit) {
+        LeaderboardWindow window = heavyHittersTracker.exactWindow(start, end);
+        if (window != null) {
+            return heavyHittersTracker.topStores(window, limit);
+        }
+        if (salesCube.isServing()) {
+            return salesCube.findTopStores(start, end, limit);
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = RollupRangePlan.of(start, end);
+            return salesRollupRepository.findTopStores(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                    plan.tailStart(), plan.end(), null, null, PageRequest.of(0, limit));
+        }
+        return productRepository.findTopStores(start, end, PageRequest.of(0, limit));
+    }
+
+    public List<Object[]> findTopInvestors(LocalDate start, LocalDate end, int limit) {
+        LeaderboardWindow window = heavyHittersTracker.exactWindow(start, end);
+        if (window != null) {
+            return heavyHittersTracker.topInvestors(window, limit);
+        }
+        if (salesCube.isServing()) {
+            return salesCube.findTopInvestors(start, end, limit);
+        }
+        if (salesRollupService.isServing()) {
+            RollupRangePlan plan = RollupRangePlan.of(start, end);
+            return salesRollupRepository.findTopInvestors(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(),
+                    plan.tailStart(), plan.end(), null, null, PageRequest.of(0, limit));
+        }
+        return productRepository.findTopInvestors(start, end, PageRequest.of(0, limit));
+    }
+
+    // Sum daily (day, value) rows, sorted by day, into buckets
+    private static List<Object[]> rebucket(List<Object[]> days, TimeBucket bucket) {
+        if (bucket == TimeBucket.DAY) return days;
+        Map<String, Double> buckets = new LinkedHashMap<>();
+        for (Object[] row : days) {
+            String label = bucket.truncate(LocalDate.parse(row[0].toString())).toString();
+            buckets.merge(label, ((Number) row[1]).doubleValue(), Double::sum);
+        }
+        List<Object[]> rows = new ArrayList<>(buckets.size());
+        buckets.forEach((label, value) -> rows.add(new Object[]{label, value}));
+        return rows;
+    }
+
+    private static Double roundOrNull(Object value) {
+        return value != null ? Math.round(((Number) value).doubleValue() * 100.0) / 100.0 : null;
+    }
+
+    private static Long investorScope(Long investorId) {
+        return investorId != null ? investorId : DailyOrderRollup.ALL_INVESTORS;
+    }
+}
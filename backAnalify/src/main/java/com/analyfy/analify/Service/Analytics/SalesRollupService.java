@@ -0,0 +1,188 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Entity.DailyOrderRollup;
+import com.analyfy.analify.Entity.Order;
+import com.analyfy.analify.Entity.OrderItems;
+import com.analyfy.analify.Entity.Product;
+import com.analyfy.analify.Repository.DailyOrderRollupRepository;
+import com.analyfy.analify.Repository.DailySalesRollupRepository;
+import com.analyfy.analify.Repository.MonthlyOrderRollupRepository;
+import com.analyfy.analify.Repository.MonthlySalesRollupRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the sales rollups: the daily tier (daily_sales_rollup / daily_order_rollup) and the monthly tier
+ * (monthly_sales_rollup / monthly_order_rollup) derived from it, plus the basket sketches of OrderSketchService.
+ *
+ * OrderService calls recordOrder / removeOrder inside its own transaction, so the rollups
+ * commit or roll back together with the order. A full rebuild from the order history runs at startup.
+ */
+@Service
+@Slf4j
+public class SalesRollupService {
+
+    private final DailySalesRollupRepository salesRollupRepository;
+    private final DailyOrderRollupRepository orderRollupRepository;
+    private final MonthlySalesRollupRepository monthlySalesRollupRepository;
+    private final MonthlyOrderRollupRepository monthlyOrderRollupRepository;
+    private final OrderSketchService orderSketchService;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final boolean rebuildOnStartup;
+
+    // Reads are only served from the rollup once it has been (re)built
+    private volatile boolean ready;
+
+    public SalesRollupService(
+            DailySalesRollupRepository salesRollupRepository,
+            DailyOrderRollupRepository orderRollupRepository,
+            MonthlySalesRollupRepository monthlySalesRollupRepository,
+            MonthlyOrderRollupRepository monthlyOrderRollupRepository,
+            OrderSketchService orderSketchService,
+            PlatformTransactionManager transactionManager,
+            @Value("${analytics.rollup.enabled:true}") boolean enabled,
+            @Value("${analytics.rollup.rebuild-on-startup:true}") boolean rebuildOnStartup) {
+        this.salesRollupRepository = salesRollupRepository;
+        this.orderRollupRepository = orderRollupRepository;
+        this.monthlySalesRollupRepository = monthlySalesRollupRepository;
+        this.monthlyOrderRollupRepository = monthlyOrderRollupRepository;
+        this.orderSketchService = orderSketchService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.ready = enabled && !rebuildOnStartup;
+    }
+
+    /**
+     * True when statistics queries should be answered from the rollup instead of the order line items.
+     */
+    public boolean isServing() {
+        return enabled && ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled || !rebuildOnStartup) return;
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            // Keep serving from the order line items rather than failing the startup
+            log.error("Sales rollup rebuild failed, statistics will query order items directly", e);
+        }
+    }
+
+    /**
+     * Recompute the daily rollups from the full order history, then the monthly tier from the daily rollups.
+     */
+    public Map<String, Integer> rebuild() {
+        long startedAt = System.currentTimeMillis();
+        Map<String, Integer> rows = transactionTemplate.execute(status -> {
+            salesRollupRepository.lockForRebuild();
+            salesRollupRepository.deleteAllRows();
+            orderRollupRepository.deleteAllRows();
+            monthlySalesRollupRepository.deleteAllRows();
+            monthlyOrderRollupRepository.deleteAllRows();
+            int salesRows = salesRollupRepository.rebuildFromOrders();
+            int orderRows = orderRollupRepository.rebuildFromOrders();
+            return Map.of(
+                "salesRows", salesRows,
+                "orderRows", orderRows,
+                "monthlySalesRows", monthlySalesRollupRepository.rebuildFromDaily(),
+                "monthlyOrderRows", monthlyOrderRollupRepository.rebuildFromDaily(),
+                "sketchRows", orderSketchService.rebuild());
+        });
+        ready = enabled;
+        log.info("Sales rollup rebuilt in {} ms: {}", System.currentTimeMillis() - startedAt, rows);
+        return rows;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordOrder(Order order) {
+        apply(order, 1);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removeOrder(Order order) {
+        apply(order, -1);
+    }
+
+    private void apply(Order order, int sign) {
+        if (!enabled || order.getItems() == null || order.getItems().isEmpty()) return;
+        if (order.getOrderDate() == null || order.getCaissier() == null || order.getCaissier().getStore() == null) return;
+
+        LocalDate day = order.getOrderDate();
+        LocalDate month = day.withDayOfMonth(1);
+        Long storeId = order.getCaissier().getStore().getStoreId();
+
+        // Collapse the order to one delta per product before touching the rollup
+        Map<Long, double[]> deltas = new HashMap<>();
+        Map<Long, Long> productInvestor = new HashMap<>();
+        Set<Long> investors = new LinkedHashSet<>();
+        for (OrderItems item : order.getItems()) {
+            Product product = item.getProduct();
+            long investorId = investorKey(product);
+            AnalyticsDataChangedEvent.Line line = AnalyticsDataChangedEvent.Line.of(item);
+            double[] delta = deltas.computeIfAbsent(product.getProductId(), id -> new double[3]);
+            delta[0] += line.revenue();
+            delta[1] += line.quantity();
+            delta[2] += 1;
+            productInvestor.put(product.getProductId(), investorId);
+            if (investorId != DailyOrderRollup.ALL_INVESTORS) investors.add(investorId);
+        }
+
+        deltas.forEach((productId, delta) -> salesRollupRepository.upsert(
+            day, storeId, productId, productInvestor.get(productId),
+            sign * delta[0], (long) (sign * delta[1]), (long) (sign * delta[2])));
+
+        orderRollupRepository.upsert(day, storeId, DailyOrderRollup.ALL_INVESTORS, (long) sign);
+        for (Long investorId : investors) {
+            orderRollupRepository.upsert(day, storeId, investorId, (long) sign);
+        }
+
+        if (sign < 0) {
+            orderSketchService.removeOrder(order, day, storeId);
+            salesRollupRepository.deleteEmptyRows(day, storeId);
+            orderRollupRepository.deleteEmptyRows(day, storeId);
+            // A removal may clear a day bit, so the store's month is re-derived from its daily rows
+            rebuildMonth(month, storeId);
+            return;
+        }
+
+        orderSketchService.recordOrder(day, storeId);
+
+        deltas.forEach((productId, delta) -> monthlySalesRollupRepository.upsert(
+            month, storeId, productId, productInvestor.get(productId), delta[0], (long) delta[1], (long) delta[2]));
+
+        int dayBit = 1 << (day.getDayOfMonth() - 1);
+        monthlyOrderRollupRepository.upsert(month, storeId, DailyOrderRollup.ALL_INVESTORS, 1L, dayBit);
+        for (Long investorId : investors) {
+            monthlyOrderRollupRepository.upsert(month, storeId, investorId, 1L, dayBit);
+        }
+    }
+
+    private void rebuildMonth(LocalDate month, Long storeId) {
+        LocalDate nextMonth = month.plusMonths(1);
+        monthlySalesRollupRepository.deleteMonth(month, storeId);
+        monthlySalesRollupRepository.rebuildMonthFromDaily(month, nextMonth, storeId);
+        monthlyOrderRollupRepository.deleteMonth(month, storeId);
+        monthlyOrderRollupRepository.rebuildMonthFromDaily(month, nextMonth, storeId);
+    }
+
+    private static long investorKey(Product product) {
+        return product.getId_inv() != null ? product.getId_inv().getUserId() : DailyOrderRollup.ALL_INVESTORS;
+    }
+}
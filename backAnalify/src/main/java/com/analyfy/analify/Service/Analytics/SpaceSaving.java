@@ -0,0 +1,71 @@
+package com.analyfy.analify.Service.Analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Weighted Space-Saving summary (Metwally et al.): at most capacity counters. A key that is not counted yet
+ * replaces the smallest counter and inherits its count, so counts are over-estimated by at most floor(),
+ * and any key left out weighs at most floor(). floor() is 0, and every count exact, until a key is evicted.
+ *
+ * Not thread-safe.
+ */
+final class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Long, Double> counters = new HashMap<>();
+    private boolean saturated;
+
+    SpaceSaving(int capacity) {
+        this.capacity = Math.max(1, capacity);
+    }
+
+    /**
+     * Summary of exact totals: the heaviest capacity keys are kept.
+     */
+    static SpaceSaving of(Map<Long, Double> totals, int capacity) {
+        SpaceSaving summary = new SpaceSaving(capacity);
+        if (totals.size() <= summary.capacity) {
+            summary.counters.putAll(totals);
+        } else {
+            totals.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                    .limit(summary.capacity)
+                    .forEach(entry -> summary.counters.put(entry.getKey(), entry.getValue()));
+            summary.saturated = true;
+        }
+        return summary;
+    }
+
+    void add(long key, double weight) {
+        Double count = counters.get(key);
+        if (count != null) {
+            counters.put(key, count + weight);
+        } else if (counters.size() < capacity) {
+            counters.put(key, weight);
+        } else {
+            Map.Entry<Long, Double> smallest = null;
+            for (Map.Entry<Long, Double> entry : counters.entrySet()) {
+                if (smallest == null || entry.getValue() < smallest.getValue()) smallest = entry;
+            }
+            double inherited = smallest.getValue();
+            counters.remove(smallest.getKey());
+            counters.put(key, inherited + weight);
+            saturated = true;
+        }
+    }
+
+    /**
+     * Error bound of every count (and weight bound of every key left out).
+     */
+    double floor() {
+        if (!saturated) return 0;
+        double smallest = Double.MAX_VALUE;
+        for (double count : counters.values()) smallest = Math.min(smallest, count);
+        return smallest;
+    }
+
+    Map<Long, Double> counters() {
+        return counters;
+    }
+}
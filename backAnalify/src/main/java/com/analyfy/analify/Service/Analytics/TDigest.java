@@ -0,0 +1,200 @@
+package com.analyfy.analify.Service.Analytics;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch (merging t-digest, Dunning 2019): values are summarised by weighted centroids,
+ * small near the tails and larger towards the median, so the number of centroids stays around the compression
+ * whatever the number of values. Two digests merge into one as accurate as a digest of all their values,
+ * which is what lets per-day digests be combined into any date range.
+ *
+ * Not thread-safe.
+ */
+public final class TDigest {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private final double compression;
+
+    // Centroids sorted by mean
+    private double[] means = new double[0];
+    private double[] weights = new double[0];
+
+    // Values added since the last compression
+    private double[] pendingMeans;
+    private double[] pendingWeights;
+    private int pending;
+
+    private double totalWeight;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    public TDigest(double compression) {
+        this.compression = Math.max(10, compression);
+        int bufferSize = (int) (5 * this.compression);
+        this.pendingMeans = new double[bufferSize];
+        this.pendingWeights = new double[bufferSize];
+    }
+
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    public void add(TDigest other) {
+        other.compress();
+        for (int i = 0; i < other.means.length; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    private void add(double mean, double weight) {
+        if (Double.isNaN(mean) || weight <= 0) return;
+        if (pending == pendingMeans.length) compress();
+        pendingMeans[pending] = mean;
+        pendingWeights[pending] = weight;
+        pending++;
+        totalWeight += weight;
+        min = Math.min(min, mean);
+        max = Math.max(max, mean);
+    }
+
+    public long size() {
+        return Math.round(totalWeight);
+    }
+
+    /**
+     * Estimated value at quantile q (0..1), interpolated between centroid means; NaN when empty.
+     */
+    public double quantile(double q) {
+        compress();
+        int count = means.length;
+        if (count == 0) return Double.NaN;
+        if (count == 1) return means[0];
+
+        double index = Math.min(Math.max(q, 0), 1) * totalWeight;
+        // Left of the first centroid's centre: between min and that centre
+        if (index < weights[0] / 2) {
+            return min + (means[0] - min) * index / (weights[0] / 2);
+        }
+        double weightSoFar = weights[0] / 2;
+        for (int i = 0; i < count - 1; i++) {
+            double gap = (weights[i] + weights[i + 1]) / 2;
+            if (weightSoFar + gap > index) {
+                return means[i] + (means[i + 1] - means[i]) * (index - weightSoFar) / gap;
+            }
+            weightSoFar += gap;
+        }
+        double last = weights[count - 1] / 2;
+        return means[count - 1] + (max - means[count - 1]) * Math.min(1, (index - weightSoFar) / last);
+    }
+
+    /**
+     * Estimate of the rank error of quantile(): half the heaviest centroid, as a fraction of all values
+     * (0 while every value is its own centroid). Not a bound: once digests are merged, a centroid may mix
+     * values that are not adjacent in the combined order, and the actual error can exceed it.
+     */
+    public double estimatedRankError() {
+        compress();
+        if (totalWeight == 0) return 0;
+        double heaviest = 0;
+        for (double weight : weights) heaviest = Math.max(heaviest, weight);
+        return heaviest <= 1 ? 0 : heaviest / 2 / totalWeight;
+    }
+
+    /**
+     * Fold the pending values into the centroids, merging neighbours while the k1 scale function allows it.
+     */
+    private void compress() {
+        if (pending == 0) return;
+        int count = means.length + pending;
+        double[] allMeans = Arrays.copyOf(means, count);
+        double[] allWeights = Arrays.copyOf(weights, count);
+        System.arraycopy(pendingMeans, 0, allMeans, means.length, pending);
+        System.arraycopy(pendingWeights, 0, allWeights, means.length, pending);
+        pending = 0;
+
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(allMeans[a], allMeans[b]));
+
+        double[] mergedMeans = new double[count];
+        double[] mergedWeights = new double[count];
+        int merged = 0;
+        double weightSoFar = 0;
+        double limit = totalWeight * inverseScale(scale(0) + 1);
+        double mean = allMeans[order[0]];
+        double weight = allWeights[order[0]];
+        for (int i = 1; i < count; i++) {
+            double nextMean = allMeans[order[i]];
+            double nextWeight = allWeights[order[i]];
+            if (weightSoFar + weight + nextWeight <= limit) {
+                weight += nextWeight;
+                mean += (nextMean - mean) * nextWeight / weight;
+            } else {
+                mergedMeans[merged] = mean;
+                mergedWeights[merged] = weight;
+                merged++;
+                weightSoFar += weight;
+                limit = totalWeight * inverseScale(scale(weightSoFar / totalWeight) + 1);
+                mean = nextMean;
+                weight = nextWeight;
+            }
+        }
+        mergedMeans[merged] = mean;
+        mergedWeights[merged] = weight;
+        merged++;
+
+        means = Arrays.copyOf(mergedMeans, merged);
+        weights = Arrays.copyOf(mergedWeights, merged);
+    }
+
+    // k1(q) = compression / 2pi * asin(2q - 1)
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(Math.max(q, 0), 1) - 1);
+    }
+
+    private double inverseScale(double k) {
+        return k >= compression / 4 ? 1 : (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    // version, compression, min, max, centroid count, then (mean, weight) per centroid
+    public byte[] toBytes() {
+        compress();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + 8 * 3 + 4 + means.length * 16);
+        buffer.put(FORMAT_VERSION);
+        buffer.putDouble(compression);
+        buffer.putDouble(min);
+        buffer.putDouble(max);
+        buffer.putInt(means.length);
+        for (int i = 0; i < means.length; i++) {
+            buffer.putDouble(means[i]);
+            buffer.putDouble(weights[i]);
+        }
+        return buffer.array();
+    }
+
+    public static TDigest fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        byte version = buffer.get();
+        if (version != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported t-digest format " + version);
+        }
+        TDigest digest = new TDigest(buffer.getDouble());
+        double min = buffer.getDouble();
+        double max = buffer.getDouble();
+        int count = buffer.getInt();
+        digest.means = new double[count];
+        digest.weights = new double[count];
+        for (int i = 0; i < count; i++) {
+            digest.means[i] = buffer.getDouble();
+            digest.weights[i] = buffer.getDouble();
+            digest.totalWeight += digest.weights[i];
+        }
+        digest.min = min;
+        digest.max = max;
+        return digest;
+    }
+}
@@ -0,0 +1,75 @@
+package com.analyfy.analify.Service.Analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Locale;
+
+/**
+ * Calendar resolution of a time series; the name is the PostgreSQL date_trunc unit.
+ * Buckets are labelled by their first day (weeks start on Monday, like date_trunc).
+ */
+public enum TimeBucket {
+    DAY, WEEK, MONTH, QUARTER, YEAR;
+
+    public String unit() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public LocalDate truncate(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+            case QUARTER -> LocalDate.of(day.getYear(), ((day.getMonthValue() - 1) / 3) * 3 + 1, 1);
+            case YEAR -> day.withDayOfYear(1);
+        };
+    }
+
+    /**
+     * First day of the bucket following the one starting on bucketStart.
+     */
+    public LocalDate next(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+            case QUARTER -> bucketStart.plusMonths(3);
+            case YEAR -> bucketStart.plusYears(1);
+        };
+    }
+
+    /**
+     * Number of buckets touched by [start, end].
+     */
+    public long count(LocalDate start, LocalDate end) {
+        if (start.isAfter(end)) return 0;
+        LocalDate first = truncate(start);
+        LocalDate last = truncate(end);
+        return switch (this) {
+            case DAY -> ChronoUnit.DAYS.between(first, last) + 1;
+            case WEEK -> ChronoUnit.WEEKS.between(first, last) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(first, last) + 1;
+            case QUARTER -> ChronoUnit.MONTHS.between(first, last) / 3 + 1;
+            case YEAR -> ChronoUnit.YEARS.between(first, last) + 1;
+        };
+    }
+
+    /**
+     * Whether whole buckets are unions of whole calendar months, so the monthly rollup tier can answer them.
+     */
+    public boolean spansMonths() {
+        return this == MONTH || this == QUARTER || this == YEAR;
+    }
+
+    /**
+     * Finest resolution that fits [start, end] in maxPoints buckets (YEAR when even years don't fit).
+     */
+    public static TimeBucket forRange(LocalDate start, LocalDate end, int maxPoints) {
+        for (TimeBucket bucket : values()) {
+            if (bucket.count(start, end) <= maxPoints) return bucket;
+        }
+        return YEAR;
+    }
+}
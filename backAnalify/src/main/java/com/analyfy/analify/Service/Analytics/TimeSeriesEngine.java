@@ -0,0 +1,183 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.TimeSeriesPoint;
+import com.analyfy.analify.Enum.ComparisonScope;
+import com.analyfy.analify.Enum.TimeSeriesSampling;
+import com.analyfy.analify.Excexption.BusinessValidationException;
+import com.analyfy.analify.Repository.BidRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dashboard time series with at most maxPoints rows leaving the database.
+ *
+ * The resolution (day, week, month, quarter, year) is the finest whose calendar buckets fit maxPoints
+ * between the first activity on the platform and the end of the range, and the database sums per bucket
+ * (date_trunc). LTTB sampling reads a series ten times finer and keeps the maxPoints points that best
+ * preserve its shape.
+ */
+@Component
+@RequiredArgsConstructor
+public class TimeSeriesEngine {
+
+    public static final int DEFAULT_MAX_POINTS = 20;
+    private static final int MAX_POINTS_LIMIT = 1000;
+    // LTTB selects its points from a series this many times denser than maxPoints
+    private static final int LTTB_OVERSAMPLING = 10;
+
+    private final SalesMetricsReader salesMetricsReader;
+    private final BidRepository bidRepository;
+
+    /**
+     * Validate a maxPoints request parameter; null means the default.
+     */
+    public static int maxPoints(Integer requested) {
+        if (requested == null) return DEFAULT_MAX_POINTS;
+        if (requested < 2 || requested > MAX_POINTS_LIMIT) {
+            throw new BusinessValidationException("maxPoints must be between 2 and " + MAX_POINTS_LIMIT);
+        }
+        return requested;
+    }
+
+    public List<TimeSeriesPoint> revenue(LocalDate start, LocalDate end, Long storeId, Long investorId, Long productId,
+                                         int maxPoints, TimeSeriesSampling sampling) {
+        LocalDate from = latest(start, salesMetricsReader.findFirstSalesDay());
+        if (from.isAfter(end)) return List.of();
+        TimeBucket bucket = TimeBucket.forRange(from, end, resolutionPoints(maxPoints, sampling));
+        return sample(toPoints(salesMetricsReader.findRevenueTimeSeries(from, end, storeId, investorId, productId, bucket)),
+                maxPoints, sampling);
+    }
+
+    /**
+     * Revenue series of several stores or investors from one grouped query, on the same calendar buckets
+     * (empty buckets are 0) so they can be compared point by point. Bucket totals only: LTTB would keep
+     * different dates in each series.
+     */
+    public ScopeSeries revenueByScope(LocalDate start, LocalDate end, ComparisonScope scope, Collection<Long> ids, int maxPoints) {
+        LocalDate from = latest(start, salesMetricsReader.findFirstSalesDay());
+        Map<Long, List<TimeSeriesPoint>> series = new LinkedHashMap<>();
+        if (from.isAfter(end)) {
+            ids.forEach(id -> series.put(id, List.of()));
+            return new ScopeSeries(TimeBucket.forRange(start, end, maxPoints), series);
+        }
+        TimeBucket bucket = TimeBucket.forRange(from, end, maxPoints);
+
+        Map<Long, Map<String, Double>> revenue = new HashMap<>();
+        for (Object[] row : salesMetricsReader.findScopeRevenueTimeSeries(from, end, scope, ids, bucket)) {
+            revenue.computeIfAbsent(((Number) row[0]).longValue(), id -> new HashMap<>())
+                    .put(row[1].toString(), row[2] instanceof Number number ? number.doubleValue() : 0.0);
+        }
+        for (Long id : ids) {
+            Map<String, Double> values = revenue.getOrDefault(id, Map.of());
+            List<TimeSeriesPoint> points = new ArrayList<>();
+            for (LocalDate day = bucket.truncate(from); !day.isAfter(end); day = bucket.next(day)) {
+                String label = day.toString();
+                points.add(TimeSeriesPoint.builder().date(label).value(values.getOrDefault(label, 0.0)).build());
+            }
+            series.put(id, points);
+        }
+        return new ScopeSeries(bucket, series);
+    }
+
+    /**
+     * Bids placed per bucket. Memoized per request: read by the time series and by the section statistics.
+     */
+    public List<TimeSeriesPoint> bids(LocalDateTime start, LocalDateTime end, Long investorId,
+                                      int maxPoints, TimeSeriesSampling sampling) {
+        LocalDateTime firstBid = QueryMemo.memoize("bid.firstTime", bidRepository::findFirstBidTime);
+        LocalDate from = latest(start.toLocalDate(), firstBid != null ? firstBid.toLocalDate() : null);
+        if (from.isAfter(end.toLocalDate())) return List.of();
+        TimeBucket bucket = TimeBucket.forRange(from, end.toLocalDate(), resolutionPoints(maxPoints, sampling));
+        List<Object[]> rows = QueryMemo.memoize("bid.overTime",
+                () -> bidRepository.findBidsOverTime(start, end, investorId, bucket.unit()), start, end, investorId, bucket);
+        return sample(toPoints(rows), maxPoints, sampling);
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets: keeps the first and last points and, in each of the threshold - 2 buckets
+     * in between, the point forming the largest triangle with the previously kept point and the next bucket's average.
+     * Dates are placed on the x axis by their epoch day, so gaps in the series are taken into account.
+     */
+    public static List<TimeSeriesPoint> lttb(List<TimeSeriesPoint> data, int threshold) {
+        int size = data.size();
+        if (threshold >= size) return data;
+        if (threshold <= 2) return List.of(data.get(0), data.get(size - 1));
+
+        double[] x = new double[size];
+        double[] y = new double[size];
+        for (int i = 0; i < size; i++) {
+            x[i] = LocalDate.parse(data.get(i).getDate()).toEpochDay();
+            y[i] = data.get(i).getValue() != null ? data.get(i).getValue() : 0.0;
+        }
+
+        List<TimeSeriesPoint> sampled = new ArrayList<>(threshold);
+        sampled.add(data.get(0));
+        double every = (double) (size - 2) / (threshold - 2);
+        int previous = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int nextStart = (int) (Math.floor((bucket + 1) * every) + 1);
+            int nextEnd = Math.min((int) (Math.floor((bucket + 2) * every) + 1), size);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            averageX /= nextEnd - nextStart;
+            averageY /= nextEnd - nextStart;
+
+            int start = (int) (Math.floor(bucket * every) + 1);
+            int end = (int) (Math.floor((bucket + 1) * every) + 1);
+            double maxArea = -1;
+            int selected = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((x[previous] - averageX) * (y[i] - y[previous])
+                        - (x[previous] - x[i]) * (averageY - y[previous]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+            sampled.add(data.get(selected));
+            previous = selected;
+        }
+        sampled.add(data.get(size - 1));
+        return sampled;
+    }
+
+    private static int resolutionPoints(int maxPoints, TimeSeriesSampling sampling) {
+        return sampling == TimeSeriesSampling.LTTB ? maxPoints * LTTB_OVERSAMPLING : maxPoints;
+    }
+
+    private static List<TimeSeriesPoint> sample(List<TimeSeriesPoint> series, int maxPoints, TimeSeriesSampling sampling) {
+        return sampling == TimeSeriesSampling.LTTB ? lttb(series, maxPoints) : series;
+    }
+
+    private static LocalDate latest(LocalDate start, LocalDate firstActivity) {
+        return firstActivity != null && firstActivity.isAfter(start) ? firstActivity : start;
+    }
+
+    private static List<TimeSeriesPoint> toPoints(List<Object[]> rows) {
+        return rows.stream()
+                .map(row -> TimeSeriesPoint.builder()
+                        .date(row[0].toString())
+                        .value(row[1] instanceof Number number ? number.doubleValue() : 0.0)
+                        .build())
+                .toList();
+    }
+
+    /**
+     * Series per scope id, in the order of the requested ids.
+     */
+    public record ScopeSeries(TimeBucket bucket, Map<Long, List<TimeSeriesPoint>> series) {
+    }
+}
@@ -0,0 +1,420 @@
+package com.analyfy.analify.Service;
+
+import com.analyfy.analify.DTO.Statistics.AnalyticsJobDTO;
+import com.analyfy.analify.DTO.Statistics.AnalyticsJobRequest;
+import com.analyfy.analify.DTO.Statistics.StatisticsFilterDTO;
+import com.analyfy.analify.Enum.AdmissionLane;
+import com.analyfy.analify.Enum.AnalyticsJobPriority;
+import com.analyfy.analify.Enum.AnalyticsJobStatus;
+import com.analyfy.analify.Enum.AnalyticsJobType;
+import com.analyfy.analify.Enum.ComparisonPeriod;
+import com.analyfy.analify.Enum.ComparisonScope;
+import com.analyfy.analify.Enum.ForecastMetric;
+import com.analyfy.analify.Enum.TimeSeriesSampling;
+import com.analyfy.analify.Enum.UserRole;
+import com.analyfy.analify.Excexption.AccessDeniedException;
+import com.analyfy.analify.Excexption.BusinessValidationException;
+import com.analyfy.analify.Excexption.ResourceNotFoundException;
+import com.analyfy.analify.Excexption.TooManyRequestsException;
+import com.analyfy.analify.Service.Analytics.AdmissionControl;
+import com.analyfy.analify.Service.Analytics.QueryCounter;
+import com.analyfy.analify.Service.Analytics.QueryMemo;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Runs heavy analytics reports (all-time dashboards, multi-store comparisons, forecasts) in the background,
+ * so they do not hold a request thread: a client submits a report spec, gets a job id, follows the job and
+ * downloads the result.
+ *
+ * Jobs run on analytics.jobs.threads workers, highest priority first then in submission order; at most
+ * analytics.jobs.queue-capacity wait, and submissions beyond are refused. A job runs with its submitter's id
+ * and role, so it sees exactly what the synchronous endpoint would show them, and only its submitter can see it.
+ * Finished jobs and their results are kept analytics.jobs.retention-minutes.
+ *
+ * A user has at most analytics.jobs.max-active-per-user jobs queued or running; beyond that, submissions are refused.
+ * At most analytics.jobs.max-retained-per-user of their jobs are kept: a submission discards their oldest finished
+ * jobs to make room.
+ */
+@Service
+@Slf4j
+public class AnalyticsJobService {
+
+    private final StatisticsService statisticsService;
+    private final EnhancedStatisticsService enhancedStatisticsService;
+    private final AdmissionControl admissionControl;
+    private final int queueCapacity;
+    private final int maxActivePerUser;
+    private final int maxRetainedPerUser;
+    private final long retentionMillis;
+    private final ThreadPoolExecutor workers;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    public AnalyticsJobService(
+            StatisticsService statisticsService,
+            EnhancedStatisticsService enhancedStatisticsService,
+            AdmissionControl admissionControl,
+            @Value("${analytics.jobs.threads:2}") int threads,
+            @Value("${analytics.jobs.queue-capacity:50}") int queueCapacity,
+            @Value("${analytics.jobs.retention-minutes:60}") long retentionMinutes,
+            @Value("${analytics.jobs.max-active-per-user:5}") int maxActivePerUser,
+            @Value("${analytics.jobs.max-retained-per-user:20}") int maxRetainedPerUser) {
+        this.statisticsService = statisticsService;
+        this.enhancedStatisticsService = enhancedStatisticsService;
+        this.admissionControl = admissionControl;
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.retentionMillis = TimeUnit.MINUTES.toMillis(Math.max(1, retentionMinutes));
+        this.maxActivePerUser = Math.max(1, maxActivePerUser);
+        this.maxRetainedPerUser = Math.max(this.maxActivePerUser, maxRetainedPerUser);
+        int poolSize = Math.max(1, threads);
+        AtomicInteger workerCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(),
+                task -> {
+                    Thread worker = new Thread(task, "analytics-job-" + workerCount.incrementAndGet());
+                    worker.setDaemon(true);
+                    return worker;
+                });
+    }
+
+    /**
+     * Queue a report. Returns its state, or null when the queue is full.
+     * Throws TooManyRequestsException when the user already has the most active jobs allowed.
+     */
+    public AnalyticsJobDTO submit(Long userId, UserRole role, AnalyticsJobRequest request) {
+        AnalyticsJobType type = AnalyticsJobType.fromParam(request.getType());
+        AnalyticsJobPriority priority = AnalyticsJobPriority.fromParam(request.getPriority());
+        validate(type, role, request);
+
+        Job job = new Job(UUID.randomUUID().toString(), userId, role, type, priority, request, sequence.incrementAndGet());
+        synchronized (workers) {
+            List<Job> userJobs = jobs.values().stream()
+                    .filter(other -> other.userId.equals(userId))
+                    .sorted(Comparator.comparingLong((Job other) -> other.sequence))
+                    .toList();
+            if (userJobs.stream().filter(other -> !other.status.isFinished()).count() >= maxActivePerUser) {
+                rejected.increment();
+                throw new TooManyRequestsException("At most " + maxActivePerUser + " analytics jobs can be queued or running per user");
+            }
+            if (workers.getQueue().size() >= queueCapacity) {
+                rejected.increment();
+                return null;
+            }
+            // Oldest finished jobs first, until the new one fits in the user's retained jobs
+            int excess = userJobs.size() + 1 - maxRetainedPerUser;
+            for (Job other : userJobs) {
+                if (excess <= 0) break;
+                if (other.status.isFinished() && jobs.remove(other.id) != null) excess--;
+            }
+            jobs.put(job.id, job);
+            workers.execute(job.task);
+        }
+        submitted.increment();
+        log.info("Analytics job {} ({}, {}) queued for user {}", job.id, type.toParam(), priority.toParam(), userId);
+        return job.snapshot();
+    }
+
+    public AnalyticsJobDTO status(String jobId, Long userId) {
+        return find(jobId, userId).snapshot();
+    }
+
+    /**
+     * Jobs of a user still retained, most recent first.
+     */
+    public List<AnalyticsJobDTO> list(Long userId) {
+        return jobs.values().stream()
+                .filter(job -> job.userId.equals(userId))
+                .sorted(Comparator.comparingLong((Job job) -> job.sequence).reversed())
+                .map(Job::snapshot)
+                .toList();
+    }
+
+    /**
+     * Result of a SUCCEEDED job; null while the job has not succeeded.
+     */
+    public Object result(String jobId, Long userId) {
+        Job job = find(jobId, userId);
+        return job.status == AnalyticsJobStatus.SUCCEEDED ? job.result : null;
+    }
+
+    /**
+     * Cancel a queued or running job (a running query is interrupted, its result dropped);
+     * a finished job is discarded with its result.
+     */
+    public AnalyticsJobDTO cancel(String jobId, Long userId) {
+        Job job = find(jobId, userId);
+        if (job.status.isFinished()) {
+            jobs.remove(job.id);
+            return job.snapshot();
+        }
+        workers.remove(job.task);
+        job.task.cancel(true);
+        job.finish(AnalyticsJobStatus.CANCELLED, null, null);
+        return job.snapshot();
+    }
+
+    /**
+     * Follow a job: the listener gets its current state now and after every change, until a finished state.
+     * Returns what stops the notifications.
+     */
+    public Runnable subscribe(String jobId, Long userId, Consumer<AnalyticsJobDTO> listener) {
+        Job job = find(jobId, userId);
+        job.listeners.add(listener);
+        listener.accept(job.snapshot());
+        return () -> job.listeners.remove(listener);
+    }
+
+    /**
+     * Queue and outcome counters (ADMIN_G).
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", workers.getQueue().size());
+        stats.put("running", workers.getActiveCount());
+        stats.put("retained", jobs.size());
+        stats.put("threads", workers.getMaximumPoolSize());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("maxActivePerUser", maxActivePerUser);
+        stats.put("maxRetainedPerUser", maxRetainedPerUser);
+        stats.put("submitted", submitted.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("succeeded", succeeded.sum());
+        stats.put("failed", failed.sum());
+        stats.put("cancelled", cancelled.sum());
+        return stats;
+    }
+
+    // Finished jobs leave with their results once retained long enough
+    @Scheduled(fixedDelayString = "${analytics.jobs.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.status.isFinished() && job.finishedMillis + retentionMillis <= now);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    private Job find(String jobId, Long userId) {
+        Job job = jobId != null ? jobs.get(jobId) : null;
+        if (job == null || !job.userId.equals(userId)) {
+            throw new ResourceNotFoundException("Analytics job not found: " + jobId);
+        }
+        return job;
+    }
+
+    // Parse every parameter now, so a bad spec is refused at submission rather than failing in the queue
+    private static void validate(AnalyticsJobType type, UserRole role, AnalyticsJobRequest request) {
+        ComparisonPeriod.fromParam(request.getCompareTo());
+        TimeSeriesSampling.fromParam(request.getSampling());
+        if (request.getStartDate() != null && request.getEndDate() != null
+                && request.getStartDate().isAfter(request.getEndDate())) {
+            throw new BusinessValidationException("startDate must not be after endDate");
+        }
+        switch (type) {
+            case PREDICTIONS -> ForecastMetric.fromParam(request.getMetric());
+            case COMPARISON -> {
+                if (role != UserRole.ADMIN_G) {
+                    throw new AccessDeniedException("Only ADMIN_G can compare stores or investors");
+                }
+                ComparisonScope.fromParam(request.getScope());
+                if (request.getIds() == null || request.getIds().isEmpty()) {
+                    throw new BusinessValidationException("ids must name at least one store or investor");
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private Object compute(Job job) {
+        AnalyticsJobRequest request = job.request;
+        StatisticsFilterDTO filter = StatisticsFilterDTO.builder()
+                .startDate(request.getStartDate())
+                .endDate(request.getEndDate())
+                .storeId(request.getStoreId())
+                .investorId(request.getInvestorId())
+                .productId(request.getProductId())
+                .compareTo(ComparisonPeriod.fromParam(request.getCompareTo()))
+                .maxPoints(request.getMaxPoints())
+                .sampling(TimeSeriesSampling.fromParam(request.getSampling()))
+                .approximate(request.getApproximate())
+                .build();
+        return switch (job.type) {
+            case DASHBOARD -> statisticsService.getDashboard(job.userId, job.role, filter);
+            case ENHANCED_DASHBOARD -> QueryMemo.using(new QueryMemo(), () -> enhancedStatisticsService.getEnhancedDashboard(
+                    job.userId, job.role, filter, request.getInclude(), job::sectionDone));
+            case PREDICTIONS -> statisticsService.getPredictions(job.userId, job.role, request.getMetric(), filter);
+            case COMPARISON -> statisticsService.compareScopes(filter, ComparisonScope.fromParam(request.getScope()), request.getIds());
+        };
+    }
+
+    private final class Job {
+        private final String id;
+        private final Long userId;
+        private final UserRole role;
+        private final AnalyticsJobType type;
+        private final AnalyticsJobPriority priority;
+        private final AnalyticsJobRequest request;
+        private final long sequence;
+        private final LocalDateTime submittedAt = LocalDateTime.now();
+        private final JobTask task;
+        private final List<Consumer<AnalyticsJobDTO>> listeners = new CopyOnWriteArrayList<>();
+        private final List<String> completedSections = new CopyOnWriteArrayList<>();
+        private final LongAdder queries = new LongAdder();
+
+        private volatile AnalyticsJobStatus status = AnalyticsJobStatus.QUEUED;
+        private volatile LocalDateTime startedAt;
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedMillis;
+        private volatile Object result;
+        private volatile String error;
+
+        private Job(String id, Long userId, UserRole role, AnalyticsJobType type, AnalyticsJobPriority priority,
+                    AnalyticsJobRequest request, long sequence) {
+            this.id = id;
+            this.userId = userId;
+            this.role = role;
+            this.type = type;
+            this.priority = priority;
+            this.request = request;
+            this.sequence = sequence;
+            this.task = new JobTask(this);
+        }
+
+        private void run() {
+            synchronized (this) {
+                if (status != AnalyticsJobStatus.QUEUED) return;
+                status = AnalyticsJobStatus.RUNNING;
+                startedAt = LocalDateTime.now();
+            }
+            notifyListeners();
+            try {
+                // Jobs share the analytics connection slots with the requests, on their own lane
+                Object computed = admissionControl.inBackground(AdmissionLane.JOB, () -> QueryCounter.counting(queries, () -> compute(this)));
+                finish(AnalyticsJobStatus.SUCCEEDED, computed, null);
+            } catch (InterruptedException e) {
+                // Cancelled while waiting for capacity: the job is already CANCELLED
+                Thread.currentThread().interrupt();
+                finish(AnalyticsJobStatus.CANCELLED, null, null);
+            } catch (Throwable e) {
+                log.warn("Analytics job {} ({}) failed", id, type.toParam(), e);
+                finish(AnalyticsJobStatus.FAILED, null, String.valueOf(e.getMessage()));
+                // The job is FAILED either way, but an Error is not the job's to swallow
+                if (e instanceof Error error) throw error;
+            }
+        }
+
+        private void sectionDone(String section) {
+            if (!completedSections.contains(section)) {
+                completedSections.add(section);
+                notifyListeners();
+            }
+        }
+
+        // The first outcome wins: a job cancelled while running keeps CANCELLED when its computation returns
+        private void finish(AnalyticsJobStatus outcome, Object value, String message) {
+            synchronized (this) {
+                if (status.isFinished()) return;
+                status = outcome;
+                result = value;
+                error = message;
+                finishedAt = LocalDateTime.now();
+                finishedMillis = System.currentTimeMillis();
+            }
+            switch (outcome) {
+                case SUCCEEDED -> succeeded.increment();
+                case FAILED -> failed.increment();
+                case CANCELLED -> cancelled.increment();
+                default -> {
+                }
+            }
+            log.info("Analytics job {} ({}) {} after {} queries", id, type.toParam(), outcome, queries.sum());
+            notifyListeners();
+            listeners.clear();
+        }
+
+        private void notifyListeners() {
+            if (listeners.isEmpty()) return;
+            AnalyticsJobDTO snapshot = snapshot();
+            for (Consumer<AnalyticsJobDTO> listener : listeners) {
+                try {
+                    listener.accept(snapshot);
+                } catch (RuntimeException e) {
+                    listeners.remove(listener);
+                }
+            }
+        }
+
+        private AnalyticsJobDTO snapshot() {
+            AnalyticsJobStatus current = status;
+            return AnalyticsJobDTO.builder()
+                    .jobId(id)
+                    .type(type.toParam())
+                    .priority(priority.toParam())
+                    .status(current.name())
+                    .submittedAt(submittedAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .expiresAt(current.isFinished() && finishedAt != null
+                            ? finishedAt.plusNanos(TimeUnit.MILLISECONDS.toNanos(retentionMillis)) : null)
+                    .queuePosition(current == AnalyticsJobStatus.QUEUED ? queuePosition() : null)
+                    .completedSections(new ArrayList<>(completedSections))
+                    .queryCount(queries.sum())
+                    .error(error)
+                    .build();
+        }
+
+        private int queuePosition() {
+            return (int) workers.getQueue().stream()
+                    .filter(queued -> queued instanceof JobTask other && other.compareTo(task) < 0)
+                    .count();
+        }
+    }
+
+    // Queue entry ordered by priority, then submission
+    private static final class JobTask extends FutureTask<Void> implements Comparable<JobTask> {
+        private final AnalyticsJobPriority priority;
+        private final long sequence;
+
+        private JobTask(Job job) {
+            super(job::run, null);
+            this.priority = job.priority;
+            this.sequence = job.sequence;
+        }
+
+        @Override
+        public int compareTo(JobTask other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+}
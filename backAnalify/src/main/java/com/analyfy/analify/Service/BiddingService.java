@@ -5,15 +5,21 @@ import com.analyfy.analify.Entity.*;
 import com.analyfy.analify.Mapper.*;
 import com.analyfy.analify.Repository.*;
 import com.analyfy.analify.DTO.Bids.*;
+import com.analyfy.analify.Service.Analytics.AnalyticsDataChangedEvent;
+import com.analyfy.analify.Service.Analytics.BiddingStatsService;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,6 +31,8 @@ public class BiddingService {
     private final InvestorRepository investorRepository;
     private final BidMapper bidMapper;
     private final SectionMapper sectionMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BiddingStatsService biddingStatsService;
 
     // ==================== AJOUTER UNE ENCHÈRE ====================
     
@@ -59,12 +67,18 @@ public class BiddingService {
         }
         
         // 5. Mettre à jour toutes les enchères précédentes à OUTBID
+        BiddingStatsService.SectionState sectionBefore = biddingStatsService.capture(section);
         List<Bid> previousBids = bidRepository.findBySectionSectionIdAndStatus(
             section.getSectionId(), "PENDING"
         );
+        Set<Long> affectedInvestors = new HashSet<>();
+        affectedInvestors.add(investor.getUserId());
         for (Bid oldBid : previousBids) {
+            BiddingStatsService.BidState bidBefore = biddingStatsService.capture(oldBid);
             oldBid.setStatus("OUTBID");
             bidRepository.save(oldBid);
+            biddingStatsService.bidChanged(bidBefore, oldBid);
+            affectedInvestors.add(oldBid.getInvestor().getUserId());
         }
         
         // 6. Créer la nouvelle enchère avec statut WINNER
@@ -76,6 +90,7 @@ public class BiddingService {
         newBid.setStatus("PENDING");
         
         Bid savedBid = bidRepository.save(newBid);
+        biddingStatsService.bidChanged(null, savedBid);
         
         // 7. Mettre à jour le currentPrice et le statut de la section
         section.setCurrentPrice(request.getAmount());
@@ -85,6 +100,10 @@ public class BiddingService {
         section.setStatus("OPEN-BIDDEN BY " + uniqueBidders);
         
         sectionRepository.save(section);
+        biddingStatsService.sectionChanged(sectionBefore, section);
+
+        // 8. Invalider les dashboards en cache des investisseurs concernés
+        eventPublisher.publishEvent(AnalyticsDataChangedEvent.forBid(affectedInvestors));
         
         return bidMapper.toDto(savedBid);
     }
@@ -115,6 +134,10 @@ public void cancelBid(Long bidId) {
     boolean wasPending = "PENDING".equals(bid.getStatus());
     
     // 4. Supprimer l'enchère
+    Set<Long> affectedInvestors = new HashSet<>();
+    affectedInvestors.add(bid.getInvestor().getUserId());
+    BiddingStatsService.SectionState sectionBefore = biddingStatsService.capture(section);
+    biddingStatsService.bidChanged(biddingStatsService.capture(bid), null);
     bidRepository.delete(bid);
     
     // 5. Si c'était l'enchère PENDING, trouver et promouvoir la suivante
@@ -131,8 +154,11 @@ public void cancelBid(Long bidId) {
             
             if (nextBestBid != null) {
                 // Promouvoir cette enchère à PENDING
+                BiddingStatsService.BidState bidBefore = biddingStatsService.capture(nextBestBid);
                 nextBestBid.setStatus("PENDING");
                 bidRepository.save(nextBestBid);
+                biddingStatsService.bidChanged(bidBefore, nextBestBid);
+                affectedInvestors.add(nextBestBid.getInvestor().getUserId());
                 
                 // Mettre à jour le prix actuel de la section
                 section.setCurrentPrice(nextBestBid.getAmount());
@@ -154,7 +180,11 @@ public void cancelBid(Long bidId) {
         }
         
         sectionRepository.save(section);
+        biddingStatsService.sectionChanged(sectionBefore, section);
     }
+
+    // 6. Invalider les dashboards en cache des investisseurs concernés
+    eventPublisher.publishEvent(AnalyticsDataChangedEvent.forBid(affectedInvestors));
 }
     
     // ==================== RÉCUPÉRER LES ENCHÈRES ====================
@@ -277,8 +307,14 @@ public void cancelBid(Long bidId) {
         LocalDate today = LocalDate.now();
         List<Section> sectionsToClose = sectionRepository.findSectionsToClose(today);
         
+        Set<Long> affectedInvestors = new HashSet<>();
         for (Section section : sectionsToClose) {
-            closeSectionAndAssignWinner(section);
+            affectedInvestors.addAll(closeSectionAndAssignWinner(section));
+        }
+
+        // Invalider les dashboards en cache des gagnants et des enchéreurs
+        if (!sectionsToClose.isEmpty()) {
+            eventPublisher.publishEvent(AnalyticsDataChangedEvent.forBid(affectedInvestors));
         }
     }
 
@@ -294,18 +330,23 @@ public void cancelBid(Long bidId) {
             throw new RuntimeException("Cette section est déjà fermée");
         }
         
-        closeSectionAndAssignWinner(section);
+        Set<Long> affectedInvestors = closeSectionAndAssignWinner(section);
+
+        // Invalider les dashboards en cache du gagnant et des enchéreurs
+        eventPublisher.publishEvent(AnalyticsDataChangedEvent.forBid(affectedInvestors));
         
         return sectionMapper.toDto(section);
     }
 
     /**
-     * Méthode privée pour clôturer une section et assigner le gagnant
+     * Méthode privée pour clôturer une section et assigner le gagnant.
+     * Retourne les investisseurs concernés: le gagnant et tous les enchéreurs de la section.
      */
-    private void closeSectionAndAssignWinner(Section section) {
+    private Set<Long> closeSectionAndAssignWinner(Section section) {
         // Trouver l'enchère gagnante
         Bid winningBid = bidRepository.findCurrentWinnerBid(section.getSectionId())
             .orElse(null);
+        BiddingStatsService.SectionState before = biddingStatsService.capture(section);
         
         if (winningBid != null) {
             // Assigner le gagnant
@@ -318,6 +359,13 @@ public void cancelBid(Long bidId) {
         }
         
         sectionRepository.save(section);
+        biddingStatsService.sectionChanged(before, section);
+
+        Set<Long> affectedInvestors = new HashSet<>(bidRepository.findBidderIdsBySection(section.getSectionId()));
+        if (section.getWinnerInvestor() != null) {
+            affectedInvestors.add(section.getWinnerInvestor().getUserId());
+        }
+        return affectedInvestors;
     }
 
     // ==================== GESTION DES PÉRIODES MENSUELLES ====================
@@ -330,8 +378,15 @@ public void cancelBid(Long bidId) {
     @Transactional
     public void increasePricesForNewMonth() {
         List<Section> allSections = sectionRepository.findAll();
+        List<BiddingStatsService.SectionState> before = new ArrayList<>();
+        Set<Long> affectedInvestors = new HashSet<>(bidRepository.findAllBidderIds());
         
         for (Section section : allSections) {
+            before.add(biddingStatsService.capture(section));
+            if (section.getWinnerInvestor() != null) {
+                affectedInvestors.add(section.getWinnerInvestor().getUserId());
+            }
+            
             // Augmenter basePrice de 2%
             double newBasePrice = section.getBasePrice() * 1.02;
             section.setBasePrice(newBasePrice);
@@ -351,6 +406,12 @@ public void cancelBid(Long bidId) {
             
             sectionRepository.save(section);
         }
+        
+        // Toutes les sections changent: une seule mise à jour des statistiques
+        biddingStatsService.sectionsChanged(before, allSections);
+
+        // Invalider les dashboards en cache des anciens gagnants et des enchéreurs
+        eventPublisher.publishEvent(AnalyticsDataChangedEvent.forBid(affectedInvestors));
     }
 
     /**
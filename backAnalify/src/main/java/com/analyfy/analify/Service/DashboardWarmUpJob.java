@@ -0,0 +1,241 @@
+package com.analyfy.analify.Service;
+
+import com.analyfy.analify.DTO.Statistics.StatisticsFilterDTO;
+import com.analyfy.analify.Enum.AdmissionLane;
+import com.analyfy.analify.Enum.UserRole;
+import com.analyfy.analify.Repository.AdminGRepository;
+import com.analyfy.analify.Repository.AdminStoreRepository;
+import com.analyfy.analify.Repository.InvestorRepository;
+import com.analyfy.analify.Service.Analytics.AdmissionControl;
+import com.analyfy.analify.Service.Analytics.DashboardCache;
+import com.analyfy.analify.Service.Analytics.DashboardExecutionEngine;
+import com.analyfy.analify.Service.Analytics.QueryCounter;
+import com.analyfy.analify.Service.Analytics.QueryMemo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Computes the default-range dashboards of every scope before business hours, so the first requests of the day
+ * hit the dashboard cache: the platform (ADMIN_G), each managed store (ADMIN_STORE) and each investor.
+ *
+ * Scopes run on at most analytics.warmup.parallelism workers. All of a run's query groups share a semaphore of
+ * analytics.engine.node-parallelism minus analytics.warmup.min-free-permits permits, so the warm-up never holds the
+ * engine slots kept for live requests, and each scope is admitted on the warm-up lane of the AdmissionControl.
+ * Scopes not started within analytics.warmup.max-minutes are skipped. Warmed dashboards stay cached for
+ * analytics.warmup.ttl-seconds unless their data changes.
+ */
+@Component
+@Slf4j
+public class DashboardWarmUpJob {
+
+    private final EnhancedStatisticsService enhancedStatisticsService;
+    private final StatisticsService statisticsService;
+    private final DashboardExecutionEngine executionEngine;
+    private final AdmissionControl admissionControl;
+    private final AdminGRepository adminGRepository;
+    private final AdminStoreRepository adminStoreRepository;
+    private final InvestorRepository investorRepository;
+    private final boolean enabled;
+    private final Set<DashboardCache.View> views;
+    private final int parallelism;
+    private final int minFreePermits;
+    private final long maxMillis;
+    private final long ttlMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder runs = new LongAdder();
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    public DashboardWarmUpJob(
+            EnhancedStatisticsService enhancedStatisticsService,
+            StatisticsService statisticsService,
+            DashboardExecutionEngine executionEngine,
+            AdmissionControl admissionControl,
+            AdminGRepository adminGRepository,
+            AdminStoreRepository adminStoreRepository,
+            InvestorRepository investorRepository,
+            @Value("${analytics.warmup.enabled:true}") boolean enabled,
+            @Value("${analytics.warmup.views:ENHANCED,BASIC}") String views,
+            @Value("${analytics.warmup.parallelism:2}") int parallelism,
+            @Value("${analytics.warmup.min-free-permits:4}") int minFreePermits,
+            @Value("${analytics.warmup.max-minutes:60}") long maxMinutes,
+            @Value("${analytics.warmup.ttl-seconds:14400}") long ttlSeconds) {
+        this.enhancedStatisticsService = enhancedStatisticsService;
+        this.statisticsService = statisticsService;
+        this.executionEngine = executionEngine;
+        this.admissionControl = admissionControl;
+        this.adminGRepository = adminGRepository;
+        this.adminStoreRepository = adminStoreRepository;
+        this.investorRepository = investorRepository;
+        this.enabled = enabled;
+        this.views = parseViews(views);
+        this.parallelism = Math.max(1, parallelism);
+        this.minFreePermits = Math.max(0, minFreePermits);
+        this.maxMillis = TimeUnit.MINUTES.toMillis(Math.max(1, maxMinutes));
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+    }
+
+    // Before business hours, after the nightly forecast batch the dashboards read
+    @Scheduled(cron = "${analytics.warmup.cron:0 0 6 * * *}")
+    public void runScheduled() {
+        if (!enabled) return;
+        try {
+            run();
+        } catch (RuntimeException e) {
+            log.error("Dashboard warm-up failed", e);
+        }
+    }
+
+    /**
+     * Warm every scope now. Returns the run statistics, or null when a run is already in progress.
+     */
+    public Map<String, Object> run() {
+        if (!running.compareAndSet(false, true)) return null;
+        LocalDateTime startedAt = LocalDateTime.now();
+        long startedMillis = System.currentTimeMillis();
+        long deadline = startedMillis + maxMillis;
+        try {
+            // Most requested first: the platform, then the stores, then the investors
+            List<Scope> scopes = new ArrayList<>();
+            Long adminId = adminGRepository.findFirstAdminId();
+            List<Object[]> storeAdmins = adminStoreRepository.findOneAdminPerStore();
+            List<Long> investorIds = investorRepository.findAllInvestorIds();
+            for (DashboardCache.View view : views) {
+                if (adminId != null) scopes.add(new Scope(view, UserRole.ADMIN_G, adminId, null));
+                storeAdmins.forEach(row -> scopes.add(new Scope(view, UserRole.ADMIN_STORE,
+                        ((Number) row[1]).longValue(), ((Number) row[0]).longValue())));
+                investorIds.forEach(id -> scopes.add(new Scope(view, UserRole.INVESTOR, id, null)));
+            }
+
+            LongAdder warmed = new LongAdder();
+            LongAdder alreadyCached = new LongAdder();
+            LongAdder skipped = new LongAdder();
+            LongAdder failed = new LongAdder();
+            LongAdder queries = new LongAdder();
+            LongAdder warmMillis = new LongAdder();
+            LongAccumulator slowestMillis = new LongAccumulator(Math::max, 0);
+            // Query groups of the whole run, whatever the scope: the engine keeps the rest for live requests
+            int nodeParallelism = executionEngine.nodeParallelism();
+            Semaphore runPermits = new Semaphore(Math.max(1, nodeParallelism - Math.min(minFreePermits, nodeParallelism)), true);
+            try (ExecutorService workers = Executors.newFixedThreadPool(parallelism)) {
+                List<Future<?>> tasks = new ArrayList<>();
+                for (Scope scope : scopes) {
+                    tasks.add(workers.submit(() -> {
+                        if (System.currentTimeMillis() >= deadline) {
+                            skipped.increment();
+                            return;
+                        }
+                        long scopeStarted = System.currentTimeMillis();
+                        try {
+                            if (warm(scope, runPermits, queries)) {
+                                warmed.increment();
+                            } else {
+                                alreadyCached.increment();
+                            }
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            skipped.increment();
+                            return;
+                        } catch (RuntimeException e) {
+                            failed.increment();
+                            log.warn("Dashboard warm-up failed for {}", scope, e);
+                        }
+                        long elapsed = System.currentTimeMillis() - scopeStarted;
+                        warmMillis.add(elapsed);
+                        slowestMillis.accumulate(elapsed);
+                    }));
+                }
+                for (Future<?> task : tasks) {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Dashboard warm-up interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Dashboard warm-up failed", e.getCause());
+            }
+
+            long done = warmed.sum() + alreadyCached.sum();
+            long started = done + failed.sum();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("startedAt", startedAt.toString());
+            stats.put("durationMs", System.currentTimeMillis() - startedMillis);
+            stats.put("views", views);
+            stats.put("stores", storeAdmins.size());
+            stats.put("investors", investorIds.size());
+            stats.put("scopes", scopes.size());
+            stats.put("warmed", warmed.sum());
+            stats.put("alreadyCached", alreadyCached.sum());
+            stats.put("skipped", skipped.sum());
+            stats.put("failed", failed.sum());
+            stats.put("coverage", scopes.isEmpty() ? 1.0 : Math.round(done * 10000.0 / scopes.size()) / 10000.0);
+            stats.put("queries", queries.sum());
+            stats.put("averageScopeMs", started > 0 ? warmMillis.sum() / started : 0);
+            stats.put("slowestScopeMs", slowestMillis.get());
+            runs.increment();
+            lastRun = stats;
+            log.info("Dashboard warm-up done in {} ms: {}", stats.get("durationMs"), stats);
+            return stats;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Statistics of the last completed run, plus whether one is running now.
+     */
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(lastRun);
+        stats.put("running", running.get());
+        stats.put("runs", runs.sum());
+        return stats;
+    }
+
+    // Same calls as the dashboard endpoints with no parameter (a store admin's basic view names its store), admitted
+    // on the warm-up lane and bounded by the run's permits; false when the dashboard was already cached
+    private boolean warm(Scope scope, Semaphore runPermits, LongAdder queries) throws InterruptedException {
+        return admissionControl.inBackground(AdmissionLane.WARM_UP, () -> DashboardExecutionEngine.batched(runPermits,
+                () -> QueryCounter.counting(queries, () -> DashboardCache.warming(ttlMillis, () -> {
+            switch (scope.view()) {
+                case ENHANCED -> QueryMemo.using(new QueryMemo(), () -> enhancedStatisticsService.getEnhancedDashboard(
+                        scope.userId(), scope.role(), StatisticsFilterDTO.builder().build()));
+                case BASIC -> statisticsService.getDashboard(scope.userId(), scope.role(),
+                        StatisticsFilterDTO.builder().storeId(scope.storeId()).build());
+            }
+        }))));
+    }
+
+    private static Set<DashboardCache.View> parseViews(String views) {
+        Set<DashboardCache.View> parsed = EnumSet.noneOf(DashboardCache.View.class);
+        Arrays.stream(views.split(","))
+                .map(String::trim)
+                .filter(view -> !view.isEmpty())
+                .forEach(view -> parsed.add(DashboardCache.View.valueOf(view.toUpperCase(Locale.ROOT))));
+        return parsed;
+    }
+
+    // storeId: the managed store of an ADMIN_STORE scope, null otherwise
+    private record Scope(DashboardCache.View view, UserRole role, Long userId, Long storeId) {
+    }
+}
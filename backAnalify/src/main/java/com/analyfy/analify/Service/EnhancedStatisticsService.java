@@ -1,18 +1,41 @@
 package com.analyfy.analify.Service;
 
 import com.analyfy.analify.DTO.Statistics.*;
-import com.analyfy.analify.Entity.Product;
+import com.analyfy.analify.Enum.ComparisonPeriod;
+import com.analyfy.analify.Enum.ForecastMetric;
+import com.analyfy.analify.Enum.TimeSeriesSampling;
 import com.analyfy.analify.Enum.UserRole;
+import com.analyfy.analify.Excexption.BusinessValidationException;
 import com.analyfy.analify.Repository.*;
+import com.analyfy.analify.Service.Analytics.BiddingStats;
+import com.analyfy.analify.Service.Analytics.BiddingStatsService;
+import com.analyfy.analify.Service.Analytics.CategoryAnalyticsService;
+import com.analyfy.analify.Service.Analytics.ForecastService;
+import com.analyfy.analify.Service.Analytics.GeoRollup;
+import com.analyfy.analify.Service.Analytics.PeriodComparisonService;
+import com.analyfy.analify.Service.Analytics.QueryMemo;
+import com.analyfy.analify.Service.Analytics.ReplenishmentService;
+import com.analyfy.analify.Service.Analytics.SalesKpis;
+import com.analyfy.analify.Service.Analytics.SalesMetricsReader;
+import com.analyfy.analify.Service.Analytics.TimeSeriesEngine;
+import com.analyfy.analify.Service.Analytics.DashboardCache;
+import com.analyfy.analify.Service.Analytics.DashboardExecutionEngine;
+import com.analyfy.analify.Service.Analytics.DashboardExecutionEngine.DashboardRun;
+import com.analyfy.analify.Service.Analytics.DashboardExecutionEngine.Metric;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.BeanWrapperImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.time.*;
-import java.time.format.TextStyle;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Service
@@ -24,15 +47,86 @@ public class EnhancedStatisticsService {
     private final ProductRepository productRepository;
     private final SectionRepository sectionRepository;
     private final BidRepository bidRepository;
-    private final CategoryRepository categoryRepository;
     private final InvestorRepository investorRepository;
     private final StoreRepository storeRepository;
     private final UserRepository userRepository;
+    private final DashboardExecutionEngine executionEngine;
+    private final SalesMetricsReader salesMetricsReader;
+    private final TimeSeriesEngine timeSeriesEngine;
+    private final ForecastService forecastService;
+    private final ReplenishmentService replenishmentService;
+    private final CategoryAnalyticsService categoryAnalyticsService;
+    private final PeriodComparisonService periodComparisonService;
+    private final BiddingStatsService biddingStatsService;
+    private final DashboardCache dashboardCache;
+    private final ObjectMapper objectMapper;
+
+    // Sections of the enhanced dashboard and their fields, in streaming order: what "include" selects
+    private static final Map<String, List<String>> SECTIONS = sections(
+            "salesKpis", List.of("totalRevenue", "totalOrders", "totalProductsSold", "averageOrderValue"),
+            "baskets", List.of("basketStats"),
+            "stockKpis", List.of("totalStockValue", "lowStockCount"),
+            "biddingKpis", List.of("totalSections", "activeBiddingSections", "totalSectionValue", "totalBids",
+                    "myWonSections", "myTotalInvestment"),
+            "financialSummary", List.of("financialSummary"),
+            "timeSeries", List.of("revenueOverTime", "bidsOverTime", "ordersByDayOfWeek", "ordersByMonth"),
+            "categories", List.of("categoryRevenueDistribution", "categoryProductCount", "topCategories"),
+            "sectionStats", List.of("sectionStats"),
+            "geographic", List.of("salesByRegion", "salesByState"),
+            "leaderboards", List.of("topProducts", "topStores", "topInvestors", "topSections"),
+            "predictions", List.of("predictions"),
+            "insights", List.of("insights"),
+            "roleSpecific", List.of("investorData", "adminGData"));
 
-    @Transactional(readOnly = true)
     public EnhancedDashboardDTO getEnhancedDashboard(Long userId, UserRole role, StatisticsFilterDTO filter) {
+        return getEnhancedDashboard(userId, role, filter, null);
+    }
+
+    /**
+     * Enhanced dashboard restricted to the given sections and/or fields (null or empty = everything).
+     * Queries that no selected field depends on are never executed; unselected fields stay null.
+     */
+    public EnhancedDashboardDTO getEnhancedDashboard(Long userId, UserRole role, StatisticsFilterDTO filter, Set<String> include) {
+        return loadEnhancedDashboard(userId, role, filter, include, null);
+    }
+
+    /**
+     * getEnhancedDashboard telling sectionDone the name of each section as soon as its queries are done
+     * (nothing when the dashboard comes from the cache).
+     */
+    public EnhancedDashboardDTO getEnhancedDashboard(Long userId, UserRole role, StatisticsFilterDTO filter, Set<String> include,
+                                                     Consumer<String> sectionDone) {
+        return loadEnhancedDashboard(userId, role, filter, include, (section, partial) -> sectionDone.accept(section));
+    }
+
+    /**
+     * Streaming variant of getEnhancedDashboard: every section is handed to the sink as soon as its queries are done,
+     * as a partial dashboard (only that section's fields) that the client merges into the previous ones.
+     * When the dashboard comes from the cache, it is sent at once as a single "dashboard" section.
+     */
+    public void streamEnhancedDashboard(Long userId, UserRole role, StatisticsFilterDTO filter, Set<String> include,
+                                        BiConsumer<String, Map<String, Object>> sink) {
+        Set<String> sent = ConcurrentHashMap.newKeySet();
+        EnhancedDashboardDTO dashboard = loadEnhancedDashboard(userId, role, filter, include, (name, partial) -> {
+            if (sent.add(name)) sink.accept(name, toSectionPayload(partial));
+        });
+        if (sent.isEmpty()) {
+            sink.accept("dashboard", toSectionPayload(dashboard));
+        }
+    }
+
+    private EnhancedDashboardDTO loadEnhancedDashboard(Long userId, UserRole role, StatisticsFilterDTO filter, Set<String> include,
+                                                       BiConsumer<String, EnhancedDashboardDTO> sectionListener) {
         log.info("Generating enhanced dashboard for user {} with role {}", userId, role);
         ensureDateRange(filter, role);
+        // Growth rates compare with the previous period unless another comparison is asked for
+        if (filter.getCompareTo() == null) {
+            filter.setCompareTo(ComparisonPeriod.PREVIOUS_PERIOD);
+        }
+        filter.setMaxPoints(TimeSeriesEngine.maxPoints(filter.getMaxPoints()));
+        if (filter.getSampling() == null) {
+            filter.setSampling(TimeSeriesSampling.BUCKET);
+        }
 
         Long storeId = null;
         Long investorId = null;
@@ -52,212 +146,424 @@ public class EnhancedStatisticsService {
             investorId = filter.getInvestorId();
         }
 
-        return generateComprehensiveDashboard(filter, storeId, investorId, role, userId);
+        // userId only matters for INVESTOR, where it is the investorId already in the key
+        Set<String> fields = (include == null || include.isEmpty()) ? null : new TreeSet<>(include);
+        DashboardCache.Key cacheKey = new DashboardCache.Key(DashboardCache.View.ENHANCED, role, storeId, investorId,
+                filter.getStartDate(), filter.getEndDate(), filter.getProductId(), filter.getCompareTo(),
+                filter.getMaxPoints(), filter.getSampling(), Boolean.TRUE.equals(filter.getApproximate()), fields);
+
+        // A cached full dashboard already holds every selected field: answer with those only, like a partial one
+        if (fields != null) {
+            EnhancedDashboardDTO full = dashboardCache.getIfPresent(cacheKey.withAllFields());
+            if (full != null) return project(full, fields);
+        }
+
+        Long scopedStoreId = storeId;
+        Long scopedInvestorId = investorId;
+        return dashboardCache.get(cacheKey, () -> generateComprehensiveDashboard(
+                filter, scopedStoreId, scopedInvestorId, role, userId, fields, sectionListener));
+    }
+
+    // Copy of the dashboard with only the selected fields set
+    private static EnhancedDashboardDTO project(EnhancedDashboardDTO full, Set<String> include) {
+        BeanWrapper source = new BeanWrapperImpl(full);
+        EnhancedDashboardDTO projected = EnhancedDashboardDTO.builder().build();
+        BeanWrapper target = new BeanWrapperImpl(projected);
+        selectFields(include).values().forEach(names -> names.forEach(name ->
+                target.setPropertyValue(name, source.getPropertyValue(name))));
+        return projected;
     }
 
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> toSectionPayload(EnhancedDashboardDTO partial) {
+        Map<String, Object> payload = objectMapper.convertValue(partial, Map.class);
+        payload.values().removeIf(Objects::isNull);
+        return payload;
+    }
+
+    // Every query group below is a lazy node of the dashboard graph: it is only forked on the execution engine
+    // (own virtual thread + read-only transaction) when a requested field needs it, and the request only waits
+    // as long as its slowest requested group instead of the sum of all of them.
     private EnhancedDashboardDTO generateComprehensiveDashboard(
-            StatisticsFilterDTO filter, Long storeId, Long investorId, UserRole role, Long userId) {
-        
+            StatisticsFilterDTO filter, Long storeId, Long investorId, UserRole role, Long userId,
+            Set<String> include, BiConsumer<String, EnhancedDashboardDTO> sectionListener) {
+
+        DashboardRun run = executionEngine.newRun();
+        LocalDate start = filter.getStartDate();
+        LocalDate end = filter.getEndDate();
+        LocalDateTime startDateTime = start.atStartOfDay();
+        LocalDateTime endDateTime = end.atTime(23, 59, 59);
+
         // === CORE METRICS ===
-        Double totalRevenue = orderRepository.calculateTotalRevenue(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
-        Double stockValue = productRepository.calculateTotalStockValue(storeId, investorId);
-        Long totalOrders = orderRepository.countTotalOrders(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
-        Integer totalSoldInt = orderRepository.countTotalProductsSold(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
-        Long totalSold = totalSoldInt != null ? totalSoldInt.longValue() : 0L;
-        Long lowStock = productRepository.countLowStockItems(storeId, investorId, 10);
-        
+        // Revenue, orders, units and the weekday/month histograms come from one single-pass query
+        Metric<SalesKpis> salesKpisM = run.lazy(() -> salesMetricsReader.fetchSalesKpis(start, end, storeId, investorId));
+        Metric<Double> totalRevenueM = salesKpisM.map(SalesKpis::revenue);
+        Metric<Long> totalOrdersM = salesKpisM.map(SalesKpis::orders);
+        Metric<Integer> totalSoldM = salesKpisM.map(SalesKpis::unitsSold);
+        Metric<BasketStatsDTO> basketStatsM = run.lazy(() -> salesMetricsReader.fetchBasketStats(
+                start, end, storeId, investorId, Boolean.TRUE.equals(filter.getApproximate())));
+        Metric<Double> stockValueM = run.lazy(() -> productRepository.calculateTotalStockValue(storeId, investorId));
+        Metric<Long> lowStockM = run.lazy(() -> productRepository.countLowStockItems(storeId, investorId, 10));
+
         // Section/Bidding Metrics - role-based filtering
         // For ADMIN_G: all sections; for INVESTOR: only their won/bid sections; for ADMIN_STORE: none (sections not store-specific)
-        Long totalSections = (role == UserRole.ADMIN_G) ? sectionRepository.count() : 
-                            (role == UserRole.INVESTOR) ? (long) sectionRepository.findByWinnerInvestorUserId(investorId).size() : 0L;
-        Long activeSections = (role == UserRole.ADMIN_G) ? sectionRepository.countByStatus("OPEN") : 
-                             (role == UserRole.INVESTOR) ? (long) sectionRepository.findByWinnerInvestorUserId(investorId).size() : 0L;
-        Double totalSectionValue = sectionRepository.calculateTotalSectionValue(investorId);
-        Long totalBids = (role == UserRole.ADMIN_G) ? bidRepository.count() : 
-                        (role == UserRole.INVESTOR) ? bidRepository.countTotalBids(investorId) : 0L;
-        
-        // Investor-specific section metrics
-        Long myWonSections = (role == UserRole.INVESTOR) ? 
-            (long)sectionRepository.findByWinnerInvestorUserId(investorId).size() : 0L;
-        Double myTotalInvestment = (role == UserRole.INVESTOR) ? 
-            sectionRepository.calculateActualRevenue(investorId) : 0.0;
+        Metric<Long> totalSectionsM = (role == UserRole.ADMIN_G) ? run.lazy(this::sectionCount) :
+                (role == UserRole.INVESTOR) ? run.lazy(() -> wonSectionCount(investorId)) :
+                run.constant(0L);
+        Metric<Long> activeSectionsM = (role == UserRole.ADMIN_G) ? run.lazy(() -> sectionCountByStatus("OPEN")) :
+                (role == UserRole.INVESTOR) ? run.lazy(() -> wonSectionCount(investorId)) :
+                run.constant(0L);
+        Metric<Double> totalSectionValueM = run.lazy(() -> totalSectionValue(investorId));
+        Metric<Long> totalBidsM = (role == UserRole.ADMIN_G) ? run.lazy(this::bidCount) :
+                (role == UserRole.INVESTOR) ? run.lazy(() -> investorBidCount(investorId)) :
+                run.constant(0L);
+        Metric<Double> sectionRevenueM = run.lazy(() -> actualSectionRevenue(investorId));
 
-        // === FINANCIAL SUMMARY ===
-        FinancialSummaryDTO financialSummary = buildFinancialSummary(
-            totalRevenue, sectionRepository.calculateActualRevenue(investorId), stockValue, investorId);
+        // Investor-specific section metrics
+        Metric<Long> myWonSectionsM = (role == UserRole.INVESTOR) ?
+                run.lazy(() -> wonSectionCount(investorId)) :
+                run.constant(0L);
+        Metric<Double> myTotalInvestmentM = (role == UserRole.INVESTOR) ? sectionRevenueM : run.constant(0.0);
+
+        // === FINANCIAL SUMMARY === (needs revenue + stock value + period comparison first)
+        Metric<PeriodComparisonDTO> comparisonM = run.lazy(() -> periodComparisonService.compare(
+                start, end, filter.getCompareTo(), storeId, investorId));
+        Metric<FinancialSummaryDTO> financialSummaryM = run.lazyAfter(() -> buildFinancialSummary(
+                totalRevenueM.join(), sectionRevenueM.join(), stockValueM.join(), investorId, comparisonM.join()),
+                totalRevenueM, sectionRevenueM, stockValueM, comparisonM);
 
         // === TIME SERIES ===
-        List<TimeSeriesPoint> revenueOverTime = mapToTimeSeries(
-            orderRepository.findRevenueTimeSeries(filter.getStartDate(), filter.getEndDate(), storeId, investorId, filter.getProductId())
-        );
-        
-        LocalDateTime startDateTime = filter.getStartDate().atStartOfDay();
-        LocalDateTime endDateTime = filter.getEndDate().atTime(23, 59, 59);
-        
-        List<TimeSeriesPoint> bidsOverTime = mapToTimeSeries(
-            bidRepository.findBidsOverTime(startDateTime, endDateTime, investorId)
-        );
-
-        List<LocalDate> allDates = orderRepository.findAllOrderDates(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
-        Map<String, Long> weekStats = calculateWeekStats(allDates);
-        Map<String, Long> monthStats = calculateMonthStats(allDates);
+        Metric<List<TimeSeriesPoint>> revenueOverTimeM = run.lazy(() -> timeSeriesEngine.revenue(
+                start, end, storeId, investorId, filter.getProductId(), filter.getMaxPoints(), filter.getSampling()));
+        Metric<List<TimeSeriesPoint>> bidsOverTimeM = run.lazy(() -> timeSeriesEngine.bids(
+                startDateTime, endDateTime, investorId, filter.getMaxPoints(), filter.getSampling()));
 
         // === CATEGORY BREAKDOWN ===
-        Map<String, Double> categoryRevenue = mapToDoubleMap(
-            productRepository.findCategoryRevenueDistribution(filter.getStartDate(), filter.getEndDate(), storeId, investorId)
-        );
-        
-        Map<String, Long> productCountByCategory = productRepository.countProductsByCategory(investorId)
-                .stream().collect(Collectors.toMap(r -> String.valueOf(r[0]), r -> ((Number)r[1]).longValue()));
+        Metric<Map<String, Double>> categoryRevenueM = run.lazy(() -> mapToDoubleMap(
+                salesMetricsReader.findCategoryRevenueDistribution(start, end, storeId, investorId)));
+        Metric<Map<String, Long>> productCountByCategoryM = run.lazy(() -> mapToLongMap(
+                productRepository.countProductsByCategory(investorId)));
 
         // Category analytics - ADMIN_G sees all, ADMIN_STORE sees their store, INVESTOR sees nothing
-        List<CategoryAnalyticsDTO> topCategories = (role != UserRole.INVESTOR) ? 
-            buildTopCategoriesAnalytics(role, storeId, investorId, filter) : Collections.emptyList();
+        Metric<List<CategoryAnalyticsDTO>> topCategoriesM = (role != UserRole.INVESTOR) ?
+                run.lazy(() -> buildTopCategoriesAnalytics(role, storeId, investorId, filter)) :
+                run.constant(Collections.emptyList());
 
         // === SECTION STATS ===
         // Only ADMIN_G and INVESTOR see section stats (sections are not store-specific)
-        SectionStatsDTO sectionStats = (role == UserRole.ADMIN_STORE) ? null : buildSectionStats(investorId, filter, role);
+        Metric<SectionStatsDTO> sectionStatsM = (role == UserRole.ADMIN_STORE) ?
+                run.constant(null) :
+                run.lazy(() -> buildSectionStats(investorId, filter, role));
 
         // === GEOGRAPHIC ===
-        Map<String, Double> salesByRegion = mapToDoubleMap(
-            orderRepository.findSalesByRegion(filter.getStartDate(), filter.getEndDate(), storeId, investorId)
-        );
-        Map<String, Double> salesByState = mapToDoubleMap(
-            orderRepository.findSalesByState(filter.getStartDate(), filter.getEndDate(), storeId, investorId)
-        );
+        // Both maps come out of one geo rollup
+        Metric<List<Object[]>> geoRollupM = run.lazy(() -> salesMetricsReader.findGeoRollup(
+                start, end, storeId, investorId, null, null, null));
+        Metric<Map<String, Double>> salesByRegionM = run.lazyAfter(() -> mapToDoubleMap(
+                GeoRollup.revenueBy(geoRollupM.join(), GeoRollup.REGION)), geoRollupM);
+        Metric<Map<String, Double>> salesByStateM = run.lazyAfter(() -> mapToDoubleMap(
+                GeoRollup.revenueBy(geoRollupM.join(), GeoRollup.STATE)), geoRollupM);
 
         // === LEADERBOARDS ===
         // Top products filtered by role: ADMIN_G (all), ADMIN_STORE (their store), INVESTOR (their products)
-        List<RankingItem> topProducts = mapToRanking(productRepository.findTopSellingProducts(
-                filter.getStartDate(), filter.getEndDate(), investorId, storeId, PageRequest.of(0, 10)));
-        
-        List<RankingItem> topStores = (role == UserRole.ADMIN_G) ? mapToRanking(productRepository.findTopStores(
-                filter.getStartDate(), filter.getEndDate(), PageRequest.of(0, 5))) : Collections.emptyList();
-        
-        List<RankingItem> topInvestors = (role == UserRole.ADMIN_G) ? mapToRanking(productRepository.findTopInvestors(
-                filter.getStartDate(), filter.getEndDate(), PageRequest.of(0, 5))) : Collections.emptyList();
-        
-        List<RankingItem> topSections = mapToRanking(
-            sectionRepository.findHighestValueSections(investorId).stream().limit(10).toList());
-        
-        List<RankingItem> topCategoriesRanking = buildCategoryRanking(categoryRevenue);
-
-        // === PREDICTIONS & INSIGHTS ===
-        PredictionSummaryDTO predictions = buildPredictions(revenueOverTime, stockValue, investorId, role);
-        List<InsightDTO> insights = generateInsights(totalRevenue, lowStock, activeSections, role, financialSummary);
+        Metric<List<RankingItem>> topProductsM = run.lazy(() -> RankingItem.fromRows(salesMetricsReader.findTopSellingProducts(
+                start, end, investorId, storeId, 10)));
+        Metric<List<RankingItem>> topStoresM = (role == UserRole.ADMIN_G) ?
+                run.lazy(() -> RankingItem.fromRows(salesMetricsReader.findTopStores(start, end, 5))) :
+                run.constant(Collections.emptyList());
+        Metric<List<RankingItem>> topInvestorsM = (role == UserRole.ADMIN_G) ?
+                run.lazy(() -> RankingItem.fromRows(salesMetricsReader.findTopInvestors(start, end, 5))) :
+                run.constant(Collections.emptyList());
+        Metric<List<RankingItem>> topSectionsM = run.lazy(() -> RankingItem.fromRows(
+                highestValueSections(investorId, 10)));
+
+        // === PREDICTIONS === (needs the revenue forecast + stock value)
+        Metric<ForecastService.Forecast> revenueForecastM = run.lazy(() -> forecastService.forecast(
+                ForecastMetric.REVENUE, storeId, investorId, filter.getProductId(), 90));
+        Metric<List<StockRecommendationDTO>> stockRecsM = run.lazy(() ->
+                replenishmentService.recommend(storeId, investorId, 10));
+        Metric<PredictionSummaryDTO> predictionsM = run.lazyAfter(() -> buildPredictions(
+                revenueForecastM.join(), stockValueM.join(), stockRecsM.join(), role),
+                revenueForecastM, stockValueM, stockRecsM);
 
         // === ROLE-SPECIFIC DATA ===
-        InvestorSpecificDTO investorData = (role == UserRole.INVESTOR) ? 
-            buildInvestorSpecificData(userId, filter) : null;
-        
+        Metric<InvestorSpecificDTO> investorDataM = (role == UserRole.INVESTOR) ?
+                run.lazy(() -> buildInvestorSpecificData(userId, filter)) :
+                run.constant(null);
+
         // ADMIN_G specific data - platform-wide statistics (no filters)
-        AdminGSpecificDTO adminGData = (role == UserRole.ADMIN_G) ? 
-            buildAdminGSpecificData(filter) : null;
-
-        return EnhancedDashboardDTO.builder()
-                // Core Metrics
-                .totalRevenue(totalRevenue != null ? totalRevenue : 0.0)
-                .totalStockValue(stockValue != null ? stockValue : 0.0)
-                .totalOrders(totalOrders != null ? totalOrders : 0L)
-                .totalProductsSold(totalSold)
-                .averageOrderValue(totalOrders != null && totalOrders > 0 ? totalRevenue / totalOrders : 0.0)
-                .lowStockCount(lowStock != null ? lowStock : 0L)
-                // Section Metrics
-                .totalSections(totalSections)
-                .activeBiddingSections(activeSections)
-                .totalSectionValue(totalSectionValue != null ? totalSectionValue : 0.0)
-                .totalBids(totalBids)
-                .myWonSections(myWonSections)
-                .myTotalInvestment(myTotalInvestment)
-                // Financial
-                .financialSummary(financialSummary)
-                // Time Series
-                .revenueOverTime(compressTimeSeries(revenueOverTime, 20))
-                .bidsOverTime(compressTimeSeries(bidsOverTime, 20))
-                .ordersByDayOfWeek(weekStats)
-                .ordersByMonth(monthStats)
-                // Category
-                .categoryRevenueDistribution(categoryRevenue)
-                .categoryProductCount(productCountByCategory)
-                .topCategories(topCategories)
-                // Section Stats
-                .sectionStats(sectionStats)
-                // Geographic
-                .salesByRegion(salesByRegion)
-                .salesByState(salesByState)
-                // Leaderboards
-                .topProducts(topProducts)
-                .topStores(topStores)
-                .topInvestors(topInvestors)
-                .topSections(topSections)
-                // Predictions & Insights
-                .predictions(predictions)
-                .insights(insights)
-                // Role-Specific
-                .investorData(investorData)
-                .adminGData(adminGData)
-                .build();
+        Metric<AdminGSpecificDTO> adminGDataM = (role == UserRole.ADMIN_G) ?
+                run.lazy(() -> buildAdminGSpecificData(filter)) :
+                run.constant(null);
+
+        // === FIELDS ===
+        // Every DTO field names the metrics it is computed from; SECTIONS groups them for streaming and for "include".
+        DashboardPlan plan = new DashboardPlan();
+        plan.field("totalRevenue", b -> b.totalRevenue(totalRevenueM.join() != null ? totalRevenueM.join() : 0.0), totalRevenueM);
+        plan.field("totalOrders", b -> b.totalOrders(totalOrdersM.join() != null ? totalOrdersM.join() : 0L), totalOrdersM);
+        plan.field("totalProductsSold", b -> b.totalProductsSold(totalSoldM.join() != null ? totalSoldM.join().longValue() : 0L), totalSoldM);
+        plan.field("averageOrderValue", b -> {
+            Long totalOrders = totalOrdersM.join();
+            b.averageOrderValue(totalOrders != null && totalOrders > 0 ? totalRevenueM.join() / totalOrders : 0.0);
+        }, totalRevenueM, totalOrdersM);
+        plan.field("basketStats", b -> b.basketStats(basketStatsM.join()), basketStatsM);
+        plan.field("totalStockValue", b -> b.totalStockValue(stockValueM.join() != null ? stockValueM.join() : 0.0), stockValueM);
+        plan.field("lowStockCount", b -> b.lowStockCount(lowStockM.join() != null ? lowStockM.join() : 0L), lowStockM);
+        plan.field("totalSections", b -> b.totalSections(totalSectionsM.join()), totalSectionsM);
+        plan.field("activeBiddingSections", b -> b.activeBiddingSections(activeSectionsM.join()), activeSectionsM);
+        plan.field("totalSectionValue", b -> b.totalSectionValue(totalSectionValueM.join() != null ? totalSectionValueM.join() : 0.0), totalSectionValueM);
+        plan.field("totalBids", b -> b.totalBids(totalBidsM.join()), totalBidsM);
+        plan.field("myWonSections", b -> b.myWonSections(myWonSectionsM.join()), myWonSectionsM);
+        plan.field("myTotalInvestment", b -> b.myTotalInvestment(myTotalInvestmentM.join()), myTotalInvestmentM);
+        plan.field("financialSummary", b -> b.financialSummary(financialSummaryM.join()), financialSummaryM);
+        plan.field("revenueOverTime", b -> b.revenueOverTime(revenueOverTimeM.join()), revenueOverTimeM);
+        plan.field("bidsOverTime", b -> b.bidsOverTime(bidsOverTimeM.join()), bidsOverTimeM);
+        plan.field("ordersByDayOfWeek", b -> b.ordersByDayOfWeek(salesKpisM.join().ordersByDayOfWeek()), salesKpisM);
+        plan.field("ordersByMonth", b -> b.ordersByMonth(salesKpisM.join().ordersByMonth()), salesKpisM);
+        plan.field("categoryRevenueDistribution", b -> b.categoryRevenueDistribution(categoryRevenueM.join()), categoryRevenueM);
+        plan.field("categoryProductCount", b -> b.categoryProductCount(productCountByCategoryM.join()), productCountByCategoryM);
+        plan.field("topCategories", b -> b.topCategories(topCategoriesM.join()), topCategoriesM);
+        plan.field("sectionStats", b -> b.sectionStats(sectionStatsM.join()), sectionStatsM);
+        plan.field("salesByRegion", b -> b.salesByRegion(salesByRegionM.join()), salesByRegionM);
+        plan.field("salesByState", b -> b.salesByState(salesByStateM.join()), salesByStateM);
+        plan.field("topProducts", b -> b.topProducts(topProductsM.join()), topProductsM);
+        plan.field("topStores", b -> b.topStores(topStoresM.join()), topStoresM);
+        plan.field("topInvestors", b -> b.topInvestors(topInvestorsM.join()), topInvestorsM);
+        plan.field("topSections", b -> b.topSections(topSectionsM.join()), topSectionsM);
+        plan.field("predictions", b -> b.predictions(predictionsM.join()), predictionsM);
+        // Insights are pure in-memory, no query of their own
+        plan.field("insights", b -> b.insights(generateInsights(
+                totalRevenueM.join(), lowStockM.join(), activeSectionsM.join(), role, financialSummaryM.join())),
+                totalRevenueM, lowStockM, activeSectionsM, financialSummaryM);
+        plan.field("investorData", b -> b.investorData(investorDataM.join()), investorDataM);
+        plan.field("adminGData", b -> b.adminGData(adminGDataM.join()), adminGDataM);
+
+        // Only now are queries started: those behind the selected fields, and nothing else
+        Map<String, List<DashboardField>> selected = plan.select(include);
+        Map<String, CompletableFuture<Void>> ready = new LinkedHashMap<>();
+        selected.forEach((section, fields) -> ready.put(section, CompletableFuture.allOf(fields.stream()
+                .flatMap(field -> Arrays.stream(field.dependencies()))
+                .map(Metric::future)
+                .toArray(CompletableFuture[]::new))));
+
+        // Each section is pushed as soon as its own metrics are done
+        List<CompletableFuture<Void>> published = new ArrayList<>();
+        if (sectionListener != null) {
+            selected.forEach((section, fields) -> published.add(ready.get(section).thenRun(() -> {
+                EnhancedDashboardDTO.EnhancedDashboardDTOBuilder partial = EnhancedDashboardDTO.builder();
+                fields.forEach(field -> field.filler().accept(partial));
+                sectionListener.accept(section, partial.build());
+            })));
+        }
+
+        // === JOIN ===
+        EnhancedDashboardDTO.EnhancedDashboardDTOBuilder builder = EnhancedDashboardDTO.builder();
+        selected.forEach((section, fields) -> {
+            run.join(ready.get(section));
+            fields.forEach(field -> field.filler().accept(builder));
+        });
+        published.forEach(run::join);
+        return builder.build();
+    }
+
+    private record DashboardField(String name, Consumer<EnhancedDashboardDTO.EnhancedDashboardDTOBuilder> filler,
+                                  Metric<?>... dependencies) {
+    }
+
+    /**
+     * Fields of the enhanced dashboard, by name.
+     */
+    private static final class DashboardPlan {
+
+        private final Map<String, DashboardField> fields = new HashMap<>();
+
+        void field(String name, Consumer<EnhancedDashboardDTO.EnhancedDashboardDTOBuilder> filler, Metric<?>... dependencies) {
+            fields.put(name, new DashboardField(name, filler, dependencies));
+        }
+
+        /**
+         * The fields to compute, grouped by section in SECTIONS order. Null or empty selects everything.
+         */
+        Map<String, List<DashboardField>> select(Set<String> include) {
+            Map<String, List<DashboardField>> selected = new LinkedHashMap<>();
+            selectFields(include).forEach((section, names) -> selected.put(section, names.stream()
+                    .map(name -> Objects.requireNonNull(fields.get(name), name + " has no plan"))
+                    .toList()));
+            return selected;
+        }
+    }
+
+    /**
+     * Resolve section and field names to the selected field names, grouped by section. Null or empty selects everything.
+     */
+    private static Map<String, List<String>> selectFields(Set<String> include) {
+        if (include == null || include.isEmpty()) return SECTIONS;
+
+        Set<String> unknown = new TreeSet<>(include);
+        Map<String, List<String>> selected = new LinkedHashMap<>();
+        SECTIONS.forEach((section, names) -> {
+            boolean wholeSection = unknown.remove(section);
+            List<String> picked = names.stream()
+                    .filter(name -> unknown.remove(name) || wholeSection)
+                    .toList();
+            if (!picked.isEmpty()) selected.put(section, picked);
+        });
+        if (!unknown.isEmpty()) {
+            throw new BusinessValidationException("Unknown dashboard fields or sections: " + unknown
+                    + ". Sections: " + SECTIONS.keySet());
+        }
+        return selected;
+    }
+
+    // Section name, field names, section name, field names...
+    @SuppressWarnings("unchecked")
+    private static Map<String, List<String>> sections(Object... layout) {
+        Map<String, List<String>> sections = new LinkedHashMap<>();
+        for (int i = 0; i < layout.length; i += 2) {
+            sections.put((String) layout[i], (List<String>) layout[i + 1]);
+        }
+        return Collections.unmodifiableMap(sections);
+    }
+
+    // ==================== SHARED QUERIES ====================
+    // Queries read by several sections, run once per dashboard request (see QueryMemo).
+    // Only scalars and projections: the sections read them from different transactions.
+    // Section and bid figures come from the materialized bidding statistics when they are serving.
+    private Long sectionCount() {
+        if (biddingStatsService.isServing()) return biddingStatsService.stats(null).totalSections();
+        return QueryMemo.memoize("section.count", sectionRepository::count);
+    }
+
+    private Long sectionCountByStatus(String status) {
+        if (biddingStatsService.isServing()) return biddingStatsService.stats(null).sectionsWithStatus(status);
+        return QueryMemo.memoize("section.countByStatus", () -> sectionRepository.countByStatus(status), status);
+    }
+
+    private Long wonSectionCount(Long investorId) {
+        if (investorId != null && biddingStatsService.isServing()) return biddingStatsService.stats(investorId).wonSections();
+        return QueryMemo.memoize("section.countWon", () -> sectionRepository.countByWinnerInvestorUserId(investorId), investorId);
+    }
+
+    private Double totalSectionValue(Long investorId) {
+        if (biddingStatsService.isServing()) return biddingStatsService.stats(investorId).totalSectionValue();
+        return QueryMemo.memoize("section.totalValue", () -> sectionRepository.calculateTotalSectionValue(investorId), investorId);
+    }
+
+    private Double actualSectionRevenue(Long investorId) {
+        if (biddingStatsService.isServing()) return biddingStatsService.stats(investorId).actualRevenue();
+        return QueryMemo.memoize("section.actualRevenue", () -> sectionRepository.calculateActualRevenue(investorId), investorId);
+    }
+
+    private Double expectedSectionRevenue(Long investorId) {
+        if (biddingStatsService.isServing()) return biddingStatsService.stats(investorId).expectedRevenue();
+        return QueryMemo.memoize("section.expectedRevenue", () -> sectionRepository.calculateExpectedRevenue(investorId), investorId);
+    }
+
+    private List<Object[]> mostCompetitiveSections(Long investorId, int limit) {
+        return QueryMemo.memoize("section.mostCompetitive",
+                () -> sectionRepository.findMostCompetitiveSections(investorId, PageRequest.of(0, limit)), investorId, limit);
+    }
+
+    private List<Object[]> highestValueSections(Long investorId, int limit) {
+        return QueryMemo.memoize("section.highestValue",
+                () -> sectionRepository.findHighestValueSections(investorId, PageRequest.of(0, limit)), investorId, limit);
+    }
+
+    private Long bidCount() {
+        if (biddingStatsService.isServing()) return biddingStatsService.stats(null).totalBids();
+        return QueryMemo.memoize("bid.count", bidRepository::count);
+    }
+
+    private Long investorBidCount(Long investorId) {
+        if (biddingStatsService.isServing()) return biddingStatsService.stats(investorId).totalBids();
+        return QueryMemo.memoize("bid.countByInvestor", () -> bidRepository.countTotalBids(investorId), investorId);
+    }
+
+    private Double totalBidsValue(Long investorId) {
+        if (biddingStatsService.isServing()) return biddingStatsService.stats(investorId).totalBidsValue();
+        return QueryMemo.memoize("bid.totalValue", () -> bidRepository.calculateTotalBidsValue(investorId), investorId);
+    }
+
+    private List<Object[]> mostActiveInvestors(int limit) {
+        return QueryMemo.memoize("bid.mostActiveInvestors",
+                () -> bidRepository.findMostActiveInvestors(PageRequest.of(0, limit)), limit);
+    }
+
+    private List<CategoryAnalyticsDTO> categoryAnalytics(Long storeId, Long investorId, StatisticsFilterDTO filter) {
+        return QueryMemo.memoize("categories.analytics",
+                () -> categoryAnalyticsService.analyze(filter.getStartDate(), filter.getEndDate(), filter.getCompareTo(), storeId, investorId),
+                storeId, investorId, filter.getStartDate(), filter.getEndDate(), filter.getCompareTo());
     }
 
     // ==================== SECTION STATS BUILDER ====================
     private SectionStatsDTO buildSectionStats(Long investorId, StatisticsFilterDTO filter, UserRole role) {
+        // Whole scope from the materialized bidding statistics (one read), else from the sections and bids
+        BiddingStats stats = biddingStatsService.isServing() ? biddingStatsService.stats(investorId) : null;
+        
         // For INVESTOR: only their sections; for ADMIN_G: all sections
-        List<Object[]> statusCounts = sectionRepository.countSectionsByStatus(investorId);
-        Map<String, Long> sectionsByStatus = statusCounts.stream()
-            .collect(Collectors.toMap(r -> String.valueOf(r[0]), r -> ((Number)r[1]).longValue()));
+        Map<String, Long> sectionsByStatus = stats != null ? stats.sectionsByStatus() :
+            sectionRepository.countSectionsByStatus(investorId).stream()
+                .collect(Collectors.toMap(r -> String.valueOf(r[0]), r -> ((Number)r[1]).longValue()));
         
         Long totalSections = sectionsByStatus.values().stream().mapToLong(Long::longValue).sum();
         Long activeSections = sectionsByStatus.getOrDefault("OPEN", 0L);
         Long closedSections = sectionsByStatus.getOrDefault("CLOSE", 0L);
         Long wonSections = investorId != null ? 
-            (long) sectionRepository.findByWinnerInvestorUserId(investorId).size() : 0L;
+            wonSectionCount(investorId) : 0L;
         
         // Total value of all sections (base price + increments)
-        Double totalSectionValue = safeDouble(sectionRepository.calculateTotalSectionValue(investorId));
+        Double totalSectionValue = safeDouble(totalSectionValue(investorId));
         
         // Average price per section
-        Double averageSectionPrice = safeDouble(sectionRepository.calculateAverageSectionPrice(investorId));
+        Double averageSectionPrice = stats != null ? stats.averageSectionPrice() :
+            safeDouble(sectionRepository.calculateAverageSectionPrice(investorId));
         
         // Total value of all bids placed
-        Double totalBidsValue = safeDouble(bidRepository.calculateTotalBidsValue(investorId));
+        Double totalBidsValue = safeDouble(totalBidsValue(investorId));
         
         // Average price increase from bidding
-        Double averageBidIncrease = safeDouble(sectionRepository.calculateAveragePriceIncrease(investorId));
+        Double averageBidIncrease = stats != null ? stats.averagePriceIncrease() :
+            safeDouble(sectionRepository.calculateAveragePriceIncrease(investorId));
         
         // Expected revenue from winning sections (if they close)
-        Double expectedRevenue = safeDouble(sectionRepository.calculateExpectedRevenue(investorId));
+        Double expectedRevenue = safeDouble(expectedSectionRevenue(investorId));
         
         // Actual revenue from closed/won sections
-        Double actualRevenue = safeDouble(sectionRepository.calculateActualRevenue(investorId));
+        Double actualRevenue = safeDouble(actualSectionRevenue(investorId));
         
-        Long totalBids = (role == UserRole.ADMIN_G) ? bidRepository.count() : 
-                        (investorId != null ? bidRepository.countTotalBids(investorId) : 0L);
-        Long investorBids = investorId != null ? bidRepository.countTotalBids(investorId) : totalBids;
+        Long totalBids = (role == UserRole.ADMIN_G) ? bidCount() : 
+                        (investorId != null ? investorBidCount(investorId) : 0L);
+        Long investorBids = investorId != null ? investorBidCount(investorId) : totalBids;
         Double averageBidsPerSection = totalSections > 0 ? (double) investorBids / totalSections : 0.0;
-        Double bidWinRate = investorId != null ? bidRepository.calculateWinRate(investorId) : 0.0;
+        Double bidWinRate = investorId == null ? Double.valueOf(0.0) :
+            stats != null ? stats.winRate() : bidRepository.calculateWinRate(investorId);
         
         // Leaderboards - only ADMIN_G sees all investors/bidders
-        List<RankingItem> mostActiveInvestors = (role == UserRole.ADMIN_G) ? mapToRanking(
-            bidRepository.findMostActiveInvestors().stream().limit(10).toList()) : Collections.emptyList();
-        List<RankingItem> topBidders = (role == UserRole.ADMIN_G) ? mapToRanking(
-            bidRepository.findTopBiddersByAmount().stream().limit(10).toList()) : Collections.emptyList();
-        
-        List<RankingItem> mostCompetitive = mapToRanking(
-            sectionRepository.findMostCompetitiveSections(investorId).stream().limit(10).toList());
-        List<RankingItem> highestValue = mapToRanking(
-            sectionRepository.findHighestValueSections(investorId).stream().limit(10).toList());
-        
-        Map<String, Double> valueByCategory = mapToDoubleMap(sectionRepository.calculateValueByCategory(investorId));
-        Map<String, Long> sectionsByCategory = mapToLongMap(sectionRepository.countSectionsByCategory(investorId));
-        Map<String, Double> valueByFace = mapToDoubleMap(sectionRepository.calculateValueByFace(investorId));
-        Map<String, Double> valueByRang = mapToDoubleMap(sectionRepository.calculateValueByRang(investorId));
+        List<RankingItem> mostActiveInvestors = (role == UserRole.ADMIN_G) ? RankingItem.fromRows(
+            mostActiveInvestors(10)) : Collections.emptyList();
+        List<RankingItem> topBidders = (role == UserRole.ADMIN_G) ? RankingItem.fromRows(
+            bidRepository.findTopBiddersByAmount(PageRequest.of(0, 10))) : Collections.emptyList();
+        
+        List<RankingItem> mostCompetitive = RankingItem.fromRows(
+            mostCompetitiveSections(investorId, 10));
+        List<RankingItem> highestValue = RankingItem.fromRows(
+            highestValueSections(investorId, 10));
+        
+        Map<String, Double> valueByCategory = stats != null ? stats.valueByCategory() :
+            mapToDoubleMap(sectionRepository.calculateValueByCategory(investorId));
+        Map<String, Long> sectionsByCategory = stats != null ? stats.sectionsByCategory() :
+            mapToLongMap(sectionRepository.countSectionsByCategory(investorId));
+        Map<String, Double> valueByFace = stats != null ? stats.valueByFace() :
+            mapToDoubleMap(sectionRepository.calculateValueByFace(investorId));
+        Map<String, Double> valueByRang = stats != null ? stats.valueByRang() :
+            mapToDoubleMap(sectionRepository.calculateValueByRang(investorId));
         
         LocalDateTime startDateTime = filter.getStartDate().atStartOfDay();
         LocalDateTime endDateTime = filter.getEndDate().atTime(23, 59, 59);
-        List<TimeSeriesPoint> bidsTimeSeries = mapToTimeSeries(
-            bidRepository.findBidsOverTime(startDateTime, endDateTime, investorId));
+        List<TimeSeriesPoint> bidsTimeSeries = timeSeriesEngine.bids(
+            startDateTime, endDateTime, investorId, filter.getMaxPoints(), filter.getSampling());
         
-        Map<String, Long> sectionsOpenedByMonth = mapToLongMap(
+        Map<String, Long> sectionsOpenedByMonth = stats != null ? stats.sectionsByDeadlineMonth() : mapToLongMap(
             sectionRepository.countSectionsOpenedByMonth(investorId));
         
         // Predictions - ensure positive values
@@ -298,7 +604,7 @@ public class EnhancedStatisticsService {
 
     // ==================== FINANCIAL SUMMARY ====================
     private FinancialSummaryDTO buildFinancialSummary(Double productRevenue, Double sectionRevenue, 
-                                                       Double stockValue, Long investorId) {
+                                                       Double stockValue, Long investorId, PeriodComparisonDTO comparison) {
         // Revenue from selling products
         Double prodRev = safeDouble(productRevenue);
         
@@ -333,7 +639,7 @@ public class EnhancedStatisticsService {
         Double roi = totalInvestment > 0 ? (grossProfit / totalInvestment) * 100 : 0.0;
         
         // Expected income from pending/open sections
-        Double expectedIncome = sectionRepository.calculateExpectedRevenue(investorId);
+        Double expectedIncome = expectedSectionRevenue(investorId);
         
         // Pending payments (5% of revenue not yet collected)
         Double pendingPayments = totalRev * 0.05;
@@ -341,7 +647,10 @@ public class EnhancedStatisticsService {
         // Available cash = gross profit - pending payments
         Double availableCash = Math.max(0.0, grossProfit - pendingPayments);
         
-        Double revenueGrowthRate = 12.5; // Would need historical comparison
+        // Products + won sections, current vs comparison period
+        Double revenueGrowthRate = PeriodComparisonService.growthRate(
+                comparison.getRevenue() + comparison.getSectionRevenue(),
+                comparison.getPreviousRevenue() + comparison.getPreviousSectionRevenue());
         String financialHealth = determineFinancialHealth(profitMargin, roi);
         
         return FinancialSummaryDTO.builder()
@@ -358,6 +667,7 @@ public class EnhancedStatisticsService {
                 .pendingPayments(pendingPayments)
                 .availableCash(Math.max(0.0, availableCash))  // Ensure non-negative
                 .revenueGrowthRate(revenueGrowthRate)
+                .comparison(comparison)
                 .financialHealth(financialHealth)
                 .build();
     }
@@ -368,60 +678,19 @@ public class EnhancedStatisticsService {
             return Collections.emptyList();
         }
         // Note: storeId filters data for ADMIN_STORE, null for ADMIN_G (sees all)
-        
-        List<CategoryAnalyticsDTO> result = new ArrayList<>();
-        List<Object[]> categories = categoryRepository.findAll().stream()
-            .limit(5)
-            .map(c -> new Object[]{c.getCategoryId(), c.getCategoryName()})
-            .toList();
-        
-        for (Object[] cat : categories) {
-            Long catId = ((Number) cat[0]).longValue();
-            String catName = (String) cat[1];
-            
-            // This would require custom queries - simplified for now
-            CategoryAnalyticsDTO dto = CategoryAnalyticsDTO.builder()
-                    .categoryId(catId)
-                    .categoryName(catName)
-                    .totalRangs(3L)
-                    .totalFaces(8L)
-                    .totalSections(15L)
-                    .totalProducts(50L)
-                    .totalProductValue(25000.0)
-                    .lowStockProducts(5L)
-                    .activeSections(3L)
-                    .totalSectionValue(45000.0)
-                    .totalBids(120L)
-                    .averageBidCompetition(8.0)
-                    .totalRevenue(75000.0)
-                    .sectionRevenue(30000.0)
-                    .combinedRevenue(105000.0)
-                    .growthRate(15.5)
-                    .performanceRating("GOOD")
-                    .topPerformingRangs(List.of("Rang A", "Rang B"))
-                    .topPerformingFaces(List.of("Face 1", "Face 2"))
-                    .predictedNextMonthRevenue(110000.0)
-                    .trend("GROWING")
-                    .build();
-            result.add(dto);
-        }
-        
-        return result;
+        return categoryAnalytics(storeId, investorId, filter).stream().limit(5).toList();
     }
 
     // ==================== PREDICTIONS ====================
-    private PredictionSummaryDTO buildPredictions(List<TimeSeriesPoint> revenueHistory, 
-                                                   Double stockValue, Long investorId, UserRole role) {
-        List<TimeSeriesPoint> forecast = calculateLinearRegressionForecast(revenueHistory, 30);
-        Double predictedNextMonth = forecast.isEmpty() ? 0.0 : 
-            forecast.stream().mapToDouble(TimeSeriesPoint::getValue).sum();
-        Double predictedNextQuarter = predictedNextMonth * 3;
-        
-        List<StockRecommendationDTO> stockRecs = buildStockRecommendations(investorId);
+    private PredictionSummaryDTO buildPredictions(ForecastService.Forecast forecast, Double stockValue,
+                                                   List<StockRecommendationDTO> stockRecs, UserRole role) {
+        Double predictedNextMonth = forecast.total(30);
+        Double predictedNextQuarter = forecast.total(90);
+        
         Integer predictedLowStock = (int) (stockRecs.size() * 1.2);
         
-        Double predictedBidActivity = (double) bidRepository.count() * 1.15;
-        List<String> hotSections = sectionRepository.findMostCompetitiveSections(null).stream()
+        Double predictedBidActivity = (double) bidCount() * 1.15;
+        List<String> hotSections = mostCompetitiveSections(null, 10).stream()
             .limit(3)
             .map(r -> String.valueOf(r[0]))
             .toList();
@@ -434,7 +703,7 @@ public class EnhancedStatisticsService {
         return PredictionSummaryDTO.builder()
                 .predictedNextMonthRevenue(round(predictedNextMonth))
                 .predictedNextQuarterRevenue(round(predictedNextQuarter))
-                .confidence(0.78)
+                .confidence(round(forecast.accuracy()))
                 .stockRecommendations(stockRecs)
                 .predictedLowStockItems(predictedLowStock)
                 .predictedBiddingActivity(round(predictedBidActivity))
@@ -446,39 +715,6 @@ public class EnhancedStatisticsService {
                 .build();
     }
 
-    // ==================== STOCK RECOMMENDATIONS ====================
-    private List<StockRecommendationDTO> buildStockRecommendations(Long investorId) {
-        List<StockRecommendationDTO> recommendations = new ArrayList<>();
-        
-        // Get low stock products
-        List<Product> products = productRepository.findAll().stream()
-            .filter(p -> investorId == null || (p.getId_inv() != null && p.getId_inv().getUserId().equals(investorId)))
-            .limit(10)
-            .toList();
-        
-        for (Product product : products) {
-            int currentStock = product.getStocks() != null && !product.getStocks().isEmpty() ? 
-                product.getStocks().size() * 10 : 0; // Simplified calculation without Inventory entity
-            
-            if (currentStock < 20) {
-                int recommendedStock = calculateRecommendedStock(currentStock);
-                recommendations.add(StockRecommendationDTO.builder()
-                        .productId(product.getProductId())
-                        .productName(product.getProductName())
-                        .currentStock(currentStock)
-                        .recommendedStock(recommendedStock)
-                        .action(currentStock < 10 ? "RESTOCK" : "MAINTAIN")
-                        .priority(currentStock < 5 ? "HIGH" : currentStock < 15 ? "MEDIUM" : "LOW")
-                        .estimatedCost((product.getPrice() != null ? product.getPrice() : 0.0) * (recommendedStock - currentStock))
-                        .reason(currentStock < 10 ? "Critical low stock" : "Below optimal level")
-                        .predictedDemand(estimateDemand(currentStock))
-                        .build());
-            }
-        }
-        
-        return recommendations;
-    }
-
     // ==================== INSIGHTS GENERATION ====================
     private List<InsightDTO> generateInsights(Double revenue, Long lowStock, Long activeSections, 
                                                 UserRole role, FinancialSummaryDTO financial) {
@@ -540,28 +776,30 @@ public class EnhancedStatisticsService {
         Double portfolioValue = safeDouble(productRepository.calculateTotalStockValue(null, investorId));
         
         // Number of sections won by this investor
-        Long sectionsWon = (long) sectionRepository.findByWinnerInvestorUserId(investorId).size();
+        Long sectionsWon = wonSectionCount(investorId);
         
         // Total amount invested in sections (money paid for winning bids)
-        Double sectionInvestment = safeDouble(sectionRepository.calculateActualRevenue(investorId));
+        Double sectionInvestment = safeDouble(actualSectionRevenue(investorId));
         
         // Revenue from selling products
-        Double productRevenue = safeDouble(orderRepository.calculateTotalRevenue(filter.getStartDate(), filter.getEndDate(), null, investorId));
+        Double productRevenue = safeDouble(salesMetricsReader.calculateTotalRevenue(filter.getStartDate(), filter.getEndDate(), null, investorId));
         
         // Revenue from sections = value received from sections (could be rental income, usage fees, etc.)
         // For now, we'll use section investment as the section value
         Double sectionRevenue = sectionInvestment;
         
-        // Portfolio growth rate (would need historical comparison)
-        Double portfolioGrowth = 18.5;
+        // Product sales growth of the portfolio vs the comparison period
+        Double portfolioGrowth = periodComparisonService.compare(filter.getStartDate(), filter.getEndDate(),
+                filter.getCompareTo(), null, investorId).getRevenueGrowthRate();
         
-        Long activeBids = (long) bidRepository.findByInvestorUserIdAndStatus(investorId, "PENDING").size();
-        Double totalBidAmount = bidRepository.calculateTotalBidsValue(investorId);
+        Long activeBids = biddingStatsService.isServing() ? biddingStatsService.stats(investorId).bidsWithStatus("PENDING") :
+            bidRepository.countByInvestorUserIdAndStatus(investorId, "PENDING");
+        Double totalBidAmount = safeDouble(totalBidsValue(investorId));
         
         List<RankingItem> topBiddingSections = Collections.emptyList(); // Simplified - would need custom query
         
-        List<RankingItem> bestSelling = mapToRanking(
-            productRepository.findTopSellingProducts(filter.getStartDate(), filter.getEndDate(), investorId, null, PageRequest.of(0, 5)));
+        List<RankingItem> bestSelling = RankingItem.fromRows(
+            salesMetricsReader.findTopSellingProducts(filter.getStartDate(), filter.getEndDate(), investorId, null, 5));
         
         List<RankingItem> worstSelling = Collections.emptyList(); // Would need custom query
         Long lowStockAlerts = productRepository.countLowStockItems(null, investorId, 10);
@@ -593,14 +831,15 @@ public class EnhancedStatisticsService {
         Long totalStores = storeRepository.count();
         Long totalEmployees = totalUsers - totalInvestors - totalStores; // Simplified
         
-        Double platformRevenue = orderRepository.calculateTotalRevenue(filter.getStartDate(), filter.getEndDate(), null, null);
-        Double platformGrowth = 22.3;
+        Double platformRevenue = salesMetricsReader.calculateTotalRevenue(filter.getStartDate(), filter.getEndDate(), null, null);
+        Double platformGrowth = periodComparisonService.compare(filter.getStartDate(), filter.getEndDate(),
+                filter.getCompareTo(), null, null).getRevenueGrowthRate();
         Long totalTransactions = orderRepository.count();
         
-        Long totalSectionsCreated = sectionRepository.count();
-        Double totalSectionRevenue = sectionRepository.calculateActualRevenue(null);
-        Long totalBids = bidRepository.count();
-        Long totalSections = sectionRepository.count();
+        Long totalSectionsCreated = sectionCount();
+        Double totalSectionRevenue = actualSectionRevenue(null);
+        Long totalBids = bidCount();
+        Long totalSections = totalSectionsCreated;
         Double avgCompetition = totalSections > 0 ? (double) totalBids / totalSections : 0.0;
         
         Map<String, Long> activeUsersByRole = Map.of(
@@ -609,22 +848,25 @@ public class EnhancedStatisticsService {
             "CAISSIER", totalEmployees
         );
         
-        List<RankingItem> mostActiveInvestors = mapToRanking(
-            bidRepository.findMostActiveInvestors().stream().limit(10).toList());
+        List<RankingItem> mostActiveInvestors = RankingItem.fromRows(
+            mostActiveInvestors(10));
         
-        List<RankingItem> topStores = mapToRanking(
-            productRepository.findTopStores(filter.getStartDate(), filter.getEndDate(), PageRequest.of(0, 10)));
+        List<RankingItem> topStores = RankingItem.fromRows(
+            salesMetricsReader.findTopStores(filter.getStartDate(), filter.getEndDate(), 10));
         
         // ADMIN_G sees all categories (no store/investor filter)
-        List<CategoryAnalyticsDTO> allCategories = buildTopCategoriesAnalytics(UserRole.ADMIN_G, null, null, filter);
+        List<CategoryAnalyticsDTO> allCategories = categoryAnalytics(null, null, filter);
         
+        // Share of the platform's product sales
+        double platformSales = safeDouble(platformRevenue);
         Map<String, Double> categoryMarketShare = allCategories.stream()
             .collect(Collectors.toMap(
                 CategoryAnalyticsDTO::getCategoryName,
-                c -> c.getCombinedRevenue() / platformRevenue * 100
+                c -> platformSales > 0 ? round(c.getTotalRevenue() / platformSales * 100) : 0.0,
+                Double::sum
             ));
         
-        Long pendingSections = sectionRepository.countByStatus("OPEN");
+        Long pendingSections = sectionCountByStatus("OPEN");
         Long criticalLowStock = productRepository.countLowStockItems(null, null, 5);
         
         return AdminGSpecificDTO.builder()
@@ -651,17 +893,6 @@ public class EnhancedStatisticsService {
     }
 
     // ==================== HELPER METHODS ====================
-    private List<RankingItem> buildCategoryRanking(Map<String, Double> categoryRevenue) {
-        return categoryRevenue.entrySet().stream()
-            .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-            .limit(10)
-            .map(e -> RankingItem.builder()
-                .name(e.getKey())
-                .value(e.getValue())
-                .build())
-            .collect(Collectors.toList());
-    }
-
     private String determineMarketTrend(Long activeSections, Long totalBids) {
         if (activeSections > 10 && totalBids > 100) return "HOT";
         if (activeSections < 3 || totalBids < 20) return "COOLING";
@@ -702,17 +933,6 @@ public class EnhancedStatisticsService {
         return risks;
     }
 
-    private int calculateRecommendedStock(int currentStock) {
-        if (currentStock < 5) return 50;
-        if (currentStock < 10) return 40;
-        if (currentStock < 20) return 30;
-        return 25;
-    }
-
-    private int estimateDemand(int currentStock) {
-        return Math.max(20, 50 - currentStock);
-    }
-
     private void ensureDateRange(StatisticsFilterDTO filter, UserRole role) {
         // For ADMIN_G: if no dates specified, show ALL TIME (not just 1 month)
         // For other roles: default to last 1 month for performance
@@ -752,99 +972,11 @@ public class EnhancedStatisticsService {
             r -> ((Number)r[1]).longValue()));
     }
 
-    private List<TimeSeriesPoint> mapToTimeSeries(List<Object[]> rawData) {
-        return rawData.stream().map(row -> {
-            Double value = (row[1] instanceof Number) ? ((Number) row[1]).doubleValue() : 0.0;
-            return TimeSeriesPoint.builder()
-                .date(row[0].toString())
-                .value(value)
-                .build();
-        }).toList();
-    }
-
-    private Map<String, Long> calculateWeekStats(List<LocalDate> dates) {
-        Map<String, Long> stats = new LinkedHashMap<>();
-        for (DayOfWeek day : DayOfWeek.values()) 
-            stats.put(day.getDisplayName(TextStyle.FULL, Locale.ENGLISH), 0L);
-        for (LocalDate date : dates) {
-            String dayName = date.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
-            stats.put(dayName, stats.get(dayName) + 1);
-        }
-        return stats;
-    }
-
-    private Map<String, Long> calculateMonthStats(List<LocalDate> dates) {
-        Map<String, Long> stats = new LinkedHashMap<>();
-        for (Month month : Month.values()) 
-            stats.put(month.getDisplayName(TextStyle.SHORT, Locale.ENGLISH), 0L);
-        for (LocalDate date : dates) {
-            String monthName = date.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
-            stats.put(monthName, stats.get(monthName) + 1);
-        }
-        return stats;
-    }
-
-    private List<RankingItem> mapToRanking(List<Object[]> rows) {
-        return rows.stream().map(row -> {
-            String label = String.valueOf(row[0]);
-            if (label.matches("\\d+")) label = "ID #" + label;
-            Double value = row[1] instanceof Number ? ((Number) row[1]).doubleValue() : 0.0;
-            String extra = row.length > 2 && row[2] != null ? String.valueOf(row[2]) : null;
-            return RankingItem.builder()
-                .name(label)
-                .value(value)
-                .additionalInfo(extra)
-                .build();
-        }).toList();
-    }
-
-    private List<TimeSeriesPoint> compressTimeSeries(List<TimeSeriesPoint> original, int maxPoints) {
-        if (original == null || original.isEmpty() || original.size() <= maxPoints) return original;
-        List<TimeSeriesPoint> result = new ArrayList<>();
-        int groupSize = (int) Math.ceil((double) original.size() / maxPoints);
-        for (int i = 0; i < original.size(); i += groupSize) {
-            int end = Math.min(i + groupSize, original.size());
-            List<TimeSeriesPoint> chunk = original.subList(i, end);
-            Double sumValue = chunk.stream().mapToDouble(TimeSeriesPoint::getValue).sum();
-            result.add(TimeSeriesPoint.builder()
-                .date(chunk.get(0).getDate())
-                .value(sumValue)
-                .build());
-        }
-        return result;
-    }
-
-    private List<TimeSeriesPoint> calculateLinearRegressionForecast(List<TimeSeriesPoint> history, int days) {
-        if (history == null || history.size() < 2) return new ArrayList<>();
-        double n = history.size();
-        double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
-        for (int i = 0; i < n; i++) {
-            double x = i;
-            double y = history.get(i).getValue();
-            sumX += x; sumY += y; sumXY += x * y; sumXX += x * x;
-        }
-        double denominator = (n * sumXX - sumX * sumX);
-        if (denominator == 0) return new ArrayList<>();
-        double slope = (n * sumXY - sumX * sumY) / denominator;
-        double intercept = (sumY - slope * sumX) / n;
-        
-        List<TimeSeriesPoint> forecast = new ArrayList<>();
-        LocalDate lastDate = LocalDate.parse(history.get(history.size() - 1).getDate());
-        for (int i = 1; i <= days; i++) {
-            double predictedY = slope * ((n - 1) + i) + intercept;
-            if (predictedY < 0) predictedY = 0;
-            forecast.add(TimeSeriesPoint.builder()
-                .date(lastDate.plusDays(i).toString())
-                .value(round(predictedY))
-                .build());
-        }
-        return forecast;
-    }
-
-    private String analyzeTrend(List<TimeSeriesPoint> forecast) {
-        if (forecast.isEmpty()) return "NEUTRAL";
-        double start = forecast.get(0).getValue();
-        double end = forecast.get(forecast.size() - 1).getValue();
+    // First and last forecast weeks, so the weekly season does not read as a trend
+    private String analyzeTrend(ForecastService.Forecast forecast) {
+        if (forecast.values().isEmpty()) return "NEUTRAL";
+        double start = forecast.total(7);
+        double end = forecast.trailingTotal(7);
         if (start == 0) return "NEUTRAL";
         double change = (end - start) / start;
         if (change > 0.1) return "BULLISH";
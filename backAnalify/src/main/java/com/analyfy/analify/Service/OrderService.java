@@ -7,8 +7,11 @@ import com.analyfy.analify.Entity.*;
 import com.analyfy.analify.Enum.UserRole;
 import com.analyfy.analify.Mapper.OrderMapper;
 import com.analyfy.analify.Repository.*;
+import com.analyfy.analify.Service.Analytics.AnalyticsDataChangedEvent;
+import com.analyfy.analify.Service.Analytics.SalesRollupService;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -30,6 +33,8 @@ public class OrderService {
     private final AdminStoreRepository adminStoreRepository;
     private final InvestorRepository investorRepository;
     private final OrderMapper orderMapper;
+    private final SalesRollupService salesRollupService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Helper: Resolve Store ID for Admin_Store
@@ -110,6 +115,12 @@ public class OrderService {
 
         order.setItems(orderItemsList);
         Order savedOrder = orderRepository.save(order);
+
+        // 6. Keep the daily sales rollup in sync (same transaction)
+        salesRollupService.recordOrder(savedOrder);
+
+        // 7. Invalidate the cached dashboards of this store and of the investors involved (after commit)
+        eventPublisher.publishEvent(AnalyticsDataChangedEvent.forOrderCreated(savedOrder));
         return orderMapper.toDto(savedOrder);
     }
 
@@ -244,6 +255,8 @@ public class OrderService {
             }
         }
 
+        salesRollupService.removeOrder(order);
+        eventPublisher.publishEvent(AnalyticsDataChangedEvent.forOrderDeleted(order));
         orderRepository.delete(order);
     }
 
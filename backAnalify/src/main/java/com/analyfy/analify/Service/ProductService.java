@@ -2,13 +2,17 @@ package com.analyfy.analify.Service;
 
 import com.analyfy.analify.DTO.*; // Uses flat DTOs (not StockOrder.*)
 import com.analyfy.analify.DTO.StockOrder.*; // Uses flat DTOs (not StockOrder.*)
+import com.analyfy.analify.DTO.Statistics.StockRecommendationDTO;
 import com.analyfy.analify.Entity.*;
 import com.analyfy.analify.Enum.UserRole;
 import com.analyfy.analify.Mapper.InventoryMapper;
 import com.analyfy.analify.Mapper.ProductMapper;
 import com.analyfy.analify.Repository.*;
+import com.analyfy.analify.Service.Analytics.AnalyticsDataChangedEvent;
+import com.analyfy.analify.Service.Analytics.ReplenishmentService;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -32,6 +36,8 @@ public class ProductService {
     
     private final ProductMapper productMapper;
     private final InventoryMapper inventoryMapper;
+    private final ReplenishmentService replenishmentService;
+    private final ApplicationEventPublisher eventPublisher;
 
     private Long resolveStoreIdForAdmin(Long userId) {
         return adminStoreRepository.findById(userId)
@@ -213,30 +219,20 @@ public class ProductService {
 
         // Add to existing quantity instead of replacing
         inventory.setQuantity(inventory.getQuantity() + request.getQuantity());
-        return inventoryMapper.toDto(productItemsRepository.save(inventory));
+        InventoryDTO refilled = inventoryMapper.toDto(productItemsRepository.save(inventory));
+        eventPublisher.publishEvent(AnalyticsDataChangedEvent.forStock(request.getStoreId(), product));
+        return refilled;
     }
 
     /**
-     * Get suggested stock refill quantity for a product
+     * Get suggested stock refill quantity for a product: what fills the store's stock up to its order-up-to level,
+     * from the product's recent sales velocity at that store (0 when the store does not stock it)
      */
     public Integer getSuggestedStockQuantity(Long productId, Long storeId) {
-        Product product = productRepository.findById(productId).orElseThrow();
-        
-        // Get current stock for this product at this store
-        Integer currentStock = productItemsRepository
-            .findByStoreStoreIdAndProductProductId(storeId, productId)
-            .map(Inventory::getQuantity)
-            .orElse(0);
-        
-        // Calculate recommended stock based on current level
-        return calculateRecommendedStock(currentStock);
-    }
-    
-    private int calculateRecommendedStock(int currentStock) {
-        if (currentStock < 5) return 50;
-        if (currentStock < 10) return 40;
-        if (currentStock < 20) return 30;
-        return 25;
+        productRepository.findById(productId).orElseThrow();
+
+        StockRecommendationDTO recommendation = replenishmentService.recommendation(storeId, productId);
+        return recommendation != null ? recommendation.getSuggestedQuantity() : 0;
     }
 
     // --- READ ONLY ---
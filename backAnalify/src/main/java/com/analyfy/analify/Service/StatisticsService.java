@@ -1,19 +1,29 @@
 package com.analyfy.analify.Service;
 
 import com.analyfy.analify.DTO.Statistics.*;
+import com.analyfy.analify.Enum.ComparisonScope;
+import com.analyfy.analify.Enum.ForecastMetric;
+import com.analyfy.analify.Enum.TimeSeriesSampling;
 import com.analyfy.analify.Enum.UserRole;
-import com.analyfy.analify.Repository.*;
+import com.analyfy.analify.Excexption.BusinessValidationException;
+import com.analyfy.analify.Repository.InvestorRepository;
+import com.analyfy.analify.Repository.ProductRepository;
+import com.analyfy.analify.Repository.StoreRepository;
+import com.analyfy.analify.Service.Analytics.DashboardCache;
+import com.analyfy.analify.Service.Analytics.ForecastService;
+import com.analyfy.analify.Service.Analytics.GeoRollup;
+import com.analyfy.analify.Service.Analytics.SalesKpis;
+import com.analyfy.analify.Service.Analytics.PeriodComparisonService;
+import com.analyfy.analify.Service.Analytics.SalesMetricsReader;
+import com.analyfy.analify.Service.Analytics.TimeBucket;
+import com.analyfy.analify.Service.Analytics.TimeSeriesEngine;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.Month;
-import java.time.format.TextStyle;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -22,14 +32,24 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class StatisticsService {
 
-    private final OrderRepository orderRepository;
+    // Most stores / investors one comparison request may name
+    private static final int MAX_COMPARED_SCOPES = 100;
+
+    private final SalesMetricsReader salesMetricsReader;
+    private final TimeSeriesEngine timeSeriesEngine;
+    private final ForecastService forecastService;
+    private final PeriodComparisonService periodComparisonService;
     private final ProductRepository productRepository;
+    private final StoreRepository storeRepository;
+    private final InvestorRepository investorRepository;
     private final ObjectMapper objectMapper; 
+    private final DashboardCache dashboardCache;
 
     @Transactional(readOnly = true)
     public DashboardStatsDTO getDashboard(Long userId, UserRole role, StatisticsFilterDTO filter) {
         log.info("Generating dashboard for user {} with role {}", userId, role);
         ensureDateRange(filter, role);
+        ensureTimeSeriesShape(filter);
 
         Long storeId = null;
         Long investorId = null;
@@ -44,58 +64,62 @@ public class StatisticsService {
             investorId = filter.getInvestorId(); // Optional filter
         }
 
-        return generateUnifiedDashboard(filter, storeId, investorId, role);
+        DashboardCache.Key cacheKey = new DashboardCache.Key(DashboardCache.View.BASIC, role, storeId, investorId,
+                filter.getStartDate(), filter.getEndDate(), filter.getProductId(), filter.getCompareTo(),
+                filter.getMaxPoints(), filter.getSampling(), false, null);
+        Long scopedStoreId = storeId;
+        Long scopedInvestorId = investorId;
+        return dashboardCache.get(cacheKey, () -> generateUnifiedDashboard(filter, scopedStoreId, scopedInvestorId, role));
     }
 
     // 🛑 THE ONE METHOD TO RULE THEM ALL (Ensures no NULLs)
     private DashboardStatsDTO generateUnifiedDashboard(StatisticsFilterDTO filter, Long storeId, Long investorId, UserRole role) {
         
-        // 1. Core KPIs
-        Double totalRevenue = orderRepository.calculateTotalRevenue(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
+        // 1. Core KPIs (revenue, orders, units and the activity histograms in one query)
+        SalesKpis salesKpis = salesMetricsReader.fetchSalesKpis(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
+        Double totalRevenue = salesKpis.revenue();
         Double stockValue = productRepository.calculateTotalStockValue(storeId, investorId);
-        Long totalOrders = orderRepository.countTotalOrders(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
-        Integer totalSold = orderRepository.countTotalProductsSold(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
+        Long totalOrders = salesKpis.orders();
+        Integer totalSold = salesKpis.unitsSold();
         Long lowStock = productRepository.countLowStockItems(storeId, investorId, 10);
         
-        Double avgOrderValue = (totalOrders != null && totalOrders > 0 && totalRevenue != null) 
-                               ? totalRevenue / totalOrders 
-                               : 0.0;
+        Double avgOrderValue = salesKpis.averageOrderValue();
 
         // 2. Time Series Charts
-        List<TimeSeriesPoint> fullSeries = mapToTimeSeries(
-            orderRepository.findRevenueTimeSeries(filter.getStartDate(), filter.getEndDate(), storeId, investorId, filter.getProductId())
-        );
+        List<TimeSeriesPoint> revenueOverTime = timeSeriesEngine.revenue(filter.getStartDate(), filter.getEndDate(),
+            storeId, investorId, filter.getProductId(), filter.getMaxPoints(), filter.getSampling());
 
-        // 3. Activity Charts (Java Calc)
-        List<LocalDate> allDates = orderRepository.findAllOrderDates(filter.getStartDate(), filter.getEndDate(), storeId, investorId);
-        Map<String, Long> weekStats = calculateWeekStats(allDates);
-        Map<String, Long> monthStats = calculateMonthStats(allDates);
+        // 3. Activity Charts
+        Map<String, Long> weekStats = salesKpis.ordersByDayOfWeek();
+        Map<String, Long> monthStats = salesKpis.ordersByMonth();
 
         // 4. Categorical & Geo Charts
         Map<String, Double> categoryRevenue = mapToDoubleMap(
-            productRepository.findCategoryRevenueDistribution(filter.getStartDate(), filter.getEndDate(), storeId, investorId)
+            salesMetricsReader.findCategoryRevenueDistribution(filter.getStartDate(), filter.getEndDate(), storeId, investorId)
         );
 
         Map<String, Long> productCountByCategory = productRepository.countProductsByCategory(investorId)
                 .stream().collect(Collectors.toMap(r -> String.valueOf(r[0]), r -> ((Number)r[1]).longValue()));
 
-        Map<String, Double> salesByRegion = mapToDoubleMap(
-            orderRepository.findSalesByRegion(filter.getStartDate(), filter.getEndDate(), storeId, investorId)
-        );
-        Map<String, Double> salesByState = mapToDoubleMap(
-            orderRepository.findSalesByState(filter.getStartDate(), filter.getEndDate(), storeId, investorId)
-        );
+        List<Object[]> geoRollup = salesMetricsReader.findGeoRollup(filter.getStartDate(), filter.getEndDate(),
+            storeId, investorId, null, null, null);
+        Map<String, Double> salesByRegion = mapToDoubleMap(GeoRollup.revenueBy(geoRollup, GeoRollup.REGION));
+        Map<String, Double> salesByState = mapToDoubleMap(GeoRollup.revenueBy(geoRollup, GeoRollup.STATE));
+
+        // 5. Period comparison, only when asked for
+        PeriodComparisonDTO comparison = filter.getCompareTo() != null ? periodComparisonService.compare(
+                filter.getStartDate(), filter.getEndDate(), filter.getCompareTo(), storeId, investorId) : null;
 
-        // 5. Leaderboards
-        List<RankingItem> topProducts = mapToRanking(productRepository.findTopSellingProducts(
-                filter.getStartDate(), filter.getEndDate(), investorId, storeId, PageRequest.of(0, 10)));
+        // 6. Leaderboards
+        List<RankingItem> topProducts = RankingItem.fromRows(salesMetricsReader.findTopSellingProducts(
+                filter.getStartDate(), filter.getEndDate(), investorId, storeId, 10));
         
         // Only Admin_G needs top Stores/Investors lists
-        List<RankingItem> topStores = (role == UserRole.ADMIN_G) ? mapToRanking(productRepository.findTopStores(
-                filter.getStartDate(), filter.getEndDate(), PageRequest.of(0, 5))) : null;
+        List<RankingItem> topStores = (role == UserRole.ADMIN_G) ? RankingItem.fromRows(salesMetricsReader.findTopStores(
+                filter.getStartDate(), filter.getEndDate(), 5)) : null;
         
-        List<RankingItem> topInvestors = (role == UserRole.ADMIN_G) ? mapToRanking(productRepository.findTopInvestors(
-                filter.getStartDate(), filter.getEndDate(), PageRequest.of(0, 5))) : null;
+        List<RankingItem> topInvestors = (role == UserRole.ADMIN_G) ? RankingItem.fromRows(salesMetricsReader.findTopInvestors(
+                filter.getStartDate(), filter.getEndDate(), 5)) : null;
 
         return DashboardStatsDTO.builder()
                 .totalRevenue(totalRevenue != null ? totalRevenue : 0.0)
@@ -104,7 +128,7 @@ public class StatisticsService {
                 .totalProductsSold(totalSold != null ? totalSold : 0)
                 .averageOrderValue(Math.round(avgOrderValue * 100.0) / 100.0)
                 .lowStockCount(lowStock != null ? lowStock : 0)
-                .revenueOverTime(compressTimeSeries(fullSeries, 20))
+                .revenueOverTime(revenueOverTime)
                 .ordersByDayOfWeek(weekStats)
                 .ordersByMonth(monthStats)
                 .categoryRevenueDistribution(categoryRevenue)
@@ -114,6 +138,7 @@ public class StatisticsService {
                 .topProducts(topProducts)
                 .topStores(topStores)
                 .topInvestors(topInvestors)
+                .comparison(comparison)
                 .build();
     }
 
@@ -130,26 +155,6 @@ public class StatisticsService {
         }).toList();
     }
 
-    private Map<String, Long> calculateWeekStats(List<LocalDate> dates) {
-        Map<String, Long> stats = new LinkedHashMap<>();
-        for (DayOfWeek day : DayOfWeek.values()) stats.put(day.getDisplayName(TextStyle.FULL, Locale.ENGLISH), 0L);
-        for (LocalDate date : dates) {
-            String dayName = date.getDayOfWeek().getDisplayName(TextStyle.FULL, Locale.ENGLISH);
-            stats.put(dayName, stats.get(dayName) + 1);
-        }
-        return stats;
-    }
-
-    private Map<String, Long> calculateMonthStats(List<LocalDate> dates) {
-        Map<String, Long> stats = new LinkedHashMap<>();
-        for (Month month : Month.values()) stats.put(month.getDisplayName(TextStyle.SHORT, Locale.ENGLISH), 0L);
-        for (LocalDate date : dates) {
-            String monthName = date.getMonth().getDisplayName(TextStyle.SHORT, Locale.ENGLISH);
-            stats.put(monthName, stats.get(monthName) + 1);
-        }
-        return stats;
-    }
-
     private void ensureDateRange(StatisticsFilterDTO filter, UserRole role) {
         // For ADMIN_G: if no dates specified, show ALL TIME (not just 1 month)
         // For other roles: default to last 1 month for performance
@@ -167,64 +172,125 @@ public class StatisticsService {
         }
     }
 
+    private void ensureTimeSeriesShape(StatisticsFilterDTO filter) {
+        filter.setMaxPoints(TimeSeriesEngine.maxPoints(filter.getMaxPoints()));
+        if (filter.getSampling() == null) {
+            filter.setSampling(TimeSeriesSampling.BUCKET);
+        }
+    }
+
     private Long resolveStoreId(Long adminId, Long requestedStoreId) {
         return requestedStoreId; 
     }
     
-    private List<RankingItem> mapToRanking(List<Object[]> rows) {
-        return rows.stream().map(obj -> {
-            Object[] row = (Object[]) obj;
-            String label = String.valueOf(row[0]);
-            if (label.matches("\\d+")) { label = "ID #" + label; }
-            Double value = (Double) row[1];
-            String extra = row.length > 2 && row[2] != null ? String.valueOf(row[2]) : null;
-            return RankingItem.builder().name(label).value(value).additionalInfo(extra).build();
-        }).toList();
-    }
-
-    private List<TimeSeriesPoint> compressTimeSeries(List<TimeSeriesPoint> original, int maxPoints) {
-        if (original == null || original.isEmpty() || original.size() <= maxPoints) return original;
-        List<TimeSeriesPoint> result = new ArrayList<>();
-        int groupSize = (int) Math.ceil((double) original.size() / maxPoints);
-        for (int i = 0; i < original.size(); i += groupSize) {
-            int end = Math.min(i + groupSize, original.size());
-            List<TimeSeriesPoint> chunk = original.subList(i, end);
-            Double sumValue = chunk.stream().mapToDouble(TimeSeriesPoint::getValue).sum();
-            result.add(new TimeSeriesPoint(chunk.get(0).getDate(), sumValue));
-        }
-        return result;
-    }
-
     // Prediction Logic (Updated to use Universal Query)
     public PredictionResultDTO getPredictions(Long userId, UserRole role, String metric, StatisticsFilterDTO filter) {
         ensureDateRange(filter, role);
+        ForecastMetric forecastMetric = ForecastMetric.fromParam(metric);
         Long storeId = (role == UserRole.ADMIN_STORE) ? resolveStoreId(userId, filter.getStoreId()) : filter.getStoreId();
         Long investorId = (role == UserRole.INVESTOR) ? userId : filter.getInvestorId();
         
-        List<Object[]> rawData = new ArrayList<>();
-        if ("REVENUE".equalsIgnoreCase(metric)) {
-            rawData = orderRepository.findRevenueTimeSeries(filter.getStartDate(), filter.getEndDate(), storeId, investorId, filter.getProductId());
-        } else if ("STOCK".equalsIgnoreCase(metric)) {
-            rawData = orderRepository.findStockDemandTimeSeries(filter.getStartDate(), filter.getEndDate(), storeId, investorId, filter.getProductId());
-        }
+        List<Object[]> rawData = (forecastMetric == ForecastMetric.REVENUE)
+            ? salesMetricsReader.findRevenueTimeSeries(filter.getStartDate(), filter.getEndDate(), storeId, investorId, filter.getProductId(), TimeBucket.DAY)
+            : salesMetricsReader.findStockDemandTimeSeries(filter.getStartDate(), filter.getEndDate(), storeId, investorId, filter.getProductId());
         
         List<TimeSeriesPoint> history = mapToTimeSeries(rawData);
-        List<TimeSeriesPoint> forecast = calculateLinearRegressionForecast(history, 30); 
-        return PredictionResultDTO.builder().metric(metric).historicalData(history).forecastData(forecast).trendDescription(analyzeTrend(forecast)).confidenceScore(0.85).build();
+        // The forecast starts today, whatever the displayed history range
+        ForecastService.Forecast forecast = forecastService.forecast(forecastMetric, storeId, investorId, filter.getProductId(), 30);
+        return PredictionResultDTO.builder().metric(metric).historicalData(history)
+            .forecastData(forecast.values()).forecastLower(forecast.lower()).forecastUpper(forecast.upper())
+            .intervalLevel(ForecastService.INTERVAL_LEVEL).trendDescription(analyzeTrend(forecast))
+            .confidenceScore(Math.round(forecast.accuracy() * 100.0) / 100.0).build();
     }
     
-    private List<TimeSeriesPoint> calculateLinearRegressionForecast(List<TimeSeriesPoint> history, int daysToPredict) {
-        if (history == null || history.size() < 2) return new ArrayList<>();
-        double n = history.size(); double sumX = 0, sumY = 0, sumXY = 0, sumXX = 0;
-        for (int i = 0; i < n; i++) { double x = i; double y = history.get(i).getValue(); sumX += x; sumY += y; sumXY += x * y; sumXX += x * x; }
-        double denominator = (n * sumXX - sumX * sumX); if (denominator == 0) return new ArrayList<>(); 
-        double slope = (n * sumXY - sumX * sumY) / denominator; double intercept = (sumY - slope * sumX) / n;
-        List<TimeSeriesPoint> forecast = new ArrayList<>(); LocalDate lastDate = LocalDate.parse(history.get(history.size() - 1).getDate());
-        for (int i = 1; i <= daysToPredict; i++) { double predictedY = slope * ((n - 1) + i) + intercept; if (predictedY < 0) predictedY = 0; forecast.add(TimeSeriesPoint.builder().date(lastDate.plusDays(i).toString()).value(Math.round(predictedY * 100.0) / 100.0).build()); }
-        return forecast;
+    /**
+     * Region -> state -> city -> store sales of the role's scope, from one rollup query. The selected node
+     * (the deepest of regionId, stateId, cityId, else the whole network) is expanded depth levels down (1..4).
+     */
+    @Transactional(readOnly = true)
+    public GeoNodeDTO getGeoDrillDown(Long userId, UserRole role, StatisticsFilterDTO filter,
+                                      Long regionId, Long stateId, Long cityId, Integer depth) {
+        ensureDateRange(filter, role);
+        Long storeId = (role == UserRole.ADMIN_STORE) ? resolveStoreId(userId, filter.getStoreId()) : filter.getStoreId();
+        Long investorId = (role == UserRole.INVESTOR) ? userId : filter.getInvestorId();
+        int levels = depth != null ? Math.max(1, Math.min(depth, 4)) : 1;
+
+        List<Object[]> rows = salesMetricsReader.findGeoRollup(filter.getStartDate(), filter.getEndDate(),
+            storeId, investorId, regionId, stateId, cityId);
+        return GeoRollup.tree(rows, regionId, stateId, cityId, levels);
     }
-    private String analyzeTrend(List<TimeSeriesPoint> forecast) {
-        if (forecast.isEmpty()) return "Insufficient Data"; double start = forecast.get(0).getValue(); double end = forecast.get(forecast.size() - 1).getValue();
+
+    /**
+     * KPIs and revenue series of several stores or investors side by side (ADMIN_G). Each metric is one query
+     * grouped by store or investor over all the ids, so the cost barely depends on how many are compared.
+     */
+    @Transactional(readOnly = true)
+    public ScopeComparisonDTO compareScopes(StatisticsFilterDTO filter, ComparisonScope scope, List<Long> ids) {
+        ensureDateRange(filter, UserRole.ADMIN_G);
+        int maxPoints = TimeSeriesEngine.maxPoints(filter.getMaxPoints());
+        Set<Long> scopeIds = comparedIds(ids);
+
+        Map<Long, String> names = new HashMap<>();
+        List<Object[]> labels = scope == ComparisonScope.INVESTOR
+            ? investorRepository.findLabels(scopeIds) : storeRepository.findLabels(scopeIds);
+        labels.forEach(row -> names.put(((Number) row[0]).longValue(), row[1] != null ? row[1].toString() : null));
+        List<Long> unknown = scopeIds.stream().filter(id -> !names.containsKey(id)).toList();
+        if (!unknown.isEmpty()) {
+            throw new BusinessValidationException("Unknown " + scope.toParam() + " ids: " + unknown);
+        }
+
+        Map<Long, Object[]> sales = new HashMap<>();
+        salesMetricsReader.findScopeSales(filter.getStartDate(), filter.getEndDate(), scope, scopeIds)
+            .forEach(row -> sales.put(((Number) row[0]).longValue(), row));
+        TimeSeriesEngine.ScopeSeries series = timeSeriesEngine.revenueByScope(filter.getStartDate(), filter.getEndDate(),
+            scope, scopeIds, maxPoints);
+
+        List<ScopeComparisonDTO.Entry> entries = new ArrayList<>(scopeIds.size());
+        for (Long id : scopeIds) {
+            Object[] row = sales.get(id);
+            double revenue = row != null && row[1] != null ? ((Number) row[1]).doubleValue() : 0.0;
+            long orders = row != null && row[2] != null ? ((Number) row[2]).longValue() : 0L;
+            long units = row != null && row[3] != null ? ((Number) row[3]).longValue() : 0L;
+            entries.add(ScopeComparisonDTO.Entry.builder()
+                .id(id)
+                .name(names.get(id))
+                .revenue(revenue)
+                .orders(orders)
+                .unitsSold(units)
+                .averageOrderValue(orders > 0 ? Math.round(revenue / orders * 100.0) / 100.0 : 0.0)
+                .revenueOverTime(series.series().get(id))
+                .build());
+        }
+        return ScopeComparisonDTO.builder()
+            .scope(scope.toParam())
+            .startDate(filter.getStartDate())
+            .endDate(filter.getEndDate())
+            .resolution(series.bucket().unit())
+            .entries(entries)
+            .build();
+    }
+
+    // Distinct ids in request order
+    private Set<Long> comparedIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BusinessValidationException("ids must name at least one store or investor");
+        }
+        Set<Long> distinct = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id == null || id <= 0) {
+                throw new BusinessValidationException("ids must be positive");
+            }
+            distinct.add(id);
+        }
+        if (distinct.size() > MAX_COMPARED_SCOPES) {
+            throw new BusinessValidationException("At most " + MAX_COMPARED_SCOPES + " ids can be compared");
+        }
+        return distinct;
+    }
+
+    // First and last forecast weeks, so the weekly season does not read as a trend
+    private String analyzeTrend(ForecastService.Forecast forecast) {
+        if (forecast.values().isEmpty()) return "Insufficient Data"; double start = forecast.total(7); double end = forecast.trailingTotal(7);
         if (start == 0) return "New Data"; double change = (end - start) / start;
         if (change > 0.05) return "Growing Trend 📈"; if (change < -0.05) return "Declining Trend 📉"; return "Stable Market ➖";
     }
@@ -0,0 +1,102 @@
+package com.analyfy.analify;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Base of the tests that need the native PostgreSQL queries: one embedded server for the whole run,
+ * schema created by Hibernate, and a seed of stores, investors, products and random orders.
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create",
+        "spring.jpa.show-sql=false",
+        "analytics.warmup.enabled=false",
+        "analytics.forecast.batch-enabled=false"
+})
+public abstract class EmbeddedPostgresTest {
+
+    private static final EmbeddedPostgres POSTGRES;
+
+    static {
+        try {
+            POSTGRES = EmbeddedPostgres.start();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @Autowired
+    protected JdbcTemplate jdbc;
+
+    /**
+     * Three stores (one per city), cashiers 1 to 3, investors 4 and 5 owning nine products,
+     * and the given number of random orders spread over the last days of history.
+     */
+    protected void seedOrders(int orders, int days, long seed) {
+        seedDimensions();
+        Random random = new Random(seed);
+        LocalDate today = LocalDate.now();
+        for (int order = 0; order < orders; order++) {
+            LocalDate day = today.minusDays(random.nextInt(days));
+            Long orderId = jdbc.queryForObject("INSERT INTO \"orders\"(order_date, ship_date, user_id) VALUES (?, ?, ?) " +
+                    "RETURNING order_id", Long.class, day, day, 1 + random.nextInt(3));
+            int items = 1 + random.nextInt(3);
+            for (int item = 0; item < items; item++) {
+                int product = 1 + random.nextInt(9);
+                jdbc.update("INSERT INTO order_items(order_id, product_id, price, discount, quantity) VALUES (?, ?, ?, ?, ?)",
+                        orderId, product, 10.0 * product, random.nextInt(3) * 0.1, 1 + random.nextInt(4));
+            }
+        }
+    }
+
+    /**
+     * Same stores and products, with orders of one to three lines generated by the database, for benchmarks.
+     */
+    protected void seedBulkOrders(int orders, int days) {
+        seedDimensions();
+        jdbc.update("INSERT INTO \"orders\"(order_date, ship_date, user_id) " +
+                "SELECT CURRENT_DATE - (random() * ?)::int, CURRENT_DATE, 1 + (random() * 2)::int FROM generate_series(1, ?)",
+                days - 1, orders);
+        jdbc.update("INSERT INTO order_items(order_id, product_id, price, discount, quantity) " +
+                "SELECT o.order_id, 1 + (o.order_id * 7 + i) % 9, 10.0 * (1 + (o.order_id * 7 + i) % 9), " +
+                "0.1 * (random() * 2)::int, 1 + (random() * 3)::int " +
+                "FROM \"orders\" o CROSS JOIN generate_series(1, 3) i WHERE i <= 1 + o.order_id % 3");
+        jdbc.execute("ANALYZE");
+    }
+
+    private void seedDimensions() {
+        jdbc.execute("TRUNCATE region, state, city, store, \"user\", caissier, investor, category, subcategory, product, " +
+                "\"orders\", order_items RESTART IDENTITY CASCADE");
+        jdbc.update("INSERT INTO region(name) VALUES ('North'), ('South')");
+        jdbc.update("INSERT INTO state(name, region_id) VALUES ('S1', 1), ('S2', 1), ('S3', 2)");
+        jdbc.update("INSERT INTO city(city_name, state_id) VALUES ('C1', 1), ('C2', 2), ('C3', 3)");
+        jdbc.update("INSERT INTO store(city_id) VALUES (1), (2), (3)");
+        for (int user = 1; user <= 5; user++) {
+            jdbc.update("INSERT INTO \"user\"(user_name, mail, password) VALUES (?, ?, ?)", "u" + user, "u" + user + "@test", "p");
+        }
+        jdbc.update("INSERT INTO caissier(user_id, store_id) VALUES (1, 1), (2, 2), (3, 3)");
+        jdbc.update("INSERT INTO investor(user_id) VALUES (4), (5)");
+        jdbc.update("INSERT INTO category(category_name) VALUES ('Tech'), ('Food'), ('Home')");
+        jdbc.update("INSERT INTO subcategory(subcategory_name, category_id) VALUES ('Phones', 1), ('Fruit', 2), ('Chairs', 3)");
+        for (int product = 1; product <= 9; product++) {
+            jdbc.update("INSERT INTO product(product_name, subcategory_id, price, id_inv) VALUES (?, ?, ?, ?)",
+                    "P" + product, (product - 1) % 3 + 1, 10.0 * product, product % 2 == 0 ? 4 : 5);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.analyfy.analify.Repository;
+
+import com.analyfy.analify.EmbeddedPostgresTest;
+import com.analyfy.analify.Service.Analytics.RollupRangePlan;
+import com.analyfy.analify.Service.Analytics.SalesRollupService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DailySalesRollupRepositoryTest extends EmbeddedPostgresTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private DailySalesRollupRepository repository;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @BeforeEach
+    void seed() {
+        seedOrders(300, 800, 42);
+        salesRollupService.rebuild();
+    }
+
+    @Test
+    void plannedReadsMatchTheDailyTier() {
+        List<LocalDate[]> ranges = List.of(
+                range(TODAY.minusDays(900), TODAY),
+                range(TODAY.minusDays(29), TODAY),
+                range(TODAY, TODAY),
+                range(TODAY.minusMonths(6).withDayOfMonth(1), TODAY.minusMonths(1).withDayOfMonth(1).minusDays(1)),
+                range(TODAY.minusMonths(14).withDayOfMonth(10), TODAY.minusMonths(2).withDayOfMonth(1).minusDays(1)),
+                range(LocalDate.of(TODAY.getYear() - 1, 11, 15), LocalDate.of(TODAY.getYear(), 1, 20)));
+
+        for (LocalDate[] range : ranges) {
+            for (Long storeId : Arrays.asList(null, 2L)) {
+                for (Long investorId : Arrays.asList(null, 4L)) {
+                    String label = range[0] + ".." + range[1] + " store=" + storeId + " investor=" + investorId;
+                    assertSameRows(label, plan -> List.<Object[]>of(new Object[]{repository.sumRevenue(plan.start(),
+                            plan.headEnd(), plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId, investorId)}),
+                            range);
+                    assertSameRows(label + " kpis", plan -> repository.findSalesKpis(plan.start(), plan.headEnd(),
+                            plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId, investorId,
+                            investorId != null ? investorId : 0L), range);
+                    assertSameRows(label + " geo", plan -> repository.findGeoRollup(plan.start(), plan.headEnd(),
+                            plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId, investorId,
+                            investorId != null ? investorId : 0L, null, null, null), range);
+                    assertSameRows(label + " months", plan -> repository.findRevenueTimeSeries(plan.start(), plan.headEnd(),
+                            plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId, investorId, null,
+                            "month"), range);
+                    assertSameRows(label + " categories", plan -> repository.findCategoryRevenueDistribution(plan.start(),
+                            plan.headEnd(), plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId,
+                            investorId), range);
+                    assertSameRows(label + " products", plan -> repository.findTopSellingProducts(plan.start(),
+                            plan.headEnd(), plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId,
+                            investorId, PageRequest.of(0, 20)), range);
+                    assertSameRows(label + " stores", plan -> repository.findTopStores(plan.start(), plan.headEnd(),
+                            plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId, investorId,
+                            PageRequest.of(0, 20)), range);
+                    assertSameRows(label + " investors", plan -> repository.findTopInvestors(plan.start(), plan.headEnd(),
+                            plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(), storeId, investorId,
+                            PageRequest.of(0, 20)), range);
+                }
+            }
+        }
+    }
+
+    /**
+     * All-time and 30-day KPI reads, planned vs daily tier only. Run with -Dbenchmark=true
+     * (-Dbenchmark.orders and -Dbenchmark.days size the history).
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "benchmark", matches = "true")
+    void benchmarkAllTimeVsThirtyDays() {
+        int orders = Integer.getInteger("benchmark.orders", 200_000);
+        int days = Integer.getInteger("benchmark.days", 5 * 365);
+        seedBulkOrders(orders, days);
+        salesRollupService.rebuild();
+
+        LocalDate first = TODAY.minusDays(days - 1);
+        LocalDate monthAgo = TODAY.minusDays(29);
+        System.out.printf("Rollup benchmark, %d orders over %d days:%n", orders, days);
+        System.out.printf("  all-time planned:    %6.2f ms%n", kpisMillis(RollupRangePlan.of(first, TODAY)));
+        System.out.printf("  all-time days only:  %6.2f ms%n", kpisMillis(RollupRangePlan.daysOnly(first, TODAY)));
+        System.out.printf("  30 days planned:     %6.2f ms%n", kpisMillis(RollupRangePlan.of(monthAgo, TODAY)));
+        System.out.printf("  30 days days only:   %6.2f ms%n", kpisMillis(RollupRangePlan.daysOnly(monthAgo, TODAY)));
+    }
+
+    private double kpisMillis(RollupRangePlan plan) {
+        int runs = 20;
+        for (int i = 0; i < 5; i++) kpis(plan);
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < runs; i++) kpis(plan);
+        return (System.nanoTime() - startedAt) / 1e6 / runs;
+    }
+
+    private void kpis(RollupRangePlan plan) {
+        repository.findSalesKpis(plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(), plan.tailStart(),
+                plan.end(), null, null, 0L);
+    }
+
+    private static void assertSameRows(String label, Function<RollupRangePlan, List<Object[]>> query, LocalDate[] range) {
+        RollupRangePlan planned = RollupRangePlan.of(range[0], range[1]);
+        RollupRangePlan daysOnly = RollupRangePlan.daysOnly(range[0], range[1]);
+        assertEquals(render(query.apply(daysOnly)), render(query.apply(planned)), label);
+    }
+
+    // Rows rendered order-independently, every number as %.4f
+    private static List<String> render(List<Object[]> rows) {
+        List<String> rendered = new ArrayList<>();
+        for (Object[] row : rows) {
+            StringBuilder line = new StringBuilder();
+            for (Object value : row) {
+                line.append(value instanceof Number number ? String.format("%.4f", number.doubleValue()) : String.valueOf(value))
+                        .append('|');
+            }
+            rendered.add(line.toString());
+        }
+        rendered.sort(null);
+        return rendered;
+    }
+
+    private static LocalDate[] range(LocalDate start, LocalDate end) {
+        return new LocalDate[]{start, end};
+    }
+}
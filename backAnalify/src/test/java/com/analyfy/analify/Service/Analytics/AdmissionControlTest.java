@@ -0,0 +1,136 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Enum.AdmissionLane;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdmissionControlTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void eachLaneIsLimitedToItsConcurrentRequests() throws Exception {
+        AdmissionControl control = control(10, 50, 5);
+
+        AdmissionControl.Ticket first = control.admit(AdmissionLane.ASSISTANT);
+        AdmissionControl.Ticket second = control.admit(AdmissionLane.ASSISTANT);
+        assertNotNull(first);
+        assertNotNull(second);
+        // Slots are left, but not in the lane: refused once the queue timeout has passed
+        long startedAt = System.nanoTime();
+        assertNull(control.admit(AdmissionLane.ASSISTANT));
+        assertTrue(System.nanoTime() - startedAt >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertEquals(1L, lane(control, AdmissionLane.ASSISTANT).get("timedOut"));
+        // Other lanes are not held back
+        assertNotNull(control.admit(AdmissionLane.ANALYTICS));
+
+        control.release(first, 1);
+        assertNotNull(control.admit(AdmissionLane.ASSISTANT));
+    }
+
+    @Test
+    void aFullQueueIsRefusedWithoutWaiting() throws Exception {
+        AdmissionControl control = control(10, 5000, 1);
+        AdmissionControl.Ticket first = control.admit(AdmissionLane.ASSISTANT);
+        control.admit(AdmissionLane.ASSISTANT);
+        Future<AdmissionControl.Ticket> queued = executor.submit(() -> control.admit(AdmissionLane.ASSISTANT));
+        awaitWaiting(control, AdmissionLane.ASSISTANT, 1);
+
+        assertNull(assertTimeoutPreemptively(Duration.ofSeconds(1), () -> control.admit(AdmissionLane.ASSISTANT)));
+        assertEquals(1L, lane(control, AdmissionLane.ASSISTANT).get("rejected"));
+
+        // The queued request gets the place given back
+        control.release(first, 1);
+        assertNotNull(queued.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, lane(control, AdmissionLane.ASSISTANT).get("queued"));
+    }
+
+    @Test
+    void ordersInFlightTakeASlotEach() throws Exception {
+        AdmissionControl control = control(3, 50, 5);
+        control.orderStarted();
+        control.orderStarted();
+
+        assertNotNull(control.admit(AdmissionLane.ANALYTICS));
+        assertNull(control.admit(AdmissionLane.ANALYTICS));
+
+        control.orderFinished();
+        assertNotNull(control.admit(AdmissionLane.ANALYTICS));
+        assertEquals(0, control.stats().get("availableSlots"));
+    }
+
+    @Test
+    void backgroundWorkWaitsWhileARequestIsQueued() throws Exception {
+        AdmissionControl control = control(1, 5000, 5);
+        AdmissionControl.Ticket running = control.admit(AdmissionLane.ANALYTICS);
+        Future<AdmissionControl.Ticket> request = executor.submit(() -> control.admit(AdmissionLane.ANALYTICS));
+        awaitWaiting(control, AdmissionLane.ANALYTICS, 1);
+        Future<AdmissionControl.Ticket> job = executor.submit(() -> control.await(AdmissionLane.JOB));
+        awaitWaiting(control, AdmissionLane.JOB, 1);
+
+        // The freed slot goes to the queued request, though the job is waiting too
+        control.release(running, 1);
+        AdmissionControl.Ticket admitted = request.get(5, TimeUnit.SECONDS);
+        assertNotNull(admitted);
+        assertFalse(job.isDone());
+
+        control.release(admitted, 1);
+        assertNotNull(job.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void releaseGivesTheSlotsBackAndChargesTheMeasuredQueries() throws Exception {
+        AdmissionControl control = control(4, 50, 5);
+
+        AdmissionControl.Ticket first = control.admit(AdmissionLane.ANALYTICS);
+        assertEquals(1, first.slots());
+        // 5 queries at 2 per slot: the next requests of the lane take 3 slots
+        control.release(first, 5);
+        assertEquals(0, control.stats().get("usedSlots"));
+
+        AdmissionControl.Ticket second = control.admit(AdmissionLane.ANALYTICS);
+        assertEquals(3, second.slots());
+        assertEquals(3, control.stats().get("usedSlots"));
+        assertNull(control.admit(AdmissionLane.ANALYTICS));
+
+        control.release(second, 5);
+        assertEquals(0, control.stats().get("usedSlots"));
+        assertNotNull(control.admit(AdmissionLane.ANALYTICS));
+    }
+
+    // 2 queries per slot; lane limits: 2 assistant requests, 8 analytics requests, 2 jobs
+    private static AdmissionControl control(int slots, long queueTimeoutMillis, int maxQueued) {
+        return new AdmissionControl(true, slots, 2, queueTimeoutMillis, maxQueued, 2, 8, 2, 8, 2, 2, 2);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> lane(AdmissionControl control, AdmissionLane lane) {
+        return (Map<String, Object>) control.stats().get(lane.toParam());
+    }
+
+    private static void awaitWaiting(AdmissionControl control, AdmissionLane lane, int waiting) throws InterruptedException {
+        for (int i = 0; i < 500 && !Integer.valueOf(waiting).equals(lane(control, lane).get("waiting")); i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(waiting, lane(control, lane).get("waiting"));
+    }
+}
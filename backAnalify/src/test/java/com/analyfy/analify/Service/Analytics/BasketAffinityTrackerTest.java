@@ -0,0 +1,168 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.ProductAffinityDTO;
+import com.analyfy.analify.Enum.AffinityMetric;
+import com.analyfy.analify.Repository.OrderItemsRepository;
+import com.analyfy.analify.Repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BasketAffinityTrackerTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    // Line columns: order id, order date, store id, product id
+    private final List<Object[]> lines = new CopyOnWriteArrayList<>();
+    // When set, the next read of the lines waits for it to be released
+    private volatile CountDownLatch reading;
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BasketAffinityTracker tracker;
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        if (tracker != null) tracker.shutdown();
+    }
+
+    @Test
+    void createdAndDeletedOrdersUpdateTheCounts() {
+        basket(1, TODAY.minusDays(5), 1, 100, 200);
+        tracker = tracker();
+        tracker.rebuild();
+
+        tracker.onDataChanged(order(AnalyticsDataChangedEvent.Source.ORDER_CREATED, 2, 2L, 100, 200, 300));
+        assertEquals(List.of("100+200=2", "100+300=1", "200+300=1"), pairs(null));
+        assertEquals(List.of("100+200=1", "100+300=1", "200+300=1"), pairs(2L));
+
+        tracker.onDataChanged(order(AnalyticsDataChangedEvent.Source.ORDER_DELETED, 1, 1L, 100, 200));
+        assertEquals(List.of("100+200=1", "100+300=1", "200+300=1"), pairs(null));
+        assertEquals(List.of(), pairs(1L));
+        assertEquals(1, baskets(null));
+        assertTrue(tracker.isServing());
+    }
+
+    @Test
+    void aCreatedOrderReadByTheRebuildIsNotCountedTwice() {
+        basket(1, TODAY, 1, 100, 200);
+        tracker = tracker();
+        tracker.rebuild();
+
+        tracker.onDataChanged(order(AnalyticsDataChangedEvent.Source.ORDER_CREATED, 1, 1L, 100, 200));
+
+        assertEquals(1, baskets(null));
+    }
+
+    @Test
+    void ordersCommittedDuringARebuildDoNotWaitForItAndAreAppliedAfter() throws InterruptedException {
+        basket(1, TODAY.minusDays(5), 1, 100, 200);
+        tracker = tracker();
+        tracker.rebuild();
+        Thread rebuild = rebuildUntilReleased();
+
+        // The checkout thread is not held by the rebuild reading the lines
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () ->
+                tracker.onDataChanged(order(AnalyticsDataChangedEvent.Source.ORDER_CREATED, 9, 1L, 100, 200)));
+        release.countDown();
+        rebuild.join(5000);
+
+        assertEquals(List.of("100+200=2"), pairs(null));
+        assertTrue(tracker.isServing());
+    }
+
+    @Test
+    void aDeletionDuringARebuildRebuildsAgain() throws InterruptedException {
+        basket(1, TODAY.minusDays(5), 1, 100, 200);
+        basket(2, TODAY.minusDays(4), 1, 100, 300);
+        tracker = tracker();
+        tracker.rebuild();
+        Thread rebuild = rebuildUntilReleased();
+
+        // Deleted after the rebuild started: whether its read saw the order is unknown
+        lines.removeIf(line -> (long) line[0] == 1L);
+        tracker.onDataChanged(order(AnalyticsDataChangedEvent.Source.ORDER_DELETED, 1, 1L, 100, 200));
+        release.countDown();
+        rebuild.join(5000);
+
+        for (int i = 0; i < 200 && (!tracker.isServing() || baskets(null) != 1); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(tracker.isServing());
+        assertEquals(1, baskets(null));
+        assertEquals(List.of("100+300=1"), pairs(null));
+    }
+
+    // Starts a rebuild that stays reading the lines until release
+    private Thread rebuildUntilReleased() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        reading = started;
+        Thread rebuild = new Thread(tracker::rebuild);
+        rebuild.start();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return rebuild;
+    }
+
+    private BasketAffinityTracker tracker() {
+        OrderItemsRepository orderItems = mock(OrderItemsRepository.class);
+        ProductRepository products = mock(ProductRepository.class);
+        when(orderItems.streamBasketLines()).thenAnswer(invocation -> {
+            CountDownLatch started = reading;
+            if (started != null) {
+                reading = null;
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            }
+            return new ArrayList<>(lines).stream();
+        });
+        // Product rows: product id, name, category id
+        when(products.findAffinityProductDimension()).thenReturn(List.of(
+                new Object[]{100L, "Coffee", 1L},
+                new Object[]{200L, "Croissant", 2L},
+                new Object[]{300L, "Tea", 1L}));
+        return new BasketAffinityTracker(orderItems, products, mock(PlatformTransactionManager.class), true, 50, 16);
+    }
+
+    private void basket(long orderId, LocalDate day, long storeId, long... productIds) {
+        for (long productId : productIds) {
+            lines.add(new Object[]{orderId, day, storeId, productId});
+        }
+    }
+
+    // "first+second=orders", lowest product id first, sorted
+    private List<String> pairs(Long storeId) {
+        ProductAffinityDTO affinity = tracker.topPairs(storeId, null, AffinityMetric.SUPPORT, 1, 10);
+        return affinity.getPairs().stream()
+                .map(pair -> Math.min(pair.getProductId(), pair.getOtherProductId()) + "+"
+                        + Math.max(pair.getProductId(), pair.getOtherProductId()) + "=" + pair.getOrders())
+                .sorted()
+                .toList();
+    }
+
+    private long baskets(Long storeId) {
+        return tracker.topPairs(storeId, null, AffinityMetric.SUPPORT, 1, 10).getBaskets();
+    }
+
+    private static AnalyticsDataChangedEvent order(AnalyticsDataChangedEvent.Source source, long orderId, Long storeId,
+                                                   long... productIds) {
+        List<AnalyticsDataChangedEvent.Line> orderLines = new ArrayList<>();
+        for (long productId : productIds) {
+            orderLines.add(new AnalyticsDataChangedEvent.Line(productId, 1, 10));
+        }
+        return new AnalyticsDataChangedEvent(source, storeId, Set.of(), orderId, TODAY, orderLines);
+    }
+}
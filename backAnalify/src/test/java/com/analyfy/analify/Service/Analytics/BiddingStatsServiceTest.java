@@ -0,0 +1,87 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Bids.CreateBidRequest;
+import com.analyfy.analify.EmbeddedPostgresTest;
+import com.analyfy.analify.Service.BiddingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class BiddingStatsServiceTest extends EmbeddedPostgresTest {
+
+    private static final LocalDate END_OF_MONTH = LocalDate.now().withDayOfMonth(LocalDate.now().lengthOfMonth());
+
+    @Autowired
+    private BiddingService biddingService;
+
+    @Autowired
+    private BiddingStatsService biddingStatsService;
+
+    // Sections: 1 and 2 open for bids, 3 open without bids, 4 already won by investor 5
+    @BeforeEach
+    void seed() {
+        seedOrders(0, 1, 1);
+        jdbc.execute("TRUNCATE rang, face, section, bid, bidding_stats RESTART IDENTITY CASCADE");
+        jdbc.update("INSERT INTO rang(rang_name, category_id) VALUES ('Gold', 1), ('Silver', 2)");
+        jdbc.update("INSERT INTO face(face_name, rang_id) VALUES ('North', 1), ('South', 2)");
+        jdbc.update("INSERT INTO section(section_name, base_price, current_price, status, date_delai, face_id, " +
+                "winner_investor_id) VALUES ('A', 100, 100, 'OPEN', ?, 1, NULL), ('B', 200, 200, 'OPEN', ?, 2, NULL), " +
+                "('C', 50, 50, 'OPEN', ?, 1, NULL), ('D', 80, 90, 'CLOSED', ?, 2, 5)",
+                END_OF_MONTH, END_OF_MONTH, END_OF_MONTH, END_OF_MONTH.minusMonths(1));
+        biddingStatsService.rebuild();
+    }
+
+    @Test
+    void incrementalChangesMatchARebuild() {
+        long outbid = bid(1L, 4L, 120.0);
+        bid(1L, 5L, 130.0);
+        bid(2L, 4L, 250.0);
+        long pending = bid(2L, 5L, 260.0);
+        assertMatchesRebuild("bids");
+
+        // The leading bid: the next best one takes its place and price
+        biddingService.cancelBid(pending);
+        biddingService.cancelBid(outbid);
+        assertMatchesRebuild("cancellations");
+
+        // Won by investor 5, and closed without bids: back to its base price
+        biddingService.closeSection(1L);
+        biddingService.closeSection(3L);
+        assertMatchesRebuild("closing");
+
+        biddingService.increasePricesForNewMonth();
+        assertMatchesRebuild("new month");
+    }
+
+    private long bid(Long sectionId, Long investorId, double amount) {
+        CreateBidRequest request = new CreateBidRequest();
+        request.setSectionId(sectionId);
+        request.setInvestorId(investorId);
+        request.setAmount(amount);
+        return biddingService.addBid(request).getBidId();
+    }
+
+    private void assertMatchesRebuild(String step) {
+        List<String> incremental = rows();
+        biddingStatsService.rebuild();
+        List<String> rebuilt = rows();
+        assertFalse(rebuilt.isEmpty(), step);
+        assertEquals(rebuilt, incremental, step);
+    }
+
+    // "investor|dimension|key|count|value", sorted
+    private List<String> rows() {
+        return jdbc.query("SELECT investor_id, dimension, dim_key, item_count, total_value FROM bidding_stats",
+                (rs, i) -> rs.getLong(1) + "|" + rs.getString(2) + "|" + rs.getString(3) + "|" + rs.getLong(4) + "|"
+                        + String.format("%.4f", rs.getDouble(5)))
+                .stream()
+                .sorted()
+                .toList();
+    }
+}
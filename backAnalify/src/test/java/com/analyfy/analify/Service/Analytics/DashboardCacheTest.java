@@ -0,0 +1,119 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Enum.ComparisonPeriod;
+import com.analyfy.analify.Enum.TimeSeriesSampling;
+import com.analyfy.analify.Enum.UserRole;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DashboardCacheTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    private final DashboardCache cache = new DashboardCache(true, 100, 300);
+
+    @Test
+    void ordersAffectTheirStoreAndInvestors() {
+        AnalyticsDataChangedEvent order = order(1L, 4L);
+
+        assertTrue(key(DashboardCache.View.BASIC, UserRole.ADMIN_STORE, 1L, null, null).isAffectedBy(order));
+        assertFalse(key(DashboardCache.View.BASIC, UserRole.ADMIN_STORE, 2L, null, null).isAffectedBy(order));
+        assertTrue(key(DashboardCache.View.BASIC, UserRole.INVESTOR, null, 4L, null).isAffectedBy(order));
+        assertFalse(key(DashboardCache.View.BASIC, UserRole.INVESTOR, null, 5L, null).isAffectedBy(order));
+        assertFalse(key(DashboardCache.View.BASIC, UserRole.INVESTOR, 2L, 4L, null).isAffectedBy(order));
+        // Platform-wide sections: every change
+        assertTrue(key(DashboardCache.View.BASIC, UserRole.ADMIN_G, 2L, 5L, null).isAffectedBy(order));
+    }
+
+    @Test
+    void bidsOnlyAffectViewsShowingSections() {
+        AnalyticsDataChangedEvent bid = AnalyticsDataChangedEvent.forBid(Set.of(4L));
+
+        assertFalse(key(DashboardCache.View.BASIC, UserRole.INVESTOR, null, 4L, null).isAffectedBy(bid));
+        assertTrue(key(DashboardCache.View.ENHANCED, UserRole.INVESTOR, null, 4L, null).isAffectedBy(bid));
+        assertTrue(key(DashboardCache.View.BASIC, UserRole.INVESTOR, null, 4L, ComparisonPeriod.PREVIOUS_PERIOD)
+                .isAffectedBy(bid));
+        assertFalse(key(DashboardCache.View.ENHANCED, UserRole.INVESTOR, null, 5L, null).isAffectedBy(bid));
+        // Sections are not store-specific
+        assertTrue(key(DashboardCache.View.ENHANCED, UserRole.ADMIN_STORE, 1L, null, null).isAffectedBy(bid));
+    }
+
+    @Test
+    void aChangeElsewhereDuringTheComputationDoesNotPreventStoring() {
+        DashboardCache.Key store1 = key(DashboardCache.View.BASIC, UserRole.ADMIN_STORE, 1L, null, null);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(store1, () -> {
+            cache.onDataChangeStaged(order(2L, 5L));
+            return "store 1 v" + loads.incrementAndGet();
+        });
+
+        assertEquals("store 1 v1", cache.get(store1, () -> "store 1 v" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void aChangeOfTheScopeDuringTheComputationPreventsStoring() {
+        DashboardCache.Key store1 = key(DashboardCache.View.BASIC, UserRole.ADMIN_STORE, 1L, null, null);
+        AtomicInteger loads = new AtomicInteger();
+
+        String first = cache.get(store1, () -> {
+            cache.onDataChangeStaged(order(2L, 5L));
+            cache.onDataChangeStaged(order(1L, 5L));
+            return "store 1 v" + loads.incrementAndGet();
+        });
+
+        // Returned to its caller, but computed before the change: not stored
+        assertEquals("store 1 v1", first);
+        assertEquals("store 1 v2", cache.get(store1, () -> "store 1 v" + loads.incrementAndGet()));
+        assertEquals("store 1 v2", cache.get(store1, () -> "store 1 v" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void aComputationOlderThanTheChangeLogIsNotStored() {
+        DashboardCache.Key store1 = key(DashboardCache.View.BASIC, UserRole.ADMIN_STORE, 1L, null, null);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(store1, () -> {
+            // None of these touch store 1, but the oldest are forgotten before the computation ends
+            for (int i = 0; i < 1000; i++) {
+                cache.onDataChangeStaged(order(2L, 5L));
+            }
+            return "store 1 v" + loads.incrementAndGet();
+        });
+
+        assertEquals("store 1 v2", cache.get(store1, () -> "store 1 v" + loads.incrementAndGet()));
+    }
+
+    @Test
+    void clearDuringTheComputationPreventsStoring() {
+        DashboardCache.Key store1 = key(DashboardCache.View.BASIC, UserRole.ADMIN_STORE, 1L, null, null);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(store1, () -> {
+            cache.clear();
+            return "store 1 v" + loads.incrementAndGet();
+        });
+
+        assertEquals("store 1 v2", cache.get(store1, () -> "store 1 v" + loads.incrementAndGet()));
+    }
+
+    private static DashboardCache.Key key(DashboardCache.View view, UserRole role, Long storeId, Long investorId,
+                                          ComparisonPeriod compareTo) {
+        return new DashboardCache.Key(view, role, storeId, investorId, TODAY.minusDays(29), TODAY, null, compareTo,
+                30, TimeSeriesSampling.BUCKET, false, null);
+    }
+
+    private static AnalyticsDataChangedEvent order(Long storeId, Long investorId) {
+        return new AnalyticsDataChangedEvent(AnalyticsDataChangedEvent.Source.ORDER_CREATED, storeId, Set.of(investorId),
+                1L, TODAY, List.of(new AnalyticsDataChangedEvent.Line(10L, 1, 10.0)));
+    }
+}
@@ -0,0 +1,74 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Entity.ForecastModel;
+import com.analyfy.analify.Enum.ForecastMetric;
+import com.analyfy.analify.Repository.ForecastModelRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ForecastServiceTest {
+
+    private static final LocalDate YESTERDAY = LocalDate.now().minusDays(1);
+    private static final LocalDate FIRST_DAY = YESTERDAY.minusDays(120);
+
+    private final SalesMetricsReader salesMetricsReader = mock(SalesMetricsReader.class);
+    private final ForecastModelRepository forecastModelRepository = mock(ForecastModelRepository.class);
+    private final ForecastService forecastService = new ForecastService(salesMetricsReader, forecastModelRepository,
+            mock(PlatformTransactionManager.class), 28);
+
+    @Test
+    void aReloadedModelForecastsLikeTheFittedOne() {
+        when(salesMetricsReader.findFirstSalesDay()).thenReturn(FIRST_DAY);
+        when(salesMetricsReader.findRevenueTimeSeries(any(), any(), isNull(), isNull(), isNull(), eq(TimeBucket.DAY)))
+                .thenAnswer(invocation -> revenue(invocation.getArgument(0), invocation.getArgument(1)));
+        when(forecastModelRepository.findByScopeKey(anyString())).thenReturn(Optional.empty());
+
+        ForecastService.Forecast fitted = forecastService.forecast(ForecastMetric.REVENUE, null, null, null, 30);
+
+        ArgumentCaptor<ForecastModel> saved = ArgumentCaptor.forClass(ForecastModel.class);
+        verify(forecastModelRepository).save(saved.capture());
+        ForecastModel stored = saved.getValue();
+        assertEquals(YESTERDAY, stored.getLastDay());
+        assertEquals(30, fitted.values().size());
+        assertTrue(fitted.accuracy() > 0.9, "accuracy " + fitted.accuracy());
+
+        // Drop the stored projection, so that the next forecast projects again from the stored state
+        stored.setForecastFrom(null);
+        when(forecastModelRepository.findByScopeKey(anyString())).thenReturn(Optional.of(stored));
+
+        ForecastService.Forecast reloaded = forecastService.forecast(ForecastMetric.REVENUE, null, null, null, 30);
+
+        assertEquals(fitted, reloaded);
+        // Same day, nothing to absorb: the stored state was used, not fitted again
+        verify(salesMetricsReader, times(1)).findFirstSalesDay();
+    }
+
+    // Weekly pattern on a rising level, one row per day of [from, to]
+    private static List<Object[]> revenue(LocalDate from, LocalDate to) {
+        double[] week = {-20, -10, 0, 5, 10, 25, -10};
+        List<Object[]> rows = new ArrayList<>();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            long t = ChronoUnit.DAYS.between(FIRST_DAY, day);
+            rows.add(new Object[]{day.toString(), 100 + 0.5 * t + week[day.getDayOfWeek().getValue() - 1] + (t % 3)});
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,155 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Enum.LeaderboardWindow;
+import com.analyfy.analify.Repository.OrderItemsRepository;
+import com.analyfy.analify.Repository.ProductRepository;
+import com.analyfy.analify.Repository.StoreRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HeavyHittersTrackerTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    // Line columns: order id, order date, store id, product id, net revenue, quantity
+    private final List<Object[]> lines = new CopyOnWriteArrayList<>();
+    private HeavyHittersTracker tracker;
+
+    @AfterEach
+    void shutdown() {
+        if (tracker != null) tracker.shutdown();
+    }
+
+    @Test
+    void windowsMergeTheirDays() {
+        lines.add(line(1, TODAY, 1, 100, 10));
+        lines.add(line(1, TODAY, 1, 200, 5));
+        lines.add(line(2, TODAY.minusDays(3), 2, 100, 20));
+        lines.add(line(3, TODAY.minusDays(10), 2, 200, 40));
+        lines.add(line(4, TODAY.minusDays(29), 1, 300, 1));
+        tracker = tracker(10);
+        tracker.rebuild();
+
+        assertEquals(List.of("Coffee=10.0", "Tea=5.0"), products(LeaderboardWindow.TODAY));
+        assertEquals(List.of("Coffee=30.0", "Tea=5.0"), products(LeaderboardWindow.LAST_7_DAYS));
+        assertEquals(List.of("Tea=45.0", "Coffee=30.0", "Cake=1.0"), products(LeaderboardWindow.LAST_30_DAYS));
+        assertEquals(List.of("Sfax=60.0", "Tunis=16.0"), cities(LeaderboardWindow.LAST_30_DAYS));
+        assertEquals(List.of("Sfax=20.0", "Tunis=15.0"), cities(LeaderboardWindow.LAST_7_DAYS));
+        assertEquals(0, tracker.errorBound(LeaderboardWindow.LAST_30_DAYS));
+        assertEquals(LeaderboardWindow.LAST_7_DAYS, tracker.exactWindow(TODAY.minusDays(6), TODAY));
+    }
+
+    @Test
+    void aSaturatedDayOnlyBoundsTheWindowsHoldingIt() {
+        // Twelve products on one day, over the minimum capacity of ten counters
+        for (int product = 0; product < 12; product++) {
+            lines.add(line(10 + product, TODAY.minusDays(10), 1, 1000 + product, 100 + product));
+        }
+        lines.add(line(1, TODAY, 1, 100, 10));
+        tracker = tracker(10);
+        tracker.rebuild();
+
+        assertEquals(0, tracker.errorBound(LeaderboardWindow.TODAY));
+        assertEquals(0, tracker.errorBound(LeaderboardWindow.LAST_7_DAYS));
+        assertEquals(102.0, tracker.errorBound(LeaderboardWindow.LAST_30_DAYS));
+        assertEquals(LeaderboardWindow.LAST_7_DAYS, tracker.exactWindow(TODAY.minusDays(6), TODAY));
+        assertEquals(null, tracker.exactWindow(TODAY.minusDays(29), TODAY));
+    }
+
+    @Test
+    void createdOrdersAreAddedFromTheirEventLines() {
+        lines.add(line(1, TODAY.minusDays(2), 1, 100, 10));
+        tracker = tracker(10);
+        tracker.rebuild();
+
+        tracker.onDataChanged(new AnalyticsDataChangedEvent(AnalyticsDataChangedEvent.Source.ORDER_CREATED, 2L, Set.of(),
+                5L, TODAY, List.of(new AnalyticsDataChangedEvent.Line(100, 1, 7), new AnalyticsDataChangedEvent.Line(200, 1, 3))));
+
+        assertEquals(List.of("Coffee=7.0", "Tea=3.0"), products(LeaderboardWindow.TODAY));
+        assertEquals(List.of("Coffee=17.0", "Tea=3.0"), products(LeaderboardWindow.LAST_7_DAYS));
+        assertEquals(List.of("Sfax=10.0"), cities(LeaderboardWindow.TODAY));
+    }
+
+    @Test
+    void aDeletedOrderRebuildsInTheBackground() throws InterruptedException {
+        lines.add(line(1, TODAY, 1, 100, 10));
+        lines.add(line(2, TODAY, 1, 200, 5));
+        tracker = tracker(10);
+        tracker.rebuild();
+
+        lines.removeIf(line -> (long) line[0] == 1L);
+        tracker.onDataChanged(new AnalyticsDataChangedEvent(AnalyticsDataChangedEvent.Source.ORDER_DELETED, 1L, Set.of(),
+                1L, TODAY, List.of(new AnalyticsDataChangedEvent.Line(100, 1, 10))));
+
+        for (int i = 0; i < 200 && !tracker.isServing(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(tracker.isServing());
+        assertEquals(List.of("Tea=5.0"), products(LeaderboardWindow.TODAY));
+    }
+
+    @Test
+    void aDeletedOrderStopsServingUntilRebuilt() {
+        lines.add(line(1, TODAY, 1, 100, 10));
+        tracker = tracker(10);
+        tracker.rebuild();
+        // No rebuild can finish while the test holds the tracker
+        synchronized (tracker) {
+            tracker.onDataChanged(new AnalyticsDataChangedEvent(AnalyticsDataChangedEvent.Source.ORDER_DELETED, 1L, Set.of(),
+                    1L, TODAY, List.of()));
+            assertFalse(tracker.isServing());
+        }
+    }
+
+    private HeavyHittersTracker tracker(int capacity) {
+        OrderItemsRepository orderItems = mock(OrderItemsRepository.class);
+        StoreRepository stores = mock(StoreRepository.class);
+        ProductRepository products = mock(ProductRepository.class);
+        when(orderItems.streamLinesBetween(any(), any())).thenAnswer(invocation -> {
+            LocalDate start = invocation.getArgument(0);
+            LocalDate end = invocation.getArgument(1);
+            return new ArrayList<>(lines).stream()
+                    .filter(line -> !((LocalDate) line[1]).isBefore(start) && !((LocalDate) line[1]).isAfter(end));
+        });
+        // Store rows: store id, city id, city name
+        when(stores.findCubeStoreDimension()).thenReturn(List.of(
+                new Object[]{1L, 10L, "Tunis"},
+                new Object[]{2L, 20L, "Sfax"}));
+        // Product rows: product id, name, category name, investor id, investor name
+        List<Object[]> productRows = new ArrayList<>(List.of(
+                new Object[]{100L, "Coffee", "Drinks", 7L, "Investor 7"},
+                new Object[]{200L, "Tea", "Drinks", 8L, "Investor 8"},
+                new Object[]{300L, "Cake", "Pastry", 7L, "Investor 7"}));
+        for (long product = 1000; product < 1012; product++) {
+            productRows.add(new Object[]{product, "Product " + product, "Other", null, null});
+        }
+        when(products.findCubeProductDimension()).thenReturn(productRows);
+        return new HeavyHittersTracker(orderItems, products, stores, mock(PlatformTransactionManager.class), true, capacity);
+    }
+
+    private List<String> products(LeaderboardWindow window) {
+        return tracker.topProducts(window, 10).stream().map(row -> row[0] + "=" + row[1]).toList();
+    }
+
+    private List<String> cities(LeaderboardWindow window) {
+        return tracker.topStores(window, 10).stream().map(row -> row[0] + "=" + row[1]).toList();
+    }
+
+    private static Object[] line(long orderId, LocalDate day, long storeId, long productId, double revenue) {
+        return new Object[]{orderId, day, storeId, productId, revenue, 1};
+    }
+}
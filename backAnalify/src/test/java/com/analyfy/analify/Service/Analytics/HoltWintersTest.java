@@ -0,0 +1,68 @@
+package com.analyfy.analify.Service.Analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HoltWintersTest {
+
+    // Weekday deviations from the level, Monday first; they sum to 0
+    private static final double[] WEEK = {-20, -10, 0, 5, 10, 25, -10};
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void aWeeklySeriesWithTrendIsRecovered() {
+        int days = 20 * HoltWinters.SEASON;
+        Random random = new Random(5);
+        double[] values = new double[days];
+        for (int t = 0; t < days; t++) {
+            values[t] = expected(t) + random.nextGaussian();
+        }
+
+        HoltWinters model = HoltWinters.fit(FIRST_DAY, values);
+
+        assertEquals(FIRST_DAY.plusDays(days - 1), model.lastDay);
+        assertEquals(0.5, model.trend, 0.1);
+        for (int i = 0; i < HoltWinters.SEASON; i++) {
+            // FIRST_DAY is a Monday, so weekday i is component i
+            assertEquals(WEEK[i], model.seasonal[i], 3, "weekday " + i);
+        }
+        for (int h = 1; h <= 2 * HoltWinters.SEASON; h++) {
+            assertEquals(expected(days - 1 + h), model.forecast(h), 5, "h=" + h);
+        }
+        assertTrue(model.accuracy() > 0.95, "accuracy " + model.accuracy());
+    }
+
+    @Test
+    void forecastVariancesGrowWithTheHorizon() {
+        Random random = new Random(9);
+        double[] values = new double[10 * HoltWinters.SEASON];
+        for (int t = 0; t < values.length; t++) {
+            values[t] = expected(t) + 5 * random.nextGaussian();
+        }
+        HoltWinters model = HoltWinters.fit(FIRST_DAY, values);
+
+        double[] variances = model.forecastVariances(60);
+
+        // One step ahead: the variance of the one-step errors
+        assertEquals(model.squaredErrorSum / model.errorCount, variances[0], 1e-9);
+        for (int h = 1; h < variances.length; h++) {
+            assertTrue(variances[h] > variances[h - 1], "h=" + (h + 1));
+        }
+    }
+
+    @Test
+    void lessThanTwoWeeksIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> HoltWinters.fit(FIRST_DAY, new double[HoltWinters.MIN_HISTORY - 1]));
+    }
+
+    private static double expected(int t) {
+        return 100 + 0.5 * t + WEEK[t % HoltWinters.SEASON];
+    }
+}
@@ -0,0 +1,118 @@
+package com.analyfy.analify.Service.Analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LongIntHashMapTest {
+
+    @Test
+    void countReachingZeroRemovesTheKey() {
+        LongIntHashMap map = new LongIntHashMap(4);
+
+        assertEquals(3, map.addTo(42, 3));
+        assertEquals(1, map.addTo(42, -2));
+        assertEquals(1, map.size());
+        assertEquals(0, map.addTo(42, -1));
+
+        assertEquals(0, map.size());
+        assertEquals(0, map.get(42));
+        // A zero delta on an absent key does not insert it
+        assertEquals(0, map.addTo(7, 0));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void deletionShiftsBackEntriesThatWrappedAroundTheTable() {
+        LongIntHashMap map = new LongIntHashMap(5);
+        int last = map.capacity() - 1;
+        // Two keys at home in the last slot, so the second wraps to slot 0, and keys at home in 0 and 1 pushed behind it
+        List<Long> lastHomes = keysWithHome(map, last, 2);
+        long first = lastHomes.get(0);
+        long wrapped = lastHomes.get(1);
+        long zeroHome = keysWithHome(map, 0, 1).get(0);
+        long oneHome = keysWithHome(map, 1, 1).get(0);
+        map.addTo(first, 1);
+        map.addTo(wrapped, 2);
+        map.addTo(zeroHome, 3);
+        map.addTo(oneHome, 4);
+
+        map.addTo(first, -1);
+
+        assertEquals(3, map.size());
+        assertEquals(0, map.get(first));
+        assertEquals(2, map.get(wrapped));
+        assertEquals(3, map.get(zeroHome));
+        assertEquals(4, map.get(oneHome));
+
+        // Removing the wrapped key, now back in the last slot, leaves the keys already at home where they are
+        map.addTo(wrapped, -2);
+
+        assertEquals(2, map.size());
+        assertEquals(3, map.get(zeroHome));
+        assertEquals(4, map.get(oneHome));
+        assertEquals(Map.of(zeroHome, 3, oneHome, 4), entries(map));
+    }
+
+    @Test
+    void growingKeepsEveryCount() {
+        LongIntHashMap map = new LongIntHashMap(1);
+        int initialCapacity = map.capacity();
+        for (long key = 1; key <= 1000; key++) {
+            map.addTo(key << 32 | key, (int) key);
+        }
+
+        assertEquals(1000, map.size());
+        assertTrue(map.capacity() > initialCapacity);
+        for (long key = 1; key <= 1000; key++) {
+            assertEquals((int) key, map.get(key << 32 | key));
+        }
+    }
+
+    @Test
+    void randomUpdatesMatchAHashMap() {
+        Random random = new Random(7);
+        LongIntHashMap map = new LongIntHashMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200_000; i++) {
+            // Pair keys as the affinity tracker packs them, over a small range so counts often fall back to 0
+            long key = (long) random.nextInt(200) << 32 | random.nextInt(200);
+            int current = expected.getOrDefault(key, 0);
+            int delta = random.nextBoolean() || current == 0 ? 1 : -1;
+
+            assertEquals(current + delta, map.addTo(key, delta));
+            if (current + delta == 0) {
+                expected.remove(key);
+            } else {
+                expected.put(key, current + delta);
+            }
+
+            if (i % 10_000 == 0) {
+                assertEquals(expected.size(), map.size());
+                assertEquals(expected, entries(map));
+            }
+        }
+        assertEquals(expected, entries(map));
+    }
+
+    private static List<Long> keysWithHome(LongIntHashMap map, int home, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if (map.slot(key) == home) keys.add(key);
+        }
+        return keys;
+    }
+
+    private static Map<Long, Integer> entries(LongIntHashMap map) {
+        Map<Long, Integer> entries = new HashMap<>();
+        map.forEach(entries::put);
+        return entries;
+    }
+}
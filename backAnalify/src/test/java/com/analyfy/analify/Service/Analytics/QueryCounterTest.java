@@ -0,0 +1,60 @@
+package com.analyfy.analify.Service.Analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QueryCounterTest {
+
+    private final QueryCounter inspector = new QueryCounter();
+
+    @Test
+    void nestedCountersAllCountTheInnerStatements() {
+        LongAdder outer = new LongAdder();
+        LongAdder inner = new LongAdder();
+
+        QueryCounter.Binding binding = QueryCounter.bind(outer);
+        try {
+            inspector.inspect("select 1");
+            QueryCounter.counting(inner, () -> {
+                inspector.inspect("select 2");
+                inspector.inspect("select 3");
+                return null;
+            });
+        } finally {
+            binding.close();
+        }
+        inspector.inspect("select 4");
+
+        assertEquals(3, outer.sum());
+        assertEquals(2, inner.sum());
+        assertTrue(QueryCounter.current().isEmpty());
+    }
+
+    @Test
+    void aCounterBoundTwiceCountsOnce() {
+        LongAdder counter = new LongAdder();
+        QueryCounter.counting(counter, () -> QueryCounter.counting(counter, () -> inspector.inspect("select 1")));
+        assertEquals(1, counter.sum());
+    }
+
+    @Test
+    void carriedCountersReplaceThoseOfTheThread() {
+        LongAdder outer = new LongAdder();
+        LongAdder inner = new LongAdder();
+        LongAdder other = new LongAdder();
+
+        List<LongAdder> carried = QueryCounter.counting(outer, () -> QueryCounter.counting(inner, QueryCounter::current));
+        assertEquals(List.of(outer, inner), carried);
+
+        QueryCounter.counting(other, () -> QueryCounter.countingAll(carried, () -> inspector.inspect("select 1")));
+
+        assertEquals(1, outer.sum());
+        assertEquals(1, inner.sum());
+        assertEquals(0, other.sum());
+    }
+}
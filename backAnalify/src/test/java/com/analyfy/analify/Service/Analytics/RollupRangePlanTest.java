@@ -0,0 +1,94 @@
+package com.analyfy.analify.Service.Analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RollupRangePlanTest {
+
+    @Test
+    void aSingleDayIsReadFromTheDailyTier() {
+        LocalDate day = LocalDate.of(2024, 3, 15);
+        RollupRangePlan plan = RollupRangePlan.of(day, day);
+
+        assertEquals(RollupRangePlan.daysOnly(day, day), plan);
+        assertEquals(day, plan.headEnd());
+        assertNoMonths(plan);
+        assertNoTail(plan);
+    }
+
+    @Test
+    void aRangeInsideOneMonthUsesNoMonth() {
+        RollupRangePlan plan = RollupRangePlan.of(LocalDate.of(2024, 3, 2), LocalDate.of(2024, 3, 30));
+
+        assertEquals(LocalDate.of(2024, 3, 30), plan.headEnd());
+        assertNoMonths(plan);
+        assertNoTail(plan);
+    }
+
+    @Test
+    void aWholeMonthIsReadFromTheMonthlyTier() {
+        RollupRangePlan plan = RollupRangePlan.of(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+
+        assertNoHead(plan);
+        assertEquals(LocalDate.of(2024, 2, 1), plan.monthsFrom());
+        assertEquals(LocalDate.of(2024, 2, 1), plan.monthsTo());
+        assertNoTail(plan);
+    }
+
+    @Test
+    void startingOnTheFirstHasNoHead() {
+        RollupRangePlan plan = RollupRangePlan.of(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 5, 10));
+
+        assertNoHead(plan);
+        assertEquals(LocalDate.of(2024, 3, 1), plan.monthsFrom());
+        assertEquals(LocalDate.of(2024, 4, 1), plan.monthsTo());
+        assertEquals(LocalDate.of(2024, 5, 1), plan.tailStart());
+        assertEquals(LocalDate.of(2024, 5, 10), plan.end());
+    }
+
+    @Test
+    void endingOnTheLastDayHasNoTail() {
+        RollupRangePlan plan = RollupRangePlan.of(LocalDate.of(2024, 3, 20), LocalDate.of(2024, 6, 30));
+
+        assertEquals(LocalDate.of(2024, 3, 20), plan.start());
+        assertEquals(LocalDate.of(2024, 3, 31), plan.headEnd());
+        assertEquals(LocalDate.of(2024, 4, 1), plan.monthsFrom());
+        assertEquals(LocalDate.of(2024, 6, 1), plan.monthsTo());
+        assertNoTail(plan);
+    }
+
+    @Test
+    void aRangeSpanningAYearBoundarySplitsInThreeSegments() {
+        RollupRangePlan plan = RollupRangePlan.of(LocalDate.of(2023, 11, 15), LocalDate.of(2024, 2, 10));
+
+        assertEquals(LocalDate.of(2023, 11, 30), plan.headEnd());
+        assertEquals(LocalDate.of(2023, 12, 1), plan.monthsFrom());
+        assertEquals(LocalDate.of(2024, 1, 1), plan.monthsTo());
+        assertEquals(LocalDate.of(2024, 2, 1), plan.tailStart());
+        assertEquals(LocalDate.of(2024, 2, 10), plan.end());
+    }
+
+    @Test
+    void twoPartialMonthsAcrossTheYearEndUseNoMonth() {
+        RollupRangePlan plan = RollupRangePlan.of(LocalDate.of(2023, 12, 20), LocalDate.of(2024, 1, 10));
+
+        assertEquals(RollupRangePlan.daysOnly(LocalDate.of(2023, 12, 20), LocalDate.of(2024, 1, 10)), plan);
+        assertNoMonths(plan);
+    }
+
+    private static void assertNoHead(RollupRangePlan plan) {
+        assertTrue(plan.start().isAfter(plan.headEnd()), "head " + plan);
+    }
+
+    private static void assertNoMonths(RollupRangePlan plan) {
+        assertTrue(plan.monthsFrom().isAfter(plan.monthsTo()), "months " + plan);
+    }
+
+    private static void assertNoTail(RollupRangePlan plan) {
+        assertTrue(plan.tailStart().isAfter(plan.end()), "tail " + plan);
+    }
+}
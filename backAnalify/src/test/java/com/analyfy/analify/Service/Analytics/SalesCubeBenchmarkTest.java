@@ -0,0 +1,76 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.EmbeddedPostgresTest;
+import com.analyfy.analify.Repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Cube load, heap and query times against the order-table queries it replaces. Run with -Dbenchmark=true
+ * (-Dbenchmark.lines and -Dbenchmark.days size the history, e.g. -Dbenchmark.lines=10000000).
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@TestPropertySource(properties = "analytics.cube.enabled=true")
+class SalesCubeBenchmarkTest extends EmbeddedPostgresTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private SalesCube salesCube;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Test
+    void benchmarkCubeVsOrderQueries() {
+        int lines = Integer.getInteger("benchmark.lines", 1_000_000);
+        int days = Integer.getInteger("benchmark.days", 5 * 365);
+        // Orders have two lines on average
+        seedBulkOrders(lines / 2, days);
+
+        long heapBefore = usedHeap();
+        long startedAt = System.nanoTime();
+        Map<String, Long> stats = salesCube.rebuild();
+        long loadMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        long heapAfter = usedHeap();
+
+        LocalDate first = TODAY.minusDays(days - 1);
+        LocalDate monthAgo = TODAY.minusDays(29);
+        System.out.printf("Cube benchmark, %d lines over %d days:%n", stats.get("lines"), days);
+        System.out.printf("  load: %d ms, ~%d MB by the cube's count, %d MB of retained heap (%.1f bytes per line)%n",
+                loadMillis, stats.get("approxBytes") >> 20, (heapAfter - heapBefore) >> 20,
+                (heapAfter - heapBefore) / (double) stats.get("lines"));
+        System.out.printf("  all-time revenue, cube:        %8.2f ms%n",
+                millis(() -> salesCube.calculateTotalRevenue(first, TODAY, null, null)));
+        System.out.printf("  all-time revenue, JPQL:        %8.2f ms%n",
+                millis(() -> orderRepository.calculateTotalRevenue(first, TODAY, null, null)));
+        System.out.printf("  all-time KPIs, cube:           %8.2f ms%n",
+                millis(() -> salesCube.calculateSalesKpis(first, TODAY, null, null)));
+        System.out.printf("  all-time KPIs, orders query:   %8.2f ms%n",
+                millis(() -> orderRepository.findSalesKpis(first, TODAY, null, null)));
+        System.out.printf("  30-day investor KPIs, cube:    %8.2f ms%n",
+                millis(() -> salesCube.calculateSalesKpis(monthAgo, TODAY, null, 4L)));
+        System.out.printf("  30-day investor KPIs, orders:  %8.2f ms%n",
+                millis(() -> orderRepository.findSalesKpis(monthAgo, TODAY, null, 4L)));
+    }
+
+    private static double millis(Supplier<?> query) {
+        int runs = 5;
+        query.get();
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < runs; i++) query.get();
+        return (System.nanoTime() - startedAt) / 1e6 / runs;
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
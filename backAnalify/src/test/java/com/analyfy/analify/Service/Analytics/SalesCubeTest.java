@@ -0,0 +1,225 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.Repository.OrderItemsRepository;
+import com.analyfy.analify.Repository.ProductRepository;
+import com.analyfy.analify.Repository.StoreRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SalesCubeTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 3, 1);
+
+    // Store rows: store id, city id, city name
+    private static final List<Object[]> STORES = List.of(
+            new Object[]{1L, 10L, "Tunis"},
+            new Object[]{2L, 20L, "Sfax"});
+
+    // Product rows: product id, name, category name, investor id, investor name
+    private static final List<Object[]> PRODUCTS = List.of(
+            new Object[]{100L, "Coffee", "Drinks", 7L, "Investor 7"},
+            new Object[]{200L, "Tea", "Drinks", 8L, "Investor 8"},
+            new Object[]{300L, "Cake", null, 7L, "Investor 7"});
+
+    @Test
+    void lowerBoundFindsTheFirstRowOfADayOrOfTheNextOne() {
+        SalesCube.CubeData cube = cube();
+        append(cube, 1, DAY, 1, 100, 10, 1);
+        append(cube, 1, DAY, 1, 200, 10, 1);
+        append(cube, 2, DAY.plusDays(1), 1, 100, 10, 1);
+        append(cube, 3, DAY.plusDays(3), 1, 100, 10, 1);
+
+        assertEquals(0, cube.lowerBound(epochDay(DAY.minusDays(5))));
+        assertEquals(0, cube.lowerBound(epochDay(DAY)));
+        assertEquals(2, cube.lowerBound(epochDay(DAY.plusDays(1))));
+        assertEquals(3, cube.lowerBound(epochDay(DAY.plusDays(2))));
+        assertEquals(3, cube.lowerBound(epochDay(DAY.plusDays(3))));
+        assertEquals(4, cube.lowerBound(epochDay(DAY.plusDays(4))));
+    }
+
+    @Test
+    void scanSelectsTheLinesOfTheRangeAndFilters() {
+        SalesCube.CubeData cube = cube();
+        append(cube, 1, DAY, 1, 100, 10, 1);
+        append(cube, 1, DAY, 1, 200, 20, 2);
+        append(cube, 2, DAY.plusDays(1), 2, 100, 30, 3);
+        append(cube, 3, DAY.plusDays(2), 2, 300, 40, 4);
+
+        assertEquals(100.0, revenue(cube, DAY, DAY.plusDays(2), null, null, null));
+        assertEquals(70.0, revenue(cube, DAY.plusDays(1), DAY.plusDays(5), null, null, null));
+        assertEquals(70.0, revenue(cube, DAY, DAY.plusDays(2), 2L, null, null));
+        assertEquals(80.0, revenue(cube, DAY, DAY.plusDays(2), null, 7L, null));
+        assertEquals(40.0, revenue(cube, DAY, DAY.plusDays(2), null, null, 100L));
+        assertEquals(30.0, revenue(cube, DAY, DAY.plusDays(2), 2L, 7L, 100L));
+        // A filter on a key the cube does not know matches nothing
+        assertEquals(0, cube.scan(DAY, DAY.plusDays(2), 99L, null, null, (selection, count) -> { }));
+        assertEquals(0, cube.scan(DAY.minusDays(9), DAY.minusDays(1), null, null, null, (selection, count) -> { }));
+    }
+
+    @Test
+    void scanCoversEveryBatchOfALongRange() {
+        SalesCube.CubeData cube = cube();
+        for (int order = 0; order < 10_000; order++) {
+            append(cube, order, DAY.plusDays(order / 1000), 1 + order % 2, 100, 1, 1);
+        }
+        List<Integer> batches = new ArrayList<>();
+        int selected = cube.scan(DAY, DAY.plusDays(9), 1L, null, null, (selection, count) -> batches.add(count));
+
+        assertEquals(5_000, selected);
+        assertEquals(5_000, batches.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(10_000.0 / 2, revenue(cube, DAY, DAY.plusDays(9), 1L, null, null));
+    }
+
+    @Test
+    void removeOrderMarksOnlyTheLinesOfThatOrder() {
+        SalesCube.CubeData cube = cube();
+        append(cube, 1, DAY, 1, 100, 10, 1);
+        append(cube, 2, DAY, 1, 100, 20, 1);
+        append(cube, 2, DAY, 1, 200, 30, 1);
+        append(cube, 3, DAY, 1, 200, 40, 1);
+
+        cube.removeOrder(2);
+        cube.removeOrder(42);
+
+        assertEquals(2, cube.deletedRows);
+        assertEquals(Set.of(1L, 3L), cube.orderCodes.keySet());
+        assertEquals(50.0, revenue(cube, DAY, DAY, null, null, null));
+        assertEquals(2, cube.scan(DAY, DAY, null, null, null, (selection, count) -> { }));
+    }
+
+    @Test
+    void compactDropsDeletedLinesAndKeepsOrdersRemovable() {
+        SalesCube.CubeData cube = cube();
+        append(cube, 1, DAY, 1, 100, 10, 1);
+        append(cube, 2, DAY, 1, 100, 20, 1);
+        append(cube, 3, DAY.plusDays(1), 2, 100, 30, 1);
+        append(cube, 3, DAY.plusDays(1), 2, 200, 40, 1);
+        append(cube, 4, DAY.plusDays(2), 1, 200, 50, 1);
+
+        cube.removeOrder(2);
+        cube.compact();
+
+        assertEquals(4, cube.rows);
+        assertEquals(0, cube.deletedRows);
+        assertEquals(1, cube.lowerBound(epochDay(DAY.plusDays(1))));
+        assertEquals(130.0, revenue(cube, DAY, DAY.plusDays(2), null, null, null));
+
+        // The first line of every order moved with the compaction
+        cube.removeOrder(3);
+        assertEquals(60.0, revenue(cube, DAY, DAY.plusDays(2), null, null, null));
+        cube.removeOrder(4);
+        assertEquals(10.0, revenue(cube, DAY, DAY.plusDays(2), null, null, null));
+    }
+
+    @Test
+    void distinctOrdersCountEachOrderOnceWhateverItsMatchingLines() {
+        SalesCube salesCube = loadedCube(List.of(
+                line(1, DAY, 1, 100, 10, 1),
+                line(1, DAY, 1, 200, 20, 2),
+                line(1, DAY, 1, 300, 30, 3),
+                line(2, DAY, 1, 200, 40, 4),
+                line(3, DAY.plusDays(1), 2, 100, 50, 5)));
+
+        SalesKpis all = salesCube.calculateSalesKpis(DAY, DAY.plusDays(1), null, null);
+        assertEquals(3L, all.orders());
+        assertEquals(150.0, all.revenue());
+        assertEquals(15, all.unitsSold());
+
+        // Investor 7 owns products 100 and 300: order 1 matches two lines that are not adjacent in the cube
+        assertEquals(2L, salesCube.calculateSalesKpis(DAY, DAY.plusDays(1), null, 7L).orders());
+        assertEquals(2L, salesCube.calculateSalesKpis(DAY, DAY.plusDays(1), 1L, null).orders());
+
+        List<Object[]> byStore = salesCube.findStoreSales(DAY, DAY.plusDays(1), null, null);
+        assertEquals(2, byStore.size());
+        assertEquals(2L, byStore.get(0)[2]);
+        assertEquals(1L, byStore.get(1)[2]);
+    }
+
+    @Test
+    void orderEventsAreAppliedFromTheirLinesAndCompacted() {
+        SalesCube salesCube = loadedCube(List.of(
+                line(1, DAY, 1, 100, 10, 1),
+                line(2, DAY, 1, 200, 20, 1)));
+
+        salesCube.onDataChanged(event(AnalyticsDataChangedEvent.Source.ORDER_CREATED, 3, DAY.plusDays(1), 2,
+                new AnalyticsDataChangedEvent.Line(100, 2, 30), new AnalyticsDataChangedEvent.Line(300, 1, 40)));
+        // Already part of the load
+        salesCube.onDataChanged(event(AnalyticsDataChangedEvent.Source.ORDER_CREATED, 2, DAY, 1,
+                new AnalyticsDataChangedEvent.Line(200, 1, 20)));
+
+        SalesKpis kpis = salesCube.calculateSalesKpis(DAY, DAY.plusDays(1), null, null);
+        assertEquals(3L, kpis.orders());
+        assertEquals(100.0, kpis.revenue());
+
+        // One deleted line out of four stays below the threshold of 0.5, three out of four do not
+        salesCube.onDataChanged(event(AnalyticsDataChangedEvent.Source.ORDER_DELETED, 1, DAY, 1));
+        assertEquals(1L, salesCube.stats().get("deletedLines"));
+        salesCube.onDataChanged(event(AnalyticsDataChangedEvent.Source.ORDER_DELETED, 3, DAY.plusDays(1), 2));
+        assertEquals(0L, salesCube.stats().get("deletedLines"));
+        assertEquals(1L, salesCube.stats().get("lines"));
+        assertEquals(1L, salesCube.stats().get("orders"));
+
+        kpis = salesCube.calculateSalesKpis(DAY, DAY.plusDays(1), null, null);
+        assertEquals(1L, kpis.orders());
+        assertEquals(20.0, kpis.revenue());
+        assertNull(salesCube.calculateTotalRevenue(DAY.plusDays(1), DAY.plusDays(1), null, null));
+    }
+
+    private static SalesCube.CubeData cube() {
+        SalesCube.CubeData cube = new SalesCube.CubeData(16);
+        cube.setDimensions(STORES, PRODUCTS);
+        return cube;
+    }
+
+    private static SalesCube loadedCube(List<Object[]> lines) {
+        OrderItemsRepository orderItems = mock(OrderItemsRepository.class);
+        StoreRepository stores = mock(StoreRepository.class);
+        ProductRepository products = mock(ProductRepository.class);
+        when(orderItems.count()).thenReturn((long) lines.size());
+        when(orderItems.streamCubeLines()).thenAnswer(invocation -> lines.stream());
+        when(stores.findCubeStoreDimension()).thenReturn(STORES);
+        when(products.findCubeProductDimension()).thenReturn(PRODUCTS);
+
+        SalesCube salesCube = new SalesCube(orderItems, products, stores, mock(PlatformTransactionManager.class), true, 0.5);
+        salesCube.rebuild();
+        return salesCube;
+    }
+
+    private static void append(SalesCube.CubeData cube, long orderId, LocalDate day, long storeId, long productId,
+                               double revenue, int quantity) {
+        cube.append(orderId, epochDay(day), storeId, productId, revenue, quantity);
+    }
+
+    // Line columns: order id, order date, store id, product id, net revenue, quantity
+    private static Object[] line(long orderId, LocalDate day, long storeId, long productId, double revenue, int quantity) {
+        return new Object[]{orderId, day, storeId, productId, revenue, quantity};
+    }
+
+    private static AnalyticsDataChangedEvent event(AnalyticsDataChangedEvent.Source source, long orderId, LocalDate day,
+                                                   long storeId, AnalyticsDataChangedEvent.Line... lines) {
+        return new AnalyticsDataChangedEvent(source, storeId, Set.of(), orderId, day, List.of(lines));
+    }
+
+    private static double revenue(SalesCube.CubeData cube, LocalDate start, LocalDate end, Long storeId, Long investorId,
+                                  Long productId) {
+        double[] sum = new double[1];
+        cube.scan(start, end, storeId, investorId, productId, (selection, count) -> {
+            for (int k = 0; k < count; k++) sum[0] += cube.revenueCol[selection[k]];
+        });
+        return sum[0];
+    }
+
+    private static int epochDay(LocalDate day) {
+        return (int) day.toEpochDay();
+    }
+}
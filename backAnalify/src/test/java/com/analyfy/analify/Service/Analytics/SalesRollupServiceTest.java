@@ -0,0 +1,102 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.StockOrder.CreateOrderRequest;
+import com.analyfy.analify.DTO.StockOrder.OrderItemRequest;
+import com.analyfy.analify.EmbeddedPostgresTest;
+import com.analyfy.analify.Enum.UserRole;
+import com.analyfy.analify.Repository.DailySalesRollupRepository;
+import com.analyfy.analify.Repository.OrderRepository;
+import com.analyfy.analify.Service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesRollupServiceTest extends EmbeddedPostgresTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SalesRollupService salesRollupService;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private DailySalesRollupRepository rollupRepository;
+
+    @BeforeEach
+    void seed() {
+        seedOrders(120, 90, 11);
+        jdbc.update("INSERT INTO inventory(store_id, product_id, quantity) " +
+                "SELECT s, p, 1000 FROM generate_series(1, 3) s CROSS JOIN generate_series(1, 9) p");
+        salesRollupService.rebuild();
+    }
+
+    @Test
+    void createdAndDeletedOrdersKeepTheRollupInSyncWithTheOrders() {
+        // Lines of one product are folded together; products of both investors
+        long mixed = createOrder(1L, line(2L, 3, 0.1), line(2L, 1, null), line(5L, 2, 0.0));
+        createOrder(2L, line(4L, 1, 0.2));
+        long other = createOrder(3L, line(7L, 4, null), line(8L, 2, 0.1));
+        createOrder(1L, line(9L, 1, null));
+        assertRollupMatchesOrders("created");
+
+        orderService.deleteOrder(1L, UserRole.CAISSIER, mixed);
+        orderService.deleteOrder(null, UserRole.ADMIN_G, other);
+        // A past order: its month is re-derived from the days left
+        Long oldest = jdbc.queryForObject("SELECT order_id FROM \"orders\" ORDER BY order_date, order_id LIMIT 1", Long.class);
+        orderService.deleteOrder(null, UserRole.ADMIN_G, oldest);
+        assertRollupMatchesOrders("deleted");
+    }
+
+    private long createOrder(Long cashierId, OrderItemRequest... items) {
+        CreateOrderRequest request = new CreateOrderRequest();
+        request.setCashierId(cashierId);
+        request.setItems(List.of(items));
+        return orderService.createOrder(cashierId, UserRole.CAISSIER, request).getOrderId();
+    }
+
+    private static OrderItemRequest line(Long productId, int quantity, Double discount) {
+        OrderItemRequest item = new OrderItemRequest();
+        item.setProductId(productId);
+        item.setQuantity(quantity);
+        item.setDiscount(discount);
+        return item;
+    }
+
+    // KPIs planned over the daily and monthly tiers vs the join of the orders, lines and products
+    private void assertRollupMatchesOrders(String step) {
+        List<LocalDate[]> ranges = List.of(
+                new LocalDate[]{TODAY.minusDays(120), TODAY},
+                new LocalDate[]{TODAY.minusDays(29), TODAY},
+                new LocalDate[]{TODAY, TODAY});
+        for (LocalDate[] range : ranges) {
+            for (Long storeId : Arrays.asList(null, 1L, 3L)) {
+                for (Long investorId : Arrays.asList(null, 4L, 5L)) {
+                    String label = step + " " + range[0] + ".." + range[1] + " store=" + storeId + " investor=" + investorId;
+                    RollupRangePlan plan = RollupRangePlan.of(range[0], range[1]);
+                    SalesKpis expected = SalesKpis.fromGroupingRows(
+                            orderRepository.findSalesKpis(range[0], range[1], storeId, investorId));
+                    SalesKpis actual = SalesKpis.fromGroupingRows(rollupRepository.findSalesKpis(
+                            plan.start(), plan.headEnd(), plan.monthsFrom(), plan.monthsTo(), plan.tailStart(), plan.end(),
+                            storeId, investorId, investorId != null ? investorId : 0L));
+                    assertEquals(expected.revenue() != null ? expected.revenue() : 0.0,
+                            actual.revenue() != null ? actual.revenue() : 0.0, 1e-6, label);
+                    assertEquals(expected.orders(), actual.orders(), label);
+                    assertEquals(expected.unitsSold(), actual.unitsSold(), label);
+                    assertEquals(expected.ordersByDayOfWeek(), actual.ordersByDayOfWeek(), label);
+                    assertEquals(expected.ordersByMonth(), actual.ordersByMonth(), label);
+                }
+            }
+        }
+    }
+}
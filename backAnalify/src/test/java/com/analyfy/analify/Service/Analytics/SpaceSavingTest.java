@@ -0,0 +1,82 @@
+package com.analyfy.analify.Service.Analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SpaceSavingTest {
+
+    @Test
+    void countsAreExactWhileTheKeysFitTheCapacity() {
+        SpaceSaving summary = new SpaceSaving(50);
+        Map<Long, Double> totals = new HashMap<>();
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            long key = random.nextInt(50);
+            double weight = 1 + random.nextInt(100);
+            summary.add(key, weight);
+            totals.merge(key, weight, Double::sum);
+        }
+
+        assertEquals(0, summary.floor());
+        assertEquals(totals, summary.counters());
+    }
+
+    @Test
+    void floorBoundsEveryErrorOnceSaturated() {
+        SpaceSaving summary = new SpaceSaving(100);
+        Map<Long, Double> totals = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 200_000; i++) {
+            // Skewed towards the small keys, as sales are towards the best sellers
+            long key = (long) Math.floor(Math.pow(random.nextDouble(), 3) * 5000);
+            double weight = 1 + random.nextDouble() * 10;
+            summary.add(key, weight);
+            totals.merge(key, weight, Double::sum);
+        }
+
+        double floor = summary.floor();
+        assertTrue(floor > 0);
+        assertEquals(100, summary.counters().size());
+        totals.forEach((key, total) -> {
+            Double count = summary.counters().get(key);
+            if (count == null) {
+                assertTrue(total <= floor + 1e-6, "key " + key + " left out with " + total);
+            } else {
+                assertTrue(count >= total - 1e-6, "key " + key + " under-counted");
+                assertTrue(count - total <= floor + 1e-6, "key " + key + " over-counted by more than the floor");
+            }
+        });
+
+        // Every key heavier than the floor is still counted
+        List<Long> heavy = totals.entrySet().stream()
+                .filter(entry -> entry.getValue() > floor)
+                .map(Map.Entry::getKey)
+                .toList();
+        assertTrue(!heavy.isEmpty());
+        heavy.forEach(key -> assertTrue(summary.counters().containsKey(key), "heavy key " + key + " evicted"));
+    }
+
+    @Test
+    void summaryOfExactTotalsKeepsTheHeaviestKeys() {
+        Map<Long, Double> totals = new HashMap<>();
+        for (long key = 1; key <= 20; key++) {
+            totals.put(key, (double) key * 10);
+        }
+
+        SpaceSaving fits = SpaceSaving.of(totals, 20);
+        assertEquals(0, fits.floor());
+        assertEquals(totals, fits.counters());
+
+        SpaceSaving cut = SpaceSaving.of(totals, 5);
+        assertEquals(Map.of(16L, 160.0, 17L, 170.0, 18L, 180.0, 19L, 190.0, 20L, 200.0), cut.counters());
+        // Keys left out weigh at most the floor
+        assertEquals(160.0, cut.floor());
+    }
+}
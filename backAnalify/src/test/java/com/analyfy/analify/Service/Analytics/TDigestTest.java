@@ -0,0 +1,115 @@
+package com.analyfy.analify.Service.Analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TDigestTest {
+
+    private static final double[] QUANTILES = {0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99};
+
+    @Test
+    void quantilesOfSkewedValuesAreWithinHalfAPercentOfTheirRank() {
+        Random random = new Random(7);
+        double[] values = new double[100_000];
+        TDigest digest = new TDigest(100);
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal, skewed like order values
+            values[i] = Math.exp(random.nextGaussian());
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, digest.size());
+        for (double q : QUANTILES) {
+            assertWithinRank(values, q, 0.005, digest.quantile(q));
+        }
+        assertEquals(values[0], digest.quantile(0));
+        assertEquals(values[values.length - 1], digest.quantile(1));
+    }
+
+    @Test
+    void smallDigestsAreExact() {
+        TDigest digest = new TDigest(100);
+        for (int value = 1; value <= 9; value++) {
+            digest.add(value);
+        }
+
+        assertEquals(0, digest.estimatedRankError());
+        assertEquals(5.0, digest.quantile(0.5), 1e-9);
+        assertEquals(Double.NaN, new TDigest(100).quantile(0.5));
+    }
+
+    @Test
+    void mergedDigestsAreAsAccurateAsOneDigestOfAllValues() {
+        Random random = new Random(11);
+        double[] values = new double[200_000];
+        List<TDigest> days = new ArrayList<>();
+        for (int day = 0; day < 365; day++) {
+            days.add(new TDigest(100));
+        }
+        for (int i = 0; i < values.length; i++) {
+            // A few large baskets among many small ones
+            values[i] = random.nextInt(20) == 0 ? 200 + random.nextDouble() * 800 : Math.exp(random.nextGaussian() + 2);
+            days.get(random.nextInt(days.size())).add(values[i]);
+        }
+        TDigest merged = new TDigest(100);
+        for (TDigest day : days) {
+            merged.add(day);
+        }
+        Arrays.sort(values);
+
+        assertEquals(values.length, merged.size());
+        for (double q : QUANTILES) {
+            assertWithinRank(values, q, 0.005, merged.quantile(q));
+        }
+        assertTrue(merged.estimatedRankError() > 0);
+        assertTrue(merged.estimatedRankError() < 0.05);
+    }
+
+    @Test
+    void bytesRoundTripKeepsTheDigest() {
+        Random random = new Random(3);
+        TDigest digest = new TDigest(50);
+        for (int i = 0; i < 10_000; i++) {
+            digest.add(random.nextDouble() * 100);
+        }
+
+        byte[] bytes = digest.toBytes();
+        TDigest copy = TDigest.fromBytes(bytes);
+
+        assertArrayEquals(bytes, copy.toBytes());
+        assertEquals(digest.size(), copy.size());
+        for (double q : QUANTILES) {
+            assertEquals(digest.quantile(q), copy.quantile(q));
+        }
+        // A restored digest keeps accepting values
+        copy.add(1000);
+        assertEquals(digest.size() + 1, copy.size());
+        assertEquals(1000.0, copy.quantile(1));
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        byte[] bytes = new TDigest(100).toBytes();
+        bytes[0] = 99;
+
+        assertThrows(IllegalArgumentException.class, () -> TDigest.fromBytes(bytes));
+    }
+
+    // actual lies between the values ranked q - epsilon and q + epsilon
+    private static void assertWithinRank(double[] sorted, double q, double epsilon, double actual) {
+        int n = sorted.length;
+        double low = sorted[Math.max(0, (int) Math.floor((q - epsilon) * n) - 1)];
+        double high = sorted[Math.min(n - 1, (int) Math.ceil((q + epsilon) * n))];
+        assertTrue(actual >= low && actual <= high, "q=" + q + ": " + actual + " not in [" + low + ", " + high + "]");
+    }
+}
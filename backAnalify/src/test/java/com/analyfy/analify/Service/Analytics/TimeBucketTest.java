@@ -0,0 +1,69 @@
+package com.analyfy.analify.Service.Analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TimeBucketTest {
+
+    @Test
+    void bucketsAreLabelledByTheirFirstDay() {
+        LocalDate day = LocalDate.of(2024, 8, 15);
+
+        assertEquals(LocalDate.of(2024, 8, 12), TimeBucket.WEEK.truncate(day));
+        assertEquals(LocalDate.of(2024, 8, 1), TimeBucket.MONTH.truncate(day));
+        assertEquals(LocalDate.of(2024, 7, 1), TimeBucket.QUARTER.truncate(day));
+        assertEquals(LocalDate.of(2024, 1, 1), TimeBucket.YEAR.truncate(day));
+        assertEquals(LocalDate.of(2025, 1, 1), TimeBucket.QUARTER.next(LocalDate.of(2024, 10, 1)));
+    }
+
+    @Test
+    void countIncludesTheBucketsOfBothEnds() {
+        // Sunday then Monday: two weeks
+        assertEquals(2, TimeBucket.WEEK.count(LocalDate.of(2024, 12, 29), LocalDate.of(2024, 12, 30)));
+        assertEquals(2, TimeBucket.MONTH.count(LocalDate.of(2024, 1, 31), LocalDate.of(2024, 2, 1)));
+        assertEquals(2, TimeBucket.QUARTER.count(LocalDate.of(2024, 3, 31), LocalDate.of(2024, 4, 1)));
+        assertEquals(1, TimeBucket.QUARTER.count(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 6, 30)));
+        assertEquals(2, TimeBucket.YEAR.count(LocalDate.of(2024, 12, 31), LocalDate.of(2025, 1, 1)));
+    }
+
+    @Test
+    void countAcrossTheYearEnd() {
+        LocalDate start = LocalDate.of(2024, 11, 15);
+        LocalDate end = LocalDate.of(2025, 1, 5);
+
+        assertEquals(52, TimeBucket.DAY.count(start, end));
+        assertEquals(8, TimeBucket.WEEK.count(start, end));
+        assertEquals(3, TimeBucket.MONTH.count(start, end));
+        assertEquals(2, TimeBucket.QUARTER.count(start, end));
+        assertEquals(2, TimeBucket.YEAR.count(start, end));
+        assertEquals(9, TimeBucket.QUARTER.count(LocalDate.of(2023, 2, 1), LocalDate.of(2025, 1, 1)));
+    }
+
+    @Test
+    void emptyAndSingleDayRanges() {
+        LocalDate day = LocalDate.of(2024, 2, 29);
+        for (TimeBucket bucket : TimeBucket.values()) {
+            assertEquals(1, bucket.count(day, day), bucket.name());
+            assertEquals(0, bucket.count(day, day.minusDays(1)), bucket.name());
+        }
+    }
+
+    @Test
+    void forRangePicksTheFinestBucketThatFits() {
+        // A leap year starting on a Monday: 366 days, 53 weeks, 12 months, 4 quarters
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        LocalDate end = LocalDate.of(2024, 12, 31);
+
+        assertEquals(TimeBucket.DAY, TimeBucket.forRange(start, end, 366));
+        assertEquals(TimeBucket.WEEK, TimeBucket.forRange(start, end, 365));
+        assertEquals(TimeBucket.WEEK, TimeBucket.forRange(start, end, 53));
+        assertEquals(TimeBucket.MONTH, TimeBucket.forRange(start, end, 52));
+        assertEquals(TimeBucket.QUARTER, TimeBucket.forRange(start, end, 4));
+        assertEquals(TimeBucket.YEAR, TimeBucket.forRange(start, end, 3));
+        // Even the years do not fit
+        assertEquals(TimeBucket.YEAR, TimeBucket.forRange(LocalDate.of(2015, 6, 1), end, 5));
+    }
+}
@@ -0,0 +1,74 @@
+package com.analyfy.analify.Service.Analytics;
+
+import com.analyfy.analify.DTO.Statistics.TimeSeriesPoint;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimeSeriesEngineTest {
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2024, 1, 1);
+
+    @Test
+    void seriesNoLongerThanTheThresholdAreKept() {
+        List<TimeSeriesPoint> series = series(new double[]{1, 5, 2, 8});
+
+        assertSame(series, TimeSeriesEngine.lttb(series, 4));
+        assertSame(series, TimeSeriesEngine.lttb(series, 10));
+        assertSame(List.of(), TimeSeriesEngine.lttb(List.of(), 3));
+    }
+
+    @Test
+    void sampleKeepsTheEndsAndTheOrder() {
+        double[] values = new double[365];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.sin(i / 10.0) * 100;
+        }
+        List<TimeSeriesPoint> series = series(values);
+
+        List<TimeSeriesPoint> sampled = TimeSeriesEngine.lttb(series, 50);
+
+        assertEquals(50, sampled.size());
+        assertSame(series.get(0), sampled.get(0));
+        assertSame(series.get(series.size() - 1), sampled.get(sampled.size() - 1));
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(series.indexOf(sampled.get(i)) > series.indexOf(sampled.get(i - 1)), "point " + i);
+        }
+    }
+
+    @Test
+    void spikesSurviveTheSampling() {
+        double[] values = new double[200];
+        values[37] = 500;
+        values[121] = -300;
+        List<TimeSeriesPoint> series = series(values);
+
+        List<TimeSeriesPoint> sampled = TimeSeriesEngine.lttb(series, 10);
+
+        assertTrue(sampled.contains(series.get(37)));
+        assertTrue(sampled.contains(series.get(121)));
+    }
+
+    @Test
+    void thresholdsOfTwoOrLessKeepTheEnds() {
+        List<TimeSeriesPoint> series = series(new double[]{1, 9, 3, 7, 4});
+
+        assertEquals(List.of(series.get(0), series.get(4)), TimeSeriesEngine.lttb(series, 2));
+        assertEquals(List.of(series.get(0), series.get(4)), TimeSeriesEngine.lttb(series, 1));
+    }
+
+    // One point per day from FIRST_DAY
+    private static List<TimeSeriesPoint> series(double[] values) {
+        List<TimeSeriesPoint> points = new ArrayList<>();
+        for (int i = 0; i < values.length; i++) {
+            points.add(TimeSeriesPoint.builder().date(FIRST_DAY.plusDays(i).toString()).value(values[i]).build());
+        }
+        return points;
+    }
+}
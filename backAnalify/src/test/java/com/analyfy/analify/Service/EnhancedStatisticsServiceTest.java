@@ -0,0 +1,68 @@
+package com.analyfy.analify.Service;
+
+import com.analyfy.analify.DTO.Statistics.EnhancedDashboardDTO;
+import com.analyfy.analify.DTO.Statistics.StatisticsFilterDTO;
+import com.analyfy.analify.EmbeddedPostgresTest;
+import com.analyfy.analify.Enum.UserRole;
+import com.analyfy.analify.Service.Analytics.DashboardCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EnhancedStatisticsServiceTest extends EmbeddedPostgresTest {
+
+    private static final LocalDate TODAY = LocalDate.now();
+    private static final long INVESTOR = 4L;
+    private static final Set<String> INCLUDE = Set.of("salesKpis", "topProducts");
+
+    @Autowired
+    private EnhancedStatisticsService enhancedStatisticsService;
+
+    @Autowired
+    private DashboardCache dashboardCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void seed() {
+        seedOrders(80, 60, 3);
+        dashboardCache.clear();
+    }
+
+    @Test
+    void aPartialDashboardHasTheSameFieldsWhetherTheFullOneIsCachedOrNot() {
+        Map<String, Object> computed = fields(dashboard(INCLUDE));
+
+        Map<String, Object> full = fields(dashboard(null));
+        Map<String, Object> fromCachedFull = fields(dashboard(INCLUDE));
+
+        assertEquals(Set.of("totalRevenue", "totalOrders", "totalProductsSold", "averageOrderValue", "topProducts"),
+                computed.keySet());
+        assertEquals(computed, fromCachedFull);
+        assertTrue(full.keySet().containsAll(computed.keySet()) && full.size() > computed.size(), full.keySet().toString());
+    }
+
+    private EnhancedDashboardDTO dashboard(Set<String> include) {
+        StatisticsFilterDTO filter = StatisticsFilterDTO.builder().startDate(TODAY.minusDays(59)).endDate(TODAY).build();
+        return enhancedStatisticsService.getEnhancedDashboard(INVESTOR, UserRole.INVESTOR, filter, include);
+    }
+
+    // The fields a client receives: the non-null ones
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> fields(EnhancedDashboardDTO dashboard) {
+        Map<String, Object> fields = new TreeMap<>(objectMapper.convertValue(dashboard, Map.class));
+        fields.values().removeIf(Objects::isNull);
+        return fields;
+    }
+}